@@ -1,43 +1,295 @@
 package org.echocat.maven.plugins.hugo;
 
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.isDirectory;
+import static java.nio.file.Files.readAllBytes;
+import static java.nio.file.Files.write;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
 import static java.util.Optional.ofNullable;
+import static org.echocat.maven.plugins.hugo.model.ConfigAndOutput.configAndOutputOf;
+import static org.echocat.maven.plugins.hugo.utils.BuildScheduler.buildScheduler;
+import static org.echocat.maven.plugins.hugo.utils.BuildScheduler.task;
+import static org.echocat.maven.plugins.hugo.utils.FileSystemFingerprinter.fileSystemFingerprinter;
+import static org.echocat.maven.plugins.hugo.utils.FileSystems.createParentsOf;
+import static org.echocat.maven.plugins.hugo.utils.FileSystems.deleteQuietly;
+import static org.echocat.maven.plugins.hugo.utils.FileSystems.deleteRecursively;
+import static org.echocat.maven.plugins.hugo.utils.Fingerprinter.sha256Of;
+import static org.echocat.maven.plugins.hugo.utils.GitFingerprinter.gitFingerprinter;
+import static org.echocat.maven.plugins.hugo.utils.HugoConfigReader.hugoConfigReader;
+import static org.echocat.maven.plugins.hugo.utils.HugoInputs.hugoInputs;
+import static org.echocat.maven.plugins.hugo.utils.LanguageGroups.languageGroupsOf;
+import static org.echocat.maven.plugins.hugo.utils.ManifestGenerator.manifestGenerator;
+import static org.echocat.maven.plugins.hugo.utils.OutputMerger.outputMerger;
+import static org.echocat.maven.plugins.hugo.utils.OutputMerger.sourceOf;
+import static org.echocat.maven.plugins.hugo.utils.RenderSegments.renderSegmentsFor;
+import static org.echocat.maven.plugins.hugo.utils.Strings.parseBytes;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
+import javax.inject.Inject;
 
+import com.github.zafarkhaja.semver.Version;
+import org.apache.maven.model.Build;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
 import org.echocat.maven.plugins.hugo.model.Config;
 import org.echocat.maven.plugins.hugo.model.ConfigAndOutput;
+import org.echocat.maven.plugins.hugo.model.InputSet;
+import org.echocat.maven.plugins.hugo.utils.BuildContextSupport;
+import org.echocat.maven.plugins.hugo.utils.BuildContextSupport.Snapshot;
 import org.echocat.maven.plugins.hugo.utils.FailureException;
+import org.echocat.maven.plugins.hugo.utils.Fingerprinter;
+import org.echocat.maven.plugins.hugo.utils.Hugo;
+import org.echocat.maven.plugins.hugo.utils.LanguageGroups;
+import org.echocat.maven.plugins.hugo.utils.ManifestGenerator;
+import org.echocat.maven.plugins.hugo.utils.OutputMerger;
+import org.echocat.maven.plugins.hugo.utils.OutputMerger.OnConflict;
+import org.echocat.maven.plugins.hugo.utils.OutputPublisher;
+import org.echocat.maven.plugins.hugo.utils.OutputSwapper;
+import org.echocat.maven.plugins.hugo.utils.Precompressor;
+import org.echocat.maven.plugins.hugo.utils.RenderSegments;
+import org.echocat.maven.plugins.hugo.utils.WeightAnalyzer;
+import org.sonatype.plexus.build.incremental.BuildContext;
 
 public abstract class BaseBuildMojo extends BaseMojo {
 
+    @Nonnull
+    private static final Version RENDER_SEGMENTS_SINCE = Version.of(0, 124, 0);
+    private static final int MAX_REPORTED_VIOLATIONS = 50;
+    @Nonnull
+    private static final Pattern MEMORY_LIMIT_PATTERN = Pattern.compile("\\d+(B|KiB|MiB|GiB|TiB)?");
+
+    @Inject
+    private BuildContext buildContext;
+
     @Parameter(
         name = "resourcesTargetPath",
         defaultValue = "public"
     )
     private String resourcesTargetPath;
 
-    protected void execute(
-        @Nonnull ConfigAndOutput configAndOutput,
-        @Nonnull String targetPath
-    ) throws MojoExecutionException, MojoFailureException {
-        try {
-            final Config config = configAndOutput.config();
-            final Path output = configAndOutput.output();
+    @Parameter(
+        name = "buildConcurrency",
+        property = "hugo.buildConcurrency",
+        defaultValue = "1"
+    )
+    private int buildConcurrency;
 
-            hugo().execute(arguments(
-                config.parameterName(), config.path().toString(),
-                "--destination", output.toString()
-            ), workingDirectory());
+    @Parameter(
+        name = "skipIfUpToDate",
+        property = "hugo.skipIfUpToDate",
+        defaultValue = "false"
+    )
+    private boolean skipIfUpToDate;
 
-            log().info(""); // empty finish line
+    @Parameter(
+        name = "changeDetection",
+        property = "hugo.changeDetection",
+        defaultValue = "filesystem"
+    )
+    private ChangeDetection changeDetection;
 
-            project().ifPresent(v ->
-                v.addResource(toOutputResource(output, targetPath))
-            );
+    @Parameter(
+        name = "renderShards",
+        property = "hugo.renderShards",
+        defaultValue = "1"
+    )
+    private int renderShards;
+
+    @Parameter(
+        name = "renderSegments",
+        property = "hugo.renderSegments"
+    )
+    private List<String> renderSegments;
+
+    @Parameter(
+        name = "mergeConflicts",
+        property = "hugo.mergeConflicts",
+        defaultValue = "fail"
+    )
+    private OnConflict mergeConflicts;
+
+    @Parameter(
+        name = "splitLanguages",
+        property = "hugo.splitLanguages",
+        defaultValue = "false"
+    )
+    private boolean splitLanguages;
+
+    @Parameter(
+        name = "languageGroups",
+        property = "hugo.languageGroups"
+    )
+    private List<String> languageGroups;
+
+    @Parameter(
+        name = "processConcurrency",
+        property = "hugo.processConcurrency",
+        defaultValue = "0"
+    )
+    private int processConcurrency;
+
+    @Parameter(
+        name = "memoryLimit",
+        property = "hugo.memoryLimit"
+    )
+    private String memoryLimit;
+
+    @Parameter(
+        name = "outputMode",
+        property = "hugo.outputMode",
+        defaultValue = "resource"
+    )
+    private OutputMode outputMode;
+
+    @Parameter(
+        name = "precompress",
+        property = "hugo.precompress"
+    )
+    private List<Precompressor.Format> precompress;
+
+    @Parameter(
+        name = "precompressExtensions"
+    )
+    private List<String> precompressExtensions;
+
+    @Parameter(
+        name = "precompressMinSize",
+        property = "hugo.precompressMinSize",
+        defaultValue = "1KiB"
+    )
+    private String precompressMinSize;
+
+    @Parameter(
+        name = "precompressMaxRatio",
+        property = "hugo.precompressMaxRatio",
+        defaultValue = "0.9"
+    )
+    private double precompressMaxRatio;
+
+    @Parameter(
+        name = "precompressThreads",
+        property = "hugo.precompressThreads",
+        defaultValue = "0"
+    )
+    private int precompressThreads;
+
+    @Parameter(
+        name = "manifest",
+        property = "hugo.manifest",
+        defaultValue = "false"
+    )
+    private boolean manifest;
+
+    @Parameter(
+        name = "manifestDirectory",
+        property = "hugo.manifestDirectory",
+        defaultValue = "${project.build.directory}/hugo-manifests"
+    )
+    private File manifestDirectory;
+
+    @Parameter(
+        name = "stagedOutput",
+        property = "hugo.stagedOutput",
+        defaultValue = "false"
+    )
+    private boolean stagedOutput;
+
+    @Parameter(
+        name = "stagingDirectory",
+        property = "hugo.stagingDirectory"
+    )
+    private File stagingDirectory;
+
+    @Parameter(
+        name = "weightReport",
+        property = "hugo.weightReport",
+        defaultValue = "false"
+    )
+    private boolean weightReport;
+
+    @Parameter(
+        name = "weightReportEntries",
+        property = "hugo.weightReportEntries",
+        defaultValue = "10"
+    )
+    private int weightReportEntries;
+
+    @Parameter(
+        name = "weightBudget",
+        property = "hugo.weightBudget"
+    )
+    private String weightBudget;
+
+    @Parameter(
+        name = "pageWeightBudget",
+        property = "hugo.pageWeightBudget"
+    )
+    private String pageWeightBudget;
+
+    @Parameter(
+        name = "weightBudgetFile",
+        property = "hugo.weightBudgetFile"
+    )
+    private File weightBudgetFile;
+
+    @Parameter(
+        name = "failOnWeightBudget",
+        property = "hugo.failOnWeightBudget",
+        defaultValue = "false"
+    )
+    private boolean failOnWeightBudget;
+
+    // Shared by the parts of all builds of this execution; see processBudget().
+    private Semaphore processBudget;
+
+    protected void execute(@Nonnull List<Job> jobs) throws MojoExecutionException, MojoFailureException {
+        try {
+            final Hugo hugo = hugo();
+            final Optional<Path> classesDirectory = outputMode() != OutputMode.resource ? classesDirectory() : Optional.empty();
+            final List<Job> placedJobs = classesDirectory.isPresent() && outputMode() == OutputMode.direct
+                ? jobs.stream()
+                    .map(job -> new Job(job.name(), configAndOutputOf(
+                        job.configAndOutput().config(),
+                        classesDirectory.get().resolve(job.targetPath()),
+                        job.configAndOutput().environment().orElse(null)
+                    ), job.targetPath(), job.additionalArguments()))
+                    .collect(Collectors.toList())
+                : jobs;
+
+            buildAll(hugo, placedJobs);
+            afterBuilds(placedJobs);
+            reportWeights(placedJobs);
+
+            if (classesDirectory.isPresent()) {
+                if (outputMode() == OutputMode.link) {
+                    link(placedJobs, classesDirectory.get());
+                }
+            } else {
+                project().ifPresent(v -> jobs.forEach(job ->
+                    v.addResource(toOutputResource(job.configAndOutput().output(), job.targetPath()))
+                ));
+            }
         } catch (FailureException e) {
             throw new MojoFailureException(e.getMessage(), e);
         } catch (RuntimeException e) {
@@ -45,10 +297,712 @@ public abstract class BaseBuildMojo extends BaseMojo {
         }
     }
 
+    protected void buildAll(@Nonnull Hugo hugo, @Nonnull List<Job> jobs) throws FailureException {
+        buildScheduler()
+            .withLog(log())
+            // IDE build contexts are bound to the thread of the build.
+            .withConcurrency(buildContextSupport().active() ? 1 : buildConcurrency())
+            .build()
+            .run(jobs.stream()
+                .map(job -> task(job.name(), () -> {
+                    execute(hugo, job);
+                    return job;
+                }))
+                .collect(Collectors.toList()));
+    }
+
+    protected void execute(@Nonnull Hugo hugo, @Nonnull Job job) throws FailureException {
+        build(hugo, job);
+        postProcess(job);
+    }
+
+    // Everything which only works on the rendered output of the job; also for skipped builds.
+    protected void postProcess(@Nonnull Job job) throws FailureException {
+        final Path output = job.configAndOutput().output();
+        if (outputMode() == OutputMode.direct && classesDirectory().isPresent() && (!outputIncludes().isEmpty() || !outputExcludes().isEmpty())) {
+            final OutputPublisher.Report report = outputPublisher().prune(output);
+            log().info(format("Applied outputIncludes and outputExcludes to %s: %s.", job.name(), report));
+        }
+        // Also for skipped builds; variants which are up to date are cheap to detect.
+        if (!precompressFormats().isEmpty()) {
+            final Precompressor.Report report = precompressor().precompress(output);
+            log().info(format("Precompressed %s: %s.", job.name(), report));
+        }
+        if (manifest) {
+            final Path directory = manifestDirectory().resolve(job.targetPath());
+            final ManifestGenerator.Result result = manifestGenerator()
+                .withLog(log())
+                .build()
+                .update(output, directory.resolve("manifest.json"), directory.resolve("diff.json"));
+            log().info(format("Manifest of %s: %s.", job.name(), result));
+        }
+    }
+
+    // Weighs all outputs, compares them against the previous build and the budgets. Exceeded budgets are reported for
+    // all jobs before the build fails (if requested).
+    protected void reportWeights(@Nonnull List<Job> jobs) throws FailureException {
+        final WeightAnalyzer analyzer = weightAnalyzer();
+        if (!weightReport && !analyzer.hasBudgets()) {
+            return;
+        }
+        final List<String> violations = new ArrayList<>();
+        for (final Job job : jobs) {
+            final WeightAnalyzer.Report report = analyzer.analyze(
+                job.configAndOutput().output(),
+                stateDirectory().resolve("weights").resolve(job.targetPath()).resolve("weights.json")
+            );
+            log().info(format("Weight of %s: %s.", job.name(), report));
+            if (weightReport) {
+                report.details().forEach(line -> log().info("  " + line));
+            }
+            report.violations().forEach(violation -> violations.add(job.name() + ": " + violation));
+        }
+        if (violations.isEmpty()) {
+            return;
+        }
+        violations.stream().limit(MAX_REPORTED_VIOLATIONS).forEach(violation -> log().warn(violation));
+        if (violations.size() > MAX_REPORTED_VIOLATIONS) {
+            log().warn(format("... and %d more exceeded weight budgets.", violations.size() - MAX_REPORTED_VIOLATIONS));
+        }
+        if (failOnWeightBudget) {
+            throw new FailureException(format("%d weight budgets exceeded.", violations.size()));
+        }
+    }
+
+    // Called once all jobs are built (or skipped), before their output is published.
+    protected void afterBuilds(@Nonnull List<Job> jobs) throws FailureException {
+    }
+
+    // Called right before hugo renders the job, which is not the case if it is skipped.
+    protected void beforeRender(@Nonnull Job job) throws FailureException {
+    }
+
+    protected void build(@Nonnull Hugo hugo, @Nonnull Job job) throws FailureException {
+        final Config config = job.configAndOutput().config();
+        final Path output = job.configAndOutput().output();
+
+        final List<String> arguments = argumentsFor(job, config.path().toString(), output);
+
+        final BuildContextSupport buildContext = buildContextSupport();
+        if (buildContext.active() && buildContext.unchanged(inputSetOf(job), output)) {
+            log().info(format("-- %s has no relevant changes; skipping build --", job.name()));
+            return;
+        }
+
+        final Optional<String> fingerprint = skipIfUpToDate ? Optional.of(fingerprintOf(hugo, job, arguments)) : Optional.empty();
+        final Path fingerprintFile = fingerprintFileOf(output);
+        if (fingerprint.isPresent()) {
+            if (isDirectory(output) && fingerprint.equals(readFingerprint(fingerprintFile))) {
+                log().info(format("-- %s is up to date; skipping build --", job.name()));
+                return;
+            }
+            deleteQuietly(fingerprintFile);
+        }
+
+        beforeRender(job);
+        log().info(format("-- build %s --", job.name()));
+
+        final String problemsKey = output.toAbsolutePath().normalize().toString();
+        final Snapshot before = buildContext.snapshotOf(output);
+        buildContext.clearProblems(problemsKey, config.path());
+
+        // With stagedOutput hugo renders into a staging directory which replaces the output only on success.
+        final Optional<OutputSwapper> swapper = stagedOutput ? Optional.of(outputSwapper()) : Optional.empty();
+        final Optional<Path> staging = swapper.map(v -> v.prepare(output));
+        final Job renderJob = staging
+            .map(v -> new Job(job.name(), configAndOutputOf(config, v, job.configAndOutput().environment().orElse(null)), job.targetPath(), job.additionalArguments()))
+            .orElse(job);
+        final List<String> renderArguments = staging.isPresent()
+            ? argumentsFor(renderJob, config.path().toString(), staging.get())
+            : arguments;
+        boolean success = false;
+        try {
+            if (sharded() && splitLanguages()) {
+                throw new FailureException("Sharded rendering (renderShards, renderSegments) cannot be combined with splitLanguages.");
+            } else if (sharded()) {
+                executeSharded(hugo, renderJob);
+            } else if (splitLanguages()) {
+                executeLanguageGroups(hugo, renderJob, renderArguments);
+            } else {
+                hugo.execute(renderArguments, workingDirectory(), hugoEnvironment());
+            }
+            if (swapper.isPresent() && staging.isPresent()) {
+                if (!precompressFormats().isEmpty()) {
+                    final int carried = precompressor().carryOver(output, staging.get());
+                    log().debug(format("Carried over %d precompressed variants of unchanged files of %s.", carried, job.name()));
+                }
+                final OutputSwapper.Report report = swapper.get().swap(staging.get(), output);
+                log().debug(format("Output of %s %s.", job.name(), report));
+            }
+            success = true;
+        } catch (FailureException e) {
+            buildContext.reportProblems(problemsKey, workingDirectory(), config.path(), e);
+            throw e;
+        } finally {
+            if (!success && swapper.isPresent() && staging.isPresent()) {
+                swapper.get().discard(staging.get(), output);
+            }
+        }
+        buildContext.refreshChangesSince(before);
+
+        fingerprint.ifPresent(v -> writeFingerprint(fingerprintFile, v));
+
+        log().info(""); // empty finish line
+    }
+
+    protected void executeSharded(@Nonnull Hugo hugo, @Nonnull Job job) throws FailureException {
+        if (hugo.version().isLowerThan(RENDER_SEGMENTS_SINCE)) {
+            throw new FailureException(format("Sharded rendering requires hugo %s or newer but %s is used.", RENDER_SEGMENTS_SINCE, hugo.version()));
+        }
+        final Config config = job.configAndOutput().config();
+        final Path staging = stagingDirectoryOf(job.configAndOutput().output(), "shards");
+        deleteRecursively(staging);
+
+        final List<String> segments;
+        final String configArgument;
+        final List<String> additionalArguments = new ArrayList<>(job.additionalArguments());
+        if (!renderSegments().isEmpty()) {
+            segments = renderSegments();
+            configArgument = config.path().toString();
+        } else {
+            final Path contentDirectory = workingDirectory().resolve(hugoConfigReader()
+                .withEnvironment(job.configAndOutput().environment().orElse(null))
+                .build()
+                .read(config)
+                .getString("contentDir")
+                .orElse("content"));
+            final RenderSegments generated = renderSegmentsFor(contentDirectory, renderShards());
+            log().debug(format("Generated render segments of %s: %s", job.name(), generated.segments()));
+            final Path segmentsFile = staging.resolve("segments.toml");
+            writeString(segmentsFile, generated.toToml());
+            segments = generated.names();
+            configArgument = configArgumentWith(config, segmentsFile, additionalArguments);
+        }
+
+        final Job shardJob = new Job(job.name(), job.configAndOutput(), job.targetPath(), additionalArguments);
+        executeParts(hugo, job, staging, segments.stream()
+            .map(segment -> {
+                final Path output = staging.resolve(segment);
+                final List<String> arguments = new ArrayList<>(argumentsFor(shardJob, configArgument, output));
+                arguments.add("--renderSegments");
+                arguments.add(segment);
+                return new Part(segment, output, arguments, hugoEnvironment(), emptyList());
+            })
+            .collect(Collectors.toList()));
+    }
+
+    protected void executeLanguageGroups(@Nonnull Hugo hugo, @Nonnull Job job, @Nonnull List<String> arguments) throws FailureException {
+        final LanguageGroups groups = languageGroupsOf(hugoConfigReader()
+            .withEnvironment(job.configAndOutput().environment().orElse(null))
+            .build()
+            .read(job.configAndOutput().config()), languageGroups());
+        if (groups.groups().size() <= 1) {
+            log().info(format("%s has only one language group; it is built in one process.", job.name()));
+            hugo.execute(arguments, workingDirectory(), hugoEnvironment());
+            return;
+        }
+
+        // Each process only knows the languages of its own group; see splitLanguages in the README.
+        log().info(format("Rendering %s in the language groups %s; pages only link to translations of their own group"
+            + " and the sitemap index only lists the sitemaps of the group of the default language.", job.name(), groups.groups()));
+
+        final Path staging = stagingDirectoryOf(job.configAndOutput().output(), "languages");
+        deleteRecursively(staging);
+        executeParts(hugo, job, staging, groups.groups().stream()
+            .map(group -> {
+                final Path output = staging.resolve(group.name());
+                final Path overlay = staging.resolve(group.name() + ".toml");
+                writeString(overlay, group.toToml());
+                final List<String> additionalArguments = new ArrayList<>(job.additionalArguments());
+                final String configArgument = configArgumentWith(job.configAndOutput().config(), overlay, additionalArguments);
+                final Job groupJob = new Job(job.name(), job.configAndOutput(), job.targetPath(), additionalArguments);
+                return new Part(group.toString(), output, argumentsFor(groupJob, configArgument, output), hugoEnvironment(), group.outputPrefixes());
+            })
+            .collect(Collectors.toList()));
+    }
+
+    // The overlay is merged into the regular configuration as additional config file; later files win.
+    @Nonnull
+    protected String configArgumentWith(@Nonnull Config config, @Nonnull Path overlay, @Nonnull List<String> additionalArguments) {
+        if (config.type() == Config.Type.file) {
+            return config.path() + "," + overlay;
+        }
+        additionalArguments.add("--config");
+        additionalArguments.add(overlay.toString());
+        return config.path().toString();
+    }
+
+    protected void executeParts(@Nonnull Hugo hugo, @Nonnull Job job, @Nonnull Path staging, @Nonnull List<Part> parts) throws FailureException {
+        buildScheduler()
+            .withLog(log())
+            .withConcurrency(processConcurrency(parts.size()))
+            .build()
+            .run(parts.stream()
+                .map(part -> task(job.name() + " [" + part.name() + "]", () -> {
+                    final Semaphore budget = processBudget();
+                    acquire(budget);
+                    try {
+                        hugo.execute(part.arguments(), workingDirectory(), part.environment());
+                    } finally {
+                        budget.release();
+                    }
+                    return part;
+                }))
+                .collect(Collectors.toList()));
+
+        final OutputMerger.Report report = outputMerger()
+            .withLog(log())
+            .withOnConflict(mergeConflicts())
+            .build()
+            .mergeSources(parts.stream()
+                .map(part -> sourceOf(part.output(), part.outputPrefixes()))
+                .collect(Collectors.toList()), job.configAndOutput().output());
+        log().info(format("Merged %d parts of %s: %s.", parts.size(), job.name(), report));
+        deleteRecursively(staging);
+    }
+
+    // Instead of registering the output as resource (which would be copied again by the maven-resources-plugin)
+    // the files are linked to their final location.
+    protected void link(@Nonnull List<Job> jobs, @Nonnull Path classesDirectory) throws FailureException {
+        final OutputPublisher publisher = outputPublisher();
+        for (final Job job : jobs) {
+            final Path target = classesDirectory.resolve(job.targetPath());
+            final OutputPublisher.Report report = publisher.link(job.configAndOutput().output(), target);
+            log().info(format("Linked %s to %s: %s.", job.name(), target, report));
+        }
+    }
+
+    @Nonnull
+    protected OutputSwapper outputSwapper() throws FailureException {
+        return OutputSwapper.outputSwapper()
+            .withLog(log())
+            .withWorkDirectory(stateDirectory().resolve("swap"))
+            .withStagingBase(ofNullable(stagingDirectory).map(File::toPath).orElse(null))
+            .build();
+    }
+
+    protected boolean stagedOutput() {
+        return stagedOutput;
+    }
+
+    @Nonnull
+    protected OutputPublisher outputPublisher() throws FailureException {
+        return OutputPublisher.outputPublisher()
+            .withLog(log())
+            .withIncludes(outputIncludes())
+            .withExcludes(outputExcludes())
+            .build();
+    }
+
+    @Nonnull
+    protected List<String> argumentsFor(@Nonnull Job job, @Nonnull String configArgument, @Nonnull Path output) {
+        final List<String> result = new ArrayList<>(asList(
+            job.configAndOutput().config().parameterName(), configArgument
+        ));
+        result.addAll(job.additionalArguments());
+        result.add("--destination");
+        result.add(output.toString());
+        return arguments(job.configAndOutput().environment(), result);
+    }
+
+    @Nonnull
+    protected Path stagingDirectoryOf(@Nonnull Path output, @Nonnull String purpose) throws FailureException {
+        return stateDirectory()
+            .resolve(purpose)
+            .resolve(sha256Of(singletonList(output.toAbsolutePath().normalize().toString())).substring(0, 16));
+    }
+
+    private static void writeString(@Nonnull Path file, @Nonnull String content) throws UncheckedIOException {
+        try {
+            createParentsOf(file);
+            write(file, content.getBytes(UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot write %s.", file), e);
+        }
+    }
+
+    @Nonnull
+    protected InputSet inputSetOf(@Nonnull Job job) throws FailureException {
+        final InputSet result = hugoInputs()
+            .withWorkingDirectory(workingDirectory())
+            .withEnvironment(job.configAndOutput().environment().orElse(null))
+            .build()
+            .inputSetFor(job.configAndOutput().config());
+        log().debug(format("Inputs of %s: %s", job.name(), result));
+        return result;
+    }
+
+    @Nonnull
+    protected BuildContextSupport buildContextSupport() {
+        return BuildContextSupport.buildContextSupport()
+            .withLog(log())
+            .withBuildContext(buildContext)
+            .build();
+    }
+
+    @Nonnull
+    protected String fingerprintOf(@Nonnull Hugo hugo, @Nonnull Job job, @Nonnull List<String> arguments) throws FailureException {
+        final InputSet inputs = inputSetOf(job);
+
+        final List<String> lines = new ArrayList<>();
+        lines.add(fingerprinter().fingerprint(inputs));
+        lines.add(hugo.version().toString());
+        lines.add(workingDirectory().toAbsolutePath().toString());
+        lines.addAll(arguments);
+        return sha256Of(lines);
+    }
+
+    @Nonnull
+    protected Fingerprinter fingerprinter() throws FailureException {
+        if (changeDetection() == ChangeDetection.git) {
+            return gitFingerprinter()
+                .withLog(log())
+                .withWorkingDirectory(workingDirectory())
+                .withFallback(fileSystemFingerprinter())
+                .build();
+        }
+        return fileSystemFingerprinter();
+    }
+
+    @Nonnull
+    protected Path fingerprintFileOf(@Nonnull Path output) throws FailureException {
+        return stateDirectory()
+            .resolve("fingerprints")
+            .resolve(sha256Of(singletonList(output.toAbsolutePath().normalize().toString())).substring(0, 16));
+    }
+
+    @Nonnull
+    private static Optional<String> readFingerprint(@Nonnull Path file) {
+        try {
+            return Optional.of(new String(readAllBytes(file), UTF_8).trim());
+        } catch (IOException ignored) {
+            return Optional.empty();
+        }
+    }
+
+    private void writeFingerprint(@Nonnull Path file, @Nonnull String fingerprint) {
+        try {
+            createParentsOf(file);
+            write(file, fingerprint.getBytes(UTF_8));
+        } catch (IOException | UncheckedIOException e) {
+            log().warn(format("Cannot store fingerprint at %s; next build will not be skipped.", file), e);
+        }
+    }
+
+    @Nonnull
+    protected List<Job> jobsFor(
+        @Nonnull String name,
+        @Nonnull Config config,
+        @Nonnull Path output,
+        @Nonnull String targetPath
+    ) {
+        final List<String> environments = environments();
+        if (environments.isEmpty()) {
+            return singletonList(new Job(name, configAndOutputOf(config, output), targetPath));
+        }
+        if (environments.size() == 1) {
+            final String environment = environments.get(0);
+            return singletonList(new Job(name + " (" + environment + ")", configAndOutputOf(config, output, environment), targetPath));
+        }
+
+        final List<Job> result = new ArrayList<>(environments.size());
+        for (final String environment : environments) {
+            result.add(new Job(
+                name + " (" + environment + ")",
+                configAndOutputOf(config, output.resolve(environment), environment),
+                targetPath + "/" + environment
+            ));
+        }
+        return unmodifiableList(result);
+    }
+
     @Nonnull
     protected String resourcesTargetPath() {
         return ofNullable(resourcesTargetPath)
             .orElse("target");
     }
 
+    protected int buildConcurrency() {
+        return Math.max(1, buildConcurrency);
+    }
+
+    @Nonnull
+    protected Map<String, String> hugoEnvironment() throws FailureException {
+        final Map<String, String> result = new LinkedHashMap<>();
+        memoryLimit().ifPresent(v -> result.put("GOMEMLIMIT", v));
+        return result;
+    }
+
+    @Nonnull
+    protected Optional<String> memoryLimit() throws FailureException {
+        final Optional<String> result = ofNullable(memoryLimit)
+            .map(String::trim)
+            .filter(v -> !v.isEmpty());
+        if (result.isPresent() && !MEMORY_LIMIT_PATTERN.matcher(result.get()).matches()) {
+            throw new FailureException(format("Illegal memoryLimit: %s (expected something like 2GiB or 512MiB).", result.get()));
+        }
+        return result;
+    }
+
+    protected int processConcurrency() {
+        return processConcurrency > 0 ? processConcurrency : Runtime.getRuntime().availableProcessors();
+    }
+
+    protected int processConcurrency(int parts) {
+        return Math.max(1, Math.min(processConcurrency(), parts));
+    }
+
+    // Builds running at the same time (buildConcurrency) would otherwise multiply the processes of their parts.
+    @Nonnull
+    protected synchronized Semaphore processBudget() {
+        if (processBudget == null) {
+            processBudget = new Semaphore(Math.max(1, processConcurrency()), true);
+        }
+        return processBudget;
+    }
+
+    private static void acquire(@Nonnull Semaphore semaphore) {
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Was interrupted.", e);
+        }
+    }
+
+    protected boolean splitLanguages() {
+        return splitLanguages || !languageGroups().isEmpty();
+    }
+
+    @Nonnull
+    protected List<String> languageGroups() {
+        return ofNullable(languageGroups).orElse(emptyList()).stream()
+            .filter(Objects::nonNull)
+            .map(String::trim)
+            .filter(v -> !v.isEmpty())
+            .collect(Collectors.toList());
+    }
+
+    protected boolean sharded() {
+        return renderShards() > 1 || !renderSegments().isEmpty();
+    }
+
+    protected int renderShards() {
+        return Math.max(1, renderShards);
+    }
+
+    @Nonnull
+    protected List<String> renderSegments() {
+        return ofNullable(renderSegments).orElse(emptyList()).stream()
+            .filter(Objects::nonNull)
+            .map(String::trim)
+            .filter(v -> !v.isEmpty())
+            .distinct()
+            .collect(Collectors.toList());
+    }
+
+    @Nonnull
+    protected OnConflict mergeConflicts() {
+        return ofNullable(mergeConflicts)
+            .orElse(OnConflict.fail);
+    }
+
+    @Nonnull
+    protected Precompressor precompressor() throws FailureException {
+        final Precompressor.Builder builder = Precompressor.precompressor()
+            .withLog(log())
+            .withFormats(precompressFormats())
+            .withExtensions(precompressExtensions)
+            .withThreads(precompressThreads);
+        try {
+            builder.withMaxRatio(precompressMaxRatio);
+        } catch (IllegalArgumentException e) {
+            throw new FailureException(format("precompressMaxRatio is invalid: %s", e.getMessage()), e);
+        }
+        if (precompressMinSize != null && !precompressMinSize.trim().isEmpty()) {
+            try {
+                builder.withMinSize(parseBytes(precompressMinSize));
+            } catch (IllegalArgumentException e) {
+                throw new FailureException(format("precompressMinSize is invalid: %s", e.getMessage()), e);
+            }
+        }
+        return builder.build();
+    }
+
+    // The budgets of weightBudget and pageWeightBudget take precedence over the ones of the weightBudgetFile.
+    @Nonnull
+    protected WeightAnalyzer weightAnalyzer() throws FailureException {
+        final WeightAnalyzer.Builder builder = WeightAnalyzer.weightAnalyzer()
+            .withLog(log())
+            .withEntries(weightReportEntries);
+        if (weightBudgetFile != null) {
+            try {
+                builder.withBudgetFile(weightBudgetFile.toPath());
+            } catch (IllegalArgumentException e) {
+                throw new FailureException(format("weightBudgetFile is invalid: %s", e.getMessage()), e);
+            }
+        }
+        if (weightBudget != null && !weightBudget.trim().isEmpty()) {
+            try {
+                builder.withTotalBudget(parseBytes(weightBudget));
+            } catch (IllegalArgumentException e) {
+                throw new FailureException(format("weightBudget is invalid: %s", e.getMessage()), e);
+            }
+        }
+        if (pageWeightBudget != null && !pageWeightBudget.trim().isEmpty()) {
+            try {
+                builder.withPageBudget(parseBytes(pageWeightBudget));
+            } catch (IllegalArgumentException e) {
+                throw new FailureException(format("pageWeightBudget is invalid: %s", e.getMessage()), e);
+            }
+        }
+        return builder.build();
+    }
+
+    @Nonnull
+    protected List<Precompressor.Format> precompressFormats() {
+        return ofNullable(precompress).orElse(emptyList()).stream()
+            .filter(Objects::nonNull)
+            .distinct()
+            .collect(Collectors.toList());
+    }
+
+    @Nonnull
+    protected Path manifestDirectory() throws FailureException {
+        return ofNullable(manifestDirectory)
+            .map(File::toPath)
+            .orElseGet(() -> stateDirectory().resolve("manifests"));
+    }
+
+    @Nonnull
+    protected OutputMode outputMode() {
+        return ofNullable(outputMode)
+            .orElse(OutputMode.resource);
+    }
+
+    @Nonnull
+    protected Optional<Path> classesDirectory() {
+        return project()
+            .map(MavenProject::getBuild)
+            .map(Build::getOutputDirectory)
+            .map(Paths::get);
+    }
+
+    @Nonnull
+    protected ChangeDetection changeDetection() {
+        return ofNullable(changeDetection)
+            .orElse(ChangeDetection.filesystem);
+    }
+
+    public enum ChangeDetection {
+        filesystem,
+        git
+    }
+
+    public enum OutputMode {
+        resource,
+        direct,
+        link
+    }
+
+    protected static final class Part {
+
+        @Nonnull
+        private final String name;
+        @Nonnull
+        private final Path output;
+        @Nonnull
+        private final List<String> arguments;
+        @Nonnull
+        private final Map<String, String> environment;
+        @Nonnull
+        private final List<String> outputPrefixes;
+
+        public Part(@Nonnull String name, @Nonnull Path output, @Nonnull List<String> arguments, @Nonnull Map<String, String> environment, @Nonnull List<String> outputPrefixes) {
+            this.name = name;
+            this.output = output;
+            this.arguments = unmodifiableList(new ArrayList<>(arguments));
+            this.environment = unmodifiableMap(new LinkedHashMap<>(environment));
+            this.outputPrefixes = unmodifiableList(new ArrayList<>(outputPrefixes));
+        }
+
+        @Nonnull
+        public String name() {
+            return name;
+        }
+
+        @Nonnull
+        public Path output() {
+            return output;
+        }
+
+        @Nonnull
+        public List<String> arguments() {
+            return arguments;
+        }
+
+        @Nonnull
+        public Map<String, String> environment() {
+            return environment;
+        }
+
+        @Nonnull
+        public List<String> outputPrefixes() {
+            return outputPrefixes;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    protected static final class Job {
+
+        @Nonnull
+        private final String name;
+        @Nonnull
+        private final ConfigAndOutput configAndOutput;
+        @Nonnull
+        private final String targetPath;
+        @Nonnull
+        private final List<String> additionalArguments;
+
+        public Job(@Nonnull String name, @Nonnull ConfigAndOutput configAndOutput, @Nonnull String targetPath) {
+            this(name, configAndOutput, targetPath, emptyList());
+        }
+
+        public Job(@Nonnull String name, @Nonnull ConfigAndOutput configAndOutput, @Nonnull String targetPath, @Nonnull List<String> additionalArguments) {
+            this.name = name;
+            this.configAndOutput = configAndOutput;
+            this.targetPath = targetPath;
+            this.additionalArguments = unmodifiableList(new ArrayList<>(additionalArguments));
+        }
+
+        @Nonnull
+        public String name() {
+            return name;
+        }
+
+        @Nonnull
+        public ConfigAndOutput configAndOutput() {
+            return configAndOutput;
+        }
+
+        @Nonnull
+        public String targetPath() {
+            return targetPath;
+        }
+
+        @Nonnull
+        public List<String> additionalArguments() {
+            return additionalArguments;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + configAndOutput;
+        }
+    }
+
 }
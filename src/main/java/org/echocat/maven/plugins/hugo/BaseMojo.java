@@ -6,15 +6,22 @@ import static java.util.Collections.emptyList;
 import static java.util.Collections.unmodifiableList;
 import static java.util.Optional.ofNullable;
 import static org.echocat.maven.plugins.hugo.model.Platform.platform;
+import static org.echocat.maven.plugins.hugo.model.VersionRequirement.LATEST;
+import static org.echocat.maven.plugins.hugo.model.VersionRequirement.versionRequirementOf;
+import static org.echocat.maven.plugins.hugo.utils.Hugo.Download.always;
 import static org.echocat.maven.plugins.hugo.utils.Hugo.Download.onDemand;
+import static org.echocat.maven.plugins.hugo.utils.HugoReleaseIndex.hugoReleaseIndex;
 import static org.echocat.maven.plugins.hugo.utils.HugoVersionRetriever.hugoVersionRetriever;
+import static org.echocat.maven.plugins.hugo.utils.Strings.parseBytes;
 
 import java.io.File;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -24,16 +31,26 @@ import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
+import org.echocat.maven.plugins.hugo.model.Platform;
+import org.echocat.maven.plugins.hugo.model.VersionRequirement;
 import org.echocat.maven.plugins.hugo.utils.FailureException;
 import org.echocat.maven.plugins.hugo.utils.Hugo;
 import org.echocat.maven.plugins.hugo.utils.Hugo.Download;
+import org.echocat.maven.plugins.hugo.utils.HugoCache;
+import org.echocat.maven.plugins.hugo.utils.HugoReleaseIndex;
+import org.echocat.maven.plugins.hugo.utils.HugoResolutions;
+import org.echocat.maven.plugins.hugo.utils.HugoResolutions.Key;
+import org.echocat.maven.plugins.hugo.utils.HugoResolutions.Resolution;
 import org.echocat.maven.plugins.hugo.utils.HugoVersionRetriever;
 import org.echocat.maven.plugins.hugo.utils.HugoVersionRetriever.Builder;
+import org.echocat.maven.plugins.hugo.utils.HugoVersionRetriever.Fallback;
+import org.echocat.maven.plugins.hugo.utils.ProcessLimiter;
+import org.echocat.maven.plugins.hugo.utils.SystemHugoLocator;
+import org.echocat.maven.plugins.hugo.utils.Urls;
+import org.echocat.maven.plugins.hugo.utils.Urls.Timeouts;
 
 public abstract class BaseMojo extends AbstractMojo {
 
-    private static final String LATEST_VERSION = "latest";
-
     @Parameter(
         defaultValue = "${project}",
         readonly = true
@@ -43,7 +60,7 @@ public abstract class BaseMojo extends AbstractMojo {
     @Parameter(
         name = "version",
         property = "hugo.version",
-        defaultValue = LATEST_VERSION
+        defaultValue = LATEST
     )
     private String version;
 
@@ -61,6 +78,13 @@ public abstract class BaseMojo extends AbstractMojo {
     )
     private File workingDirectory;
 
+    @Parameter(
+        name = "stateDirectory",
+        property = "hugo.stateDirectory",
+        defaultValue = "${project.build.directory}/hugo-maven-plugin"
+    )
+    private File stateDirectory;
+
     @Parameter(
         name = "additionalArguments"
     )
@@ -82,27 +106,208 @@ public abstract class BaseMojo extends AbstractMojo {
     )
     private String environment;
 
+    @Parameter(
+        name = "environments",
+        property = "hugo.environments"
+    )
+    private List<String> environments;
+
     @Parameter(
         name = "latestVersionCacheDuration",
         property = "hugo.latestVersionCacheDuration"
     )
     private String latestVersionCacheDuration;
 
+    @Parameter(
+        name = "latestVersionStaleDuration",
+        property = "hugo.latestVersionStaleDuration"
+    )
+    private String latestVersionStaleDuration;
+
     @Parameter(
         name = "latestVersionCacheFile",
         property = "hugo.latestVersionCacheFile"
     )
     private File latestVersionCacheFile;
 
+    @Parameter(
+        name = "cacheMaxSize",
+        property = "hugo.cacheMaxSize"
+    )
+    private String cacheMaxSize;
+
+    @Parameter(
+        name = "cacheMaxAge",
+        property = "hugo.cacheMaxAge"
+    )
+    private String cacheMaxAge;
+
+    @Parameter(
+        name = "releaseIndexUrl",
+        property = "hugo.releaseIndexUrl"
+    )
+    private String releaseIndexUrl;
+
+    @Parameter(
+        name = "releaseIndexCacheDuration",
+        property = "hugo.releaseIndexCacheDuration"
+    )
+    private String releaseIndexCacheDuration;
+
+    @Parameter(
+        name = "resolutionCacheDuration",
+        property = "hugo.resolutionCacheDuration",
+        defaultValue = "PT1M"
+    )
+    private String resolutionCacheDuration;
+
+    @Parameter(
+        name = "connectTimeout",
+        property = "hugo.connectTimeout"
+    )
+    private String connectTimeout;
+
+    @Parameter(
+        name = "readTimeout",
+        property = "hugo.readTimeout"
+    )
+    private String readTimeout;
+
+    @Parameter(
+        name = "latestVersionFallback",
+        property = "hugo.latestVersionFallback",
+        defaultValue = "any"
+    )
+    private Fallback latestVersionFallback;
+
+    @Parameter(
+        name = "useSystemHugo",
+        property = "hugo.useSystemHugo",
+        defaultValue = "false"
+    )
+    private boolean useSystemHugo;
+
+    @Parameter(
+        name = "systemHugoLocations"
+    )
+    private List<File> systemHugoLocations;
+
+    @Parameter(
+        name = "processLimit",
+        property = "hugo.processLimit",
+        defaultValue = "0"
+    )
+    private int processLimit;
+
+    @Parameter(
+        name = "processLimitScope",
+        property = "hugo.processLimitScope",
+        defaultValue = "jvm"
+    )
+    private ProcessLimiter.Scope processLimitScope;
+
+    @Parameter(
+        name = "processLockDirectory",
+        property = "hugo.processLockDirectory"
+    )
+    private File processLockDirectory;
+
     @Nonnull
     protected Hugo hugo() throws FailureException {
+        final Resolution resolution = HugoResolutions.resolve(resolutionKey(), resolutionCacheDuration(), () -> {
+            final Hugo hugo = newHugo()
+                .withVersion(version())
+                .build();
+            return new Resolution(hugo.version(), hugo.executable());
+        });
+        log().debug(format("Using hugo %s.", resolution));
+
+        return newHugo()
+            .withVersion(resolution.version())
+            .withExecutable(resolution.executable())
+            .build();
+    }
+
+    @Nonnull
+    private Hugo.Builder newHugo() throws FailureException {
         return Hugo.hugo()
             .withLog(log())
-            .withVersion(version())
             .withDownload(download())
             .withPlatform(platform())
-            .build()
-            ;
+            .withCache(hugoCache())
+            .withSystemHugoLocator(systemHugoLocator().orElse(null))
+            .withProcessLimiter(processLimiter());
+    }
+
+    @Nonnull
+    protected ProcessLimiter processLimiter() {
+        return ProcessLimiter.processLimiter()
+            .withLog(log())
+            .withLimit(processLimit)
+            .withScope(processLimitScope)
+            .withLockDirectory(ofNullable(processLockDirectory).map(File::toPath).orElse(null))
+            .build();
+    }
+
+    @Nonnull
+    protected Key resolutionKey() throws FailureException {
+        return new Key(
+            requestedVersion(),
+            download(),
+            platform(),
+            ofNullable(latestVersionCacheFile)
+                .map(File::toPath)
+                .orElseGet(Platform::hugoCacheDirectory),
+            releaseIndexUrl,
+            latestVersionFallback,
+            useSystemHugo,
+            ofNullable(systemHugoLocations)
+                .map(files -> files.stream().map(File::toPath).collect(Collectors.toList()))
+                .orElse(emptyList())
+        );
+    }
+
+    @Nonnull
+    protected Duration resolutionCacheDuration() {
+        if (download() == always) {
+            return Duration.ZERO;
+        }
+        return ofNullable(resolutionCacheDuration)
+            .map(String::trim)
+            .filter(v -> !v.isEmpty())
+            .map(Duration::parse)
+            .orElse(Duration.ZERO);
+    }
+
+    @Nonnull
+    protected HugoCache hugoCache() throws FailureException {
+        final HugoCache.Builder builder = HugoCache.hugoCache()
+            .withLog(log());
+        if (cacheMaxSize != null && !cacheMaxSize.trim().isEmpty()) {
+            try {
+                builder.withMaxSize(parseBytes(cacheMaxSize));
+            } catch (IllegalArgumentException e) {
+                throw new FailureException(format("cacheMaxSize is invalid: %s", e.getMessage()), e);
+            }
+        }
+        if (cacheMaxAge != null && !cacheMaxAge.trim().isEmpty()) {
+            builder.withMaxAge(Duration.parse(cacheMaxAge.trim()));
+        }
+        return builder.build();
+    }
+
+    @Nonnull
+    protected Optional<SystemHugoLocator> systemHugoLocator() throws FailureException {
+        if (!useSystemHugo || download() == always) {
+            return Optional.empty();
+        }
+        return Optional.of(SystemHugoLocator.systemHugoLocator()
+            .withLog(log())
+            .withPlatform(platform())
+            .withLocations(ofNullable(systemHugoLocations)
+                .map(files -> files.stream().map(File::toPath).collect(Collectors.toList()))
+                .orElse(emptyList()))
+            .build());
     }
 
     @Nonnull
@@ -118,34 +323,107 @@ public abstract class BaseMojo extends AbstractMojo {
 
     @Nonnull
     protected Version version() throws FailureException {
-        String plain = Optional.ofNullable(this.version)
+        return resolveVersion(requestedVersion());
+    }
+
+    @Nonnull
+    protected String requestedVersion() {
+        return ofNullable(this.version)
             .map(String::trim)
             .filter(v -> !v.isEmpty())
-            .orElse(LATEST_VERSION);
+            .orElse(LATEST);
+    }
 
-        if (LATEST_VERSION.equalsIgnoreCase(plain)) {
-            return versionRetriever().latest();
+    @Nonnull
+    protected Version resolveVersion(@Nullable String requested) throws FailureException {
+        return resolveVersion(requested, platform());
+    }
+
+    // Resolves the version for the given platform, which is not necessarily the one of this machine (see prefetch).
+    @Nonnull
+    protected Version resolveVersion(@Nullable String requested, @Nonnull Platform platform) throws FailureException {
+        final VersionRequirement requirement = versionRequirementOf(requested);
+        switch (requirement.type()) {
+            case latest:
+                return versionRetriever(platform).latest();
+            case exact:
+                return requirement.exact()
+                    .orElseThrow(() -> new IllegalStateException(format("Exact version requirement %s without version.", requirement)));
+            default:
+                return resolveVersionRange(requirement, platform);
+        }
+    }
+
+    @Nonnull
+    protected Version resolveVersionRange(@Nonnull VersionRequirement requirement, @Nonnull Platform platform) throws FailureException {
+        final List<Version> installedVersions = new ArrayList<>(hugoCache().installedVersions(platform));
+        // System installations can only be used on (and for) the platform of this machine.
+        final Optional<SystemHugoLocator> systemHugoLocator = platform == platform() ? systemHugoLocator() : Optional.empty();
+        if (systemHugoLocator.isPresent()) {
+            installedVersions.addAll(systemHugoLocator.get().versions());
+        }
+        final Optional<Version> installed = requirement.highestMatching(installedVersions);
+        if (installed.isPresent()) {
+            log().debug(format("Using already installed hugo %s for version range %s.", installed.get(), requirement));
+            return installed.get();
         }
 
-        try {
-            return Version.parse(plain);
-        } catch (IllegalArgumentException ignored) {
-            throw new FailureException(format("Hugo version '%s' is not a valid semantic version.", plain));
+        final List<Version> available = releaseIndex().versions().stream()
+            .filter(v -> platform.platformSuffix(v).isPresent())
+            .collect(Collectors.toList());
+        final Version result = requirement.highestMatching(available)
+            .orElseThrow(() -> new FailureException(format("There is no hugo release for %s which matches version range %s.", platform, requirement)));
+        log().info(format("Resolved hugo version range %s to %s.", requirement, result));
+        return result;
+    }
+
+    @Nonnull
+    protected HugoReleaseIndex releaseIndex() throws FailureException {
+        final HugoReleaseIndex.Builder builder = hugoReleaseIndex()
+            .withLog(log());
+        if (releaseIndexUrl != null && !releaseIndexUrl.trim().isEmpty()) {
+            try {
+                builder.withUrl(Urls.parse(releaseIndexUrl.trim()));
+            } catch (IllegalArgumentException e) {
+                throw new FailureException(format("releaseIndexUrl '%s' is not a valid URL.", releaseIndexUrl), e);
+            }
+        }
+        if (releaseIndexCacheDuration != null && !releaseIndexCacheDuration.trim().isEmpty()) {
+            builder.withCacheDuration(Duration.parse(releaseIndexCacheDuration.trim()));
         }
+        return builder
+            .withTimeouts(timeouts())
+            .build();
     }
 
     @Nonnull
-    protected HugoVersionRetriever versionRetriever() throws FailureException {
+    protected HugoVersionRetriever versionRetriever(@Nonnull Platform platform) throws FailureException {
         final Builder builder = hugoVersionRetriever()
             .withLog(log());
         if (latestVersionCacheDuration != null && !latestVersionCacheDuration.isEmpty()) {
             builder.withLatestCacheDuration(Duration.parse(latestVersionCacheDuration));
         }
+        if (latestVersionStaleDuration != null && !latestVersionStaleDuration.isEmpty()) {
+            builder.withLatestStaleDuration(Duration.parse(latestVersionStaleDuration));
+        }
         if (latestVersionCacheFile != null) {
             builder.withLatestCacheFile(latestVersionCacheFile.toPath());
         }
 
-        return builder.build();
+        return builder
+            .withTimeouts(timeouts())
+            .withFallback(latestVersionFallback)
+            .withPlatform(platform)
+            .withCache(hugoCache())
+            .build();
+    }
+
+    @Nonnull
+    protected Timeouts timeouts() {
+        return Timeouts.timeouts(
+            ofNullable(connectTimeout).map(String::trim).filter(v -> !v.isEmpty()).map(Duration::parse).orElse(null),
+            ofNullable(readTimeout).map(String::trim).filter(v -> !v.isEmpty()).map(Duration::parse).orElse(null)
+        );
     }
 
     @Nonnull
@@ -161,6 +439,13 @@ public abstract class BaseMojo extends AbstractMojo {
             .orElseThrow(() -> new FailureException("workingDirectory property missing."));
     }
 
+    @Nonnull
+    protected Path stateDirectory() throws FailureException {
+        return ofNullable(stateDirectory)
+            .map(File::toPath)
+            .orElseGet(() -> workingDirectory().resolve("target").resolve("hugo-maven-plugin"));
+    }
+
     @Nonnull
     protected List<String> arguments(@Nullable String... args) {
         return arguments(args != null ? asList(args) : emptyList());
@@ -168,9 +453,14 @@ public abstract class BaseMojo extends AbstractMojo {
 
     @Nonnull
     protected List<String> arguments(@Nonnull List<String> input) {
+        return arguments(environment(), input);
+    }
+
+    @Nonnull
+    protected List<String> arguments(@Nonnull Optional<String> environment, @Nonnull List<String> input) {
         final List<String> result = new ArrayList<>(input);
 
-        environment().ifPresent(v -> {
+        environment.ifPresent(v -> {
             result.add("--environment");
             result.add(v);
         });
@@ -190,10 +480,35 @@ public abstract class BaseMojo extends AbstractMojo {
         return result;
     }
 
+    @Nonnull
+    protected List<String> outputIncludes() {
+        return ofNullable(outputIncludes).orElse(emptyList());
+    }
+
+    @Nonnull
+    protected List<String> outputExcludes() {
+        return ofNullable(outputExcludes).orElse(emptyList());
+    }
+
     @Nonnull
     protected Optional<String> environment() {
         return ofNullable(environment);
     }
 
+    @Nonnull
+    protected List<String> environments() {
+        final List<String> result = new ArrayList<>();
+        ofNullable(environments).orElse(emptyList()).stream()
+            .filter(Objects::nonNull)
+            .map(String::trim)
+            .filter(v -> !v.isEmpty())
+            .filter(v -> !result.contains(v))
+            .forEach(result::add);
+        if (result.isEmpty()) {
+            environment().ifPresent(result::add);
+        }
+        return unmodifiableList(result);
+    }
+
 
 }
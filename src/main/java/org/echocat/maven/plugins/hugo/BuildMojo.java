@@ -3,7 +3,6 @@ package org.echocat.maven.plugins.hugo;
 import static java.util.Optional.ofNullable;
 import static org.apache.maven.plugins.annotations.LifecyclePhase.GENERATE_RESOURCES;
 import static org.echocat.maven.plugins.hugo.model.Config.configOf;
-import static org.echocat.maven.plugins.hugo.model.ConfigAndOutput.configAndOutputOf;
 
 import java.io.File;
 import java.nio.file.Path;
@@ -14,7 +13,6 @@ import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.echocat.maven.plugins.hugo.model.Config;
-import org.echocat.maven.plugins.hugo.model.ConfigAndOutput;
 import org.echocat.maven.plugins.hugo.utils.FailureException;
 
 @Mojo(
@@ -41,15 +39,15 @@ public class BuildMojo extends BaseBuildMojo {
 
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
-        execute(configAndOutput(), resourcesTargetPath());
-    }
-
-    @Nonnull
-    protected ConfigAndOutput configAndOutput() throws FailureException {
-        return configAndOutputOf(
-            config(),
-            output()
-        );
+        final Config config;
+        final Path output;
+        try {
+            config = config();
+            output = output();
+        } catch (FailureException e) {
+            throw new MojoFailureException(e.getMessage(), e);
+        }
+        execute(jobsFor(config.name(), config, output, resourcesTargetPath()));
     }
 
     @Nonnull
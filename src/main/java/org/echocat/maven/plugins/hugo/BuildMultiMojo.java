@@ -6,28 +6,28 @@ import static java.util.Optional.ofNullable;
 import static org.apache.maven.plugins.annotations.LifecyclePhase.GENERATE_RESOURCES;
 import static org.echocat.maven.plugins.hugo.model.Config.configOf;
 import static org.echocat.maven.plugins.hugo.model.ConfigAndOutput.configAndOutputOf;
+import static org.echocat.maven.plugins.hugo.utils.ConfigDiscovery.configDiscovery;
+import static org.echocat.maven.plugins.hugo.utils.Strings.parseBytes;
 
 import java.io.File;
-import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
-import org.codehaus.plexus.util.SelectorUtils;
 import org.echocat.maven.plugins.hugo.model.Config;
 import org.echocat.maven.plugins.hugo.model.ConfigAndOutput;
+import org.echocat.maven.plugins.hugo.utils.BuildPipeline;
 import org.echocat.maven.plugins.hugo.utils.FailureException;
+import org.echocat.maven.plugins.hugo.utils.Hugo;
+import org.echocat.maven.plugins.hugo.utils.OutputDeduplicator;
 
 @Mojo(
     name = "build-multi",
@@ -36,6 +36,8 @@ import org.echocat.maven.plugins.hugo.utils.FailureException;
 )
 public class BuildMultiMojo extends BaseBuildMojo {
 
+    private static final int TIMELINE_WIDTH = 40;
+
     @Parameter(
         name = "configBase",
         property = "hugo.configBase",
@@ -53,6 +55,13 @@ public class BuildMultiMojo extends BaseBuildMojo {
     )
     private List<String> configExcludes;
 
+    @Parameter(
+        name = "configDiscoveryCache",
+        property = "hugo.configDiscoveryCache",
+        defaultValue = "true"
+    )
+    private boolean configDiscoveryCache;
+
     @Parameter(
         name = "outputBase",
         property = "hugo.outputBase",
@@ -61,14 +70,135 @@ public class BuildMultiMojo extends BaseBuildMojo {
     )
     private File outputBase;
 
+    @Parameter(
+        name = "deduplicate",
+        property = "hugo.deduplicate",
+        defaultValue = "false"
+    )
+    private boolean deduplicate;
+
+    @Parameter(
+        name = "deduplicateMinSize",
+        property = "hugo.deduplicateMinSize",
+        defaultValue = "1KiB"
+    )
+    private String deduplicateMinSize;
+
+    @Parameter(
+        name = "deduplicateThreads",
+        property = "hugo.deduplicateThreads",
+        defaultValue = "0"
+    )
+    private int deduplicateThreads;
+
+    @Parameter(
+        name = "pipeline",
+        property = "hugo.pipeline",
+        defaultValue = "false"
+    )
+    private boolean pipeline;
+
+    @Parameter(
+        name = "pipelineDepth",
+        property = "hugo.pipelineDepth",
+        defaultValue = "2"
+    )
+    private int pipelineDepth;
+
+    @Parameter(
+        name = "postProcessThreads",
+        property = "hugo.postProcessThreads",
+        defaultValue = "1"
+    )
+    private int postProcessThreads;
+
+    // Outputs of all jobs of this execution; only links between them are created by deduplication.
+    @Nonnull
+    private List<Path> outputs = Collections.emptyList();
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
-        for (final ConfigAndOutput configAndOutput : configAndOutputs()) {
-            log().info(format("-- build %s --", configAndOutput.config().name()));
+        final List<Job> jobs = new ArrayList<>();
+        try {
+            for (final ConfigAndOutput configAndOutput : configAndOutputs()) {
+                final String relativeName = relativeNameOf(configAndOutput.config());
+                final String targetPath = resourcesTargetPath() + "/" + relativeName;
+                jobs.addAll(jobsFor(relativeName, configAndOutput.config(), configAndOutput.output(), targetPath));
+            }
+        } catch (FailureException e) {
+            throw new MojoFailureException(e.getMessage(), e);
+        }
+        execute(jobs);
+    }
+
+    // Post processing (precompression, manifests, ...) of one configuration runs while the next one is rendered.
+    @Override
+    protected void buildAll(@Nonnull Hugo hugo, @Nonnull List<Job> jobs) throws FailureException {
+        outputs = outputsOf(jobs);
+        // IDE build contexts are bound to the thread of the build.
+        if (!pipeline || jobs.size() <= 1 || buildContextSupport().active()) {
+            super.buildAll(hugo, jobs);
+            return;
+        }
+        final BuildPipeline.Report report = buildPipeline().run(jobs, Job::name, job -> build(hugo, job), this::postProcess);
+        log().info(format("Finished %s.", report));
+        log().info("Timeline (R rendering, P post processing, - waiting for post processing):");
+        report.timeline(TIMELINE_WIDTH).forEach(line -> log().info("  " + line));
+    }
+
+    @Nonnull
+    protected BuildPipeline buildPipeline() {
+        return BuildPipeline.buildPipeline()
+            .withLog(log())
+            .withRenderConcurrency(buildConcurrency())
+            .withPostProcessThreads(postProcessThreads)
+            .withDepth(pipelineDepth)
+            .build();
+    }
+
+    // Files which are the same in several outputs (like images, scripts and fonts) are stored only once.
+    @Override
+    protected void afterBuilds(@Nonnull List<Job> jobs) throws FailureException {
+        if (!deduplicate) {
+            return;
+        }
+        final OutputDeduplicator.Report report = outputDeduplicator().deduplicate(outputsOf(jobs));
+        log().info(format("Deduplicated outputs: %s.", report));
+    }
+
+    @Override
+    protected void beforeRender(@Nonnull Job job) throws FailureException {
+        // Staged builds render into a fresh directory anyway.
+        if (!deduplicate || stagedOutput()) {
+            return;
+        }
+        final int unshared = outputDeduplicator().unshare(job.configAndOutput().output(), outputs);
+        if (unshared > 0) {
+            log().debug(format("Removed %d shared files of %s before rendering it.", unshared, job.name()));
+        }
+    }
+
+    @Nonnull
+    protected static List<Path> outputsOf(@Nonnull List<Job> jobs) {
+        return jobs.stream()
+            .map(job -> job.configAndOutput().output())
+            .distinct()
+            .collect(Collectors.toList());
+    }
 
-            final String targetPath = resourcesTargetPath() + "/" + configAndOutput.config().name();
-            execute(configAndOutput, targetPath);
+    @Nonnull
+    protected OutputDeduplicator outputDeduplicator() throws FailureException {
+        final OutputDeduplicator.Builder builder = OutputDeduplicator.outputDeduplicator()
+            .withLog(log())
+            .withThreads(deduplicateThreads);
+        if (deduplicateMinSize != null && !deduplicateMinSize.trim().isEmpty()) {
+            try {
+                builder.withMinSize(parseBytes(deduplicateMinSize));
+            } catch (IllegalArgumentException e) {
+                throw new FailureException(format("deduplicateMinSize is invalid: %s", e.getMessage()), e);
+            }
         }
+        return builder.build();
     }
 
     @Nonnull
@@ -96,42 +226,33 @@ public class BuildMultiMojo extends BaseBuildMojo {
 
     @Nonnull
     protected List<Path> configPaths() throws UncheckedIOException, FailureException {
-        final Path configBase = configBase();
-        try (final Stream<Path> candidates = Files.list(configBase)) {
-            return unmodifiableList(candidates
-                .filter(this::allowedConfig)
-                .collect(Collectors.toList()));
-        } catch (IOException e) {
-            throw new RuntimeException(format("Cannot collect potential config paths from %s", configBase), e);
-        }
-    }
-
-    private boolean allowedConfig(@Nonnull Path candidate) {
-        final String fileName = candidate.getFileName().toString();
-        return matchesOneOf(fileName, configIncludes(), true)
-            && !matchesOneOf(fileName, configExcludes(), false);
-    }
-
-    private boolean matchesOneOf(@Nonnull String str, @Nonnull Collection<String> patterns, boolean def) {
-        if (patterns.isEmpty()) {
-            return def;
-        }
-        for (final String pattern : patterns) {
-            if (SelectorUtils.match(pattern, str)) {
-                return true;
-            }
-        }
-        return false;
+        return configDiscovery()
+            .withLog(log())
+            .withBase(configBase())
+            .withIncludes(configIncludes())
+            .withExcludes(configExcludes())
+            .withCacheDirectory(configDiscoveryCache ? stateDirectory() : null)
+            .build()
+            .discover();
     }
 
     @Nonnull
     protected ConfigAndOutput configAndOutputFor(@Nonnull Config config) throws FailureException {
         return configAndOutputOf(
             config,
-            outputBase().resolve(config.name())
+            outputBase().resolve(relativeNameOf(config))
         );
     }
 
+    @Nonnull
+    protected String relativeNameOf(@Nonnull Config config) throws FailureException {
+        final Path parent = configBase().relativize(config.path()).getParent();
+        if (parent == null) {
+            return config.name();
+        }
+        return parent.toString().replace(File.separatorChar, '/') + "/" + config.name();
+    }
+
     @Nonnull
     protected List<String> configIncludes() {
         return ofNullable(configIncludes)
@@ -0,0 +1,53 @@
+package org.echocat.maven.plugins.hugo;
+
+import static java.lang.String.format;
+import static org.echocat.maven.plugins.hugo.utils.Strings.formatBytes;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.echocat.maven.plugins.hugo.utils.FailureException;
+import org.echocat.maven.plugins.hugo.utils.HugoCache;
+import org.echocat.maven.plugins.hugo.utils.HugoCache.Entry;
+import org.echocat.maven.plugins.hugo.utils.HugoCache.Eviction;
+
+@Mojo(
+    name = "cache-clean",
+    requiresProject = false
+)
+public class CacheCleanMojo extends BaseMojo {
+
+    @Parameter(
+        name = "cacheCleanAll",
+        property = "hugo.cacheCleanAll",
+        defaultValue = "false"
+    )
+    private boolean cacheCleanAll;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        try {
+            final HugoCache cache = hugoCache();
+            final boolean limited = cache.maxSize().isPresent() || cache.maxAge().isPresent();
+            if (!limited && !cacheCleanAll) {
+                throw new FailureException(format("Neither cacheMaxSize nor cacheMaxAge is configured; set cacheCleanAll to true to remove all hugo binaries from %s.", cache.directory()));
+            }
+            if (!limited) {
+                log().info(format("cacheCleanAll is set; removing all hugo binaries from %s.", cache.directory()));
+            }
+
+            final Eviction eviction = limited ? cache.evict() : cache.evictAll();
+            for (final Entry entry : eviction.evicted()) {
+                log().info(format("Removed %s (%s, last used at %s).", entry, formatBytes(entry.size()), entry.lastUsed()));
+            }
+            log().info(format("Freed %s by removing %d hugo binaries; %s remaining in %s.",
+                formatBytes(eviction.freed()), eviction.evicted().size(), formatBytes(eviction.remaining()), cache.directory()));
+        } catch (FailureException e) {
+            throw new MojoFailureException(e.getMessage(), e);
+        } catch (RuntimeException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+    }
+
+}
@@ -0,0 +1,201 @@
+package org.echocat.maven.plugins.hugo;
+
+import static java.lang.String.format;
+import static java.util.Optional.ofNullable;
+import static org.apache.maven.plugins.annotations.LifecyclePhase.PACKAGE;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeSet;
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectHelper;
+import org.echocat.maven.plugins.hugo.utils.ArchivePacker;
+import org.echocat.maven.plugins.hugo.utils.FailureException;
+
+@Mojo(
+    name = "package",
+    defaultPhase = PACKAGE
+)
+public class PackageMojo extends BaseMojo {
+
+    @Inject
+    private MavenProjectHelper projectHelper;
+
+    @Parameter(
+        name = "packageDirectory",
+        property = "hugo.packageDirectory",
+        defaultValue = "${project.build.directory}/generated-resources/hugo",
+        required = true
+    )
+    private File packageDirectory;
+
+    @Parameter(
+        name = "packageClassifier",
+        property = "hugo.packageClassifier",
+        defaultValue = "site"
+    )
+    private String packageClassifier;
+
+    @Parameter(
+        name = "packageClassifiers"
+    )
+    private Properties packageClassifiers;
+
+    @Parameter(
+        name = "packageType",
+        property = "hugo.packageType",
+        defaultValue = "zip"
+    )
+    private String packageType;
+
+    @Parameter(
+        name = "packageCompressionLevel",
+        property = "hugo.packageCompressionLevel",
+        defaultValue = "6"
+    )
+    private int packageCompressionLevel;
+
+    @Parameter(
+        name = "packageThreads",
+        property = "hugo.packageThreads",
+        defaultValue = "0"
+    )
+    private int packageThreads;
+
+    @Parameter(
+        name = "packageStoredExtensions"
+    )
+    private List<String> packageStoredExtensions;
+
+    @Parameter(
+        name = "packageTimestamp",
+        property = "hugo.packageTimestamp",
+        defaultValue = "${project.build.outputTimestamp}"
+    )
+    private String packageTimestamp;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        try {
+            final MavenProject project = project()
+                .orElseThrow(() -> new FailureException("Packaging requires a project."));
+            final ArchivePacker packer = archivePacker();
+
+            for (final Map.Entry<Path, String> entry : packages().entrySet()) {
+                final Path directory = entry.getKey();
+                final String classifier = entry.getValue();
+                final Path target = archiveFileOf(project, classifier);
+                final ArchivePacker.Report report = packer.pack(directory, target);
+                log().info(format("Packed %s into %s: %s.", directory, target, report));
+                projectHelper.attachArtifact(project, packageType(), classifier, target.toFile());
+            }
+        } catch (FailureException e) {
+            throw new MojoFailureException(e.getMessage(), e);
+        } catch (RuntimeException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+    }
+
+    @Nonnull
+    protected ArchivePacker archivePacker() throws FailureException {
+        final ArchivePacker.Builder builder = ArchivePacker.archivePacker()
+            .withLog(log())
+            .withThreads(packageThreads)
+            .withTimestamp(packageTimestamp().orElse(null))
+            .withStoredExtensions(packageStoredExtensions);
+        try {
+            builder.withLevel(packageCompressionLevel);
+        } catch (IllegalArgumentException e) {
+            throw new FailureException(format("packageCompressionLevel is invalid: %s", e.getMessage()), e);
+        }
+        return builder.build();
+    }
+
+    // Directory to pack -> classifier of the attached artifact.
+    @Nonnull
+    protected Map<Path, String> packages() throws FailureException {
+        final Map<Path, String> result = new LinkedHashMap<>();
+        final Properties classifiers = ofNullable(packageClassifiers).orElseGet(Properties::new);
+        if (classifiers.isEmpty()) {
+            result.put(packageDirectory(), classifierOf(packageClassifier, "packageClassifier"));
+            return result;
+        }
+        final List<String> used = new ArrayList<>();
+        for (final String name : new TreeSet<>(classifiers.stringPropertyNames())) {
+            final String classifier = classifierOf(classifiers.getProperty(name), "packageClassifiers/" + name);
+            if (used.contains(classifier)) {
+                throw new FailureException(format("Classifier %s is used for more than one package.", classifier));
+            }
+            used.add(classifier);
+            result.put(packageDirectory().resolve(name), classifier);
+        }
+        return result;
+    }
+
+    @Nonnull
+    private static String classifierOf(String plain, @Nonnull String parameter) throws FailureException {
+        return ofNullable(plain)
+            .map(String::trim)
+            .filter(v -> !v.isEmpty())
+            .orElseThrow(() -> new FailureException(format("No classifier configured at %s.", parameter)));
+    }
+
+    @Nonnull
+    protected Path archiveFileOf(@Nonnull MavenProject project, @Nonnull String classifier) {
+        return Paths.get(project.getBuild().getDirectory())
+            .resolve(project.getBuild().getFinalName() + "-" + classifier + "." + packageType());
+    }
+
+    @Nonnull
+    protected Path packageDirectory() throws FailureException {
+        return ofNullable(packageDirectory)
+            .map(File::toPath)
+            .orElseThrow(() -> new FailureException("packageDirectory property missing."));
+    }
+
+    @Nonnull
+    protected String packageType() {
+        return ofNullable(packageType)
+            .map(String::trim)
+            .filter(v -> !v.isEmpty())
+            .orElse("zip");
+    }
+
+    // Same formats as project.build.outputTimestamp: ISO-8601 or seconds since the epoch.
+    @Nonnull
+    protected Optional<Instant> packageTimestamp() throws FailureException {
+        final Optional<String> plain = ofNullable(packageTimestamp)
+            .map(String::trim)
+            // Maven uses single characters to explicitly disable reproducible timestamps.
+            .filter(v -> v.length() > 1);
+        if (!plain.isPresent()) {
+            return Optional.empty();
+        }
+        try {
+            if (plain.get().chars().allMatch(Character::isDigit)) {
+                return Optional.of(Instant.ofEpochSecond(Long.parseLong(plain.get())));
+            }
+            return Optional.of(OffsetDateTime.parse(plain.get()).toInstant());
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new FailureException(format("Illegal packageTimestamp: %s", plain.get()), e);
+        }
+    }
+
+}
@@ -0,0 +1,221 @@
+package org.echocat.maven.plugins.hugo;
+
+import static java.lang.String.format;
+import static java.lang.System.currentTimeMillis;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.unmodifiableList;
+import static org.echocat.maven.plugins.hugo.model.Platform.platform;
+import static org.echocat.maven.plugins.hugo.utils.Hugo.Download.always;
+import static org.echocat.maven.plugins.hugo.utils.HugoDownloader.hugoDownloader;
+import static org.echocat.maven.plugins.hugo.utils.Strings.formatBytes;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+
+import com.github.zafarkhaja.semver.Version;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.echocat.maven.plugins.hugo.model.Platform;
+import org.echocat.maven.plugins.hugo.utils.FailureException;
+import org.echocat.maven.plugins.hugo.utils.HugoDownloader;
+
+@Mojo(
+    name = "prefetch",
+    requiresProject = false
+)
+public class PrefetchMojo extends BaseMojo {
+
+    @Parameter(
+        name = "versions",
+        property = "hugo.versions"
+    )
+    private List<String> versions;
+
+    @Parameter(
+        name = "platforms",
+        property = "hugo.platforms"
+    )
+    private List<Platform> platforms;
+
+    @Parameter(
+        name = "prefetchParallelism",
+        property = "hugo.prefetchParallelism",
+        defaultValue = "4"
+    )
+    private int prefetchParallelism;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        try {
+            final List<Entry> entries = entries();
+            final long start = currentTimeMillis();
+            final Summary summary = prefetch(entries);
+            final long duration = currentTimeMillis() - start;
+
+            log().info(format("Prefetched %d of %d hugo binaries (%d already installed): %s downloaded in %.1fs.",
+                summary.downloaded.get(), entries.size(), summary.skipped.get(),
+                formatBytes(summary.bytes()), duration / 1000d
+            ));
+        } catch (FailureException e) {
+            throw new MojoFailureException(e.getMessage(), e);
+        } catch (RuntimeException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+    }
+
+    @Nonnull
+    protected Summary prefetch(@Nonnull List<Entry> entries) throws FailureException {
+        final Summary summary = new Summary();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(prefetchParallelism, entries.size())));
+        try {
+            final List<Future<?>> futures = new ArrayList<>(entries.size());
+            for (final Entry entry : entries) {
+                futures.add(executor.submit(() -> prefetch(entry, summary)));
+            }
+
+            final List<String> problems = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    log().error(format("Cannot prefetch %s.", entries.get(i)), e.getCause());
+                    problems.add(entries.get(i).toString());
+                }
+            }
+            if (!problems.isEmpty()) {
+                throw new FailureException(format("Prefetch failed for: %s", String.join(", ", problems)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Was interrupted.", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        return summary;
+    }
+
+    private void prefetch(@Nonnull Entry entry, @Nonnull Summary summary) throws FailureException {
+        final Log log = log();
+        if (download() != always && installed(entry)) {
+            log.info(format("hugo %s for %s is already installed.", entry.version, entry.platform));
+            summary.skipped.incrementAndGet();
+            return;
+        }
+        if (!entry.platform.packageDownloadUrlFor(entry.version).isPresent()) {
+            log.warn(format("No binary available for combination of version %s and platform %s; skipping.", entry.version, entry.platform));
+            summary.skipped.incrementAndGet();
+            return;
+        }
+        summary.add(install(entry));
+    }
+
+    protected boolean installed(@Nonnull Entry entry) throws FailureException {
+        return downloaderFor(entry).installed(entry.version);
+    }
+
+    // Returns the number of downloaded bytes.
+    protected long install(@Nonnull Entry entry) throws FailureException {
+        return downloaderFor(entry).download(entry.version, entry.executable());
+    }
+
+    @Nonnull
+    private HugoDownloader downloaderFor(@Nonnull Entry entry) throws FailureException {
+        return hugoDownloader()
+            .withLog(log())
+            .withPlatform(entry.platform)
+            .build();
+    }
+
+    @Nonnull
+    protected List<Entry> entries() throws FailureException {
+        final Set<Entry> result = new LinkedHashSet<>();
+        for (final String requested : versions()) {
+            for (final Platform platform : platforms()) {
+                result.add(new Entry(resolveVersion(requested, platform), platform));
+            }
+        }
+        return unmodifiableList(new ArrayList<>(result));
+    }
+
+    @Nonnull
+    protected List<String> versions() throws FailureException {
+        if (versions == null || versions.isEmpty()) {
+            return singletonList(version().toString());
+        }
+        return unmodifiableList(new ArrayList<>(versions));
+    }
+
+    @Nonnull
+    protected List<Platform> platforms() throws FailureException {
+        if (platforms == null || platforms.isEmpty()) {
+            return singletonList(platform());
+        }
+        return unmodifiableList(new ArrayList<>(platforms));
+    }
+
+    protected static final class Entry {
+
+        @Nonnull
+        private final Version version;
+        @Nonnull
+        private final Platform platform;
+
+        private Entry(@Nonnull Version version, @Nonnull Platform platform) {
+            this.version = version;
+            this.platform = platform;
+        }
+
+        @Nonnull
+        private Path executable() {
+            return platform.hugoExecutable(version);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {return true;}
+            if (o == null || getClass() != o.getClass()) {return false;}
+            final Entry that = (Entry) o;
+            return version.equals(that.version) && platform == that.platform;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(version, platform);
+        }
+
+        @Override
+        public String toString() {
+            return format("%s@%s", version, platform);
+        }
+    }
+
+    protected static final class Summary {
+
+        private final AtomicInteger downloaded = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private long bytes;
+
+        private synchronized void add(long bytes) {
+            this.bytes += bytes;
+            downloaded.incrementAndGet();
+        }
+
+        private synchronized long bytes() {
+            return bytes;
+        }
+    }
+
+}
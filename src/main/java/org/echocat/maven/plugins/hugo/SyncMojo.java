@@ -0,0 +1,261 @@
+package org.echocat.maven.plugins.hugo;
+
+import static java.lang.String.format;
+import static java.util.Optional.ofNullable;
+import static org.echocat.maven.plugins.hugo.utils.S3Signer.credentialsOf;
+import static org.echocat.maven.plugins.hugo.utils.Strings.parseBytes;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+import javax.annotation.Nonnull;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.settings.Server;
+import org.apache.maven.settings.Settings;
+import org.echocat.maven.plugins.hugo.utils.FailureException;
+import org.echocat.maven.plugins.hugo.utils.FileSystemSyncTarget;
+import org.echocat.maven.plugins.hugo.utils.ManifestGenerator;
+import org.echocat.maven.plugins.hugo.utils.S3Signer;
+import org.echocat.maven.plugins.hugo.utils.S3Signer.Credentials;
+import org.echocat.maven.plugins.hugo.utils.S3SyncTarget;
+import org.echocat.maven.plugins.hugo.utils.SyncTarget;
+import org.echocat.maven.plugins.hugo.utils.Synchronizer;
+
+@Mojo(
+    name = "sync"
+)
+public class SyncMojo extends BaseMojo {
+
+    @Parameter(
+        defaultValue = "${settings}",
+        readonly = true
+    )
+    private Settings settings;
+
+    @Parameter(
+        name = "syncDirectory",
+        property = "hugo.syncDirectory",
+        defaultValue = "${project.build.directory}/generated-resources/hugo",
+        required = true
+    )
+    private File syncDirectory;
+
+    @Parameter(
+        name = "syncTarget",
+        property = "hugo.syncTarget"
+    )
+    private String syncTarget;
+
+    @Parameter(
+        name = "syncEndpoint",
+        property = "hugo.syncEndpoint"
+    )
+    private String syncEndpoint;
+
+    @Parameter(
+        name = "syncRegion",
+        property = "hugo.syncRegion",
+        defaultValue = "us-east-1"
+    )
+    private String syncRegion;
+
+    @Parameter(
+        name = "syncPathStyle",
+        property = "hugo.syncPathStyle"
+    )
+    private Boolean syncPathStyle;
+
+    @Parameter(
+        name = "syncServerId",
+        property = "hugo.syncServerId"
+    )
+    private String syncServerId;
+
+    @Parameter(
+        name = "syncDelete",
+        property = "hugo.syncDelete",
+        defaultValue = "false"
+    )
+    private boolean syncDelete;
+
+    @Parameter(
+        name = "syncDryRun",
+        property = "hugo.syncDryRun",
+        defaultValue = "false"
+    )
+    private boolean syncDryRun;
+
+    @Parameter(
+        name = "syncConcurrency",
+        property = "hugo.syncConcurrency",
+        defaultValue = "8"
+    )
+    private int syncConcurrency;
+
+    @Parameter(
+        name = "syncPartSize",
+        property = "hugo.syncPartSize",
+        defaultValue = "16MiB"
+    )
+    private String syncPartSize;
+
+    @Parameter(
+        name = "syncMultipartThreshold",
+        property = "hugo.syncMultipartThreshold",
+        defaultValue = "16MiB"
+    )
+    private String syncMultipartThreshold;
+
+    @Parameter(
+        name = "syncCacheControls"
+    )
+    private List<String> syncCacheControls;
+
+    @Parameter(
+        name = "syncManifestKey",
+        property = "hugo.syncManifestKey",
+        defaultValue = Synchronizer.DEFAULT_MANIFEST_KEY
+    )
+    private String syncManifestKey;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        try {
+            final Path directory = syncDirectory();
+            final ManifestGenerator.Result local = ManifestGenerator.manifestGenerator()
+                .withLog(log())
+                .build()
+                .update(directory, stateDirectory().resolve("sync").resolve("manifest.json"), stateDirectory().resolve("sync").resolve("diff.json"));
+            log().debug(format("Manifest of %s: %s", directory, local));
+
+            final Synchronizer synchronizer = synchronizer();
+            final Synchronizer.Report report = synchronizer.sync(directory, local.manifest());
+            log().info(format("Synchronized %s with %s: %s.", directory, synchronizer.target(), report));
+        } catch (FailureException e) {
+            throw new MojoFailureException(e.getMessage(), e);
+        } catch (RuntimeException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+    }
+
+    @Nonnull
+    protected Synchronizer synchronizer() throws FailureException {
+        final Synchronizer.Builder builder = Synchronizer.synchronizer()
+            .withLog(log())
+            .withTarget(target())
+            .withConcurrency(syncConcurrency)
+            .withDelete(syncDelete)
+            .withDryRun(syncDryRun)
+            .withManifestKey(syncManifestKey);
+        try {
+            builder.withCacheControls(syncCacheControls);
+        } catch (IllegalArgumentException e) {
+            throw new FailureException(format("syncCacheControls is invalid: %s", e.getMessage()), e);
+        }
+        return builder.build();
+    }
+
+    // s3://<bucket>/<prefix> or a local directory.
+    @Nonnull
+    protected SyncTarget target() throws FailureException {
+        final String plain = ofNullable(syncTarget)
+            .map(String::trim)
+            .filter(v -> !v.isEmpty())
+            .orElseThrow(() -> new FailureException("syncTarget property missing."));
+        if (!plain.startsWith("s3://")) {
+            return FileSystemSyncTarget.fileSystemSyncTarget()
+                .withLog(log())
+                .withRoot(Paths.get(plain))
+                .build();
+        }
+
+        final String location = plain.substring("s3://".length());
+        final int slash = location.indexOf('/');
+        final String bucket = slash >= 0 ? location.substring(0, slash) : location;
+        if (bucket.isEmpty()) {
+            throw new FailureException(format("syncTarget %s does not contain a bucket.", plain));
+        }
+        final Optional<URI> endpoint = syncEndpoint();
+        final S3SyncTarget.Builder builder = S3SyncTarget.s3SyncTarget()
+            .withLog(log())
+            .withSigner(S3Signer.s3Signer()
+                .withCredentials(credentials())
+                .withRegion(syncRegion)
+                .build())
+            .withBucket(bucket)
+            .withPrefix(slash >= 0 ? location.substring(slash + 1) : "")
+            // Stand-ins like MinIO usually do not resolve buckets as sub domains.
+            .withPathStyle(ofNullable(syncPathStyle).orElse(endpoint.isPresent()))
+            .withTimeouts(timeouts());
+        try {
+            builder.withEndpoint(endpoint.orElse(null));
+        } catch (IllegalArgumentException e) {
+            throw new FailureException(format("syncEndpoint is invalid: %s", e.getMessage()), e);
+        }
+        try {
+            builder.withPartSize(parseBytes(syncPartSize));
+        } catch (IllegalArgumentException e) {
+            throw new FailureException(format("syncPartSize is invalid: %s", e.getMessage()), e);
+        }
+        try {
+            builder.withMultipartThreshold(parseBytes(syncMultipartThreshold));
+        } catch (IllegalArgumentException e) {
+            throw new FailureException(format("syncMultipartThreshold is invalid: %s", e.getMessage()), e);
+        }
+        return builder.build();
+    }
+
+    // Username and password of the server syncServerId of the settings.xml, otherwise the usual AWS_* environment variables.
+    @Nonnull
+    protected Credentials credentials() throws FailureException {
+        final Optional<String> serverId = ofNullable(syncServerId)
+            .map(String::trim)
+            .filter(v -> !v.isEmpty());
+        if (serverId.isPresent()) {
+            final Server server = ofNullable(settings)
+                .map(v -> v.getServer(serverId.get()))
+                .orElseThrow(() -> new FailureException(format("There is no server %s configured in the settings.xml.", serverId.get())));
+            if (server.getUsername() == null || server.getPassword() == null) {
+                throw new FailureException(format("Server %s of the settings.xml requires username (access key) and password (secret key).", serverId.get()));
+            }
+            return credentialsOf(server.getUsername(), server.getPassword(), null);
+        }
+        final String accessKey = System.getenv("AWS_ACCESS_KEY_ID");
+        final String secretKey = System.getenv("AWS_SECRET_ACCESS_KEY");
+        if (accessKey == null || secretKey == null) {
+            throw new FailureException("Neither syncServerId nor AWS_ACCESS_KEY_ID and AWS_SECRET_ACCESS_KEY are configured.");
+        }
+        return credentialsOf(accessKey, secretKey, System.getenv("AWS_SESSION_TOKEN"));
+    }
+
+    @Nonnull
+    protected Optional<URI> syncEndpoint() throws FailureException {
+        final Optional<String> plain = ofNullable(syncEndpoint)
+            .map(String::trim)
+            .filter(v -> !v.isEmpty());
+        if (!plain.isPresent()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new URI(plain.get()));
+        } catch (URISyntaxException e) {
+            throw new FailureException(format("syncEndpoint is invalid: %s", e.getMessage()), e);
+        }
+    }
+
+    @Nonnull
+    protected Path syncDirectory() throws FailureException {
+        return ofNullable(syncDirectory)
+            .map(File::toPath)
+            .orElseThrow(() -> new FailureException("syncDirectory property missing."));
+    }
+
+}
@@ -2,7 +2,9 @@ package org.echocat.maven.plugins.hugo.model;
 
 import java.nio.file.Path;
 import java.util.Objects;
+import java.util.Optional;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 public final class ConfigAndOutput {
 
@@ -11,20 +13,33 @@ public final class ConfigAndOutput {
         @Nonnull Config config,
         @Nonnull Path output
     ) {
-        return new ConfigAndOutput(config, output);
+        return configAndOutputOf(config, output, null);
+    }
+
+    @Nonnull
+    public static ConfigAndOutput configAndOutputOf(
+        @Nonnull Config config,
+        @Nonnull Path output,
+        @Nullable String environment
+    ) {
+        return new ConfigAndOutput(config, output, environment);
     }
 
     @Nonnull
     private final Config config;
     @Nonnull
     private final Path output;
+    @Nonnull
+    private final Optional<String> environment;
 
     private ConfigAndOutput(
         @Nonnull Config config,
-        @Nonnull Path output
+        @Nonnull Path output,
+        @Nullable String environment
     ) {
         this.config = config;
         this.output = output;
+        this.environment = Optional.ofNullable(environment);
     }
 
     @Nonnull
@@ -37,21 +52,26 @@ public final class ConfigAndOutput {
         return output;
     }
 
+    @Nonnull
+    public Optional<String> environment() {
+        return environment;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {return true;}
         if (o == null || getClass() != o.getClass()) {return false;}
         final ConfigAndOutput that = (ConfigAndOutput) o;
-        return config.equals(that.config) && output.equals(that.output);
+        return config.equals(that.config) && output.equals(that.output) && environment.equals(that.environment);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(config, output);
+        return Objects.hash(config, output, environment);
     }
 
     @Override
     public String toString() {
-        return config() + " -> " + output();
+        return config() + environment().map(v -> " (" + v + ")").orElse("") + " -> " + output();
     }
 }
@@ -0,0 +1,56 @@
+package org.echocat.maven.plugins.hugo.model;
+
+import static java.util.Collections.unmodifiableList;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+
+public final class InputSet {
+
+    @Nonnull
+    public static InputSet inputSetOf(@Nonnull Collection<Path> roots) {
+        return new InputSet(roots);
+    }
+
+    @Nonnull
+    private final List<Path> roots;
+
+    private InputSet(@Nonnull Collection<Path> roots) {
+        this.roots = unmodifiableList(roots.stream()
+            .map(Path::toAbsolutePath)
+            .map(Path::normalize)
+            .distinct()
+            .sorted(Comparator.comparing(Path::toString))
+            .filter(candidate -> roots.stream()
+                .map(Path::toAbsolutePath)
+                .map(Path::normalize)
+                .noneMatch(other -> !other.equals(candidate) && candidate.startsWith(other)))
+            .collect(Collectors.toList()));
+    }
+
+    @Nonnull
+    public List<Path> roots() {
+        return roots;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {return true;}
+        if (o == null || getClass() != o.getClass()) {return false;}
+        return roots.equals(((InputSet) o).roots);
+    }
+
+    @Override
+    public int hashCode() {
+        return roots.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return roots.toString();
+    }
+}
@@ -0,0 +1,268 @@
+package org.echocat.maven.plugins.hugo.model;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import javax.annotation.Nonnull;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+public final class Manifest {
+
+    private static final int FORMAT_VERSION = 1;
+
+    @Nonnull
+    public static Manifest manifestOf(@Nonnull Collection<Entry> entries) {
+        final Map<String, Entry> byPath = new TreeMap<>();
+        entries.forEach(entry -> byPath.put(entry.path(), entry));
+        return new Manifest(byPath);
+    }
+
+    @Nonnull
+    public static Manifest emptyManifest() {
+        return new Manifest(new TreeMap<>());
+    }
+
+    @Nonnull
+    public static Manifest manifestFromJson(@Nonnull String json) throws IllegalArgumentException {
+        try {
+            final JSONObject root = new JSONObject(json);
+            if (root.optInt("version") != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported manifest version: " + root.opt("version"));
+            }
+            final JSONArray files = root.getJSONArray("files");
+            final List<Entry> entries = new ArrayList<>(files.length());
+            for (int i = 0; i < files.length(); i++) {
+                final JSONObject file = files.getJSONObject(i);
+                entries.add(entryOf(
+                    file.getString("path"),
+                    file.getLong("size"),
+                    file.optLong("lastModified"),
+                    file.getString("sha256"),
+                    file.optString("contentType", "application/octet-stream")
+                ));
+            }
+            return manifestOf(entries);
+        } catch (JSONException e) {
+            throw new IllegalArgumentException("Illegal manifest: " + e.getMessage(), e);
+        }
+    }
+
+    @Nonnull
+    public static Entry entryOf(@Nonnull String path, long size, long lastModified, @Nonnull String sha256, @Nonnull String contentType) {
+        return new Entry(path, size, lastModified, sha256, contentType);
+    }
+
+    @Nonnull
+    private final Map<String, Entry> entries;
+
+    private Manifest(@Nonnull Map<String, Entry> entries) {
+        this.entries = unmodifiableMap(entries);
+    }
+
+    // Sorted by path.
+    @Nonnull
+    public Collection<Entry> entries() {
+        return entries.values();
+    }
+
+    @Nonnull
+    public Optional<Entry> get(@Nonnull String path) {
+        return Optional.ofNullable(entries.get(path));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long bytes() {
+        return entries.values().stream()
+            .mapToLong(Entry::size)
+            .sum();
+    }
+
+    @Nonnull
+    public Diff diffSince(@Nonnull Manifest previous) {
+        final List<String> added = new ArrayList<>();
+        final List<String> changed = new ArrayList<>();
+        final List<String> removed = new ArrayList<>();
+        for (final Entry entry : entries()) {
+            final Optional<Entry> before = previous.get(entry.path());
+            if (!before.isPresent()) {
+                added.add(entry.path());
+            } else if (!before.get().sameContentAs(entry)) {
+                changed.add(entry.path());
+            }
+        }
+        for (final Entry entry : previous.entries()) {
+            if (!entries.containsKey(entry.path())) {
+                removed.add(entry.path());
+            }
+        }
+        return new Diff(added, changed, removed);
+    }
+
+    @Nonnull
+    public String toJson() {
+        final JSONArray files = new JSONArray();
+        for (final Entry entry : entries()) {
+            files.put(new JSONObject()
+                .put("path", entry.path())
+                .put("size", entry.size())
+                .put("lastModified", entry.lastModified())
+                .put("sha256", entry.sha256())
+                .put("contentType", entry.contentType()));
+        }
+        return new JSONObject()
+            .put("version", FORMAT_VERSION)
+            .put("files", files)
+            .toString(1);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {return true;}
+        if (o == null || getClass() != o.getClass()) {return false;}
+        return entries.equals(((Manifest) o).entries);
+    }
+
+    @Override
+    public int hashCode() {
+        return entries.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return entries.values().toString();
+    }
+
+    public static final class Entry {
+
+        @Nonnull
+        private final String path;
+        private final long size;
+        private final long lastModified;
+        @Nonnull
+        private final String sha256;
+        @Nonnull
+        private final String contentType;
+
+        private Entry(@Nonnull String path, long size, long lastModified, @Nonnull String sha256, @Nonnull String contentType) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.sha256 = sha256;
+            this.contentType = contentType;
+        }
+
+        // Relative to the output, always separated by /.
+        @Nonnull
+        public String path() {
+            return path;
+        }
+
+        public long size() {
+            return size;
+        }
+
+        // Milliseconds since the epoch; only used to decide if the hash of a file can be reused.
+        public long lastModified() {
+            return lastModified;
+        }
+
+        @Nonnull
+        public String sha256() {
+            return sha256;
+        }
+
+        @Nonnull
+        public String contentType() {
+            return contentType;
+        }
+
+        public boolean sameContentAs(@Nonnull Entry other) {
+            return size == other.size && sha256.equals(other.sha256);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {return true;}
+            if (o == null || getClass() != o.getClass()) {return false;}
+            final Entry that = (Entry) o;
+            return size == that.size
+                && lastModified == that.lastModified
+                && path.equals(that.path)
+                && sha256.equals(that.sha256)
+                && contentType.equals(that.contentType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, size, lastModified, sha256, contentType);
+        }
+
+        @Override
+        public String toString() {
+            return path + "{size=" + size + ", sha256=" + sha256 + "}";
+        }
+    }
+
+    public static final class Diff {
+
+        @Nonnull
+        private final List<String> added;
+        @Nonnull
+        private final List<String> changed;
+        @Nonnull
+        private final List<String> removed;
+
+        private Diff(@Nonnull List<String> added, @Nonnull List<String> changed, @Nonnull List<String> removed) {
+            this.added = unmodifiableList(added);
+            this.changed = unmodifiableList(changed);
+            this.removed = unmodifiableList(removed);
+        }
+
+        @Nonnull
+        public List<String> added() {
+            return added;
+        }
+
+        @Nonnull
+        public List<String> changed() {
+            return changed;
+        }
+
+        @Nonnull
+        public List<String> removed() {
+            return removed;
+        }
+
+        public boolean empty() {
+            return added.isEmpty() && changed.isEmpty() && removed.isEmpty();
+        }
+
+        @Nonnull
+        public String toJson() {
+            return new JSONObject()
+                .put("added", new JSONArray(added))
+                .put("changed", new JSONArray(changed))
+                .put("removed", new JSONArray(removed))
+                .toString(1);
+        }
+
+        @Override
+        public String toString() {
+            return added.size() + " added, " + changed.size() + " changed, " + removed.size() + " removed";
+        }
+    }
+
+}
@@ -0,0 +1,193 @@
+package org.echocat.maven.plugins.hugo.model;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.Nonnull;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+// Bytes of an output, aggregated by top level section and file type, together with its largest files and heaviest pages.
+public final class OutputWeights {
+
+    private static final int FORMAT_VERSION = 1;
+
+    @Nonnull
+    public static OutputWeights outputWeightsOf(
+        int files,
+        long total,
+        @Nonnull Map<String, Long> sections,
+        @Nonnull Map<String, Long> types,
+        @Nonnull List<Weight> largestFiles,
+        @Nonnull List<Weight> heaviestPages
+    ) {
+        return new OutputWeights(files, total, new TreeMap<>(sections), new TreeMap<>(types), new ArrayList<>(largestFiles), new ArrayList<>(heaviestPages));
+    }
+
+    @Nonnull
+    public static Weight weightOf(@Nonnull String path, long bytes) {
+        return new Weight(path, bytes);
+    }
+
+    @Nonnull
+    public static OutputWeights outputWeightsFromJson(@Nonnull String json) throws IllegalArgumentException {
+        try {
+            final JSONObject root = new JSONObject(json);
+            if (root.optInt("version") != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported weights version: " + root.opt("version"));
+            }
+            return new OutputWeights(
+                root.getInt("files"),
+                root.getLong("total"),
+                bytesOf(root.getJSONObject("sections")),
+                bytesOf(root.getJSONObject("types")),
+                weightsOf(root.getJSONArray("largestFiles")),
+                weightsOf(root.getJSONArray("heaviestPages"))
+            );
+        } catch (JSONException e) {
+            throw new IllegalArgumentException("Illegal weights: " + e.getMessage(), e);
+        }
+    }
+
+    @Nonnull
+    private static Map<String, Long> bytesOf(@Nonnull JSONObject json) {
+        final Map<String, Long> result = new TreeMap<>();
+        json.keySet().forEach(key -> result.put(key, json.getLong(key)));
+        return result;
+    }
+
+    @Nonnull
+    private static List<Weight> weightsOf(@Nonnull JSONArray json) {
+        final List<Weight> result = new ArrayList<>(json.length());
+        for (int i = 0; i < json.length(); i++) {
+            final JSONObject weight = json.getJSONObject(i);
+            result.add(weightOf(weight.getString("path"), weight.getLong("bytes")));
+        }
+        return result;
+    }
+
+    private final int files;
+    private final long total;
+    @Nonnull
+    private final Map<String, Long> sections;
+    @Nonnull
+    private final Map<String, Long> types;
+    @Nonnull
+    private final List<Weight> largestFiles;
+    @Nonnull
+    private final List<Weight> heaviestPages;
+
+    private OutputWeights(int files, long total, @Nonnull Map<String, Long> sections, @Nonnull Map<String, Long> types, @Nonnull List<Weight> largestFiles, @Nonnull List<Weight> heaviestPages) {
+        this.files = files;
+        this.total = total;
+        this.sections = unmodifiableMap(sections);
+        this.types = unmodifiableMap(types);
+        this.largestFiles = unmodifiableList(largestFiles);
+        this.heaviestPages = unmodifiableList(heaviestPages);
+    }
+
+    public int files() {
+        return files;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    // By first directory of the path; files directly inside the output are in section "/".
+    @Nonnull
+    public Map<String, Long> sections() {
+        return sections;
+    }
+
+    // By lower case extension; files without one are of type "".
+    @Nonnull
+    public Map<String, Long> types() {
+        return types;
+    }
+
+    @Nonnull
+    public List<Weight> largestFiles() {
+        return largestFiles;
+    }
+
+    // HTML and the referenced local assets of each page.
+    @Nonnull
+    public List<Weight> heaviestPages() {
+        return heaviestPages;
+    }
+
+    @Nonnull
+    public String toJson() {
+        return new JSONObject()
+            .put("version", FORMAT_VERSION)
+            .put("files", files)
+            .put("total", total)
+            .put("sections", new JSONObject(sections))
+            .put("types", new JSONObject(types))
+            .put("largestFiles", toJson(largestFiles))
+            .put("heaviestPages", toJson(heaviestPages))
+            .toString(1);
+    }
+
+    @Nonnull
+    private static JSONArray toJson(@Nonnull List<Weight> weights) {
+        final JSONArray result = new JSONArray();
+        weights.forEach(weight -> result.put(new JSONObject()
+            .put("path", weight.path())
+            .put("bytes", weight.bytes())));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return files + " files with " + total + " bytes";
+    }
+
+    public static final class Weight {
+
+        @Nonnull
+        private final String path;
+        private final long bytes;
+
+        private Weight(@Nonnull String path, long bytes) {
+            this.path = path;
+            this.bytes = bytes;
+        }
+
+        // Relative to the output, always separated by /.
+        @Nonnull
+        public String path() {
+            return path;
+        }
+
+        public long bytes() {
+            return bytes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {return true;}
+            if (o == null || getClass() != o.getClass()) {return false;}
+            final Weight that = (Weight) o;
+            return bytes == that.bytes && path.equals(that.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return path.hashCode() * 31 + Long.hashCode(bytes);
+        }
+
+        @Override
+        public String toString() {
+            return path + "=" + bytes;
+        }
+    }
+
+}
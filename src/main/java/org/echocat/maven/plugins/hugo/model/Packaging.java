@@ -3,17 +3,26 @@ package org.echocat.maven.plugins.hugo.model;
 import static java.lang.String.format;
 import static java.nio.file.Files.newInputStream;
 import static java.nio.file.Files.newOutputStream;
+import static java.util.Collections.singletonMap;
+import static java.util.Collections.unmodifiableSet;
 import static java.util.Objects.requireNonNull;
 
 import java.io.*;
 import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.zip.GZIPInputStream;
 import javax.annotation.Nonnull;
 
 import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.ArchiveInputStream;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.apache.commons.io.IOUtils;
 import org.echocat.maven.plugins.hugo.utils.FailureException;
 
@@ -29,6 +38,28 @@ public enum Packaging {
         protected ArchiveInputStream<?> open(@Nonnull InputStream is) {
             return new ZipArchiveInputStream(is);
         }
+
+        @Nonnull
+        @Override
+        public Set<String> extract(@Nonnull Path from, @Nonnull Map<String, Path> files) throws UncheckedIOException {
+            final Set<String> result = new LinkedHashSet<>();
+            try (final ZipFile archive = ZipFile.builder().setPath(from).get()) {
+                final Enumeration<ZipArchiveEntry> entries = archive.getEntries();
+                while (entries.hasMoreElements() && result.size() < files.size()) {
+                    final ZipArchiveEntry entry = entries.nextElement();
+                    final Optional<String> file = matching(entry, files, result);
+                    if (file.isPresent()) {
+                        try (final InputStream is = archive.getInputStream(entry)) {
+                            copy(is, files.get(file.get()));
+                        }
+                        result.add(file.get());
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(format("Cannot extract %s from %s.", files.keySet(), from), e);
+            }
+            return unmodifiableSet(result);
+        }
     };
 
     @Nonnull
@@ -46,25 +77,50 @@ public enum Packaging {
     protected abstract ArchiveInputStream<?> open(@Nonnull InputStream is) throws IOException;
 
     public void extract(@Nonnull String file, @Nonnull Path from, @Nonnull Path to) throws UncheckedIOException, FailureException {
+        if (extract(from, singletonMap(file, to)).isEmpty()) {
+            throw new FailureException(format("%s does not contain expected file %s.", from, file));
+        }
+    }
+
+    @Nonnull
+    public Set<String> extract(@Nonnull Path from, @Nonnull Map<String, Path> files) throws UncheckedIOException {
+        return extractStreaming(from, files);
+    }
+
+    @Nonnull
+    Set<String> extractStreaming(@Nonnull Path from, @Nonnull Map<String, Path> files) throws UncheckedIOException {
+        final Set<String> result = new LinkedHashSet<>();
         try (final InputStream is = newInputStream(from);
              final ArchiveInputStream<?> archive = open(is)
         ) {
             ArchiveEntry next = archive.getNextEntry();
-            while (next != null) {
-                final String actualFileName = new File(next.getName()).getName();
-                if (!next.isDirectory() && actualFileName.equalsIgnoreCase(file)) {
-                    copy(archive, to);
-                    return;
+            while (next != null && result.size() < files.size()) {
+                final Optional<String> file = matching(next, files, result);
+                if (file.isPresent()) {
+                    copy(archive, files.get(file.get()));
+                    result.add(file.get());
                 }
                 next = archive.getNextEntry();
             }
-            throw new FailureException(format("%s does not contain expected file %s.", from, file));
         } catch (IOException e) {
-            throw new UncheckedIOException(format("Cannot extract %s from %s to %s.", from, from, to), e);
+            throw new UncheckedIOException(format("Cannot extract %s from %s.", files.keySet(), from), e);
+        }
+        return unmodifiableSet(result);
+    }
+
+    @Nonnull
+    private static Optional<String> matching(@Nonnull ArchiveEntry entry, @Nonnull Map<String, Path> files, @Nonnull Set<String> alreadyExtracted) {
+        if (entry.isDirectory()) {
+            return Optional.empty();
         }
+        final String actualFileName = new File(entry.getName()).getName();
+        return files.keySet().stream()
+            .filter(candidate -> !alreadyExtracted.contains(candidate))
+            .filter(actualFileName::equalsIgnoreCase)
+            .findFirst();
     }
 
-    private void copy(@Nonnull InputStream is, @Nonnull Path to) throws UncheckedIOException {
+    private static void copy(@Nonnull InputStream is, @Nonnull Path to) throws UncheckedIOException {
         try (final OutputStream os = newOutputStream(to)) {
             IOUtils.copy(is, os);
         } catch (IOException e) {
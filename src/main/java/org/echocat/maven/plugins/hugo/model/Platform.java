@@ -185,19 +185,29 @@ public enum Platform {
     }
 
     @Nonnull
-    private String hugoExecutableFileName() {
+    public String hugoExecutableFileName() {
         return "hugo"
             + executableExtension().orElse("");
     }
 
     @Nonnull
     private Path hugoExecutableDirectory(@Nonnull Version version) {
-        return tempDirectory()
-            .resolve("hugo_cache")
-            .resolve("bin")
+        return hugoBinariesDirectory()
             .resolve(format("%s-%s", this, version));
     }
 
+    @Nonnull
+    public static Path hugoBinariesDirectory() {
+        return hugoCacheDirectory()
+            .resolve("bin");
+    }
+
+    @Nonnull
+    public static Path hugoCacheDirectory() {
+        return tempDirectory()
+            .resolve("hugo_cache");
+    }
+
     @Nonnull
     private static Path tempDirectory() {
         return Paths.get(getProperty("java.io.tmpdir", "var/tmp"));
@@ -0,0 +1,159 @@
+package org.echocat.maven.plugins.hugo.model;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Predicate;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.github.zafarkhaja.semver.ParseException;
+import com.github.zafarkhaja.semver.Version;
+import com.github.zafarkhaja.semver.expr.ExpressionParser;
+import org.echocat.maven.plugins.hugo.utils.FailureException;
+
+public final class VersionRequirement implements Predicate<Version> {
+
+    public static final String LATEST = "latest";
+
+    @Nonnull
+    public static VersionRequirement versionRequirementOf(@Nullable String plain) throws FailureException {
+        final String trimmed = Optional.ofNullable(plain)
+            .map(String::trim)
+            .filter(v -> !v.isEmpty())
+            .orElse(LATEST);
+
+        if (LATEST.equalsIgnoreCase(trimmed)) {
+            return new VersionRequirement(trimmed, Type.latest, null, v -> true);
+        }
+
+        final Optional<Version> exact = Version.tryParse(trimmed);
+        if (exact.isPresent()) {
+            return new VersionRequirement(trimmed, Type.exact, exact.get(), exact.get()::isEquivalentTo);
+        }
+
+        if (trimmed.startsWith("[") || trimmed.startsWith("(")) {
+            return new VersionRequirement(trimmed, Type.range, null, parseInterval(trimmed));
+        }
+
+        try {
+            return new VersionRequirement(trimmed, Type.range, null, ExpressionParser.newInstance().parse(trimmed));
+        } catch (ParseException | IllegalArgumentException e) {
+            throw new FailureException(format("Hugo version '%s' is neither 'latest', a valid semantic version nor a valid version range.", trimmed), e);
+        }
+    }
+
+    @Nonnull
+    private static Predicate<Version> parseInterval(@Nonnull String plain) throws FailureException {
+        if (!plain.endsWith("]") && !plain.endsWith(")")) {
+            throw new FailureException(format("Hugo version range '%s' is not closed by ] or ).", plain));
+        }
+        final boolean lowerInclusive = plain.startsWith("[");
+        final boolean upperInclusive = plain.endsWith("]");
+        final String inner = plain.substring(1, plain.length() - 1);
+        final int comma = inner.indexOf(',');
+
+        if (comma < 0) {
+            if (!lowerInclusive || !upperInclusive) {
+                throw new FailureException(format("Hugo version range '%s' with a single version needs to be written as [<version>].", plain));
+            }
+            final Version exact = parseBound(plain, inner);
+            return exact::isEquivalentTo;
+        }
+
+        final String lowerPlain = inner.substring(0, comma).trim();
+        final String upperPlain = inner.substring(comma + 1).trim();
+        final Optional<Version> lower = lowerPlain.isEmpty() ? Optional.empty() : Optional.of(parseBound(plain, lowerPlain));
+        final Optional<Version> upper = upperPlain.isEmpty() ? Optional.empty() : Optional.of(parseBound(plain, upperPlain));
+
+        return candidate -> {
+            if (lower.isPresent()) {
+                final int c = candidate.compareToIgnoreBuildMetadata(lower.get());
+                if (c < 0 || (c == 0 && !lowerInclusive)) {
+                    return false;
+                }
+            }
+            if (upper.isPresent()) {
+                final int c = candidate.compareToIgnoreBuildMetadata(upper.get());
+                return c < 0 || (c == 0 && upperInclusive);
+            }
+            return true;
+        };
+    }
+
+    @Nonnull
+    private static Version parseBound(@Nonnull String range, @Nonnull String plain) throws FailureException {
+        return Version.tryParse(plain.trim(), false)
+            .orElseThrow(() -> new FailureException(format("Hugo version range '%s' contains invalid version '%s'.", range, plain)));
+    }
+
+    @Nonnull
+    private final String plain;
+    @Nonnull
+    private final Type type;
+    @Nullable
+    private final Version exact;
+    @Nonnull
+    private final Predicate<Version> predicate;
+
+    private VersionRequirement(
+        @Nonnull String plain,
+        @Nonnull Type type,
+        @Nullable Version exact,
+        @Nonnull Predicate<Version> predicate
+    ) {
+        this.plain = requireNonNull(plain);
+        this.type = requireNonNull(type);
+        this.exact = exact;
+        this.predicate = requireNonNull(predicate);
+    }
+
+    @Nonnull
+    public Type type() {
+        return type;
+    }
+
+    @Nonnull
+    public Optional<Version> exact() {
+        return Optional.ofNullable(exact);
+    }
+
+    @Override
+    public boolean test(@Nonnull Version version) {
+        return predicate.test(version);
+    }
+
+    @Nonnull
+    public Optional<Version> highestMatching(@Nonnull Collection<Version> candidates) {
+        return candidates.stream()
+            .filter(this)
+            .max(Version::compareToIgnoreBuildMetadata);
+    }
+
+    @Override
+    public String toString() {
+        return plain;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {return true;}
+        if (o == null || getClass() != o.getClass()) {return false;}
+        final VersionRequirement that = (VersionRequirement) o;
+        return plain.equals(that.plain);
+    }
+
+    @Override
+    public int hashCode() {
+        return plain.hashCode();
+    }
+
+    public enum Type {
+        latest,
+        exact,
+        range
+    }
+
+}
@@ -0,0 +1,482 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.util.Collections.unmodifiableSet;
+import static org.echocat.maven.plugins.hugo.utils.FileSystems.createParentsOf;
+import static org.echocat.maven.plugins.hugo.utils.FileSystems.deleteQuietly;
+import static org.echocat.maven.plugins.hugo.utils.FileSystems.rename;
+import static org.echocat.maven.plugins.hugo.utils.FileSystems.temporaryFileFor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.maven.plugin.logging.Log;
+
+public final class ArchivePacker {
+
+    // Formats which are already compressed; deflating them again costs time but saves (almost) nothing.
+    @Nonnull
+    public static final Set<String> DEFAULT_STORED_EXTENSIONS = unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+        "jpg", "jpeg", "png", "gif", "webp", "avif", "ico",
+        "woff", "woff2",
+        "gz", "br", "zst", "zip", "jar",
+        "mp3", "mp4", "webm", "ogg"
+    )));
+    // Earliest time which can be stored in every timezone (DOS time starts at 1980-01-01 local time).
+    @Nonnull
+    public static final Instant DEFAULT_TIMESTAMP = Instant.parse("1980-02-01T00:00:00Z");
+    private static final int MAX_BUFFERED_ENTRY_SIZE = 4 * 1024 * 1024;
+    private static final int FILE_MODE = 0100644;
+    private static final int DIRECTORY_MODE = 040755;
+
+    @Nonnull
+    public static ArchivePacker.Builder archivePacker() {
+        return new Builder();
+    }
+
+    @Nonnull
+    private final Log log;
+    private final int threads;
+    private final int level;
+    @Nonnull
+    private final Instant timestamp;
+    @Nonnull
+    private final Set<String> storedExtensions;
+
+    private ArchivePacker(@Nonnull Builder builder) {
+        log = builder.log.orElseThrow(() -> new NullPointerException("No log provided."));
+        threads = builder.threads > 0 ? builder.threads : Runtime.getRuntime().availableProcessors();
+        level = builder.level;
+        timestamp = builder.timestamp;
+        final Set<String> extensions = builder.storedExtensions.stream()
+            .map(v -> v.trim().toLowerCase(Locale.ROOT))
+            .map(v -> v.startsWith(".") ? v.substring(1) : v)
+            .filter(v -> !v.isEmpty())
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+        storedExtensions = unmodifiableSet(extensions);
+    }
+
+    @Nonnull
+    public Report pack(@Nonnull Path directory, @Nonnull Path target) throws UncheckedIOException, FailureException {
+        if (!Files.isDirectory(directory)) {
+            throw new FailureException(format("%s does not exist or is not a directory.", directory));
+        }
+        final long start = nanoTime();
+        final List<String> names = entryNamesOf(directory);
+        createParentsOf(target.toAbsolutePath());
+        final Path temp = temporaryFileFor(target);
+
+        final AtomicInteger threadNumber = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "hugo-package-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        final Deque<Future<Prepared>> window = new ArrayDeque<>();
+        int stored = 0;
+        int deflated = 0;
+        long bytes = 0;
+        try {
+            try (final ZipArchiveOutputStream zip = new ZipArchiveOutputStream(temp)) {
+                // Entries are prepared (read, checksummed and compressed) in parallel but written
+                // strictly in order; the window limits how many prepared entries are held at once.
+                final Iterator<String> pending = names.iterator();
+                while (pending.hasNext() || !window.isEmpty()) {
+                    while (pending.hasNext() && window.size() < threads * 2) {
+                        final String name = pending.next();
+                        window.add(executor.submit(() -> prepare(directory, name, temp)));
+                    }
+                    final Prepared prepared = await(window.removeFirst());
+                    try {
+                        write(prepared, zip);
+                    } finally {
+                        prepared.dispose();
+                    }
+                    if (prepared.entry().isDirectory()) {
+                        continue;
+                    }
+                    if (prepared.entry().getMethod() == ZipEntry.STORED) {
+                        stored++;
+                    } else {
+                        deflated++;
+                    }
+                    bytes += prepared.entry().getSize();
+                }
+            }
+            rename(temp, target);
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot write %s.", target), e);
+        } finally {
+            executor.shutdownNow();
+            discard(window);
+            deleteQuietly(temp);
+        }
+
+        final long size;
+        try {
+            size = Files.size(target);
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot determine size of %s.", target), e);
+        }
+        return new Report(stored, deflated, bytes, size, Duration.ofNanos(nanoTime() - start));
+    }
+
+    @Nonnull
+    private static List<String> entryNamesOf(@Nonnull Path directory) throws UncheckedIOException {
+        try (final Stream<Path> candidates = Files.walk(directory)) {
+            return candidates
+                .filter(candidate -> !candidate.equals(directory))
+                .filter(candidate -> Files.isRegularFile(candidate) || Files.isDirectory(candidate))
+                .map(candidate -> directory.relativize(candidate).toString().replace('\\', '/') + (Files.isDirectory(candidate) ? "/" : ""))
+                .sorted()
+                .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot collect files of %s.", directory), e);
+        }
+    }
+
+    @Nonnull
+    private Prepared prepare(@Nonnull Path directory, @Nonnull String name, @Nonnull Path temp) throws IOException {
+        final ZipArchiveEntry entry = new ZipArchiveEntry(name);
+        entry.setTime(dosTimeOf(timestamp));
+        if (entry.isDirectory()) {
+            entry.setUnixMode(DIRECTORY_MODE);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(0);
+            entry.setCompressedSize(0);
+            entry.setCrc(0);
+            return new Prepared(entry, new byte[0], null);
+        }
+        entry.setUnixMode(FILE_MODE);
+
+        final Path file = directory.resolve(name);
+        final long size = Files.size(file);
+        final boolean store = storedExtensions.contains(extensionOf(name));
+        if (size <= MAX_BUFFERED_ENTRY_SIZE) {
+            final byte[] plain = Files.readAllBytes(file);
+            final CRC32 crc = new CRC32();
+            crc.update(plain);
+            entry.setCrc(crc.getValue());
+            entry.setSize(plain.length);
+            if (!store) {
+                final ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(32, plain.length / 2));
+                deflate(new ByteArrayInputStream(plain), compressed);
+                // Storing is preferred where deflating does not pay off.
+                if (compressed.size() < plain.length) {
+                    entry.setMethod(ZipEntry.DEFLATED);
+                    entry.setCompressedSize(compressed.size());
+                    return new Prepared(entry, compressed.toByteArray(), null);
+                }
+            }
+            entry.setMethod(ZipEntry.STORED);
+            entry.setCompressedSize(plain.length);
+            return new Prepared(entry, plain, null);
+        }
+
+        // Large entries are not held in memory; compressed ones are spilled next to the archive.
+        final CRC32 crc = new CRC32();
+        try (final InputStream is = Files.newInputStream(file)) {
+            final byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = is.read(buffer)) > 0) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        entry.setCrc(crc.getValue());
+        entry.setSize(size);
+        if (!store) {
+            final Path spilled = Files.createTempFile(temp.getParent(), temp.getFileName().toString(), ".part");
+            try {
+                try (final InputStream is = Files.newInputStream(file);
+                     final OutputStream os = Files.newOutputStream(spilled)
+                ) {
+                    deflate(is, os);
+                }
+                final long compressedSize = Files.size(spilled);
+                if (compressedSize < size) {
+                    entry.setMethod(ZipEntry.DEFLATED);
+                    entry.setCompressedSize(compressedSize);
+                    return new Prepared(entry, null, spilled);
+                }
+            } catch (IOException | RuntimeException e) {
+                deleteQuietly(spilled);
+                throw e;
+            }
+            deleteQuietly(spilled);
+        }
+        entry.setMethod(ZipEntry.STORED);
+        entry.setCompressedSize(size);
+        return new Prepared(entry, null, file, false);
+    }
+
+    private void deflate(@Nonnull InputStream from, @Nonnull OutputStream to) throws IOException {
+        final Deflater deflater = new Deflater(level, true);
+        try (final DeflaterOutputStream os = new DeflaterOutputStream(to, deflater, 64 * 1024)) {
+            final byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = from.read(buffer)) > 0) {
+                os.write(buffer, 0, read);
+            }
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void write(@Nonnull Prepared prepared, @Nonnull ZipArchiveOutputStream zip) throws IOException {
+        if (prepared.data() != null) {
+            zip.addRawArchiveEntry(prepared.entry(), new ByteArrayInputStream(prepared.data()));
+            return;
+        }
+        try (final InputStream is = Files.newInputStream(prepared.file())) {
+            zip.addRawArchiveEntry(prepared.entry(), is);
+        }
+    }
+
+    // Only if writing has failed: entries which are already prepared may hold spilled files.
+    private static void discard(@Nonnull Collection<Future<Prepared>> futures) {
+        for (final Future<Prepared> future : futures) {
+            future.cancel(true);
+            try {
+                if (!future.isCancelled()) {
+                    future.get().dispose();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ignored) {
+            }
+        }
+    }
+
+    @Nonnull
+    private static Prepared await(@Nonnull Future<Prepared> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Was interrupted.", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    // DOS times of zip entries are interpreted in the local timezone; shifting the timestamp by its
+    // offset stores the same date fields regardless of the timezone of the build.
+    private static long dosTimeOf(@Nonnull Instant timestamp) {
+        final long millis = timestamp.toEpochMilli();
+        return millis - TimeZone.getDefault().getOffset(millis);
+    }
+
+    @Nonnull
+    private static String extensionOf(@Nonnull String name) {
+        final int slash = name.lastIndexOf('/');
+        final int dot = name.lastIndexOf('.');
+        return dot > slash ? name.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+    }
+
+    @Nonnull
+    public Log log() {
+        return log;
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    public int level() {
+        return level;
+    }
+
+    @Nonnull
+    public Instant timestamp() {
+        return timestamp;
+    }
+
+    @Nonnull
+    public Set<String> storedExtensions() {
+        return storedExtensions;
+    }
+
+    private static final class Prepared {
+
+        @Nonnull
+        private final ZipArchiveEntry entry;
+        @Nullable
+        private final byte[] data;
+        @Nullable
+        private final Path file;
+        private final boolean temporary;
+
+        private Prepared(@Nonnull ZipArchiveEntry entry, @Nullable byte[] data, @Nullable Path file) {
+            this(entry, data, file, file != null);
+        }
+
+        private Prepared(@Nonnull ZipArchiveEntry entry, @Nullable byte[] data, @Nullable Path file, boolean temporary) {
+            this.entry = entry;
+            this.data = data;
+            this.file = file;
+            this.temporary = temporary;
+        }
+
+        @Nonnull
+        ZipArchiveEntry entry() {
+            return entry;
+        }
+
+        @Nullable
+        byte[] data() {
+            return data;
+        }
+
+        @Nullable
+        Path file() {
+            return file;
+        }
+
+        void dispose() {
+            if (temporary && file != null) {
+                deleteQuietly(file);
+            }
+        }
+    }
+
+    public static final class Report {
+
+        private final int stored;
+        private final int deflated;
+        private final long bytes;
+        private final long size;
+        @Nonnull
+        private final Duration duration;
+
+        private Report(int stored, int deflated, long bytes, long size, @Nonnull Duration duration) {
+            this.stored = stored;
+            this.deflated = deflated;
+            this.bytes = bytes;
+            this.size = size;
+            this.duration = duration;
+        }
+
+        public int stored() {
+            return stored;
+        }
+
+        public int deflated() {
+            return deflated;
+        }
+
+        public long bytes() {
+            return bytes;
+        }
+
+        public long size() {
+            return size;
+        }
+
+        @Nonnull
+        public Duration duration() {
+            return duration;
+        }
+
+        @Override
+        public String toString() {
+            return format("%d files (%d deflated, %d stored), %d bytes packed into %d bytes in %s", stored + deflated, deflated, stored, bytes, size, duration);
+        }
+    }
+
+    public static final class Builder {
+
+        @Nonnull
+        private Optional<Log> log = Optional.empty();
+        private int threads;
+        private int level = Deflater.DEFAULT_COMPRESSION;
+        @Nonnull
+        private Instant timestamp = DEFAULT_TIMESTAMP;
+        @Nonnull
+        private Set<String> storedExtensions = DEFAULT_STORED_EXTENSIONS;
+
+        @Nonnull
+        public Builder withLog(@Nonnull Log v) {
+            log = Optional.of(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withThreads(int v) {
+            threads = Math.max(0, v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withLevel(int v) {
+            if (v != Deflater.DEFAULT_COMPRESSION && (v < Deflater.NO_COMPRESSION || v > Deflater.BEST_COMPRESSION)) {
+                throw new IllegalArgumentException(format("Illegal compression level: %d", v));
+            }
+            level = v;
+            return this;
+        }
+
+        @Nonnull
+        public Builder withTimestamp(@Nullable Instant v) {
+            timestamp = v != null ? v : DEFAULT_TIMESTAMP;
+            return this;
+        }
+
+        @Nonnull
+        public Builder withStoredExtensions(@Nullable Collection<String> v) {
+            storedExtensions = v != null ? new LinkedHashSet<String>(v) : DEFAULT_STORED_EXTENSIONS;
+            return this;
+        }
+
+        @Nonnull
+        public ArchivePacker build() {
+            return new ArchivePacker(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,293 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.lang.String.format;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.apache.maven.plugin.logging.Log;
+import org.echocat.maven.plugins.hugo.model.InputSet;
+import org.sonatype.plexus.build.incremental.BuildContext;
+import org.sonatype.plexus.build.incremental.DefaultBuildContext;
+
+public final class BuildContextSupport {
+
+    private static final int MAX_REFRESHED_FILES = 1000;
+    // Like: "/site/content/post.md:4:1": failed to unmarshal YAML
+    @Nonnull
+    private static final Pattern problemPattern = Pattern.compile("\"([^\"]+?):(\\d+):(\\d+)\":\\s*(.*)");
+
+    @Nonnull
+    public static BuildContextSupport.Builder buildContextSupport() {
+        return new Builder();
+    }
+
+    @Nonnull
+    private final Log log;
+    @Nonnull
+    private final Optional<BuildContext> buildContext;
+
+    private BuildContextSupport(@Nonnull Builder builder) {
+        log = builder.log.orElseThrow(() -> new NullPointerException("No log provided."));
+        buildContext = builder.buildContext
+            // The default one is used outside of IDEs; it does nothing useful.
+            .filter(v -> !(v instanceof DefaultBuildContext));
+    }
+
+    public boolean active() {
+        return buildContext.isPresent();
+    }
+
+    public boolean unchanged(@Nonnull InputSet inputs, @Nonnull Path output) {
+        if (!buildContext.isPresent() || !buildContext.get().isIncremental() || !Files.isDirectory(output)) {
+            return false;
+        }
+        for (final Path root : inputs.roots()) {
+            if (buildContext.get().hasDelta(root.toFile())) {
+                log().debug(format("%s has changed.", root));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Nonnull
+    public Snapshot snapshotOf(@Nonnull Path output) throws UncheckedIOException {
+        if (!buildContext.isPresent() || !Files.isDirectory(output)) {
+            return new Snapshot(output, new HashMap<>());
+        }
+        try (final Stream<Path> candidates = Files.walk(output)) {
+            return new Snapshot(output, candidates
+                .parallel()
+                .filter(Files::isRegularFile)
+                .collect(Collectors.toMap(
+                    candidate -> candidate,
+                    candidate -> {
+                        try {
+                            return Files.size(candidate) + "@" + Files.getLastModifiedTime(candidate).toMillis();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                )));
+        } catch (UncheckedIOException e) {
+            throw new UncheckedIOException(format("Cannot snapshot %s.", output), e.getCause());
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot snapshot %s.", output), e);
+        }
+    }
+
+    public void refreshChangesSince(@Nonnull Snapshot before) throws UncheckedIOException {
+        if (!buildContext.isPresent()) {
+            return;
+        }
+        final Map<Path, String> after = snapshotOf(before.directory()).files();
+        final Set<Path> changed = new LinkedHashSet<>();
+        after.forEach((file, state) -> {
+            if (!state.equals(before.files().get(file))) {
+                changed.add(file);
+            }
+        });
+        before.files().keySet().stream()
+            .filter(file -> !after.containsKey(file))
+            .forEach(changed::add);
+
+        if (changed.size() > MAX_REFRESHED_FILES) {
+            buildContext.get().refresh(before.directory().toFile());
+        } else {
+            changed.forEach(file -> buildContext.get().refresh(file.toFile()));
+        }
+        log().debug(format("Refreshed %d changed files of %s.", changed.size(), before.directory()));
+    }
+
+    public void clearProblems(@Nonnull String key, @Nonnull Path fallbackFile) {
+        if (!buildContext.isPresent()) {
+            return;
+        }
+        buildContext.get().removeMessages(fallbackFile.toFile());
+        final Object previous = buildContext.get().getValue(valueKeyOf(key));
+        if (previous instanceof List) {
+            ((List<?>) previous).stream()
+                .filter(File.class::isInstance)
+                .map(File.class::cast)
+                .forEach(file -> buildContext.get().removeMessages(file));
+        }
+        buildContext.get().setValue(valueKeyOf(key), null);
+    }
+
+    public void reportProblems(@Nonnull String key, @Nonnull Path workingDirectory, @Nonnull Path fallbackFile, @Nonnull FailureException e) {
+        if (!buildContext.isPresent()) {
+            return;
+        }
+        final List<Problem> problems = e instanceof Hugo.ExecutionFailedException
+            ? problemsOf(((Hugo.ExecutionFailedException) e).errors(), workingDirectory)
+            : new ArrayList<>();
+        final List<File> files = new ArrayList<>();
+        for (final Problem problem : problems) {
+            buildContext.get().addMessage(problem.file().toFile(), problem.line(), problem.column(), problem.message(), BuildContext.SEVERITY_ERROR, null);
+            files.add(problem.file().toFile());
+        }
+        if (problems.isEmpty()) {
+            buildContext.get().addMessage(fallbackFile.toFile(), 0, 0, e.getMessage(), BuildContext.SEVERITY_ERROR, e);
+        }
+        buildContext.get().setValue(valueKeyOf(key), files);
+    }
+
+    @Nonnull
+    static List<Problem> problemsOf(@Nonnull List<String> errors, @Nonnull Path workingDirectory) {
+        final List<Problem> result = new ArrayList<>();
+        for (final String error : errors) {
+            final Matcher matcher = problemPattern.matcher(error);
+            if (matcher.find()) {
+                final Path file;
+                try {
+                    file = workingDirectory.resolve(Paths.get(matcher.group(1)));
+                } catch (RuntimeException ignored) {
+                    continue;
+                }
+                if (Files.isRegularFile(file)) {
+                    result.add(new Problem(file, Integer.parseInt(matcher.group(2)), Integer.parseInt(matcher.group(3)), matcher.group(4).trim()));
+                }
+            }
+        }
+        return unmodifiableList(result.stream()
+            .distinct()
+            .collect(Collectors.toList()));
+    }
+
+    @Nonnull
+    private static String valueKeyOf(@Nonnull String key) {
+        return "hugo-maven-plugin.problems." + key;
+    }
+
+    @Nonnull
+    public Log log() {
+        return log;
+    }
+
+    public static final class Snapshot {
+
+        @Nonnull
+        private final Path directory;
+        @Nonnull
+        private final Map<Path, String> files;
+
+        private Snapshot(@Nonnull Path directory, @Nonnull Map<Path, String> files) {
+            this.directory = directory;
+            this.files = unmodifiableMap(files);
+        }
+
+        @Nonnull
+        public Path directory() {
+            return directory;
+        }
+
+        @Nonnull
+        Map<Path, String> files() {
+            return files;
+        }
+    }
+
+    public static final class Problem {
+
+        @Nonnull
+        private final Path file;
+        private final int line;
+        private final int column;
+        @Nonnull
+        private final String message;
+
+        private Problem(@Nonnull Path file, int line, int column, @Nonnull String message) {
+            this.file = file;
+            this.line = line;
+            this.column = column;
+            this.message = message;
+        }
+
+        @Nonnull
+        public Path file() {
+            return file;
+        }
+
+        public int line() {
+            return line;
+        }
+
+        public int column() {
+            return column;
+        }
+
+        @Nonnull
+        public String message() {
+            return message;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {return true;}
+            if (o == null || getClass() != o.getClass()) {return false;}
+            final Problem that = (Problem) o;
+            return line == that.line
+                && column == that.column
+                && file.equals(that.file)
+                && message.equals(that.message);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(file, line, column, message);
+        }
+
+        @Override
+        public String toString() {
+            return file + ":" + line + ":" + column + ": " + message;
+        }
+    }
+
+    public static final class Builder {
+
+        @Nonnull
+        private Optional<Log> log = Optional.empty();
+        @Nonnull
+        private Optional<BuildContext> buildContext = Optional.empty();
+
+        @Nonnull
+        public Builder withLog(@Nonnull Log v) {
+            log = Optional.of(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withBuildContext(@Nullable BuildContext v) {
+            buildContext = Optional.ofNullable(v);
+            return this;
+        }
+
+        @Nonnull
+        public BuildContextSupport build() {
+            return new BuildContextSupport(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,338 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.util.Collections.unmodifiableList;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+
+import org.apache.maven.plugin.logging.Log;
+
+// Renders items while the post processing of already rendered items runs on a separate pool. At most depth items are
+// between the start of their rendering and the end of their post processing; further renders wait until one of them is
+// done, so the outputs pending post processing (and the disk and memory they occupy) stay bounded.
+public final class BuildPipeline {
+
+    public static final int DEFAULT_DEPTH = 2;
+
+    @Nonnull
+    public static BuildPipeline.Builder buildPipeline() {
+        return new Builder();
+    }
+
+    @Nonnull
+    private final Log log;
+    private final int renderConcurrency;
+    private final int postProcessThreads;
+    private final int depth;
+
+    private BuildPipeline(@Nonnull Builder builder) {
+        log = builder.log.orElseThrow(() -> new NullPointerException("No log provided."));
+        renderConcurrency = builder.renderConcurrency;
+        postProcessThreads = builder.postProcessThreads;
+        depth = builder.depth;
+    }
+
+    @Nonnull
+    public <T> Report run(
+        @Nonnull List<T> items,
+        @Nonnull Function<T, String> nameOf,
+        @Nonnull Consumer<T> render,
+        @Nonnull Consumer<T> postProcess
+    ) throws FailureException {
+        final long start = nanoTime();
+        final int renderThreads = Math.max(1, Math.min(Math.min(renderConcurrency, depth), items.size()));
+        final List<Entry> entries = new ArrayList<>(items.size());
+        final Semaphore permits = new Semaphore(depth);
+        final CountDownLatch done = new CountDownLatch(items.size());
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Consumer<Throwable> fail = e -> {
+            failure.compareAndSet(null, e);
+            while (done.getCount() > 0) {
+                done.countDown();
+            }
+        };
+
+        final ExecutorService renderer = newFixedThreadPool(renderThreads, "hugo-build-");
+        final ExecutorService postProcessor = newFixedThreadPool(postProcessThreads, "hugo-post-process-");
+        try {
+            for (final T item : items) {
+                final Entry entry = new Entry(nameOf.apply(item));
+                entries.add(entry);
+                renderer.execute(() -> {
+                    if (failure.get() != null) {
+                        return;
+                    }
+                    boolean handedOver = false;
+                    try {
+                        entry.waitStart = nanoTime() - start;
+                        permits.acquire();
+                        if (failure.get() != null) {
+                            return;
+                        }
+                        entry.renderStart = nanoTime() - start;
+                        render.accept(item);
+                        entry.renderEnd = nanoTime() - start;
+                        postProcessor.execute(() -> {
+                            try {
+                                entry.postProcessStart = nanoTime() - start;
+                                postProcess.accept(item);
+                                entry.postProcessEnd = nanoTime() - start;
+                                done.countDown();
+                            } catch (Throwable e) {
+                                fail.accept(e);
+                            } finally {
+                                permits.release();
+                            }
+                        });
+                        handedOver = true;
+                    } catch (Throwable e) {
+                        fail.accept(e);
+                    } finally {
+                        if (!handedOver) {
+                            permits.release();
+                        }
+                    }
+                });
+            }
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Was interrupted.", e);
+        } finally {
+            renderer.shutdownNow();
+            postProcessor.shutdownNow();
+        }
+
+        if (failure.get() != null) {
+            throw rethrow(failure.get());
+        }
+        return new Report(entries, Duration.ofNanos(nanoTime() - start), renderThreads, postProcessThreads);
+    }
+
+    @Nonnull
+    private static ExecutorService newFixedThreadPool(int threads, @Nonnull String prefix) {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, prefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Nonnull
+    private static RuntimeException rethrow(@Nonnull Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new RuntimeException(cause.getMessage(), cause);
+    }
+
+    @Nonnull
+    public Log log() {
+        return log;
+    }
+
+    public int renderConcurrency() {
+        return renderConcurrency;
+    }
+
+    public int postProcessThreads() {
+        return postProcessThreads;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    // All points in time are relative to the start of the pipeline; -1 if the stage was never reached.
+    public static final class Entry {
+
+        @Nonnull
+        private final String name;
+        private volatile long waitStart = -1;
+        private volatile long renderStart = -1;
+        private volatile long renderEnd = -1;
+        private volatile long postProcessStart = -1;
+        private volatile long postProcessEnd = -1;
+
+        private Entry(@Nonnull String name) {
+            this.name = name;
+        }
+
+        @Nonnull
+        public String name() {
+            return name;
+        }
+
+        // Time the render waited for post processing of previous items (backpressure).
+        @Nonnull
+        public Duration waited() {
+            return durationOf(waitStart, renderStart);
+        }
+
+        @Nonnull
+        public Duration rendering() {
+            return durationOf(renderStart, renderEnd);
+        }
+
+        @Nonnull
+        public Duration postProcessing() {
+            return durationOf(postProcessStart, postProcessEnd);
+        }
+
+        @Nonnull
+        private static Duration durationOf(long from, long to) {
+            return from >= 0 && to >= from ? Duration.ofNanos(to - from) : Duration.ZERO;
+        }
+    }
+
+    public static final class Report {
+
+        @Nonnull
+        private final List<Entry> entries;
+        @Nonnull
+        private final Duration duration;
+        private final int renderThreads;
+        private final int postProcessThreads;
+
+        private Report(@Nonnull List<Entry> entries, @Nonnull Duration duration, int renderThreads, int postProcessThreads) {
+            this.entries = unmodifiableList(entries);
+            this.duration = duration;
+            this.renderThreads = renderThreads;
+            this.postProcessThreads = postProcessThreads;
+        }
+
+        @Nonnull
+        public List<Entry> entries() {
+            return entries;
+        }
+
+        @Nonnull
+        public Duration duration() {
+            return duration;
+        }
+
+        @Nonnull
+        public Duration rendering() {
+            return entries.stream().map(Entry::rendering).reduce(Duration.ZERO, Duration::plus);
+        }
+
+        @Nonnull
+        public Duration postProcessing() {
+            return entries.stream().map(Entry::postProcessing).reduce(Duration.ZERO, Duration::plus);
+        }
+
+        @Nonnull
+        public Duration waited() {
+            return entries.stream().map(Entry::waited).reduce(Duration.ZERO, Duration::plus);
+        }
+
+        // Share of the available render threads which were busy, between 0 and 1.
+        public double renderUtilization() {
+            return utilizationOf(rendering(), renderThreads);
+        }
+
+        public double postProcessUtilization() {
+            return utilizationOf(postProcessing(), postProcessThreads);
+        }
+
+        private double utilizationOf(@Nonnull Duration busy, int threads) {
+            final long available = duration.toNanos() * threads;
+            return available > 0 ? Math.min(1D, (double) busy.toNanos() / available) : 0D;
+        }
+
+        // One line per item: R while rendering, P while post processing and - while waiting for post processing of
+        // previous items, scaled to the given width.
+        @Nonnull
+        public List<String> timeline(int width) {
+            final int nameWidth = entries.stream().mapToInt(entry -> entry.name.length()).max().orElse(0);
+            final List<String> result = new ArrayList<>(entries.size());
+            for (final Entry entry : entries) {
+                final char[] bar = new char[width];
+                Arrays.fill(bar, ' ');
+                mark(bar, entry.waitStart, entry.renderStart, '-');
+                mark(bar, entry.renderStart, entry.renderEnd, 'R');
+                mark(bar, entry.postProcessStart, entry.postProcessEnd, 'P');
+                result.add(format("%-" + Math.max(1, nameWidth) + "s |%s| render %s, post processing %s, waited %s",
+                    entry.name, new String(bar), entry.rendering(), entry.postProcessing(), entry.waited()));
+            }
+            return unmodifiableList(result);
+        }
+
+        private void mark(@Nonnull char[] bar, long from, long to, char c) {
+            final long total = duration.toNanos();
+            if (from < 0 || to < from || total <= 0 || bar.length == 0) {
+                return;
+            }
+            final int first = (int) Math.min(bar.length - 1, from * bar.length / total);
+            final int last = (int) Math.min(bar.length, Math.max(first + 1, (to * bar.length + total - 1) / total));
+            Arrays.fill(bar, first, last, c);
+        }
+
+        @Override
+        public String toString() {
+            return format("%d builds in %s: rendering %s (%d%% of %d threads busy), post processing %s (%d%% of %d threads busy), %s waited for post processing",
+                entries.size(), duration,
+                rendering(), Math.round(renderUtilization() * 100), renderThreads,
+                postProcessing(), Math.round(postProcessUtilization() * 100), postProcessThreads,
+                waited());
+        }
+    }
+
+    public static final class Builder {
+
+        @Nonnull
+        private Optional<Log> log = Optional.empty();
+        private int renderConcurrency = 1;
+        private int postProcessThreads = 1;
+        private int depth = DEFAULT_DEPTH;
+
+        @Nonnull
+        public Builder withLog(@Nonnull Log v) {
+            log = Optional.of(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withRenderConcurrency(int v) {
+            renderConcurrency = Math.max(1, v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withPostProcessThreads(int v) {
+            postProcessThreads = Math.max(1, v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withDepth(int v) {
+            depth = Math.max(1, v);
+            return this;
+        }
+
+        @Nonnull
+        public BuildPipeline build() {
+            return new BuildPipeline(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,185 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.annotation.Nonnull;
+
+import org.apache.maven.plugin.logging.Log;
+
+public final class BuildScheduler {
+
+    @Nonnull
+    public static BuildScheduler.Builder buildScheduler() {
+        return new Builder();
+    }
+
+    @Nonnull
+    public static <T> Task<T> task(@Nonnull String name, @Nonnull Supplier<T> body) {
+        return new Task<>(name, body);
+    }
+
+    @Nonnull
+    private final Log log;
+    private final int concurrency;
+
+    private BuildScheduler(@Nonnull Builder builder) {
+        log = builder.log.orElseThrow(() -> new NullPointerException("No log provided."));
+        concurrency = builder.concurrency;
+    }
+
+    @Nonnull
+    public <T> List<T> run(@Nonnull List<Task<T>> tasks) throws FailureException {
+        final long start = nanoTime();
+        final AtomicLong busy = new AtomicLong();
+        final List<T> result = concurrency <= 1 || tasks.size() <= 1
+            ? runSequential(tasks, busy)
+            : runConcurrent(tasks, busy);
+
+        if (tasks.size() > 1) {
+            log().info(format("Finished %d builds in %s (%s if executed one after another).",
+                tasks.size(), Duration.ofNanos(nanoTime() - start), Duration.ofNanos(busy.get())));
+        }
+        return result;
+    }
+
+    @Nonnull
+    private <T> List<T> runSequential(@Nonnull List<Task<T>> tasks, @Nonnull AtomicLong busy) {
+        final List<T> result = new ArrayList<>(tasks.size());
+        for (final Task<T> task : tasks) {
+            result.add(task.run(busy));
+        }
+        return unmodifiableList(result);
+    }
+
+    @Nonnull
+    private <T> List<T> runConcurrent(@Nonnull List<Task<T>> tasks, @Nonnull AtomicLong busy) throws FailureException {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, tasks.size()), runnable -> {
+            final Thread thread = new Thread(runnable, "hugo-build-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final CompletionService<T> completion = new ExecutorCompletionService<>(executor);
+            final List<Future<T>> futures = new ArrayList<>(tasks.size());
+            for (final Task<T> task : tasks) {
+                futures.add(completion.submit(() -> task.run(busy)));
+            }
+            for (int i = 0; i < tasks.size(); i++) {
+                try {
+                    completion.take().get();
+                } catch (ExecutionException e) {
+                    futures.forEach(future -> future.cancel(true));
+                    throw rethrow(e.getCause());
+                }
+            }
+
+            final List<T> result = new ArrayList<>(tasks.size());
+            for (final Future<T> future : futures) {
+                result.add(future.get());
+            }
+            return unmodifiableList(result);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Nonnull
+    private static RuntimeException rethrow(@Nonnull Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new RuntimeException(cause.getMessage(), cause);
+    }
+
+    @Nonnull
+    public Log log() {
+        return log;
+    }
+
+    public int concurrency() {
+        return concurrency;
+    }
+
+    public static final class Task<T> {
+
+        @Nonnull
+        private final String name;
+        @Nonnull
+        private final Supplier<T> body;
+
+        private Task(@Nonnull String name, @Nonnull Supplier<T> body) {
+            this.name = requireNonNull(name);
+            this.body = requireNonNull(body);
+        }
+
+        @Nonnull
+        public String name() {
+            return name;
+        }
+
+        private T run(@Nonnull AtomicLong busy) {
+            final long start = nanoTime();
+            try {
+                return body.get();
+            } finally {
+                busy.addAndGet(nanoTime() - start);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    public static final class Builder {
+
+        @Nonnull
+        private Optional<Log> log = Optional.empty();
+        private int concurrency = 1;
+
+        @Nonnull
+        public Builder withLog(@Nonnull Log v) {
+            log = Optional.of(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withConcurrency(int v) {
+            concurrency = Math.max(1, v);
+            return this;
+        }
+
+        @Nonnull
+        public BuildScheduler build() {
+            return new BuildScheduler(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,286 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.lang.String.format;
+import static java.lang.System.currentTimeMillis;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.*;
+import static java.util.Collections.unmodifiableList;
+import static org.echocat.maven.plugins.hugo.utils.FileSystems.writeAtomically;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.MatchPatterns;
+
+public final class ConfigDiscovery {
+
+    private static final String KEY_PREFIX = "k\t";
+    private static final String DIRECTORY_PREFIX = "d\t";
+    private static final String CONFIG_PREFIX = "c\t";
+    private static final long RACY_MILLIS = 2000;
+
+    @Nonnull
+    public static ConfigDiscovery.Builder configDiscovery() {
+        return new Builder();
+    }
+
+    @Nonnull
+    private final Log log;
+    @Nonnull
+    private final Path base;
+    @Nonnull
+    private final List<String> includes;
+    @Nonnull
+    private final List<String> excludes;
+    @Nonnull
+    private final Optional<Path> cacheDirectory;
+
+    @Nonnull
+    private final MatchPatterns includeMatchers;
+    @Nonnull
+    private final MatchPatterns excludeMatchers;
+    private final int maxDepth;
+
+    private ConfigDiscovery(@Nonnull Builder builder) {
+        log = builder.log.orElseThrow(() -> new NullPointerException("No log provided."));
+        base = builder.base.orElseThrow(() -> new NullPointerException("No base provided."));
+        includes = unmodifiableList(new ArrayList<>(builder.includes));
+        excludes = unmodifiableList(new ArrayList<>(builder.excludes));
+        cacheDirectory = builder.cacheDirectory;
+
+        includeMatchers = MatchPatterns.from(includes);
+        excludeMatchers = MatchPatterns.from(excludes);
+        maxDepth = maxDepthOf(includes);
+    }
+
+    @Nonnull
+    public List<Path> discover() throws UncheckedIOException {
+        final Optional<List<Path>> cached = readCached();
+        if (cached.isPresent()) {
+            log().debug(format("Using %d cached configs of %s.", cached.get().size(), base));
+            return cached.get();
+        }
+
+        final long start = currentTimeMillis();
+        final Walk walk = new Walk();
+        ForkJoinPool.commonPool().invoke(walk.taskFor(base, 1));
+
+        final List<Path> result = unmodifiableList(walk.configs.stream()
+            .sorted()
+            .collect(Collectors.toList()));
+        log().debug(format("Discovered %d configs in %d directories of %s in %dms.", result.size(), walk.directories.size(), base, currentTimeMillis() - start));
+
+        writeCached(result, walk.directories, start);
+        return result;
+    }
+
+    boolean allowed(@Nonnull String relativePath) {
+        return (includes.isEmpty() || includeMatchers.matches(relativePath, true))
+            && !excludeMatchers.matches(relativePath, true);
+    }
+
+    private boolean mayContainAllowed(@Nonnull String relativePath, int depth) {
+        if (depth >= maxDepth || excludeMatchers.matches(relativePath, true)) {
+            return false;
+        }
+        return includeMatchers.matchesPatternStart(relativePath, true);
+    }
+
+    static int maxDepthOf(@Nonnull Collection<String> includes) {
+        int result = 1;
+        for (final String include : includes) {
+            final String normalized = include.replace('\\', '/');
+            if (normalized.contains("**")) {
+                return Integer.MAX_VALUE;
+            }
+            result = Math.max(result, normalized.split("/").length);
+        }
+        return result;
+    }
+
+    @Nonnull
+    private String relativeOf(@Nonnull Path path) {
+        return base.relativize(path).toString();
+    }
+
+    private final class Walk {
+
+        private final Collection<Path> configs = new ConcurrentLinkedQueue<>();
+        private final Map<Path, Long> directories = new ConcurrentHashMap<>();
+
+        @Nonnull
+        private RecursiveAction taskFor(@Nonnull Path directory, int depth) {
+            return new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    final List<RecursiveAction> children = new ArrayList<>();
+                    try (final DirectoryStream<Path> candidates = Files.newDirectoryStream(directory)) {
+                        directories.put(directory, Files.getLastModifiedTime(directory).toMillis());
+                        for (final Path candidate : candidates) {
+                            final String relative = relativeOf(candidate);
+                            if (allowed(relative)) {
+                                configs.add(candidate);
+                            } else if (mayContainAllowed(relative, depth) && Files.isDirectory(candidate)) {
+                                children.add(taskFor(candidate, depth + 1));
+                            }
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(format("Cannot collect potential config paths from %s", directory), e);
+                    }
+                    invokeAll(children);
+                }
+            };
+        }
+    }
+
+    @Nonnull
+    Optional<List<Path>> readCached() throws UncheckedIOException {
+        final Optional<Path> file = cacheFile();
+        if (!file.isPresent()) {
+            return Optional.empty();
+        }
+        final List<String> lines;
+        try {
+            lines = Files.readAllLines(file.get(), UTF_8);
+        } catch (FileNotFoundException | NoSuchFileException ignored) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot read cached configs from %s.", file.get()), e);
+        }
+        if (lines.isEmpty() || !lines.get(0).equals(KEY_PREFIX + key())) {
+            return Optional.empty();
+        }
+
+        final List<Path> result = new ArrayList<>();
+        for (final String line : lines.subList(1, lines.size())) {
+            if (line.startsWith(DIRECTORY_PREFIX)) {
+                final String[] parts = line.substring(DIRECTORY_PREFIX.length()).split("\t", 2);
+                final Path directory = base.resolve(parts.length > 1 ? parts[1] : "");
+                final Optional<Long> lastModified = FileSystems.lastModifiedAt(directory).map(FileTime::toMillis);
+                if (!lastModified.isPresent() || lastModified.get() != Long.parseLong(parts[0])) {
+                    log().debug(format("%s changed since configs were discovered; discover them again.", directory));
+                    return Optional.empty();
+                }
+            } else if (line.startsWith(CONFIG_PREFIX)) {
+                result.add(base.resolve(line.substring(CONFIG_PREFIX.length())));
+            }
+        }
+        return Optional.of(unmodifiableList(result));
+    }
+
+    private void writeCached(@Nonnull List<Path> configs, @Nonnull Map<Path, Long> directories, long walkStartedAt) {
+        final Optional<Path> file = cacheFile();
+        if (!file.isPresent()) {
+            return;
+        }
+        if (directories.values().stream().anyMatch(lastModified -> lastModified > walkStartedAt - RACY_MILLIS)) {
+            log().debug("Some directories were modified just now; discovered configs are not cached.");
+            return;
+        }
+
+        final List<String> lines = new ArrayList<>();
+        lines.add(KEY_PREFIX + key());
+        directories.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey(Comparator.comparing(Path::toString)))
+            .forEach(entry -> lines.add(DIRECTORY_PREFIX + entry.getValue() + "\t" + relativeOf(entry.getKey())));
+        configs.forEach(config -> lines.add(CONFIG_PREFIX + relativeOf(config)));
+
+        try {
+            writeAtomically(file.get(), temporary -> Files.write(temporary, lines, UTF_8, TRUNCATE_EXISTING, WRITE, CREATE));
+        } catch (UncheckedIOException e) {
+            log().warn(format("Cannot cache discovered configs in %s; this will be ignored for now.", file.get()), e);
+        }
+    }
+
+    @Nonnull
+    private String key() {
+        return base.toAbsolutePath().normalize() + "\t" + includes + "\t" + excludes;
+    }
+
+    @Nonnull
+    Optional<Path> cacheFile() {
+        return cacheDirectory
+            .map(directory -> directory.resolve(format("configs-%08x", key().hashCode())));
+    }
+
+    @Nonnull
+    public Log log() {
+        return log;
+    }
+
+    @Nonnull
+    public Path base() {
+        return base;
+    }
+
+    public static final class Builder {
+
+        @Nonnull
+        private Optional<Log> log = Optional.empty();
+        @Nonnull
+        private Optional<Path> base = Optional.empty();
+        @Nonnull
+        private final List<String> includes = new ArrayList<>();
+        @Nonnull
+        private final List<String> excludes = new ArrayList<>();
+        @Nonnull
+        private Optional<Path> cacheDirectory = Optional.empty();
+
+        @Nonnull
+        public Builder withLog(@Nonnull Log v) {
+            log = Optional.of(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withBase(@Nonnull Path v) {
+            base = Optional.of(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withIncludes(@Nonnull Collection<String> v) {
+            includes.addAll(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withExcludes(@Nonnull Collection<String> v) {
+            excludes.addAll(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withCacheDirectory(@Nullable Path v) {
+            cacheDirectory = Optional.ofNullable(v);
+            return this;
+        }
+
+        @Nonnull
+        public ConfigDiscovery build() {
+            return new ConfigDiscovery(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,70 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.util.Collections.unmodifiableMap;
+
+import java.net.URLConnection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import javax.annotation.Nonnull;
+
+public interface ContentTypes {
+
+    String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    // Typical files of static sites; everything else is looked up in the (small) table of the JDK.
+    Map<String, String> CONTENT_TYPES = unmodifiableMap(new HashMap<String, String>() {{
+        put("html", "text/html; charset=utf-8");
+        put("htm", "text/html; charset=utf-8");
+        put("css", "text/css; charset=utf-8");
+        put("js", "text/javascript; charset=utf-8");
+        put("mjs", "text/javascript; charset=utf-8");
+        put("json", "application/json");
+        put("map", "application/json");
+        put("webmanifest", "application/manifest+json");
+        put("xml", "application/xml");
+        put("rss", "application/rss+xml");
+        put("atom", "application/atom+xml");
+        put("txt", "text/plain; charset=utf-8");
+        put("md", "text/markdown; charset=utf-8");
+        put("csv", "text/csv; charset=utf-8");
+        put("ics", "text/calendar; charset=utf-8");
+        put("svg", "image/svg+xml");
+        put("png", "image/png");
+        put("jpg", "image/jpeg");
+        put("jpeg", "image/jpeg");
+        put("gif", "image/gif");
+        put("webp", "image/webp");
+        put("avif", "image/avif");
+        put("ico", "image/x-icon");
+        put("woff", "font/woff");
+        put("woff2", "font/woff2");
+        put("ttf", "font/ttf");
+        put("otf", "font/otf");
+        put("pdf", "application/pdf");
+        put("wasm", "application/wasm");
+        put("zip", "application/zip");
+        put("gz", "application/gzip");
+        put("br", "application/x-brotli");
+        put("zst", "application/zstd");
+        put("mp3", "audio/mpeg");
+        put("ogg", "audio/ogg");
+        put("mp4", "video/mp4");
+        put("webm", "video/webm");
+    }});
+
+    @Nonnull
+    static String contentTypeOf(@Nonnull String name) {
+        final int slash = Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\'));
+        final int dot = name.lastIndexOf('.');
+        if (dot > slash) {
+            final String known = CONTENT_TYPES.get(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+            if (known != null) {
+                return known;
+            }
+        }
+        final String guessed = URLConnection.guessContentTypeFromName(name);
+        return guessed != null ? guessed : DEFAULT_CONTENT_TYPE;
+    }
+
+}
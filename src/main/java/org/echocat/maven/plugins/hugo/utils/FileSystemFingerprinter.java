@@ -0,0 +1,62 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.lang.String.format;
+import static org.echocat.maven.plugins.hugo.utils.Fingerprinter.sha256Of;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+
+import org.echocat.maven.plugins.hugo.model.InputSet;
+
+public final class FileSystemFingerprinter implements Fingerprinter {
+
+    @Nonnull
+    public static FileSystemFingerprinter fileSystemFingerprinter() {
+        return new FileSystemFingerprinter();
+    }
+
+    private FileSystemFingerprinter() {}
+
+    @Nonnull
+    @Override
+    public String fingerprint(@Nonnull InputSet inputs) throws UncheckedIOException {
+        final List<String> lines = inputs.roots().parallelStream()
+            .flatMap(root -> linesOf(root).stream())
+            .sorted()
+            .collect(Collectors.toList());
+        return sha256Of(lines);
+    }
+
+    @Nonnull
+    static List<String> linesOf(@Nonnull Path root) throws UncheckedIOException {
+        final List<String> result = new ArrayList<>();
+        if (!Files.exists(root)) {
+            result.add("missing\t" + root);
+            return result;
+        }
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    if (attributes.isRegularFile()) {
+                        result.add(file + "\t" + attributes.size() + "\t" + attributes.lastModifiedTime().toMillis());
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot fingerprint %s.", root), e);
+        }
+        return result;
+    }
+
+}
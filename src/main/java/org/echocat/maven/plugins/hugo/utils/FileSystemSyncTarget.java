@@ -0,0 +1,186 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.echocat.maven.plugins.hugo.model.Manifest.manifestFromJson;
+import static org.echocat.maven.plugins.hugo.utils.FileSystems.writeAtomically;
+import static org.echocat.maven.plugins.hugo.utils.ManifestGenerator.manifestGenerator;
+import static org.echocat.maven.plugins.hugo.utils.SyncTarget.remoteObjectOf;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+
+import org.apache.maven.plugin.logging.Log;
+import org.echocat.maven.plugins.hugo.model.Manifest;
+import org.echocat.maven.plugins.hugo.model.Manifest.Entry;
+
+public final class FileSystemSyncTarget implements SyncTarget {
+
+    @Nonnull
+    public static FileSystemSyncTarget.Builder fileSystemSyncTarget() {
+        return new Builder();
+    }
+
+    @Nonnull
+    private final Log log;
+    @Nonnull
+    private final Path root;
+    @Nonnull
+    private final ManifestGenerator hasher;
+
+    private FileSystemSyncTarget(@Nonnull Builder builder) {
+        log = builder.log.orElseThrow(() -> new NullPointerException("No log provided."));
+        root = builder.root.orElseThrow(() -> new NullPointerException("No root provided."));
+        hasher = manifestGenerator()
+            .withLog(log)
+            .build();
+    }
+
+    @Nonnull
+    @Override
+    public Map<String, RemoteObject> list() throws UncheckedIOException {
+        final Map<String, RemoteObject> result = new TreeMap<>();
+        if (!Files.isDirectory(root)) {
+            return result;
+        }
+        try (final Stream<Path> candidates = Files.walk(root)) {
+            candidates.forEach(candidate -> {
+                final BasicFileAttributes attributes = attributesOf(candidate);
+                if (attributes.isRegularFile()) {
+                    final String key = keyOf(candidate);
+                    result.put(key, remoteObjectOf(key, attributes.size(), null));
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot list %s.", root), e);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean matches(@Nonnull Path file, @Nonnull Entry entry, @Nonnull RemoteObject remote) throws UncheckedIOException {
+        return remote.size() == entry.size()
+            && hasher.sha256Of(fileOf(remote.key()), remote.size()).equals(entry.sha256());
+    }
+
+    @Override
+    public void upload(@Nonnull Path file, @Nonnull Entry entry, @Nonnull Optional<String> cacheControl) throws UncheckedIOException {
+        final Path target = fileOf(entry.path());
+        try {
+            writeAtomically(target, temp -> {
+                Files.copy(file, temp, REPLACE_EXISTING);
+                Files.setLastModifiedTime(temp, FileTime.fromMillis(entry.lastModified()));
+            });
+        } catch (UncheckedIOException e) {
+            throw new UncheckedIOException(format("Cannot copy %s to %s.", file, target), e.getCause());
+        }
+    }
+
+    @Override
+    public void delete(@Nonnull String key) throws UncheckedIOException {
+        final Path file = fileOf(key);
+        try {
+            Files.deleteIfExists(file);
+            // Do not leave the directories of removed sections behind.
+            for (Path parent = file.getParent(); parent != null && parent.startsWith(root) && !parent.equals(root); parent = parent.getParent()) {
+                Files.delete(parent);
+            }
+        } catch (DirectoryNotEmptyException | NoSuchFileException ignored) {
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot delete %s.", file), e);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Optional<Manifest> readManifest(@Nonnull String key) throws UncheckedIOException {
+        final Path file = fileOf(key);
+        try {
+            return Optional.of(manifestFromJson(new String(Files.readAllBytes(file), UTF_8)));
+        } catch (NoSuchFileException ignored) {
+            return Optional.empty();
+        } catch (IllegalArgumentException e) {
+            log.warn(format("Cannot read manifest %s; the content of the target is compared instead: %s", file, e.getMessage()));
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot read %s.", file), e);
+        }
+    }
+
+    @Override
+    public void writeManifest(@Nonnull String key, @Nonnull Manifest manifest) throws UncheckedIOException {
+        writeAtomically(fileOf(key), manifest.toJson().getBytes(UTF_8));
+    }
+
+    @Nonnull
+    private Path fileOf(@Nonnull String key) {
+        final Path result = root.resolve(key).normalize();
+        if (!result.startsWith(root)) {
+            throw new IllegalArgumentException(format("Key %s points outside of %s.", key, root));
+        }
+        return result;
+    }
+
+    @Nonnull
+    private String keyOf(@Nonnull Path file) {
+        return root.relativize(file).toString().replace('\\', '/');
+    }
+
+    @Nonnull
+    private static BasicFileAttributes attributesOf(@Nonnull Path file) throws UncheckedIOException {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot read attributes of %s.", file), e);
+        }
+    }
+
+    @Nonnull
+    public Path root() {
+        return root;
+    }
+
+    @Override
+    public String toString() {
+        return root.toString();
+    }
+
+    public static final class Builder {
+
+        @Nonnull
+        private Optional<Log> log = Optional.empty();
+        @Nonnull
+        private Optional<Path> root = Optional.empty();
+
+        @Nonnull
+        public Builder withLog(@Nonnull Log v) {
+            log = Optional.of(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withRoot(@Nonnull Path v) {
+            root = Optional.of(v.toAbsolutePath().normalize());
+            return this;
+        }
+
+        @Nonnull
+        public FileSystemSyncTarget build() {
+            return new FileSystemSyncTarget(this);
+        }
+
+    }
+
+}
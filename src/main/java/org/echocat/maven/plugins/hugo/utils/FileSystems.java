@@ -3,8 +3,12 @@ package org.echocat.maven.plugins.hugo.utils;
 import static java.lang.String.format;
 import static java.nio.file.Files.move;
 import static java.nio.file.Files.setPosixFilePermissions;
+import static java.nio.file.LinkOption.NOFOLLOW_LINKS;
 import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
 import static java.nio.file.attribute.PosixFilePermission.*;
+import static java.nio.file.attribute.PosixFilePermissions.asFileAttribute;
 import static java.util.Collections.unmodifiableSet;
 import static java.util.Objects.requireNonNull;
 
@@ -17,9 +21,13 @@ import java.nio.file.Path;
 import java.nio.file.attribute.FileTime;
 import java.nio.file.attribute.PosixFilePermission;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 
 public interface FileSystems {
@@ -34,6 +42,15 @@ public interface FileSystems {
         OTHERS_EXECUTE
     )));
 
+    Set<PosixFilePermission> TEMPORARY_FILE_PERMISSIONS = unmodifiableSet(new HashSet<>(Arrays.asList(
+        OWNER_READ,
+        OWNER_WRITE,
+        GROUP_READ,
+        GROUP_WRITE,
+        OTHERS_READ,
+        OTHERS_WRITE
+    )));
+
     static void createParentsOf(@Nonnull Path what) throws UncheckedIOException {
         requireNonNull(what);
 
@@ -66,6 +83,104 @@ public interface FileSystems {
         }
     }
 
+    // Creates an empty temporary file next to the given one. Its name is unique also across processes (several builds
+    // may write the same file of the machine wide cache at the same time); callers rename it into place or delete it.
+    @Nonnull
+    static Path temporaryFileFor(@Nonnull Path file) throws UncheckedIOException {
+        final Path directory = file.toAbsolutePath().getParent();
+        try {
+            if (directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+                // Files.createTempFile() would only allow the owner to read the file; keep the permissions of Files.write().
+                return Files.createTempFile(directory, "~" + file.getFileName(), ".tmp", asFileAttribute(TEMPORARY_FILE_PERMISSIONS));
+            }
+            return Files.createTempFile(directory, "~" + file.getFileName(), ".tmp");
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot create temporary file for %s.", file), e);
+        }
+    }
+
+    // Writes the file through a temporary file which is renamed into place, so readers never see a partial file.
+    static void writeAtomically(@Nonnull Path file, @Nonnull ContentWriter writer) throws UncheckedIOException {
+        createParentsOf(file.toAbsolutePath());
+        final Path temporary = temporaryFileFor(file);
+        try {
+            writer.writeTo(temporary);
+            rename(temporary, file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot write %s.", file), e);
+        } finally {
+            deleteQuietly(temporary);
+        }
+    }
+
+    static void writeAtomically(@Nonnull Path file, @Nonnull byte[] content) throws UncheckedIOException {
+        writeAtomically(file, temporary -> Files.write(temporary, content));
+    }
+
+    @FunctionalInterface
+    interface ContentWriter {
+        void writeTo(@Nonnull Path temporary) throws IOException;
+    }
+
+    static void deleteRecursively(@Nonnull Path what) throws UncheckedIOException {
+        if (!Files.exists(what, NOFOLLOW_LINKS)) {
+            return;
+        }
+        try (final Stream<Path> candidates = Files.walk(what)) {
+            final List<Path> paths = candidates
+                .sorted(Comparator.reverseOrder())
+                .collect(Collectors.toList());
+            for (final Path path : paths) {
+                Files.deleteIfExists(path);
+            }
+        } catch (UncheckedIOException e) {
+            throw new UncheckedIOException(format("Cannot delete %s.", what), e.getCause());
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot delete %s.", what), e);
+        }
+    }
+
+    static long sizeOf(@Nonnull Path what) throws UncheckedIOException {
+        if (!Files.exists(what, NOFOLLOW_LINKS)) {
+            return 0L;
+        }
+        try (final Stream<Path> candidates = Files.walk(what)) {
+            return candidates
+                .filter(Files::isRegularFile)
+                .mapToLong(candidate -> {
+                    try {
+                        return Files.size(candidate);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .sum();
+        } catch (UncheckedIOException e) {
+            throw new UncheckedIOException(format("Cannot determine size of %s.", what), e.getCause());
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot determine size of %s.", what), e);
+        }
+    }
+
+    static void touch(@Nonnull Path what) throws UncheckedIOException {
+        try {
+            if (!Files.exists(what)) {
+                createParentsOf(what);
+                Files.write(what, new byte[0], CREATE, WRITE);
+            }
+            Files.setLastModifiedTime(what, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot touch %s.", what), e);
+        }
+    }
+
+    static void deleteQuietly(@Nonnull Path what) {
+        try {
+            Files.deleteIfExists(what);
+        } catch (IOException ignored) {
+        }
+    }
+
     @Nonnull
     static Optional<FileTime> lastModifiedAt(@Nonnull Path what) throws UncheckedIOException {
         try {
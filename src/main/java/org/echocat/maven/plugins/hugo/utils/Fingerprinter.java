@@ -0,0 +1,36 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import javax.annotation.Nonnull;
+
+import org.echocat.maven.plugins.hugo.model.InputSet;
+
+public interface Fingerprinter {
+
+    @Nonnull
+    String fingerprint(@Nonnull InputSet inputs) throws UncheckedIOException, FailureException;
+
+    @Nonnull
+    static String sha256Of(@Nonnull Iterable<String> lines) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (final String line : lines) {
+            digest.update(line.getBytes(UTF_8));
+            digest.update((byte) '\n');
+        }
+        final StringBuilder result = new StringBuilder();
+        for (final byte b : digest.digest()) {
+            result.append(String.format("%02x", b));
+        }
+        return result.toString();
+    }
+
+}
@@ -0,0 +1,266 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.echocat.maven.plugins.hugo.utils.Fingerprinter.sha256Of;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.apache.maven.plugin.logging.Log;
+import org.echocat.maven.plugins.hugo.model.InputSet;
+
+public final class GitFingerprinter implements Fingerprinter {
+
+    @Nonnull
+    public static GitFingerprinter.Builder gitFingerprinter() {
+        return new Builder();
+    }
+
+    @Nonnull
+    private final Log log;
+    @Nonnull
+    private final Path workingDirectory;
+    @Nonnull
+    private final String executable;
+    @Nonnull
+    private final Duration timeout;
+    @Nonnull
+    private final Fingerprinter fallback;
+
+    private GitFingerprinter(@Nonnull Builder builder) {
+        log = builder.log.orElseThrow(() -> new NullPointerException("No log provided."));
+        workingDirectory = builder.workingDirectory.orElseThrow(() -> new NullPointerException("No workingDirectory provided."));
+        executable = builder.executable;
+        timeout = builder.timeout;
+        fallback = builder.fallback.orElseGet(FileSystemFingerprinter::fileSystemFingerprinter);
+    }
+
+    @Nonnull
+    @Override
+    public String fingerprint(@Nonnull InputSet inputs) throws UncheckedIOException, FailureException {
+        final long start = System.currentTimeMillis();
+        final Optional<String> result = fingerprintWithGit(inputs);
+        if (result.isPresent()) {
+            log().debug(format("Fingerprinted %d inputs using git in %dms.", inputs.roots().size(), System.currentTimeMillis() - start));
+            return result.get();
+        }
+        return fallback.fingerprint(inputs);
+    }
+
+    @Nonnull
+    private Optional<String> fingerprintWithGit(@Nonnull InputSet inputs) throws UncheckedIOException {
+        final Optional<Path> topLevel = git(workingDirectory, "rev-parse", "--show-toplevel")
+            .map(String::trim)
+            .filter(v -> !v.isEmpty())
+            .map(v -> realPathOf(Paths.get(v)));
+        if (!topLevel.isPresent()) {
+            log().debug(format("%s is not inside a git working tree; fingerprint inputs using the file system.", workingDirectory));
+            return Optional.empty();
+        }
+
+        final List<String> lines = new ArrayList<>();
+        final List<String> tracked = new ArrayList<>();
+        for (final Path root : inputs.roots()) {
+            final Path realRoot = realPathOf(root);
+            if (realRoot.startsWith(topLevel.get()) && !realRoot.equals(topLevel.get())) {
+                tracked.add(topLevel.get().relativize(realRoot).toString().replace('\\', '/'));
+            } else {
+                // Outside of the repository (or the whole repository); git cannot help here.
+                lines.addAll(FileSystemFingerprinter.linesOf(root));
+            }
+        }
+
+        if (!tracked.isEmpty()) {
+            final Optional<String> trees = git(topLevel.get(), withPaths(tracked, "ls-tree", "HEAD"));
+            final Optional<String> status = git(topLevel.get(), withPaths(tracked, "status", "--porcelain=v1", "-z", "--untracked-files=all", "--ignored=matching"));
+            if (!trees.isPresent() || !status.isPresent()) {
+                return Optional.empty();
+            }
+            // Tree and blob ids of HEAD cover everything that is committed...
+            lines.addAll(Arrays.asList(trees.get().split("\n")));
+            // ...everything that differs from HEAD is fingerprinted using the file system.
+            for (final String changed : changedPathsOf(status.get())) {
+                final Path file = topLevel.get().resolve(changed);
+                lines.add("changed\t" + changed);
+                lines.addAll(FileSystemFingerprinter.linesOf(file));
+            }
+        }
+
+        return Optional.of(sha256Of(lines.stream()
+            .sorted()
+            .collect(Collectors.toList())));
+    }
+
+    // Both git and the inputs may see the repository through symbolic links (like /tmp on macOS) or, on Windows, with
+    // another case or as 8.3 short names; only their real paths can be compared. Roots which do not exist stay as they are.
+    @Nonnull
+    private static Path realPathOf(@Nonnull Path path) {
+        try {
+            return path.toRealPath();
+        } catch (IOException e) {
+            return path.toAbsolutePath().normalize();
+        }
+    }
+
+    @Nonnull
+    static List<String> changedPathsOf(@Nonnull String porcelain) {
+        final List<String> result = new ArrayList<>();
+        final String[] entries = porcelain.split("\0");
+        for (int i = 0; i < entries.length; i++) {
+            final String entry = entries[i];
+            if (entry.length() < 4) {
+                continue;
+            }
+            result.add(entry.substring(3));
+            if (entry.charAt(0) == 'R' || entry.charAt(0) == 'C') {
+                // Renames and copies are followed by their origin.
+                if (i + 1 < entries.length) {
+                    result.add(entries[++i]);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Nonnull
+    private static String[] withPaths(@Nonnull List<String> paths, @Nonnull String... command) {
+        final List<String> result = new ArrayList<>(Arrays.asList(command));
+        result.add("--");
+        result.addAll(paths);
+        return result.toArray(new String[0]);
+    }
+
+    @Nonnull
+    private Optional<String> git(@Nonnull Path directory, @Nonnull String... arguments) throws UncheckedIOException {
+        final List<String> command = new ArrayList<>();
+        command.add(executable);
+        command.add("--literal-pathspecs");
+        command.addAll(Arrays.asList(arguments));
+        try {
+            final Process process = new ProcessBuilder(command)
+                .directory(directory.toFile())
+                .start();
+            process.getOutputStream().close();
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            final ByteArrayOutputStream error = new ByteArrayOutputStream();
+            final Thread outputReader = drain(process.getInputStream(), output);
+            final Thread errorReader = drain(process.getErrorStream(), error);
+            if (!process.waitFor(timeout.toMillis(), MILLISECONDS)) {
+                process.destroyForcibly();
+                log().debug(format("git %s took longer than %s; ignoring it.", arguments[0], timeout));
+                return Optional.empty();
+            }
+            outputReader.join(timeout.toMillis());
+            errorReader.join(timeout.toMillis());
+            if (process.exitValue() != 0) {
+                synchronized (error) {
+                    log().debug(format("git %s failed with exit code %d: %s", arguments[0], process.exitValue(), new String(error.toByteArray(), UTF_8).trim()));
+                }
+                return Optional.empty();
+            }
+            synchronized (output) {
+                return Optional.of(new String(output.toByteArray(), UTF_8));
+            }
+        } catch (IOException e) {
+            log().debug(format("Cannot execute %s: %s", executable, e.getMessage()));
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Was interrupted.", e);
+        }
+    }
+
+    @Nonnull
+    private static Thread drain(@Nonnull InputStream from, @Nonnull ByteArrayOutputStream to) {
+        final Thread result = new Thread(() -> {
+            try (final InputStream is = from) {
+                final byte[] buffer = new byte[8192];
+                int read;
+                while ((read = is.read(buffer)) != -1) {
+                    synchronized (to) {
+                        to.write(buffer, 0, read);
+                    }
+                }
+            } catch (IOException ignored) {
+            }
+        }, "git-output-reader");
+        result.setDaemon(true);
+        result.start();
+        return result;
+    }
+
+    @Nonnull
+    public Log log() {
+        return log;
+    }
+
+    @Nonnull
+    public Path workingDirectory() {
+        return workingDirectory;
+    }
+
+    public static final class Builder {
+
+        @Nonnull
+        private Optional<Log> log = Optional.empty();
+        @Nonnull
+        private Optional<Path> workingDirectory = Optional.empty();
+        @Nonnull
+        private String executable = "git";
+        @Nonnull
+        private Duration timeout = Duration.ofSeconds(30);
+        @Nonnull
+        private Optional<Fingerprinter> fallback = Optional.empty();
+
+        @Nonnull
+        public Builder withLog(@Nonnull Log v) {
+            log = Optional.of(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withWorkingDirectory(@Nonnull Path v) {
+            workingDirectory = Optional.of(v.toAbsolutePath().normalize());
+            return this;
+        }
+
+        @Nonnull
+        public Builder withExecutable(@Nullable String v) {
+            executable = v != null && !v.trim().isEmpty() ? v.trim() : "git";
+            return this;
+        }
+
+        @Nonnull
+        public Builder withTimeout(@Nullable Duration v) {
+            timeout = v != null ? v : Duration.ofSeconds(30);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withFallback(@Nullable Fingerprinter v) {
+            fallback = Optional.ofNullable(v);
+            return this;
+        }
+
+        @Nonnull
+        public GitFingerprinter build() {
+            return new GitFingerprinter(this);
+        }
+
+    }
+
+}
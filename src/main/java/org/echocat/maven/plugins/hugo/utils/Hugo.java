@@ -2,9 +2,10 @@ package org.echocat.maven.plugins.hugo.utils;
 
 import static java.lang.ProcessBuilder.Redirect.PIPE;
 import static java.lang.String.format;
-import static java.nio.file.Files.isExecutable;
+import static java.util.Collections.emptyMap;
 import static java.util.Collections.unmodifiableList;
 import static org.echocat.maven.plugins.hugo.utils.Hugo.Download.*;
+import static org.echocat.maven.plugins.hugo.utils.HugoCache.hugoCache;
 import static org.echocat.maven.plugins.hugo.utils.HugoDownloader.hugoDownloader;
 import static org.echocat.maven.plugins.hugo.utils.InputStreamLogger.Level.error;
 import static org.echocat.maven.plugins.hugo.utils.InputStreamLogger.Level.info;
@@ -13,18 +14,26 @@ import static org.echocat.maven.plugins.hugo.utils.ProcessLogger.processLogger;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import com.github.zafarkhaja.semver.Version;
 import org.apache.maven.plugin.logging.Log;
 import org.echocat.maven.plugins.hugo.model.Platform;
+import org.echocat.maven.plugins.hugo.utils.ProcessLimiter.Permit;
+import org.echocat.maven.plugins.hugo.utils.SystemHugoLocator.Installation;
 
 public final class Hugo {
 
+    private static final int MAX_RECORDED_ERROR_LINES = 200;
+
     @Nonnull
     public static Hugo.Builder hugo() {
         return new Hugo.Builder();
@@ -40,6 +49,14 @@ public final class Hugo {
     private final Download download;
 
     private final HugoDownloader downloader;
+    @Nonnull
+    private final HugoCache cache;
+    @Nonnull
+    private final Optional<Path> resolvedExecutable;
+    @Nonnull
+    private final Optional<SystemHugoLocator> systemHugoLocator;
+    @Nonnull
+    private final ProcessLimiter processLimiter;
 
     private Hugo(@Nonnull Builder builder) {
         log = builder.log.orElseThrow(() -> new NullPointerException("No log provided."));
@@ -50,30 +67,60 @@ public final class Hugo {
             .withLog(log())
             .withPlatform(platform())
             .build();
+        cache = builder.cache.orElseGet(() -> hugoCache()
+            .withLog(log())
+            .build());
+        resolvedExecutable = builder.executable;
+        systemHugoLocator = builder.systemHugoLocator;
+        processLimiter = builder.processLimiter.orElseGet(ProcessLimiter::unlimited);
     }
 
     public void execute(@Nonnull List<String> arguments, @Nonnull Path inWorkingDirectory) throws UncheckedIOException, FailureException {
-        final Process process = start(arguments, inWorkingDirectory);
-        final ProcessLogger processLogger = processLoggerFor(process);
+        execute(arguments, inWorkingDirectory, emptyMap());
+    }
+
+    public void execute(@Nonnull List<String> arguments, @Nonnull Path inWorkingDirectory, @Nonnull Map<String, String> environment) throws UncheckedIOException, FailureException {
+        // Resolve (and maybe download) the executable before waiting for a process slot.
+        executable();
+        final Permit permit = processLimiter.acquire();
         try {
-            process.waitFor();
-            assertNormalExitOf(process);
-            processLogger.waitFor();
-        } catch (InterruptedException e) {
-            throw new RuntimeException("Was interrupted.", e);
+            final Process process = start(arguments, inWorkingDirectory, environment);
+            final Deque<String> errors = new ArrayDeque<>();
+            final ProcessLogger processLogger = processLoggerFor(process, line -> {
+                synchronized (errors) {
+                    if (errors.size() >= MAX_RECORDED_ERROR_LINES) {
+                        errors.removeFirst();
+                    }
+                    errors.addLast(line);
+                }
+            });
+            try {
+                process.waitFor();
+                processLogger.waitFor();
+                synchronized (errors) {
+                    assertNormalExitOf(process, new ArrayList<>(errors));
+                }
+            } catch (InterruptedException e) {
+                process.destroy();
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Was interrupted.", e);
+            }
+        } finally {
+            permit.close();
         }
     }
 
     @Nonnull
-    private Process start(@Nonnull List<String> arguments, @Nonnull Path inWorkingDirectory) throws UncheckedIOException, FailureException {
+    private Process start(@Nonnull List<String> arguments, @Nonnull Path inWorkingDirectory, @Nonnull Map<String, String> environment) throws UncheckedIOException, FailureException {
         final Process process;
         try {
-            process = new ProcessBuilder()
+            final ProcessBuilder builder = new ProcessBuilder()
                 .command(toCommand(arguments))
                 .directory(inWorkingDirectory.toFile())
                 .redirectError(PIPE)
-                .redirectOutput(PIPE)
-                .start();
+                .redirectOutput(PIPE);
+            builder.environment().putAll(environment);
+            process = builder.start();
         } catch (IOException e) {
             throw new UncheckedIOException("Cannot start hugo process.", e);
         }
@@ -89,20 +136,43 @@ public final class Hugo {
     }
 
     @Nonnull
-    private ProcessLogger processLoggerFor(@Nonnull Process process) {
+    private ProcessLogger processLoggerFor(@Nonnull Process process, @Nonnull Consumer<String> stderrListener) {
         return processLogger()
             .withProcess(process)
             .withName("hugo")
             .withLog(log())
             .withStderrLevel(error)
             .withStdoutLevel(info)
+            .withStderrListener(stderrListener)
             .build();
     }
 
-    void assertNormalExitOf(@Nonnull Process process) throws FailureException {
+    void assertNormalExitOf(@Nonnull Process process, @Nonnull List<String> errors) throws FailureException {
         final int value = process.exitValue();
         if (value != 0) {
-            throw new FailureException(format("Execution of hugo failed with %d. See output above.", value));
+            throw new ExecutionFailedException(value, errors);
+        }
+    }
+
+    public static class ExecutionFailedException extends FailureException {
+
+        private final int exitCode;
+        @Nonnull
+        private final List<String> errors;
+
+        public ExecutionFailedException(int exitCode, @Nonnull List<String> errors) {
+            super(format("Execution of hugo failed with %d. See output above.", exitCode));
+            this.exitCode = exitCode;
+            this.errors = unmodifiableList(new ArrayList<>(errors));
+        }
+
+        public int exitCode() {
+            return exitCode;
+        }
+
+        @Nonnull
+        public List<String> errors() {
+            return errors;
         }
     }
 
@@ -113,23 +183,51 @@ public final class Hugo {
     }
 
     @Nonnull
-    Path executable() throws UncheckedIOException, FailureException {
+    public Path executable() throws UncheckedIOException, FailureException {
+        if (resolvedExecutable.isPresent()) {
+            return resolvedExecutable.get();
+        }
+
         final Path result = platform().hugoExecutable(version());
         final Download download = download();
 
-        if (isExecutable(result) && download != always) {
-            return result;
+        if (download == always || !downloader.installed(version())) {
+            if (download != always) {
+                final Optional<Installation> system = systemInstallation();
+                if (system.isPresent()) {
+                    log().debug(format("Using system installed hugo %s.", system.get()));
+                    return system.get().executable();
+                }
+            }
+            if (download == never) {
+                throw new NoHugoInstalledException();
+            }
+            downloader.download(version(), result);
         }
 
-        if (download == never) {
-            throw new NoHugoInstalledException();
+        cache().markUsed(result);
+        try {
+            cache().evictIfDue(result);
+        } catch (UncheckedIOException e) {
+            log().warn("Cannot evict old hugo binaries; this will be ignored for now.", e);
         }
 
-        downloader.download(version(), result);
-
         return result;
     }
 
+    @Nonnull
+    private Optional<Installation> systemInstallation() {
+        if (!systemHugoLocator.isPresent()) {
+            return Optional.empty();
+        }
+        try {
+            return systemHugoLocator.get().find(version());
+        } catch (UncheckedIOException e) {
+            log().warn("Cannot look for system installed hugo; this will be ignored for now.", e);
+            return Optional.empty();
+        }
+    }
+
     @Nonnull
     public Log log() {
         return log;
@@ -150,6 +248,11 @@ public final class Hugo {
         return download;
     }
 
+    @Nonnull
+    public HugoCache cache() {
+        return cache;
+    }
+
     public static final class Builder {
 
         @Nonnull
@@ -160,6 +263,14 @@ public final class Hugo {
         private Optional<Version> version = Optional.empty();
         @Nonnull
         private Optional<Download> download = Optional.empty();
+        @Nonnull
+        private Optional<HugoCache> cache = Optional.empty();
+        @Nonnull
+        private Optional<Path> executable = Optional.empty();
+        @Nonnull
+        private Optional<SystemHugoLocator> systemHugoLocator = Optional.empty();
+        @Nonnull
+        private Optional<ProcessLimiter> processLimiter = Optional.empty();
 
         @Nonnull
         public Builder withLog(@Nonnull Log v) {
@@ -185,6 +296,30 @@ public final class Hugo {
             return this;
         }
 
+        @Nonnull
+        public Builder withCache(@Nullable HugoCache v) {
+            cache = Optional.ofNullable(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withExecutable(@Nullable Path v) {
+            executable = Optional.ofNullable(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withSystemHugoLocator(@Nullable SystemHugoLocator v) {
+            systemHugoLocator = Optional.ofNullable(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withProcessLimiter(@Nullable ProcessLimiter v) {
+            processLimiter = Optional.ofNullable(v);
+            return this;
+        }
+
         @Nonnull
         public Hugo build() {
             return new Hugo(this);
@@ -0,0 +1,353 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.lang.String.format;
+import static java.lang.System.currentTimeMillis;
+import static java.nio.file.Files.isExecutable;
+import static java.util.Collections.unmodifiableList;
+import static org.echocat.maven.plugins.hugo.utils.FileSystems.*;
+import static org.echocat.maven.plugins.hugo.utils.Strings.formatBytes;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.github.zafarkhaja.semver.Version;
+import org.apache.maven.plugin.logging.Log;
+import org.echocat.maven.plugins.hugo.model.Platform;
+
+public final class HugoCache {
+
+    private static final String LAST_USED_FILE_NAME = ".last-used";
+    private static final String LAST_EVICTION_FILE_NAME = ".last-eviction";
+
+    @Nonnull
+    public static HugoCache.Builder hugoCache() {
+        return new Builder();
+    }
+
+    @Nonnull
+    private final Log log;
+    @Nonnull
+    private final Path directory;
+    @Nonnull
+    private final Optional<Long> maxSize;
+    @Nonnull
+    private final Optional<Duration> maxAge;
+    @Nonnull
+    private final Duration evictionInterval;
+
+    private HugoCache(@Nonnull Builder builder) {
+        log = builder.log.orElseThrow(() -> new NullPointerException("No log provided."));
+        directory = builder.directory.orElseGet(Platform::hugoBinariesDirectory);
+        maxSize = builder.maxSize;
+        maxAge = builder.maxAge;
+        evictionInterval = builder.evictionInterval;
+    }
+
+    public void markUsed(@Nonnull Path executable) {
+        final Path marker = executable.getParent().resolve(LAST_USED_FILE_NAME);
+        try {
+            touch(marker);
+        } catch (UncheckedIOException e) {
+            log().debug(format("Cannot mark %s as used; this will be ignored.", executable), e);
+        }
+    }
+
+    @Nonnull
+    public Optional<Eviction> evictIfDue(@Nonnull Path... inUse) throws UncheckedIOException {
+        if (!limited()) {
+            return Optional.empty();
+        }
+        final Path marker = directory().resolve(LAST_EVICTION_FILE_NAME);
+        final boolean due = lastModifiedAt(marker)
+            .map(lmt -> currentTimeMillis() - lmt.toMillis() >= evictionInterval().toMillis())
+            .orElse(true);
+        if (!due) {
+            return Optional.empty();
+        }
+        touch(marker);
+        return Optional.of(evict(inUse));
+    }
+
+    // Evicts least recently used binaries according to maxSize and maxAge; without any of both nothing is evicted.
+    @Nonnull
+    public Eviction evict(@Nonnull Path... inUse) throws UncheckedIOException {
+        return evict(false, inUse);
+    }
+
+    // Evicts every binary which is not in use, regardless of maxSize and maxAge.
+    @Nonnull
+    public Eviction evictAll(@Nonnull Path... inUse) throws UncheckedIOException {
+        return evict(true, inUse);
+    }
+
+    @Nonnull
+    private Eviction evict(boolean all, @Nonnull Path... inUse) throws UncheckedIOException {
+        final Set<Path> protectedDirectories = new HashSet<>();
+        for (final Path candidate : inUse) {
+            protectedDirectories.add(candidate.toAbsolutePath().getParent());
+        }
+
+        deleteLeftoversOfPreviousEvictions();
+
+        final List<Entry> entries = entries();
+        long remaining = entries.stream().mapToLong(Entry::size).sum();
+        final long now = currentTimeMillis();
+
+        final List<Entry> evicted = new ArrayList<>();
+        for (final Entry entry : entries) {
+            if (protectedDirectories.contains(entry.directory().toAbsolutePath())) {
+                continue;
+            }
+            final boolean tooOld = maxAge()
+                .map(v -> now - entry.lastUsed().toMillis() > v.toMillis())
+                .orElse(false);
+            final long remainingBefore = remaining;
+            final boolean tooLarge = maxSize()
+                .map(v -> remainingBefore > v)
+                .orElse(false);
+            if (all || tooOld || tooLarge) {
+                if (remove(entry)) {
+                    evicted.add(entry);
+                    remaining -= entry.size();
+                }
+            }
+        }
+
+        final Eviction result = new Eviction(evicted, remaining);
+        if (!evicted.isEmpty()) {
+            log().info(format("Evicted %d hugo binaries from %s; freed %s, %s remaining.",
+                evicted.size(), directory(), formatBytes(result.freed()), formatBytes(remaining)));
+        }
+        return result;
+    }
+
+    private boolean remove(@Nonnull Entry entry) {
+        final Path trash = entry.directory().resolveSibling("~evicted-" + entry.directory().getFileName() + "-" + currentTimeMillis());
+        try {
+            rename(entry.directory(), trash);
+        } catch (UncheckedIOException e) {
+            log().debug(format("Cannot evict %s; it is probably in use.", entry.directory()), e);
+            return false;
+        }
+        try {
+            deleteRecursively(trash);
+        } catch (UncheckedIOException e) {
+            log().warn(format("Cannot completely delete evicted %s.", trash), e);
+        }
+        log().debug(format("Evicted %s (%s, last used at %s).", entry.directory(), formatBytes(entry.size()), entry.lastUsed()));
+        return true;
+    }
+
+    private void deleteLeftoversOfPreviousEvictions() {
+        if (!Files.isDirectory(directory())) {
+            return;
+        }
+        try (final Stream<Path> candidates = Files.list(directory())) {
+            candidates
+                .filter(candidate -> candidate.getFileName().toString().startsWith("~evicted-"))
+                .forEach(FileSystems::deleteRecursively);
+        } catch (IOException | UncheckedIOException e) {
+            log().debug(format("Cannot delete leftovers of previous evictions in %s.", directory()), e);
+        }
+    }
+
+    @Nonnull
+    public List<Entry> entries() throws UncheckedIOException {
+        if (!Files.isDirectory(directory())) {
+            return unmodifiableList(new ArrayList<>());
+        }
+        try (final Stream<Path> candidates = Files.list(directory())) {
+            return unmodifiableList(candidates
+                .filter(Files::isDirectory)
+                .filter(candidate -> !candidate.getFileName().toString().startsWith("~"))
+                .filter(candidate -> !candidate.getFileName().toString().startsWith("."))
+                .map(candidate -> new Entry(candidate, lastUsedOf(candidate), sizeOf(candidate)))
+                .sorted(Comparator.comparing(Entry::lastUsed))
+                .collect(Collectors.toList()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot list cached hugo binaries in %s.", directory()), e);
+        }
+    }
+
+    @Nonnull
+    public List<Version> installedVersions(@Nonnull Platform platform) throws UncheckedIOException {
+        if (!Files.isDirectory(directory())) {
+            return unmodifiableList(new ArrayList<>());
+        }
+        final String prefix = platform + "-";
+        try (final Stream<Path> candidates = Files.list(directory())) {
+            return unmodifiableList(candidates
+                .filter(candidate -> candidate.getFileName().toString().startsWith(prefix))
+                .filter(candidate -> isExecutable(candidate.resolve(platform.hugoExecutableFileName())))
+                .map(candidate -> Version.tryParse(candidate.getFileName().toString().substring(prefix.length())))
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .sorted(Comparator.reverseOrder())
+                .collect(Collectors.toList()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot list cached hugo binaries in %s.", directory()), e);
+        }
+    }
+
+    @Nonnull
+    private static FileTime lastUsedOf(@Nonnull Path directory) {
+        final Optional<FileTime> marker = lastModifiedAt(directory.resolve(LAST_USED_FILE_NAME));
+        if (marker.isPresent()) {
+            return marker.get();
+        }
+        return lastModifiedAt(directory).orElseGet(() -> FileTime.fromMillis(0));
+    }
+
+    private boolean limited() {
+        return maxSize().isPresent() || maxAge().isPresent();
+    }
+
+    @Nonnull
+    public Log log() {
+        return log;
+    }
+
+    @Nonnull
+    public Path directory() {
+        return directory;
+    }
+
+    @Nonnull
+    public Optional<Long> maxSize() {
+        return maxSize;
+    }
+
+    @Nonnull
+    public Optional<Duration> maxAge() {
+        return maxAge;
+    }
+
+    @Nonnull
+    public Duration evictionInterval() {
+        return evictionInterval;
+    }
+
+    public static final class Entry {
+
+        @Nonnull
+        private final Path directory;
+        @Nonnull
+        private final FileTime lastUsed;
+        private final long size;
+
+        private Entry(@Nonnull Path directory, @Nonnull FileTime lastUsed, long size) {
+            this.directory = directory;
+            this.lastUsed = lastUsed;
+            this.size = size;
+        }
+
+        @Nonnull
+        public Path directory() {
+            return directory;
+        }
+
+        @Nonnull
+        public FileTime lastUsed() {
+            return lastUsed;
+        }
+
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public String toString() {
+            return directory.getFileName().toString();
+        }
+    }
+
+    public static final class Eviction {
+
+        @Nonnull
+        private final List<Entry> evicted;
+        private final long remaining;
+
+        private Eviction(@Nonnull List<Entry> evicted, long remaining) {
+            this.evicted = unmodifiableList(evicted);
+            this.remaining = remaining;
+        }
+
+        @Nonnull
+        public List<Entry> evicted() {
+            return evicted;
+        }
+
+        public long freed() {
+            return evicted.stream().mapToLong(Entry::size).sum();
+        }
+
+        public long remaining() {
+            return remaining;
+        }
+    }
+
+    public static final class Builder {
+
+        @Nonnull
+        private Optional<Log> log = Optional.empty();
+        @Nonnull
+        private Optional<Path> directory = Optional.empty();
+        @Nonnull
+        private Optional<Long> maxSize = Optional.empty();
+        @Nonnull
+        private Optional<Duration> maxAge = Optional.empty();
+        @Nonnull
+        private Duration evictionInterval = Duration.ofDays(1);
+
+        @Nonnull
+        public Builder withLog(@Nonnull Log v) {
+            log = Optional.of(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withDirectory(@Nonnull Path v) {
+            directory = Optional.of(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withMaxSize(@Nullable Long v) {
+            maxSize = Optional.ofNullable(v).filter(s -> s >= 0);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withMaxAge(@Nullable Duration v) {
+            maxAge = Optional.ofNullable(v).filter(d -> !d.isZero() && !d.isNegative());
+            return this;
+        }
+
+        @Nonnull
+        public Builder withEvictionInterval(@Nonnull Duration v) {
+            evictionInterval = v;
+            return this;
+        }
+
+        @Nonnull
+        public HugoCache build() {
+            return new HugoCache(this);
+        }
+
+    }
+
+}
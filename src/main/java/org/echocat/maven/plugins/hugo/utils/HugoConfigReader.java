@@ -0,0 +1,323 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.echocat.maven.plugins.hugo.model.Config;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.tomlj.Toml;
+import org.tomlj.TomlArray;
+import org.tomlj.TomlParseResult;
+import org.tomlj.TomlTable;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.error.YAMLException;
+
+public final class HugoConfigReader {
+
+    @Nonnull
+    private static final List<String> extensions = unmodifiableList(Arrays.asList("toml", "yaml", "yml", "json"));
+    @Nonnull
+    private static final List<String> rootNames = unmodifiableList(Arrays.asList("hugo", "config"));
+    @Nonnull
+    private static final String DEFAULT_ENVIRONMENT_DIRECTORY = "_default";
+    @Nonnull
+    public static final String DEFAULT_ENVIRONMENT = "production";
+
+    @Nonnull
+    public static HugoConfigReader.Builder hugoConfigReader() {
+        return new Builder();
+    }
+
+    @Nonnull
+    private final Optional<String> environment;
+
+    private HugoConfigReader(@Nonnull Builder builder) {
+        environment = builder.environment;
+    }
+
+    @Nonnull
+    public Result read(@Nonnull Config config) throws UncheckedIOException, FailureException {
+        final Map<String, Object> values = new LinkedHashMap<>();
+        final List<Path> files = new ArrayList<>();
+        if (config.type() == Config.Type.file) {
+            merge(values, parse(config.path()));
+            files.add(config.path());
+        } else {
+            readDirectory(config.path().resolve(DEFAULT_ENVIRONMENT_DIRECTORY), values, files);
+            readDirectory(config.path().resolve(environment.orElse(DEFAULT_ENVIRONMENT)), values, files);
+        }
+        return new Result(values, files);
+    }
+
+    private void readDirectory(@Nonnull Path directory, @Nonnull Map<String, Object> values, @Nonnull List<Path> files) throws UncheckedIOException, FailureException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        final List<Path> candidates;
+        try (final Stream<Path> stream = Files.list(directory)) {
+            candidates = stream
+                .filter(Files::isRegularFile)
+                .filter(candidate -> extensions.contains(extensionOf(candidate)))
+                .sorted(Comparator.comparing((Path candidate) -> !rootNames.contains(baseNameOf(candidate)))
+                    .thenComparing(Path::toString))
+                .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot list hugo configuration files of %s.", directory), e);
+        }
+
+        for (final Path candidate : candidates) {
+            final Map<String, Object> parsed = parse(candidate);
+            final String[] nameParts = baseNameOf(candidate).split("\\.");
+            if (rootNames.contains(nameParts[0])) {
+                merge(values, parsed);
+            } else if (nameParts.length > 1) {
+                // menus.en.toml configures the menus of language en
+                merge(values, nest(parsed, "languages", nameParts[1], nameParts[0]));
+            } else {
+                merge(values, nest(parsed, nameParts[0]));
+            }
+            files.add(candidate);
+        }
+    }
+
+    // Lower case, without the dot.
+    @Nonnull
+    private static String extensionOf(@Nonnull Path file) {
+        final String name = file.getFileName().toString();
+        final int dot = name.lastIndexOf('.');
+        return dot >= 0 ? name.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+    }
+
+    // Lower case, without the last extension (menus.en.toml becomes menus.en).
+    @Nonnull
+    private static String baseNameOf(@Nonnull Path file) {
+        final String name = file.getFileName().toString();
+        final int dot = name.lastIndexOf('.');
+        return (dot >= 0 ? name.substring(0, dot) : name).toLowerCase(Locale.ROOT);
+    }
+
+    @Nonnull
+    static Map<String, Object> parse(@Nonnull Path file) throws UncheckedIOException, FailureException {
+        final String extension = extensionOf(file);
+        try {
+            switch (extension) {
+                case "toml":
+                    return parseToml(file);
+                case "yaml":
+                case "yml":
+                    return parseYaml(file);
+                case "json":
+                    return normalize(new JSONObject(new String(Files.readAllBytes(file), UTF_8)).toMap());
+                default:
+                    throw new FailureException(format("Hugo configuration %s has an unsupported format.", file));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot read hugo configuration %s.", file), e);
+        } catch (JSONException | YAMLException e) {
+            throw new FailureException(format("Cannot parse hugo configuration %s: %s", file, e.getMessage()), e);
+        }
+    }
+
+    @Nonnull
+    private static Map<String, Object> parseToml(@Nonnull Path file) throws IOException, FailureException {
+        final TomlParseResult result = Toml.parse(file);
+        if (result.hasErrors()) {
+            throw new FailureException(format("Cannot parse hugo configuration %s: %s", file, result.errors().get(0)));
+        }
+        return normalize(result);
+    }
+
+    @Nonnull
+    private static Map<String, Object> parseYaml(@Nonnull Path file) throws IOException, FailureException {
+        try (final InputStream is = Files.newInputStream(file)) {
+            final Object result = new Yaml(new SafeConstructor(new LoaderOptions())).load(is);
+            if (result == null) {
+                return new LinkedHashMap<>();
+            }
+            if (!(result instanceof Map)) {
+                throw new FailureException(format("Hugo configuration %s does not contain a map.", file));
+            }
+            return normalize(result);
+        }
+    }
+
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> normalize(@Nonnull Object map) {
+        final Map<String, Object> result = new LinkedHashMap<>();
+        if (map instanceof TomlTable) {
+            final TomlTable table = (TomlTable) map;
+            for (final String key : table.keySet()) {
+                result.put(key.toLowerCase(Locale.ROOT), normalizeValue(table.get(singletonList(key))));
+            }
+        } else {
+            for (final Map.Entry<Object, Object> entry : ((Map<Object, Object>) map).entrySet()) {
+                result.put(String.valueOf(entry.getKey()).toLowerCase(Locale.ROOT), normalizeValue(entry.getValue()));
+            }
+        }
+        return result;
+    }
+
+    @Nullable
+    private static Object normalizeValue(@Nullable Object value) {
+        if (value instanceof TomlTable || value instanceof Map) {
+            return normalize(value);
+        }
+        if (value instanceof TomlArray) {
+            return normalizeValue(((TomlArray) value).toList());
+        }
+        if (value instanceof List) {
+            return ((List<?>) value).stream()
+                .map(HugoConfigReader::normalizeValue)
+                .collect(Collectors.toList());
+        }
+        return value;
+    }
+
+    @Nonnull
+    private static Map<String, Object> nest(@Nonnull Map<String, Object> value, @Nonnull String... path) {
+        Map<String, Object> result = value;
+        for (int i = path.length - 1; i >= 0; i--) {
+            final Map<String, Object> parent = new LinkedHashMap<>();
+            parent.put(path[i], result);
+            result = parent;
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void merge(@Nonnull Map<String, Object> target, @Nonnull Map<String, Object> source) {
+        for (final Map.Entry<String, Object> entry : source.entrySet()) {
+            final Object existing = target.get(entry.getKey());
+            if (existing instanceof Map && entry.getValue() instanceof Map) {
+                final Map<String, Object> merged = new LinkedHashMap<>((Map<String, Object>) existing);
+                merge(merged, (Map<String, Object>) entry.getValue());
+                target.put(entry.getKey(), merged);
+            } else {
+                target.put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    @Nonnull
+    public Optional<String> environment() {
+        return environment;
+    }
+
+    public static final class Result {
+
+        @Nonnull
+        private final Map<String, Object> values;
+        @Nonnull
+        private final List<Path> files;
+
+        private Result(@Nonnull Map<String, Object> values, @Nonnull List<Path> files) {
+            this.values = unmodifiableMap(values);
+            this.files = unmodifiableList(files);
+        }
+
+        @Nonnull
+        public Map<String, Object> values() {
+            return values;
+        }
+
+        @Nonnull
+        public List<Path> files() {
+            return files;
+        }
+
+        @Nonnull
+        public Optional<Object> get(@Nonnull String... path) {
+            Object current = values;
+            for (final String key : path) {
+                if (!(current instanceof Map)) {
+                    return Optional.empty();
+                }
+                current = ((Map<?, ?>) current).get(key.toLowerCase(Locale.ROOT));
+            }
+            return Optional.ofNullable(current);
+        }
+
+        @Nonnull
+        public Optional<String> getString(@Nonnull String... path) {
+            return get(path)
+                .filter(v -> !(v instanceof Map) && !(v instanceof List))
+                .map(String::valueOf)
+                .map(String::trim)
+                .filter(v -> !v.isEmpty());
+        }
+
+        @Nonnull
+        public List<String> getStrings(@Nonnull String... path) {
+            final Optional<Object> value = get(path);
+            if (value.isPresent() && value.get() instanceof List) {
+                return unmodifiableList(((List<?>) value.get()).stream()
+                    .filter(v -> v != null && !(v instanceof Map) && !(v instanceof List))
+                    .map(String::valueOf)
+                    .map(String::trim)
+                    .filter(v -> !v.isEmpty())
+                    .collect(Collectors.toList()));
+            }
+            return getString(path)
+                .map(Collections::singletonList)
+                .orElseGet(Collections::emptyList);
+        }
+
+        @Nonnull
+        @SuppressWarnings("unchecked")
+        public List<Map<String, Object>> getMaps(@Nonnull String... path) {
+            final Optional<Object> value = get(path);
+            if (!value.isPresent() || !(value.get() instanceof List)) {
+                return Collections.emptyList();
+            }
+            return unmodifiableList(((List<?>) value.get()).stream()
+                .filter(v -> v instanceof Map)
+                .map(v -> (Map<String, Object>) v)
+                .collect(Collectors.toList()));
+        }
+    }
+
+    public static final class Builder {
+
+        @Nonnull
+        private Optional<String> environment = Optional.empty();
+
+        @Nonnull
+        public Builder withEnvironment(@Nullable String v) {
+            environment = Optional.ofNullable(v);
+            return this;
+        }
+
+        @Nonnull
+        public HugoConfigReader build() {
+            return new HugoConfigReader(this);
+        }
+
+    }
+
+}
@@ -2,8 +2,14 @@ package org.echocat.maven.plugins.hugo.utils;
 
 import static java.lang.String.format;
 import static java.lang.System.getProperty;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.isExecutable;
+import static java.nio.file.Files.isRegularFile;
+import static java.nio.file.Files.newInputStream;
 import static java.nio.file.Files.newOutputStream;
+import static java.nio.file.Files.readAllBytes;
+import static java.nio.file.Files.size;
 import static org.echocat.maven.plugins.hugo.utils.FileSystems.*;
 
 import java.io.IOException;
@@ -12,7 +18,12 @@ import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.net.URL;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import javax.annotation.Nonnull;
 
 import com.github.zafarkhaja.semver.Version;
@@ -21,6 +32,10 @@ import org.echocat.maven.plugins.hugo.model.Platform;
 
 public final class HugoDownloader {
 
+    private static final String LICENSE_FILE_NAME = "LICENSE";
+    private static final String CHECKSUM_FILE_SUFFIX = ".sha256";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
     @Nonnull
     public static HugoDownloader.Builder hugoDownloader() {
         return new Builder();
@@ -36,26 +51,121 @@ public final class HugoDownloader {
         platform = builder.platform.orElseThrow(() -> new NullPointerException("No platform provided."));
     }
 
-    public void download(@Nonnull Version version, @Nonnull Path to) throws UncheckedIOException, FailureException {
+    // Used by builds as well as by prefetch. Binaries have to match the checksum recorded by download(), so truncated
+    // or otherwise modified ones are downloaded again. Binaries installed before checksums were recorded are accepted
+    // once and their checksum is recorded from then on.
+    public boolean installed(@Nonnull Version version) throws UncheckedIOException {
+        return installed(platform().hugoExecutable(version));
+    }
+
+    boolean installed(@Nonnull Path executable) throws UncheckedIOException {
+        if (!isRegularFile(executable) || !isExecutable(executable)) {
+            return false;
+        }
+        final Path checksumFile = checksumFileOf(executable);
+        try {
+            if (!isRegularFile(checksumFile)) {
+                if (size(executable) <= 0) {
+                    return false;
+                }
+                log().debug(format("Recording checksum of hugo at %s which was installed without one.", executable));
+                recordChecksum(executable, sha256Of(executable));
+                return true;
+            }
+            final String expected = new String(readAllBytes(checksumFile), UTF_8).trim();
+            if (!expected.equals(sha256Of(executable))) {
+                log().warn(format("hugo at %s does not match its recorded checksum; it will be downloaded again.", executable));
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot check installed hugo at %s.", executable), e);
+        }
+    }
+
+    public long download(@Nonnull Version version, @Nonnull Path to) throws UncheckedIOException, FailureException {
         final URL from = platform().packageDownloadUrlFor(version)
             .orElseThrow(() -> new FailureException(format("No binary available for combination of version %s and platform %s.", version, platform)));
 
         log().info(format("Downloading hugo %s from %s...", version, from));
 
         final Path packageAsTemporaryFile = downloadToTemporaryFile(from);
-        createParentsOf(to);
+        final Path license = to.resolveSibling(LICENSE_FILE_NAME);
+        Path temporaryTo = null;
+        Path temporaryLicense = null;
+        try {
+            createParentsOf(to);
+            temporaryTo = temporaryFileFor(to);
+            temporaryLicense = temporaryFileFor(license);
+
+            final Map<String, Path> files = new LinkedHashMap<>();
+            files.put(to.getFileName().toString(), temporaryTo);
+            files.put(LICENSE_FILE_NAME, temporaryLicense);
+            final Set<String> extracted = platform().packaging().extract(packageAsTemporaryFile, files);
+            if (!extracted.contains(to.getFileName().toString())) {
+                throw new FailureException(format("%s does not contain expected file %s.", from, to.getFileName()));
+            }
+            ensureExecutable(temporaryTo);
+            final String checksum = sha256Of(temporaryTo);
+            if (extracted.contains(LICENSE_FILE_NAME)) {
+                rename(temporaryLicense, license);
+            }
+            rename(temporaryTo, to);
+            recordChecksum(to, checksum);
+
+            log().info(format("Downloading hugo %s from %s... DONE!", version, from));
+
+            return size(packageAsTemporaryFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot determine size of %s.", packageAsTemporaryFile), e);
+        } finally {
+            deleteQuietly(packageAsTemporaryFile);
+            if (temporaryTo != null) {
+                deleteQuietly(temporaryTo);
+            }
+            if (temporaryLicense != null) {
+                deleteQuietly(temporaryLicense);
+            }
+        }
+    }
 
-        final Path temporaryTo = temporaryFor(to);
-        platform().packaging().extract(to.getFileName().toString(), packageAsTemporaryFile, temporaryTo);
-        ensureExecutable(temporaryTo);
-        rename(temporaryTo, to);
+    void recordChecksum(@Nonnull Path executable, @Nonnull String checksum) throws UncheckedIOException {
+        try {
+            writeAtomically(checksumFileOf(executable), checksum.getBytes(UTF_8));
+        } catch (UncheckedIOException e) {
+            throw new UncheckedIOException(format("Cannot record checksum of %s.", executable), e.getCause());
+        }
+    }
 
-        log().info(format("Downloading hugo %s from %s... DONE!", version, from));
+    @Nonnull
+    Path checksumFileOf(@Nonnull Path executable) {
+        return executable.resolveSibling(executable.getFileName() + CHECKSUM_FILE_SUFFIX);
     }
 
     @Nonnull
-    Path temporaryFor(@Nonnull Path to) {
-        return to.getParent().resolve("~" + to.getFileName());
+    static String sha256Of(@Nonnull Path file) throws UncheckedIOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (final InputStream is = newInputStream(file)) {
+            final byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = is.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot hash %s.", file), e);
+        }
+        final byte[] bytes = digest.digest();
+        final char[] result = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            result[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            result[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(result);
     }
 
     @Nonnull
@@ -0,0 +1,160 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableMap;
+import static org.echocat.maven.plugins.hugo.model.InputSet.inputSetOf;
+import static org.echocat.maven.plugins.hugo.utils.HugoConfigReader.hugoConfigReader;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.echocat.maven.plugins.hugo.model.Config;
+import org.echocat.maven.plugins.hugo.model.InputSet;
+import org.echocat.maven.plugins.hugo.utils.HugoConfigReader.Result;
+
+public final class HugoInputs {
+
+    @Nonnull
+    private static final Map<String, String> componentDirectories;
+    @Nonnull
+    private static final List<String> projectFiles = asList("go.mod", "go.sum", "_vendor", "package.json");
+
+    static {
+        // Mount target (component) -> configuration key of its default directory
+        final Map<String, String> directories = new LinkedHashMap<>();
+        directories.put("content", "contentDir");
+        directories.put("layouts", "layoutDir");
+        directories.put("static", "staticDir");
+        directories.put("assets", "assetDir");
+        directories.put("data", "dataDir");
+        directories.put("i18n", "i18nDir");
+        directories.put("archetypes", "archetypeDir");
+        componentDirectories = unmodifiableMap(directories);
+    }
+
+    @Nonnull
+    public static HugoInputs.Builder hugoInputs() {
+        return new Builder();
+    }
+
+    @Nonnull
+    private final Path workingDirectory;
+    @Nonnull
+    private final Optional<String> environment;
+
+    private HugoInputs(@Nonnull Builder builder) {
+        workingDirectory = builder.workingDirectory.orElseThrow(() -> new NullPointerException("No workingDirectory provided."));
+        environment = builder.environment;
+    }
+
+    @Nonnull
+    public InputSet inputSetFor(@Nonnull Config config) throws UncheckedIOException, FailureException {
+        final Result hugoConfig = hugoConfigReader()
+            .withEnvironment(environment.orElse(null))
+            .build()
+            .read(config);
+
+        final List<Path> result = new ArrayList<>(hugoConfig.files());
+        if (config.type() == Config.Type.directory) {
+            result.add(config.path().resolve("_default"));
+            result.add(config.path().resolve(environment.orElse(HugoConfigReader.DEFAULT_ENVIRONMENT)));
+        }
+
+        final Set<String> mountedComponents = new HashSet<>();
+        for (final Map<String, Object> mount : hugoConfig.getMaps("module", "mounts")) {
+            final Optional<String> source = stringOf(mount.get("source"));
+            final Optional<String> target = stringOf(mount.get("target"));
+            if (source.isPresent() && target.isPresent()) {
+                result.add(resolve(source.get()));
+                mountedComponents.add(target.get().replace('\\', '/').split("/")[0]);
+            }
+        }
+
+        for (final Map.Entry<String, String> component : componentDirectories.entrySet()) {
+            if (mountedComponents.contains(component.getKey())) {
+                continue;
+            }
+            final List<String> directories = hugoConfig.getStrings(component.getValue());
+            if (directories.isEmpty()) {
+                result.add(resolve(component.getKey()));
+            } else {
+                directories.forEach(directory -> result.add(resolve(directory)));
+            }
+        }
+
+        final Optional<Object> languages = hugoConfig.get("languages");
+        if (languages.isPresent() && languages.get() instanceof Map) {
+            for (final Object language : ((Map<?, ?>) languages.get()).keySet()) {
+                for (final String key : asList("contentDir", "staticDir", "layoutDir")) {
+                    hugoConfig.getStrings("languages", String.valueOf(language), key)
+                        .forEach(directory -> result.add(resolve(directory)));
+                }
+            }
+        }
+
+        final Path themesDirectory = resolve(hugoConfig.getString("themesDir").orElse("themes"));
+        for (final String theme : hugoConfig.getStrings("theme")) {
+            result.add(themesDirectory.resolve(theme));
+        }
+        for (final Map<String, Object> moduleImport : hugoConfig.getMaps("module", "imports")) {
+            stringOf(moduleImport.get("path"))
+                .map(themesDirectory::resolve)
+                .filter(Files::exists)
+                .ifPresent(result::add);
+        }
+
+        projectFiles.forEach(file -> result.add(workingDirectory.resolve(file)));
+
+        return inputSetOf(result);
+    }
+
+    @Nonnull
+    private Path resolve(@Nonnull String path) {
+        return workingDirectory.resolve(path);
+    }
+
+    @Nonnull
+    private static Optional<String> stringOf(@Nullable Object value) {
+        return Optional.ofNullable(value)
+            .map(String::valueOf)
+            .map(String::trim)
+            .filter(v -> !v.isEmpty());
+    }
+
+    public static final class Builder {
+
+        @Nonnull
+        private Optional<Path> workingDirectory = Optional.empty();
+        @Nonnull
+        private Optional<String> environment = Optional.empty();
+
+        @Nonnull
+        public Builder withWorkingDirectory(@Nonnull Path v) {
+            workingDirectory = Optional.of(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withEnvironment(@Nullable String v) {
+            environment = Optional.ofNullable(v);
+            return this;
+        }
+
+        @Nonnull
+        public HugoInputs build() {
+            return new HugoInputs(this);
+        }
+
+    }
+
+}
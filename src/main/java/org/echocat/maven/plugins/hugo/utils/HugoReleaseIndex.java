@@ -0,0 +1,308 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.lang.String.format;
+import static java.lang.System.currentTimeMillis;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.*;
+import static java.util.Collections.unmodifiableList;
+import static org.echocat.maven.plugins.hugo.model.Platform.hugoCacheDirectory;
+import static org.echocat.maven.plugins.hugo.utils.FileSystems.*;
+import static org.echocat.maven.plugins.hugo.utils.Urls.readUrlConditionally;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.github.zafarkhaja.semver.Version;
+import org.apache.maven.plugin.logging.Log;
+import org.echocat.maven.plugins.hugo.utils.Urls.Response;
+import org.echocat.maven.plugins.hugo.utils.Urls.Timeouts;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+public final class HugoReleaseIndex {
+
+    @Nonnull
+    private static final URL defaultUrl = Urls.parse("https://api.github.com/repos/gohugoio/hugo/releases?per_page=100");
+    @Nonnull
+    private static final Pattern nextLinkPattern = Pattern.compile("<([^>]+)>\\s*;\\s*rel=\"?next\"?");
+    @Nonnull
+    private static final Comparator<Version> newestFirst = Comparator.<Version>naturalOrder().reversed();
+
+    private static final String ETAG_PROPERTY = "etag";
+    private static final String LAST_MODIFIED_PROPERTY = "lastModified";
+
+    @Nonnull
+    public static HugoReleaseIndex.Builder hugoReleaseIndex() {
+        return new Builder();
+    }
+
+    @Nonnull
+    private final Log log;
+    @Nonnull
+    private final URL url;
+    @Nonnull
+    private final Path file;
+    @Nonnull
+    private final Duration cacheDuration;
+    @Nonnull
+    private final Timeouts timeouts;
+
+    private HugoReleaseIndex(@Nonnull Builder builder) {
+        log = builder.log.orElseThrow(() -> new NullPointerException("No log provided."));
+        url = builder.url.orElse(defaultUrl);
+        file = builder.file.orElseGet(HugoReleaseIndex::defaultFile);
+        cacheDuration = builder.cacheDuration;
+        timeouts = builder.timeouts.orElseGet(Timeouts::defaultTimeouts);
+    }
+
+    @Nonnull
+    public List<Version> versions() throws UncheckedIOException, FailureException {
+        final Optional<List<Version>> cached = readCached();
+        final boolean upToDate = lastModifiedAt(file)
+            .map(lmt -> currentTimeMillis() - lmt.toMillis() < cacheDuration.toMillis())
+            .orElse(false);
+        if (cached.isPresent() && upToDate) {
+            return cached.get();
+        }
+
+        try {
+            return refresh(cached.orElseGet(ArrayList::new));
+        } catch (UncheckedIOException | FailureException e) {
+            if (cached.isPresent()) {
+                log().warn(format("Cannot refresh index of hugo releases from %s; using the outdated one from %s.", url, file), e);
+                return cached.get();
+            }
+            throw e;
+        }
+    }
+
+    @Nonnull
+    List<Version> refresh(@Nonnull List<Version> known) throws UncheckedIOException, FailureException {
+        log().debug(format("Refresh index of hugo releases from %s...", url));
+
+        final Properties meta = known.isEmpty() ? new Properties() : readMeta();
+        final Response first = readUrlConditionally(
+            url,
+            meta.getProperty(ETAG_PROPERTY),
+            meta.getProperty(LAST_MODIFIED_PROPERTY),
+            timeouts
+        );
+        if (first.notModified()) {
+            log().debug("Index of hugo releases is unchanged.");
+            touch(file);
+            return known;
+        }
+
+        final Set<Version> result = new TreeSet<>(newestFirst);
+        result.addAll(known);
+
+        Response page = first;
+        int pages = 1;
+        while (true) {
+            final List<Version> versions = parse(page);
+            final boolean reachedKnown = versions.stream().anyMatch(known::contains);
+            result.addAll(versions);
+            if (reachedKnown) {
+                break;
+            }
+            final Optional<URL> next = nextPageOf(page);
+            if (!next.isPresent()) {
+                break;
+            }
+            page = readUrlConditionally(next.get(), null, null, timeouts);
+            pages++;
+        }
+
+        final List<Version> sorted = unmodifiableList(new ArrayList<>(result));
+        write(sorted, first.etag().orElse(null), first.lastModified().orElse(null));
+        log().info(format("Index of hugo releases refreshed (%d pages read, %d releases known).", pages, sorted.size()));
+        return sorted;
+    }
+
+    @Nonnull
+    private List<Version> parse(@Nonnull Response response) throws FailureException {
+        final String body = response.body()
+            .orElseThrow(() -> new FailureException(format("'%s' responded with not modified but nothing is cached.", url)))
+            .trim();
+        final List<Version> result = new ArrayList<>();
+        if (body.startsWith("[")) {
+            try {
+                final JSONArray array = new JSONArray(body);
+                for (int i = 0; i < array.length(); i++) {
+                    final JSONObject release = array.getJSONObject(i);
+                    if (release.optBoolean("draft", false) || release.optBoolean("prerelease", false)) {
+                        continue;
+                    }
+                    parseVersion(release.optString("tag_name", "")).ifPresent(result::add);
+                }
+            } catch (JSONException e) {
+                throw new FailureException(format("Cannot parse JSON of '%s'", url), e);
+            }
+        } else {
+            for (final String line : body.split("\\r?\\n")) {
+                parseVersion(line).ifPresent(result::add);
+            }
+        }
+        return result;
+    }
+
+    @Nonnull
+    private static Optional<Version> parseVersion(@Nonnull String plain) {
+        final String trimmed = plain.trim();
+        return Version.tryParse(trimmed.startsWith("v") ? trimmed.substring(1) : trimmed);
+    }
+
+    @Nonnull
+    private static Optional<URL> nextPageOf(@Nonnull Response response) {
+        return response.header("Link")
+            .map(nextLinkPattern::matcher)
+            .filter(Matcher::find)
+            .map(matcher -> Urls.parse(matcher.group(1)));
+    }
+
+    @Nonnull
+    Optional<List<Version>> readCached() throws UncheckedIOException {
+        try {
+            final List<Version> result = Files.readAllLines(file, UTF_8).stream()
+                .map(HugoReleaseIndex::parseVersion)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collect(Collectors.toList());
+            return result.isEmpty() ? Optional.empty() : Optional.of(unmodifiableList(result));
+        } catch (FileNotFoundException | NoSuchFileException ignored) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot read index of hugo releases from '%s'.", file), e);
+        }
+    }
+
+    @Nonnull
+    private Properties readMeta() throws UncheckedIOException {
+        final Properties result = new Properties();
+        try (final InputStream is = Files.newInputStream(metaFile())) {
+            result.load(is);
+        } catch (FileNotFoundException | NoSuchFileException ignored) {
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot read '%s'.", metaFile()), e);
+        }
+        return result;
+    }
+
+    private void write(@Nonnull List<Version> versions, @Nullable String etag, @Nullable String lastModified) throws UncheckedIOException {
+        try {
+            final Properties meta = new Properties();
+            if (etag != null) {
+                meta.setProperty(ETAG_PROPERTY, etag);
+            }
+            if (lastModified != null) {
+                meta.setProperty(LAST_MODIFIED_PROPERTY, lastModified);
+            }
+            writeAtomically(metaFile(), temporary -> {
+                try (final OutputStream os = Files.newOutputStream(temporary)) {
+                    meta.store(os, null);
+                }
+            });
+            writeAtomically(file, temporary -> Files.write(temporary, versions.stream().map(Version::toString).collect(Collectors.toList()), UTF_8, TRUNCATE_EXISTING, WRITE, CREATE));
+        } catch (UncheckedIOException e) {
+            throw new UncheckedIOException(format("Cannot write index of hugo releases to '%s'.", file), e.getCause());
+        }
+    }
+
+    @Nonnull
+    private Path metaFile() {
+        return file.resolveSibling(file.getFileName() + ".http");
+    }
+
+    @Nonnull
+    private static Path defaultFile() {
+        return hugoCacheDirectory()
+            .resolve("releases");
+    }
+
+    @Nonnull
+    public Log log() {
+        return log;
+    }
+
+    @Nonnull
+    public URL url() {
+        return url;
+    }
+
+    @Nonnull
+    public Path file() {
+        return file;
+    }
+
+    public static final class Builder {
+
+        @Nonnull
+        private Optional<Log> log = Optional.empty();
+        @Nonnull
+        private Optional<URL> url = Optional.empty();
+        @Nonnull
+        private Optional<Path> file = Optional.empty();
+        @Nonnull
+        private Duration cacheDuration = Duration.ofHours(1);
+        @Nonnull
+        private Optional<Timeouts> timeouts = Optional.empty();
+
+        @Nonnull
+        public Builder withLog(@Nonnull Log v) {
+            log = Optional.of(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withUrl(@Nullable URL v) {
+            url = Optional.ofNullable(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withFile(@Nullable Path v) {
+            file = Optional.ofNullable(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withCacheDuration(@Nullable Duration v) {
+            cacheDuration = Optional.ofNullable(v).orElse(Duration.ZERO);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withTimeouts(@Nullable Timeouts v) {
+            timeouts = Optional.ofNullable(v);
+            return this;
+        }
+
+        @Nonnull
+        public HugoReleaseIndex build() {
+            return new HugoReleaseIndex(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,207 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.lang.System.nanoTime;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.github.zafarkhaja.semver.Version;
+import org.echocat.maven.plugins.hugo.model.Platform;
+import org.echocat.maven.plugins.hugo.utils.Hugo.Download;
+import org.echocat.maven.plugins.hugo.utils.HugoVersionRetriever.Fallback;
+
+public final class HugoResolutions {
+
+    private static final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    private HugoResolutions() {}
+
+    @Nonnull
+    public static Resolution resolve(
+        @Nonnull Key key,
+        @Nonnull Duration timeToLive,
+        @Nonnull Supplier<Resolution> resolver
+    ) throws FailureException {
+        requireNonNull(key);
+        requireNonNull(resolver);
+        if (timeToLive.isZero() || timeToLive.isNegative()) {
+            return resolver.get();
+        }
+
+        while (true) {
+            final Entry existing = entries.get(key);
+            if (existing != null && !existing.expired(timeToLive)) {
+                return existing.await();
+            }
+
+            final Entry candidate = new Entry();
+            final boolean owner = existing == null
+                ? entries.putIfAbsent(key, candidate) == null
+                : entries.replace(key, existing, candidate);
+            if (owner) {
+                try {
+                    candidate.complete(resolver.get());
+                } catch (RuntimeException | Error e) {
+                    entries.remove(key, candidate);
+                    candidate.fail(e);
+                    throw e;
+                }
+                return candidate.await();
+            }
+        }
+    }
+
+    static void clear() {
+        entries.clear();
+    }
+
+    // Every input which influences the resolution; executions which differ in any of them do not share it.
+    public static final class Key {
+
+        @Nonnull
+        private final String requestedVersion;
+        @Nonnull
+        private final Download download;
+        @Nonnull
+        private final Platform platform;
+        @Nonnull
+        private final Path cacheLocation;
+        @Nonnull
+        private final Optional<String> releaseIndexUrl;
+        @Nonnull
+        private final Fallback fallback;
+        private final boolean useSystemHugo;
+        @Nonnull
+        private final List<Path> systemHugoLocations;
+
+        public Key(
+            @Nonnull String requestedVersion,
+            @Nonnull Download download,
+            @Nonnull Platform platform,
+            @Nonnull Path cacheLocation,
+            @Nullable String releaseIndexUrl,
+            @Nullable Fallback fallback,
+            boolean useSystemHugo,
+            @Nonnull List<Path> systemHugoLocations
+        ) {
+            this.requestedVersion = requireNonNull(requestedVersion);
+            this.download = requireNonNull(download);
+            this.platform = requireNonNull(platform);
+            this.cacheLocation = requireNonNull(cacheLocation).toAbsolutePath().normalize();
+            this.releaseIndexUrl = Optional.ofNullable(releaseIndexUrl).map(String::trim).filter(v -> !v.isEmpty());
+            this.fallback = fallback != null ? fallback : Fallback.any;
+            this.useSystemHugo = useSystemHugo;
+            this.systemHugoLocations = unmodifiableList(systemHugoLocations.stream()
+                .map(v -> v.toAbsolutePath().normalize())
+                .collect(Collectors.toList()));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {return true;}
+            if (o == null || getClass() != o.getClass()) {return false;}
+            final Key that = (Key) o;
+            return requestedVersion.equals(that.requestedVersion)
+                && download == that.download
+                && platform == that.platform
+                && cacheLocation.equals(that.cacheLocation)
+                && releaseIndexUrl.equals(that.releaseIndexUrl)
+                && fallback == that.fallback
+                && useSystemHugo == that.useSystemHugo
+                && systemHugoLocations.equals(that.systemHugoLocations);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(requestedVersion, download, platform, cacheLocation, releaseIndexUrl, fallback, useSystemHugo, systemHugoLocations);
+        }
+
+        @Override
+        public String toString() {
+            return requestedVersion + "@" + platform + " (" + download + ", " + cacheLocation
+                + releaseIndexUrl.map(v -> ", " + v).orElse("")
+                + ", fallback " + fallback
+                + (useSystemHugo ? ", system " + systemHugoLocations : "") + ")";
+        }
+    }
+
+    public static final class Resolution {
+
+        @Nonnull
+        private final Version version;
+        @Nonnull
+        private final Path executable;
+
+        public Resolution(@Nonnull Version version, @Nonnull Path executable) {
+            this.version = requireNonNull(version);
+            this.executable = requireNonNull(executable);
+        }
+
+        @Nonnull
+        public Version version() {
+            return version;
+        }
+
+        @Nonnull
+        public Path executable() {
+            return executable;
+        }
+
+        @Override
+        public String toString() {
+            return version + " (" + executable + ")";
+        }
+    }
+
+    private static final class Entry {
+
+        private final CompletableFuture<Resolution> future = new CompletableFuture<>();
+        private volatile long completedAt;
+
+        private void complete(@Nonnull Resolution resolution) {
+            completedAt = nanoTime();
+            future.complete(resolution);
+        }
+
+        private void fail(@Nonnull Throwable cause) {
+            future.completeExceptionally(cause);
+        }
+
+        private boolean expired(@Nonnull Duration timeToLive) {
+            return future.isDone() && nanoTime() - completedAt > timeToLive.toNanos();
+        }
+
+        @Nonnull
+        private Resolution await() throws FailureException {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Was interrupted.", e);
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new RuntimeException(cause.getMessage(), cause);
+            }
+        }
+    }
+
+}
@@ -2,33 +2,40 @@ package org.echocat.maven.plugins.hugo.utils;
 
 import static java.lang.String.format;
 import static java.lang.System.currentTimeMillis;
-import static java.lang.System.getProperty;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.nio.file.Files.write;
 import static java.nio.file.StandardOpenOption.*;
 import static java.time.Duration.ofMillis;
 import static java.util.Collections.singletonList;
-import static org.echocat.maven.plugins.hugo.utils.FileSystems.createParentsOf;
+import static org.echocat.maven.plugins.hugo.model.Platform.hugoCacheDirectory;
 import static org.echocat.maven.plugins.hugo.utils.FileSystems.lastModifiedAt;
-import static org.echocat.maven.plugins.hugo.utils.Urls.readUrlFullyToJsonObject;
+import static org.echocat.maven.plugins.hugo.utils.FileSystems.writeAtomically;
+import static org.echocat.maven.plugins.hugo.utils.Urls.readUrlConditionally;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.Properties;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import com.github.zafarkhaja.semver.ParseException;
 import com.github.zafarkhaja.semver.Version;
 import org.apache.maven.plugin.logging.Log;
+import org.echocat.maven.plugins.hugo.model.Platform;
+import org.echocat.maven.plugins.hugo.utils.Urls.Response;
+import org.echocat.maven.plugins.hugo.utils.Urls.Timeouts;
+import org.json.JSONException;
 import org.json.JSONObject;
 
 public final class HugoVersionRetriever {
@@ -36,6 +43,9 @@ public final class HugoVersionRetriever {
     @Nonnull
     private static final URL latestApiUrl = Urls.parse("https://api.github.com/repos/gohugoio/hugo/releases/latest");
 
+    private static final String ETAG_PROPERTY = "etag";
+    private static final String LAST_MODIFIED_PROPERTY = "lastModified";
+
     @Nonnull
     public static HugoVersionRetriever.Builder hugoVersionRetriever() {
         return new Builder();
@@ -46,12 +56,27 @@ public final class HugoVersionRetriever {
     @Nonnull
     private final Optional<Duration> latestCacheDuration;
     @Nonnull
+    private final Optional<Duration> latestStaleDuration;
+    @Nonnull
     private final Path latestCacheFile;
+    @Nonnull
+    private final Timeouts timeouts;
+    @Nonnull
+    private final Fallback fallback;
+    @Nonnull
+    private final Optional<Platform> platform;
+    @Nonnull
+    private final Optional<HugoCache> cache;
 
     private HugoVersionRetriever(@Nonnull Builder builder) {
         log = builder.log.orElseThrow(() -> new NullPointerException("No log provided."));
         latestCacheDuration = builder.latestCacheDuration;
+        latestStaleDuration = builder.latestStaleDuration;
         latestCacheFile = builder.latestCacheFile.orElseGet(HugoVersionRetriever::defaultLatestCacheFile);
+        timeouts = builder.timeouts.orElseGet(Timeouts::defaultTimeouts);
+        fallback = builder.fallback.orElse(Fallback.any);
+        platform = builder.platform;
+        cache = builder.cache;
     }
 
     @Nonnull
@@ -63,14 +88,90 @@ public final class HugoVersionRetriever {
     Version latest(@Nonnull URL latestApiUrl) throws UncheckedIOException, FailureException {
         log().debug("Retrieve latest hugo version...");
 
-        final Optional<Version> cached = readLatestCached();
-        if (cached.isPresent()) {
-            final Version result = cached.get();
+        final Optional<Cached> cached = readLatestCachedEntry();
+        if (cached.isPresent() && cached.get().fresh()) {
+            final Version result = cached.get().version();
             log().debug(format("Latest hugo version retrieved from cache: %s", result));
             return result;
         }
 
-        final JSONObject obj = readUrlFullyToJsonObject(latestApiUrl);
+        if (cached.isPresent() && cached.get().staleButUsable()) {
+            final Version result = cached.get().version();
+            log().debug(format("Latest hugo version retrieved from stale cache: %s; revalidating in background...", result));
+            revalidateInBackground(latestApiUrl, cached.get());
+            return result;
+        }
+
+        try {
+            return retrieveLatest(latestApiUrl, cached);
+        } catch (UncheckedIOException | FailureException e) {
+            final Optional<Version> fallbackVersion = fallbackVersion();
+            if (!fallbackVersion.isPresent()) {
+                throw e;
+            }
+            log().warn(format("Cannot retrieve latest hugo version from %s (%s); falling back to %s.", latestApiUrl, e.getMessage(), fallbackVersion.get()));
+            return fallbackVersion.get();
+        }
+    }
+
+    @Nonnull
+    Optional<Version> fallbackVersion() {
+        if (fallback == Fallback.installed || fallback == Fallback.any) {
+            final Optional<Version> installed = newestInstalled();
+            if (installed.isPresent()) {
+                return installed;
+            }
+        }
+        if (fallback == Fallback.lastKnown || fallback == Fallback.any) {
+            try {
+                return readLatestCacheFile().map(Cached::version);
+            } catch (UncheckedIOException e) {
+                log().debug("Cannot read last known latest hugo version.", e);
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Nonnull
+    private Optional<Version> newestInstalled() {
+        if (!platform.isPresent() || !cache.isPresent()) {
+            return Optional.empty();
+        }
+        try {
+            return cache.get().installedVersions(platform.get()).stream().findFirst();
+        } catch (UncheckedIOException e) {
+            log().debug("Cannot determine installed hugo versions.", e);
+            return Optional.empty();
+        }
+    }
+
+    @Nonnull
+    Version retrieveLatest(@Nonnull URL latestApiUrl, @Nonnull Optional<Cached> cached) throws UncheckedIOException, FailureException {
+        final Response response = readUrlConditionally(
+            latestApiUrl,
+            cached.flatMap(Cached::etag).orElse(null),
+            cached.flatMap(Cached::lastModified).orElse(null),
+            timeouts
+        );
+
+        if (response.notModified() && cached.isPresent()) {
+            final Version result = cached.get().version();
+            log().debug(format("Latest hugo version is still: %s", result));
+            try {
+                extendLatestCached();
+            } catch (UncheckedIOException e) {
+                log().warn("Cannot extend cached latest hugo version; this will be ignored for now.", e);
+            }
+            return result;
+        }
+
+        final JSONObject obj;
+        try {
+            obj = new JSONObject(response.body()
+                .orElseThrow(() -> new FailureException(format("'%s' responded with not modified but nothing is cached.", latestApiUrl))));
+        } catch (JSONException e) {
+            throw new FailureException(format("Cannot parse JSON of '%s'", latestApiUrl), e);
+        }
         final Version result = Optional.ofNullable(obj.getString("tag_name"))
             .map(String::trim)
             .filter(v -> !v.isEmpty())
@@ -87,7 +188,7 @@ public final class HugoVersionRetriever {
         log().info(format("Latest hugo version retrieved: %s", result));
 
         try {
-            writeLatestCached(result);
+            writeLatestCached(result, response.etag().orElse(null), response.lastModified().orElse(null));
         } catch (UncheckedIOException e) {
             log().warn("Cannot store latest hugo version (%s); this will be ignored for now.", e);
         }
@@ -95,6 +196,18 @@ public final class HugoVersionRetriever {
         return result;
     }
 
+    private void revalidateInBackground(@Nonnull URL latestApiUrl, @Nonnull Cached cached) {
+        final Thread thread = new Thread(() -> {
+            try {
+                retrieveLatest(latestApiUrl, Optional.of(cached));
+            } catch (RuntimeException e) {
+                log().debug("Cannot revalidate latest hugo version in background; next build will try again.", e);
+            }
+        }, "hugo-latest-version-revalidation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     @Nonnull
     public Log log() {
         return log;
@@ -105,40 +218,90 @@ public final class HugoVersionRetriever {
         return latestCacheDuration;
     }
 
+    @Nonnull
+    public Optional<Duration> latestStaleDuration() {
+        return latestStaleDuration;
+    }
+
     @Nonnull
     public Path latestCacheFile() {
         return latestCacheFile;
     }
 
+    @Nonnull
+    public Timeouts timeouts() {
+        return timeouts;
+    }
+
+    @Nonnull
+    public Fallback fallback() {
+        return fallback;
+    }
+
+    @Nonnull
+    Path latestCacheMetaFile() {
+        return latestCacheFile.resolveSibling(latestCacheFile.getFileName() + ".http");
+    }
+
     void writeLatestCached(@Nonnull Version v) throws UncheckedIOException {
+        writeLatestCached(v, null, null);
+    }
+
+    void writeLatestCached(@Nonnull Version v, @Nullable String etag, @Nullable String lastModified) throws UncheckedIOException {
         if (!latestCacheDuration.isPresent()) {
             return;
         }
 
         try {
-            createParentsOf(latestCacheFile);
-            write(latestCacheFile, singletonList(v.toString()), UTF_8, TRUNCATE_EXISTING, WRITE, CREATE);
+            final Properties meta = new Properties();
+            if (etag != null) {
+                meta.setProperty(ETAG_PROPERTY, etag);
+            }
+            if (lastModified != null) {
+                meta.setProperty(LAST_MODIFIED_PROPERTY, lastModified);
+            }
+            writeAtomically(latestCacheMetaFile(), temporary -> {
+                try (final OutputStream os = Files.newOutputStream(temporary)) {
+                    meta.store(os, null);
+                }
+            });
+            writeAtomically(latestCacheFile, temporary -> write(temporary, singletonList(v.toString()), UTF_8, TRUNCATE_EXISTING, WRITE, CREATE));
         } catch (UncheckedIOException e) {
             throw new UncheckedIOException(format("Cannot write cached hugo version to '%s'.", latestCacheFile), e.getCause());
+        }
+    }
+
+    void extendLatestCached() throws UncheckedIOException {
+        if (!latestCacheDuration.isPresent()) {
+            return;
+        }
+        try {
+            Files.setLastModifiedTime(latestCacheFile, FileTime.fromMillis(currentTimeMillis()));
         } catch (IOException e) {
-            throw new UncheckedIOException(format("Cannot write cached hugo version to '%s'.", latestCacheFile), e);
+            throw new UncheckedIOException(format("Cannot extend cached hugo version at '%s'.", latestCacheFile), e);
         }
     }
 
     @Nonnull
     Optional<Version> readLatestCached() throws UncheckedIOException {
+        return readLatestCachedEntry()
+            .filter(Cached::fresh)
+            .map(Cached::version);
+    }
+
+    @Nonnull
+    Optional<Cached> readLatestCachedEntry() throws UncheckedIOException {
         if (!latestCacheDuration.isPresent()) {
             return Optional.empty();
         }
+        return readLatestCacheFile();
+    }
+
+    @Nonnull
+    private Optional<Cached> readLatestCacheFile() throws UncheckedIOException {
         try {
-            final boolean upToDate = latestCacheDuration.flatMap(v ->
-                lastModifiedAt(latestCacheFile).map(lmt -> {
-                    final Duration notModifiedSince = ofMillis(currentTimeMillis() - lmt.toMillis());
-                    return notModifiedSince.compareTo(v) < 0;
-                })
-            ).orElse(false);
-
-            if (!upToDate) {
+            final Optional<FileTime> lastModifiedAt = lastModifiedAt(latestCacheFile);
+            if (!lastModifiedAt.isPresent()) {
                 return Optional.empty();
             }
 
@@ -146,7 +309,23 @@ public final class HugoVersionRetriever {
             if (plain.isEmpty()) {
                 return Optional.empty();
             }
-            return Version.tryParse(plain.get(0).trim());
+            final Optional<Version> version = Version.tryParse(plain.get(0).trim());
+            if (!version.isPresent()) {
+                return Optional.empty();
+            }
+
+            final Properties meta = new Properties();
+            try (final InputStream is = Files.newInputStream(latestCacheMetaFile())) {
+                meta.load(is);
+            } catch (FileNotFoundException | NoSuchFileException ignored) {
+            }
+
+            return Optional.of(new Cached(
+                version.get(),
+                ofMillis(currentTimeMillis() - lastModifiedAt.get().toMillis()),
+                meta.getProperty(ETAG_PROPERTY),
+                meta.getProperty(LAST_MODIFIED_PROPERTY)
+            ));
         } catch (FileNotFoundException | NoSuchFileException ignored) {
             return Optional.empty();
         } catch (UncheckedIOException e) {
@@ -158,11 +337,69 @@ public final class HugoVersionRetriever {
 
     @Nonnull
     private static Path defaultLatestCacheFile() {
-        return Paths.get(getProperty("java.io.tmpdir", "var/tmp"))
-            .resolve("hugo_cache")
+        return hugoCacheDirectory()
             .resolve("latest_version");
     }
 
+    final class Cached {
+
+        @Nonnull
+        private final Version version;
+        @Nonnull
+        private final Duration age;
+        @Nonnull
+        private final Optional<String> etag;
+        @Nonnull
+        private final Optional<String> lastModified;
+
+        private Cached(@Nonnull Version version, @Nonnull Duration age, @Nullable String etag, @Nullable String lastModified) {
+            this.version = version;
+            this.age = age;
+            this.etag = Optional.ofNullable(etag);
+            this.lastModified = Optional.ofNullable(lastModified);
+        }
+
+        @Nonnull
+        Version version() {
+            return version;
+        }
+
+        @Nonnull
+        Duration age() {
+            return age;
+        }
+
+        @Nonnull
+        Optional<String> etag() {
+            return etag;
+        }
+
+        @Nonnull
+        Optional<String> lastModified() {
+            return lastModified;
+        }
+
+        boolean fresh() {
+            return latestCacheDuration()
+                .map(v -> age.compareTo(v) < 0)
+                .orElse(false);
+        }
+
+        boolean staleButUsable() {
+            return latestCacheDuration()
+                .flatMap(v -> latestStaleDuration().map(v::plus))
+                .map(v -> age.compareTo(v) < 0)
+                .orElse(false);
+        }
+    }
+
+    public enum Fallback {
+        never,
+        installed,
+        lastKnown,
+        any
+    }
+
     public static final class Builder {
 
         @Nonnull
@@ -170,7 +407,17 @@ public final class HugoVersionRetriever {
         @Nonnull
         private Optional<Duration> latestCacheDuration = Optional.of(Duration.ofHours(1));
         @Nonnull
+        private Optional<Duration> latestStaleDuration = Optional.empty();
+        @Nonnull
         private Optional<Path> latestCacheFile = Optional.empty();
+        @Nonnull
+        private Optional<Timeouts> timeouts = Optional.empty();
+        @Nonnull
+        private Optional<Fallback> fallback = Optional.empty();
+        @Nonnull
+        private Optional<Platform> platform = Optional.empty();
+        @Nonnull
+        private Optional<HugoCache> cache = Optional.empty();
 
         @Nonnull
         public Builder withLog(@Nonnull Log v) {
@@ -184,12 +431,42 @@ public final class HugoVersionRetriever {
             return this;
         }
 
+        @Nonnull
+        public Builder withLatestStaleDuration(@Nullable Duration v) {
+            latestStaleDuration = Optional.ofNullable(v).filter(d -> !d.isZero() && !d.isNegative());
+            return this;
+        }
+
         @Nonnull
         public Builder withLatestCacheFile(@Nonnull Path v) {
             latestCacheFile = Optional.of(v);
             return this;
         }
 
+        @Nonnull
+        public Builder withTimeouts(@Nullable Timeouts v) {
+            timeouts = Optional.ofNullable(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withFallback(@Nullable Fallback v) {
+            fallback = Optional.ofNullable(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withPlatform(@Nullable Platform v) {
+            platform = Optional.ofNullable(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withCache(@Nullable HugoCache v) {
+            cache = Optional.ofNullable(v);
+            return this;
+        }
+
         @Nonnull
         public HugoVersionRetriever build() {
             return new HugoVersionRetriever(this);
@@ -8,6 +8,7 @@ import static org.echocat.maven.plugins.hugo.utils.Strings.trimTailingWhitespace
 import java.io.*;
 import java.util.Optional;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -28,6 +29,8 @@ public final class InputStreamLogger {
     private final InputStream input;
     @Nonnull
     private final Level level;
+    @Nonnull
+    private final Optional<Consumer<String>> listener;
 
     @Nonnull
     private Optional<Throwable> problem = Optional.empty();
@@ -38,6 +41,7 @@ public final class InputStreamLogger {
         log = builder.log.orElseThrow(() -> new NullPointerException("No log provided."));
         input = builder.input.orElseThrow(() -> new NullPointerException("No input provided."));
         level = builder.level.orElse(info);
+        listener = builder.listener;
     }
 
     private void start() {
@@ -91,7 +95,9 @@ public final class InputStreamLogger {
     }
 
     private void log(@Nonnull String what) {
-        level().log(log(), trimTailingWhitespaces(what));
+        final String line = trimTailingWhitespaces(what);
+        level().log(log(), line);
+        listener.ifPresent(v -> v.accept(line));
     }
 
     @Nonnull
@@ -119,6 +125,8 @@ public final class InputStreamLogger {
         private Optional<InputStream> input = Optional.empty();
         @Nonnull
         private Optional<Level> level = Optional.empty();
+        @Nonnull
+        private Optional<Consumer<String>> listener = Optional.empty();
 
         @Nonnull
         public Builder withName(@Nonnull String v) {
@@ -156,6 +164,12 @@ public final class InputStreamLogger {
             return this;
         }
 
+        @Nonnull
+        public Builder withListener(@Nullable Consumer<String> v) {
+            listener = Optional.ofNullable(v);
+            return this;
+        }
+
         @Nonnull
         public InputStreamLogger build() {
             final InputStreamLogger result = new InputStreamLogger(this);
@@ -0,0 +1,180 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.lang.String.format;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+
+import org.echocat.maven.plugins.hugo.utils.HugoConfigReader.Result;
+
+public final class LanguageGroups {
+
+    @Nonnull
+    public static LanguageGroups languageGroupsOf(@Nonnull Result hugoConfig, @Nonnull List<String> groups) throws FailureException {
+        final Set<String> languages = new LinkedHashSet<>();
+        final Optional<Object> configured = hugoConfig.get("languages");
+        if (configured.isPresent() && configured.get() instanceof Map) {
+            ((Map<?, ?>) configured.get()).keySet().forEach(language -> languages.add(normalize(String.valueOf(language))));
+        }
+        final Set<String> alreadyDisabled = hugoConfig.getStrings("disableLanguages").stream()
+            .map(LanguageGroups::normalize)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+        languages.removeAll(alreadyDisabled);
+        final String defaultLanguage = hugoConfig.getString("defaultContentLanguage")
+            .map(LanguageGroups::normalize)
+            .orElse("en");
+        return languageGroupsOf(defaultLanguage, languages, alreadyDisabled, groups);
+    }
+
+    @Nonnull
+    static LanguageGroups languageGroupsOf(@Nonnull String defaultLanguage, @Nonnull Set<String> languages, @Nonnull List<String> groups) throws FailureException {
+        return languageGroupsOf(defaultLanguage, languages, emptySet(), groups);
+    }
+
+    @Nonnull
+    static LanguageGroups languageGroupsOf(@Nonnull String defaultLanguage, @Nonnull Set<String> languages, @Nonnull Set<String> alreadyDisabled, @Nonnull List<String> groups) throws FailureException {
+        final List<Set<String>> sets = new ArrayList<>();
+        final Set<String> assigned = new LinkedHashSet<>();
+        for (final String group : groups) {
+            final Set<String> set = Arrays.stream(group.split(","))
+                .map(LanguageGroups::normalize)
+                .filter(v -> !v.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+            for (final String language : set) {
+                if (!languages.contains(language)) {
+                    throw new FailureException(format("Language group %s contains %s which is not a configured language (%s).", group, language, languages));
+                }
+                if (!assigned.add(language)) {
+                    throw new FailureException(format("Language %s is part of more than one language group.", language));
+                }
+            }
+            if (!set.isEmpty()) {
+                sets.add(set);
+            }
+        }
+        languages.stream()
+            .filter(language -> !assigned.contains(language))
+            .forEach(language -> {
+                final Set<String> set = new LinkedHashSet<>();
+                set.add(language);
+                sets.add(set);
+            });
+
+        // The group of the default language goes first; it is the only one contributing
+        // files outside of the directories of the languages (home, sitemap index, static files, ...).
+        sets.sort((a, b) -> Boolean.compare(!a.contains(defaultLanguage), !b.contains(defaultLanguage)));
+        if (sets.isEmpty() || !sets.get(0).contains(defaultLanguage)) {
+            final Set<String> set = new LinkedHashSet<>();
+            set.add(defaultLanguage);
+            sets.add(0, set);
+        }
+
+        final Set<String> all = new LinkedHashSet<>(languages);
+        all.add(defaultLanguage);
+        final List<Group> result = new ArrayList<>(sets.size());
+        for (int i = 0; i < sets.size(); i++) {
+            final Set<String> set = sets.get(i);
+            final List<String> disabled = all.stream()
+                // hugo cannot disable the default language, so every process renders it.
+                .filter(language -> !set.contains(language) && !language.equals(defaultLanguage))
+                .collect(Collectors.toList());
+            // The overlay replaces disableLanguages of the configuration; keep those disabled.
+            disabled.addAll(alreadyDisabled);
+            result.add(new Group(new ArrayList<>(set), disabled, i == 0));
+        }
+        return new LanguageGroups(defaultLanguage, result);
+    }
+
+    @Nonnull
+    private static String normalize(@Nonnull String language) {
+        return language.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @Nonnull
+    private final String defaultLanguage;
+    @Nonnull
+    private final List<Group> groups;
+
+    private LanguageGroups(@Nonnull String defaultLanguage, @Nonnull List<Group> groups) {
+        this.defaultLanguage = defaultLanguage;
+        this.groups = unmodifiableList(groups);
+    }
+
+    @Nonnull
+    public String defaultLanguage() {
+        return defaultLanguage;
+    }
+
+    @Nonnull
+    public List<Group> groups() {
+        return groups;
+    }
+
+    public static final class Group {
+
+        @Nonnull
+        private final List<String> languages;
+        @Nonnull
+        private final List<String> disabledLanguages;
+        private final boolean primary;
+
+        private Group(@Nonnull List<String> languages, @Nonnull List<String> disabledLanguages, boolean primary) {
+            this.languages = unmodifiableList(languages);
+            this.disabledLanguages = unmodifiableList(disabledLanguages);
+            this.primary = primary;
+        }
+
+        @Nonnull
+        public String name() {
+            return String.join("+", languages);
+        }
+
+        @Nonnull
+        public List<String> languages() {
+            return languages;
+        }
+
+        @Nonnull
+        public List<String> disabledLanguages() {
+            return disabledLanguages;
+        }
+
+        public boolean primary() {
+            return primary;
+        }
+
+        // Configuration merged into the regular one (using --config) to render only the languages of this group.
+        @Nonnull
+        public String toToml() {
+            return disabledLanguages.stream()
+                .map(language -> "\"" + language.replace("\\", "\\\\").replace("\"", "\\\"") + "\"")
+                .collect(Collectors.joining(", ", "disableLanguages = [", "]\n"));
+        }
+
+        @Nonnull
+        public List<String> outputPrefixes() {
+            if (primary) {
+                return new ArrayList<>();
+            }
+            return languages.stream()
+                .map(language -> language + "/")
+                .collect(Collectors.toList());
+        }
+
+        @Override
+        public String toString() {
+            return name() + (primary ? " (primary)" : "");
+        }
+    }
+
+}
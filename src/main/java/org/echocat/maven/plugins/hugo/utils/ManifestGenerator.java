@@ -0,0 +1,255 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+import static org.echocat.maven.plugins.hugo.model.Manifest.emptyManifest;
+import static org.echocat.maven.plugins.hugo.model.Manifest.entryOf;
+import static org.echocat.maven.plugins.hugo.model.Manifest.manifestFromJson;
+import static org.echocat.maven.plugins.hugo.model.Manifest.manifestOf;
+import static org.echocat.maven.plugins.hugo.utils.ContentTypes.contentTypeOf;
+import static org.echocat.maven.plugins.hugo.utils.FileSystems.writeAtomically;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+
+import org.apache.maven.plugin.logging.Log;
+import org.echocat.maven.plugins.hugo.model.Manifest;
+import org.echocat.maven.plugins.hugo.model.Manifest.Diff;
+import org.echocat.maven.plugins.hugo.model.Manifest.Entry;
+
+public final class ManifestGenerator {
+
+    public static final long DEFAULT_MAPPED_ABOVE = 1024 * 1024;
+    private static final long MAX_MAPPED_CHUNK = 64 * 1024 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    @Nonnull
+    public static ManifestGenerator.Builder manifestGenerator() {
+        return new Builder();
+    }
+
+    @Nonnull
+    private final Log log;
+    private final long mappedAbove;
+
+    private ManifestGenerator(@Nonnull Builder builder) {
+        log = builder.log.orElseThrow(() -> new NullPointerException("No log provided."));
+        mappedAbove = builder.mappedAbove;
+    }
+
+    // Writes the manifest of the directory and the diff against the previous manifest (if any) at the same location.
+    @Nonnull
+    public Result update(@Nonnull Path directory, @Nonnull Path manifestFile, @Nonnull Path diffFile) throws UncheckedIOException {
+        final Manifest previous = read(manifestFile);
+        final Result result = generate(directory, previous);
+        write(manifestFile, result.manifest().toJson());
+        write(diffFile, result.diff().toJson());
+        return result;
+    }
+
+    @Nonnull
+    public Result generate(@Nonnull Path directory, @Nonnull Manifest previous) throws UncheckedIOException {
+        final List<Path> files = filesOf(directory);
+        final AtomicInteger reused = new AtomicInteger();
+        final AtomicLong hashedBytes = new AtomicLong();
+        final Manifest manifest = manifestOf(files.parallelStream()
+            .map(file -> {
+                final String path = directory.relativize(file).toString().replace('\\', '/');
+                final BasicFileAttributes attributes = attributesOf(file);
+                final long size = attributes.size();
+                final long lastModified = attributes.lastModifiedTime().toMillis();
+                final Optional<Entry> before = previous.get(path)
+                    .filter(candidate -> candidate.size() == size && candidate.lastModified() == lastModified);
+                if (before.isPresent()) {
+                    reused.incrementAndGet();
+                    return entryOf(path, size, lastModified, before.get().sha256(), contentTypeOf(path));
+                }
+                hashedBytes.addAndGet(size);
+                return entryOf(path, size, lastModified, sha256Of(file, size), contentTypeOf(path));
+            })
+            .collect(Collectors.toList()));
+        return new Result(manifest, manifest.diffSince(previous), reused.get(), hashedBytes.get());
+    }
+
+    @Nonnull
+    public Manifest read(@Nonnull Path manifestFile) {
+        try {
+            return manifestFromJson(new String(Files.readAllBytes(manifestFile), UTF_8));
+        } catch (NoSuchFileException ignored) {
+            return emptyManifest();
+        } catch (IOException | IllegalArgumentException e) {
+            log().warn(format("Cannot read previous manifest %s; all files are considered as added: %s", manifestFile, e.getMessage()));
+            return emptyManifest();
+        }
+    }
+
+    @Nonnull
+    private static List<Path> filesOf(@Nonnull Path directory) throws UncheckedIOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (final Stream<Path> candidates = Files.walk(directory)) {
+            return candidates
+                .filter(Files::isRegularFile)
+                .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot collect files of %s.", directory), e);
+        }
+    }
+
+    @Nonnull
+    private static BasicFileAttributes attributesOf(@Nonnull Path file) throws UncheckedIOException {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot read attributes of %s.", file), e);
+        }
+    }
+
+    @Nonnull
+    String sha256Of(@Nonnull Path file, long size) throws UncheckedIOException {
+        final MessageDigest digest = sha256();
+        try {
+            if (size > mappedAbove) {
+                // Large files are mapped instead of copied through buffers on the heap.
+                try (final FileChannel channel = FileChannel.open(file, READ)) {
+                    for (long position = 0; position < size; position += MAX_MAPPED_CHUNK) {
+                        final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAX_MAPPED_CHUNK, size - position));
+                        digest.update(buffer);
+                    }
+                }
+            } else {
+                try (final InputStream is = Files.newInputStream(file)) {
+                    final byte[] buffer = new byte[(int) Math.max(1, Math.min(size, 64 * 1024))];
+                    int read;
+                    while ((read = is.read(buffer)) > 0) {
+                        digest.update(buffer, 0, read);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot hash %s.", file), e);
+        }
+        return hexOf(digest.digest());
+    }
+
+    @Nonnull
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Nonnull
+    private static String hexOf(@Nonnull byte[] bytes) {
+        final char[] result = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            result[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            result[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(result);
+    }
+
+    private static void write(@Nonnull Path file, @Nonnull String content) throws UncheckedIOException {
+        writeAtomically(file, content.getBytes(UTF_8));
+    }
+
+    @Nonnull
+    public Log log() {
+        return log;
+    }
+
+    public long mappedAbove() {
+        return mappedAbove;
+    }
+
+    public static final class Result {
+
+        @Nonnull
+        private final Manifest manifest;
+        @Nonnull
+        private final Diff diff;
+        private final int reused;
+        private final long hashedBytes;
+
+        private Result(@Nonnull Manifest manifest, @Nonnull Diff diff, int reused, long hashedBytes) {
+            this.manifest = manifest;
+            this.diff = diff;
+            this.reused = reused;
+            this.hashedBytes = hashedBytes;
+        }
+
+        @Nonnull
+        public Manifest manifest() {
+            return manifest;
+        }
+
+        @Nonnull
+        public Diff diff() {
+            return diff;
+        }
+
+        public int reused() {
+            return reused;
+        }
+
+        public int hashed() {
+            return manifest.size() - reused;
+        }
+
+        public long hashedBytes() {
+            return hashedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return format("%d files (%d hashed with %d bytes, %d reused); %s", manifest.size(), hashed(), hashedBytes, reused, diff);
+        }
+    }
+
+    public static final class Builder {
+
+        @Nonnull
+        private Optional<Log> log = Optional.empty();
+        private long mappedAbove = DEFAULT_MAPPED_ABOVE;
+
+        @Nonnull
+        public Builder withLog(@Nonnull Log v) {
+            log = Optional.of(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withMappedAbove(long v) {
+            mappedAbove = Math.max(0, v);
+            return this;
+        }
+
+        @Nonnull
+        public ManifestGenerator build() {
+            return new ManifestGenerator(this);
+        }
+
+    }
+
+}
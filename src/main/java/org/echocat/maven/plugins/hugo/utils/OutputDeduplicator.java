@@ -0,0 +1,376 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static org.echocat.maven.plugins.hugo.utils.FileSystems.deleteQuietly;
+import static org.echocat.maven.plugins.hugo.utils.FileSystems.rename;
+import static org.echocat.maven.plugins.hugo.utils.FileSystems.temporaryFileFor;
+import static org.echocat.maven.plugins.hugo.utils.ManifestGenerator.manifestGenerator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+
+import org.apache.maven.plugin.logging.Log;
+
+// Replaces byte identical files of several outputs by hardlinks of one of them. Hugo overwrites existing files in place,
+// which would change all links of a file at once; so outputs have to be unshared before they are rendered again.
+public final class OutputDeduplicator {
+
+    public static final long DEFAULT_MIN_SIZE = 1024;
+
+    @Nonnull
+    public static OutputDeduplicator.Builder outputDeduplicator() {
+        return new Builder();
+    }
+
+    @Nonnull
+    private final Log log;
+    private final long minSize;
+    private final int threads;
+    @Nonnull
+    private final ManifestGenerator hasher;
+
+    private OutputDeduplicator(@Nonnull Builder builder) {
+        log = builder.log.orElseThrow(() -> new NullPointerException("No log provided."));
+        minSize = builder.minSize;
+        threads = builder.threads > 0 ? builder.threads : Runtime.getRuntime().availableProcessors();
+        hasher = manifestGenerator()
+            .withLog(log)
+            .build();
+    }
+
+    @Nonnull
+    public Report deduplicate(@Nonnull Collection<Path> directories) throws UncheckedIOException {
+        final long start = nanoTime();
+        final Counters counters = new Counters();
+        final List<Candidate> candidates = new ArrayList<>();
+        for (final Path directory : directories) {
+            final Optional<String> store = linkableStoreOf(directory);
+            if (store.isPresent()) {
+                candidatesOf(directory, store.get(), candidates);
+            } else if (Files.isDirectory(directory)) {
+                log.debug(format("File system of %s does not report link counts; it is not deduplicated.", directory));
+            }
+        }
+        counters.files.set(candidates.size());
+
+        // Only files of the same size can be duplicates; all other files do not need to be hashed at all.
+        final List<Candidate> sameSize = candidates.stream()
+            .collect(Collectors.groupingBy(candidate -> candidate.store + ":" + candidate.size))
+            .values().stream()
+            .filter(group -> group.size() > 1)
+            .flatMap(List::stream)
+            .collect(Collectors.toList());
+
+        run(() -> sameSize.parallelStream().forEach(candidate -> {
+            candidate.sha256 = hasher.sha256Of(candidate.file, candidate.size);
+            counters.hashedBytes.addAndGet(candidate.size);
+        }));
+
+        final List<List<Candidate>> groups = sameSize.stream()
+            .collect(Collectors.groupingBy(candidate -> candidate.store + ":" + candidate.size + ":" + candidate.sha256))
+            .values().stream()
+            .filter(group -> group.size() > 1)
+            .collect(Collectors.toList());
+        run(() -> groups.parallelStream().forEach(group -> link(group, counters)));
+
+        return counters.toReport(Duration.ofNanos(nanoTime() - start));
+    }
+
+    // Deletes all files of the directory which are shared with other files of the deduplicated outputs, so a following
+    // build creates them from scratch. Links to files outside of the outputs (like the ones of outputMode=link) are kept.
+    public int unshare(@Nonnull Path directory, @Nonnull Collection<Path> outputs) throws UncheckedIOException {
+        if (!linkableStoreOf(directory).isPresent()) {
+            return 0;
+        }
+        final Set<Path> linked = new HashSet<>(linkedFilesOf(directory));
+        outputs.stream()
+            .filter(output -> linkableStoreOf(output).isPresent())
+            .forEach(output -> linked.addAll(linkedFilesOf(output)));
+        final Map<Object, Long> linksByKey = linked.stream()
+            .collect(Collectors.groupingBy(OutputDeduplicator::fileKeyOf, Collectors.counting()));
+
+        int result = 0;
+        for (final Path file : linkedFilesOf(directory)) {
+            if (linksByKey.getOrDefault(fileKeyOf(file), 0L) > 1) {
+                deleteQuietly(file);
+                result++;
+            }
+        }
+        return result;
+    }
+
+    @Nonnull
+    private static List<Path> linkedFilesOf(@Nonnull Path directory) throws UncheckedIOException {
+        try (final Stream<Path> candidates = Files.walk(directory)) {
+            return candidates
+                .filter(Files::isRegularFile)
+                .filter(candidate -> linkCountOf(candidate) > 1)
+                .map(candidate -> candidate.toAbsolutePath().normalize())
+                .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot collect files of %s.", directory), e);
+        }
+    }
+
+    private void link(@Nonnull List<Candidate> group, @Nonnull Counters counters) throws UncheckedIOException {
+        group.sort(Comparator.comparing(candidate -> candidate.file));
+        final Candidate original = group.get(0);
+        for (final Candidate duplicate : group.subList(1, group.size())) {
+            try {
+                if (Files.isSameFile(original.file, duplicate.file)) {
+                    counters.alreadyLinked.incrementAndGet();
+                    continue;
+                }
+                // The unique name is reserved by creating the file; the link has to replace it.
+                final Path temp = temporaryFileFor(duplicate.file);
+                try {
+                    Files.delete(temp);
+                    Files.createLink(temp, original.file);
+                    rename(temp, duplicate.file);
+                } catch (IOException | UnsupportedOperationException e) {
+                    // The duplicate simply stays a copy.
+                    log.debug(format("Cannot link %s to %s; keeping it: %s", duplicate.file, original.file, e.getMessage()));
+                    counters.kept.incrementAndGet();
+                    continue;
+                } finally {
+                    deleteQuietly(temp);
+                }
+                counters.linked.incrementAndGet();
+                counters.savedBytes.addAndGet(duplicate.size);
+            } catch (IOException e) {
+                throw new UncheckedIOException(format("Cannot compare %s with %s.", original.file, duplicate.file), e);
+            }
+        }
+    }
+
+    private void candidatesOf(@Nonnull Path directory, @Nonnull String store, @Nonnull List<Candidate> to) throws UncheckedIOException {
+        try (final Stream<Path> candidates = Files.walk(directory)) {
+            candidates
+                .filter(Files::isRegularFile)
+                .forEach(file -> {
+                    final long size = sizeOf(file);
+                    if (size >= minSize && size > 0) {
+                        to.add(new Candidate(file, store, size));
+                    }
+                });
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot collect files of %s.", directory), e);
+        }
+    }
+
+    // Only file stores which report link counts are considered, otherwise unshare() could not find linked files again.
+    @Nonnull
+    private static Optional<String> linkableStoreOf(@Nonnull Path directory) throws UncheckedIOException {
+        if (!Files.isDirectory(directory)) {
+            return Optional.empty();
+        }
+        try {
+            final FileStore store = Files.getFileStore(directory);
+            if (!store.supportsFileAttributeView("unix")) {
+                return Optional.empty();
+            }
+            return Optional.of(store.name() + "@" + Files.getAttribute(directory, "unix:dev"));
+        } catch (IOException | UnsupportedOperationException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static int linkCountOf(@Nonnull Path file) throws UncheckedIOException {
+        try {
+            return ((Number) Files.getAttribute(file, "unix:nlink")).intValue();
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot read link count of %s.", file), e);
+        }
+    }
+
+    @Nonnull
+    private static Object fileKeyOf(@Nonnull Path file) throws UncheckedIOException {
+        try {
+            final Object result = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+            return result != null ? result : file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot read file key of %s.", file), e);
+        }
+    }
+
+    private static long sizeOf(@Nonnull Path file) throws UncheckedIOException {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot determine size of %s.", file), e);
+        }
+    }
+
+    private void run(@Nonnull Runnable action) {
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.submit(action).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Was interrupted.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Nonnull
+    public Log log() {
+        return log;
+    }
+
+    public long minSize() {
+        return minSize;
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    private static final class Candidate {
+
+        @Nonnull
+        private final Path file;
+        @Nonnull
+        private final String store;
+        private final long size;
+        private volatile String sha256;
+
+        private Candidate(@Nonnull Path file, @Nonnull String store, long size) {
+            this.file = file;
+            this.store = store;
+            this.size = size;
+        }
+    }
+
+    private static final class Counters {
+
+        private final AtomicInteger files = new AtomicInteger();
+        private final AtomicInteger linked = new AtomicInteger();
+        private final AtomicInteger alreadyLinked = new AtomicInteger();
+        private final AtomicInteger kept = new AtomicInteger();
+        private final AtomicLong savedBytes = new AtomicLong();
+        private final AtomicLong hashedBytes = new AtomicLong();
+
+        @Nonnull
+        Report toReport(@Nonnull Duration duration) {
+            return new Report(files.get(), linked.get(), alreadyLinked.get(), kept.get(), savedBytes.get(), hashedBytes.get(), duration);
+        }
+    }
+
+    public static final class Report {
+
+        private final int files;
+        private final int linked;
+        private final int alreadyLinked;
+        private final int kept;
+        private final long savedBytes;
+        private final long hashedBytes;
+        @Nonnull
+        private final Duration duration;
+
+        private Report(int files, int linked, int alreadyLinked, int kept, long savedBytes, long hashedBytes, @Nonnull Duration duration) {
+            this.files = files;
+            this.linked = linked;
+            this.alreadyLinked = alreadyLinked;
+            this.kept = kept;
+            this.savedBytes = savedBytes;
+            this.hashedBytes = hashedBytes;
+            this.duration = duration;
+        }
+
+        public int files() {
+            return files;
+        }
+
+        public int linked() {
+            return linked;
+        }
+
+        public int alreadyLinked() {
+            return alreadyLinked;
+        }
+
+        // Duplicates which could not be linked and stay copies.
+        public int kept() {
+            return kept;
+        }
+
+        public long savedBytes() {
+            return savedBytes;
+        }
+
+        public long hashedBytes() {
+            return hashedBytes;
+        }
+
+        @Nonnull
+        public Duration duration() {
+            return duration;
+        }
+
+        @Override
+        public String toString() {
+            return format("%d of %d files linked (%s saved), %d already linked, %d kept as copies, %s hashed in %s",
+                linked, files, Strings.formatBytes(savedBytes), alreadyLinked, kept, Strings.formatBytes(hashedBytes), duration);
+        }
+    }
+
+    public static final class Builder {
+
+        @Nonnull
+        private Optional<Log> log = Optional.empty();
+        private long minSize = DEFAULT_MIN_SIZE;
+        private int threads;
+
+        @Nonnull
+        public Builder withLog(@Nonnull Log v) {
+            log = Optional.of(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withMinSize(long v) {
+            minSize = Math.max(1, v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withThreads(int v) {
+            threads = v;
+            return this;
+        }
+
+        @Nonnull
+        public OutputDeduplicator build() {
+            return new OutputDeduplicator(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,301 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.lang.String.format;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+import static org.echocat.maven.plugins.hugo.utils.FileSystems.createParentsOf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+
+import org.apache.maven.plugin.logging.Log;
+
+public final class OutputMerger {
+
+    private static final int MAX_REPORTED_CONFLICTS = 10;
+
+    @Nonnull
+    public static OutputMerger.Builder outputMerger() {
+        return new Builder();
+    }
+
+    @Nonnull
+    private final Log log;
+    @Nonnull
+    private final OnConflict onConflict;
+
+    private OutputMerger(@Nonnull Builder builder) {
+        log = builder.log.orElseThrow(() -> new NullPointerException("No log provided."));
+        onConflict = builder.onConflict;
+    }
+
+    @Nonnull
+    public static Source sourceOf(@Nonnull Path directory) {
+        return new Source(directory, emptyList());
+    }
+
+    @Nonnull
+    public static Source sourceOf(@Nonnull Path directory, @Nonnull Collection<String> prefixes) {
+        return new Source(directory, prefixes);
+    }
+
+    @Nonnull
+    public Report merge(@Nonnull List<Path> sources, @Nonnull Path target) throws UncheckedIOException, FailureException {
+        return mergeSources(sources.stream()
+            .map(OutputMerger::sourceOf)
+            .collect(Collectors.toList()), target);
+    }
+
+    @Nonnull
+    public Report mergeSources(@Nonnull List<Source> sources, @Nonnull Path target) throws UncheckedIOException, FailureException {
+        final List<Map<String, Path>> filesOfSources = IntStream.range(0, sources.size())
+            .parallel()
+            .mapToObj(i -> filesOf(sources.get(i)))
+            .collect(Collectors.toList());
+
+        // Relative path -> all files (in order of the sources) producing it.
+        final Map<String, List<Path>> files = new TreeMap<>();
+        for (final Map<String, Path> filesOfSource : filesOfSources) {
+            filesOfSource.forEach((relative, file) -> files.computeIfAbsent(relative, k -> new ArrayList<>(1)).add(file));
+        }
+
+        final AtomicLong duplicateBytes = new AtomicLong();
+        final List<String> conflicts = files.entrySet().parallelStream()
+            .filter(entry -> entry.getValue().size() > 1)
+            .filter(entry -> {
+                final Path first = entry.getValue().get(0);
+                for (final Path other : entry.getValue().subList(1, entry.getValue().size())) {
+                    if (!sameContent(first, other)) {
+                        return true;
+                    }
+                    duplicateBytes.addAndGet(sizeOf(other));
+                }
+                return false;
+            })
+            .map(Map.Entry::getKey)
+            .sorted()
+            .collect(Collectors.toList());
+
+        if (!conflicts.isEmpty()) {
+            final String listed = conflicts.stream()
+                .limit(MAX_REPORTED_CONFLICTS)
+                .collect(Collectors.joining(", "));
+            final String message = format("%d files were produced with different content by more than one build: %s%s",
+                conflicts.size(), listed, conflicts.size() > MAX_REPORTED_CONFLICTS ? ", ..." : "");
+            if (onConflict == OnConflict.fail) {
+                throw new FailureException(message);
+            }
+            log().warn(message + " The first one wins.");
+        }
+
+        files.entrySet().parallelStream()
+            .forEach(entry -> move(entry.getValue().get(0), target.resolve(entry.getKey())));
+
+        return new Report(files.size(), (int) files.values().stream().filter(v -> v.size() > 1).count(), duplicateBytes.get(), conflicts);
+    }
+
+    @Nonnull
+    private static Map<String, Path> filesOf(@Nonnull Source source) throws UncheckedIOException {
+        final Path directory = source.directory();
+        if (!Files.isDirectory(directory)) {
+            return new TreeMap<>();
+        }
+        try (final Stream<Path> candidates = Files.walk(directory)) {
+            return candidates
+                .filter(Files::isRegularFile)
+                .collect(Collectors.toMap(
+                    candidate -> directory.relativize(candidate).toString().replace('\\', '/'),
+                    candidate -> candidate,
+                    (a, b) -> a,
+                    TreeMap::new
+                ))
+                .entrySet().stream()
+                .filter(entry -> source.includes(entry.getKey()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, TreeMap::new));
+        } catch (UncheckedIOException e) {
+            throw new UncheckedIOException(format("Cannot collect files of %s.", source), e.getCause());
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot collect files of %s.", source), e);
+        }
+    }
+
+    static boolean sameContent(@Nonnull Path a, @Nonnull Path b) throws UncheckedIOException {
+        if (sizeOf(a) != sizeOf(b)) {
+            return false;
+        }
+        try (final InputStream ais = Files.newInputStream(a);
+             final InputStream bis = Files.newInputStream(b)
+        ) {
+            final byte[] aBuffer = new byte[8192];
+            final byte[] bBuffer = new byte[8192];
+            int read;
+            while ((read = ais.read(aBuffer)) > 0) {
+                int offset = 0;
+                while (offset < read) {
+                    final int bRead = bis.read(bBuffer, offset, read - offset);
+                    if (bRead < 0) {
+                        return false;
+                    }
+                    offset += bRead;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (aBuffer[i] != bBuffer[i]) {
+                        return false;
+                    }
+                }
+            }
+            return bis.read() < 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot compare %s with %s.", a, b), e);
+        }
+    }
+
+    private static long sizeOf(@Nonnull Path file) throws UncheckedIOException {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot determine size of %s.", file), e);
+        }
+    }
+
+    private static void move(@Nonnull Path from, @Nonnull Path to) throws UncheckedIOException {
+        try {
+            createParentsOf(to);
+            try {
+                Files.move(from, to, REPLACE_EXISTING);
+            } catch (IOException ignored) {
+                // For example if source and target are on different file stores.
+                Files.copy(from, to, REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot move %s to %s.", from, to), e);
+        }
+    }
+
+    @Nonnull
+    public Log log() {
+        return log;
+    }
+
+    @Nonnull
+    public OnConflict onConflict() {
+        return onConflict;
+    }
+
+    public static final class Source {
+
+        @Nonnull
+        private final Path directory;
+        @Nonnull
+        private final List<String> prefixes;
+
+        private Source(@Nonnull Path directory, @Nonnull Collection<String> prefixes) {
+            this.directory = directory;
+            this.prefixes = unmodifiableList(new ArrayList<>(prefixes));
+        }
+
+        @Nonnull
+        public Path directory() {
+            return directory;
+        }
+
+        @Nonnull
+        public List<String> prefixes() {
+            return prefixes;
+        }
+
+        boolean includes(@Nonnull String relativePath) {
+            return prefixes.isEmpty() || prefixes.stream().anyMatch(relativePath::startsWith);
+        }
+
+        @Override
+        public String toString() {
+            return prefixes.isEmpty() ? directory.toString() : directory + prefixes.toString();
+        }
+    }
+
+    public enum OnConflict {
+        fail,
+        warn
+    }
+
+    public static final class Report {
+
+        private final int files;
+        private final int duplicates;
+        private final long duplicateBytes;
+        @Nonnull
+        private final List<String> conflicts;
+
+        private Report(int files, int duplicates, long duplicateBytes, @Nonnull List<String> conflicts) {
+            this.files = files;
+            this.duplicates = duplicates;
+            this.duplicateBytes = duplicateBytes;
+            this.conflicts = unmodifiableList(conflicts);
+        }
+
+        public int files() {
+            return files;
+        }
+
+        public int duplicates() {
+            return duplicates;
+        }
+
+        public long duplicateBytes() {
+            return duplicateBytes;
+        }
+
+        @Nonnull
+        public List<String> conflicts() {
+            return conflicts;
+        }
+
+        @Override
+        public String toString() {
+            return format("%d files merged, %d produced more than once (%d bytes deduplicated), %d conflicts", files, duplicates, duplicateBytes, conflicts.size());
+        }
+    }
+
+    public static final class Builder {
+
+        @Nonnull
+        private Optional<Log> log = Optional.empty();
+        @Nonnull
+        private OnConflict onConflict = OnConflict.fail;
+
+        @Nonnull
+        public Builder withLog(@Nonnull Log v) {
+            log = Optional.of(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withOnConflict(@Nonnull OnConflict v) {
+            onConflict = v;
+            return this;
+        }
+
+        @Nonnull
+        public OutputMerger build() {
+            return new OutputMerger(this);
+        }
+
+    }
+
+}
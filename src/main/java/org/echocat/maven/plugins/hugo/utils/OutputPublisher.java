@@ -0,0 +1,234 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.lang.String.format;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Collections.unmodifiableList;
+import static org.echocat.maven.plugins.hugo.utils.FileSystems.createParentsOf;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.DirectoryScanner;
+
+public final class OutputPublisher {
+
+    @Nonnull
+    public static OutputPublisher.Builder outputPublisher() {
+        return new Builder();
+    }
+
+    @Nonnull
+    private final Log log;
+    @Nonnull
+    private final List<String> includes;
+    @Nonnull
+    private final List<String> excludes;
+
+    private OutputPublisher(@Nonnull Builder builder) {
+        log = builder.log.orElseThrow(() -> new NullPointerException("No log provided."));
+        includes = unmodifiableList(builder.includes);
+        excludes = unmodifiableList(builder.excludes);
+    }
+
+    // Hardlinks are used where possible; a copy only where the file system does not support them.
+    @Nonnull
+    public Report link(@Nonnull Path source, @Nonnull Path target) throws UncheckedIOException {
+        final AtomicInteger linked = new AtomicInteger();
+        final AtomicInteger copied = new AtomicInteger();
+        final AtomicLong copiedBytes = new AtomicLong();
+        selectedFilesOf(source).parallelStream()
+            .forEach(relative -> {
+                final Path from = source.resolve(relative);
+                final Path to = target.resolve(relative);
+                if (linkOrCopy(from, to)) {
+                    linked.incrementAndGet();
+                } else {
+                    copied.incrementAndGet();
+                    copiedBytes.addAndGet(sizeOf(to));
+                }
+            });
+        return new Report(linked.get(), copied.get(), copiedBytes.get(), 0);
+    }
+
+    @Nonnull
+    public Report prune(@Nonnull Path directory) throws UncheckedIOException {
+        if (!Files.isDirectory(directory)) {
+            return new Report(0, 0, 0, 0);
+        }
+        final Set<String> selected = new HashSet<>(selectedFilesOf(directory));
+        final List<Path> all;
+        try (final Stream<Path> candidates = Files.walk(directory)) {
+            all = candidates
+                .filter(Files::isRegularFile)
+                .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot collect files of %s.", directory), e);
+        }
+        final AtomicInteger removed = new AtomicInteger();
+        all.parallelStream()
+            .filter(file -> !selected.contains(directory.relativize(file).toString().replace('\\', '/')))
+            .forEach(file -> {
+                try {
+                    Files.delete(file);
+                    removed.incrementAndGet();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(format("Cannot delete %s.", file), e);
+                }
+            });
+        return new Report(0, 0, 0, removed.get());
+    }
+
+    // Same selection as the maven-resources-plugin would apply to a Resource with these includes and excludes.
+    @Nonnull
+    List<String> selectedFilesOf(@Nonnull Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        final DirectoryScanner scanner = new DirectoryScanner();
+        scanner.setBasedir(directory.toFile());
+        if (!includes.isEmpty()) {
+            scanner.setIncludes(includes.toArray(new String[0]));
+        }
+        if (!excludes.isEmpty()) {
+            scanner.setExcludes(excludes.toArray(new String[0]));
+        }
+        scanner.addDefaultExcludes();
+        scanner.scan();
+        return Arrays.stream(scanner.getIncludedFiles())
+            .map(v -> v.replace('\\', '/'))
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
+    private boolean linkOrCopy(@Nonnull Path from, @Nonnull Path to) throws UncheckedIOException {
+        try {
+            createParentsOf(to);
+            if (Files.exists(to)) {
+                if (Files.isSameFile(from, to)) {
+                    return true;
+                }
+                Files.delete(to);
+            }
+            try {
+                Files.createLink(to, from);
+                return true;
+            } catch (IOException | UnsupportedOperationException e) {
+                // For example if source and target are on different file stores.
+                log().debug(format("Cannot link %s to %s; copying it: %s", from, to, e.getMessage()));
+            }
+            Files.copy(from, to, REPLACE_EXISTING);
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot place %s at %s.", from, to), e);
+        }
+    }
+
+    private static long sizeOf(@Nonnull Path file) throws UncheckedIOException {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot determine size of %s.", file), e);
+        }
+    }
+
+    @Nonnull
+    public Log log() {
+        return log;
+    }
+
+    @Nonnull
+    public List<String> includes() {
+        return includes;
+    }
+
+    @Nonnull
+    public List<String> excludes() {
+        return excludes;
+    }
+
+    public static final class Report {
+
+        private final int linked;
+        private final int copied;
+        private final long copiedBytes;
+        private final int removed;
+
+        private Report(int linked, int copied, long copiedBytes, int removed) {
+            this.linked = linked;
+            this.copied = copied;
+            this.copiedBytes = copiedBytes;
+            this.removed = removed;
+        }
+
+        public int linked() {
+            return linked;
+        }
+
+        public int copied() {
+            return copied;
+        }
+
+        public long copiedBytes() {
+            return copiedBytes;
+        }
+
+        public int removed() {
+            return removed;
+        }
+
+        @Override
+        public String toString() {
+            return format("%d files linked, %d copied (%d bytes), %d removed", linked, copied, copiedBytes, removed);
+        }
+    }
+
+    public static final class Builder {
+
+        @Nonnull
+        private Optional<Log> log = Optional.empty();
+        @Nonnull
+        private List<String> includes = new ArrayList<>();
+        @Nonnull
+        private List<String> excludes = new ArrayList<>();
+
+        @Nonnull
+        public Builder withLog(@Nonnull Log v) {
+            log = Optional.of(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withIncludes(@Nullable List<String> v) {
+            includes = v != null ? new ArrayList<>(v) : new ArrayList<>();
+            return this;
+        }
+
+        @Nonnull
+        public Builder withExcludes(@Nullable List<String> v) {
+            excludes = v != null ? new ArrayList<>(v) : new ArrayList<>();
+            return this;
+        }
+
+        @Nonnull
+        public OutputPublisher build() {
+            return new OutputPublisher(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,394 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.COPY_ATTRIBUTES;
+import static org.echocat.maven.plugins.hugo.utils.FileSystems.createDirectories;
+import static org.echocat.maven.plugins.hugo.utils.Fingerprinter.sha256Of;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.apache.maven.plugin.logging.Log;
+
+// Lets hugo render into a staging directory which replaces the output only once it is complete. Replaced trees are
+// deleted in the background; whatever is left over (because the JVM ended before) is removed by the next prepare().
+public final class OutputSwapper {
+
+    @Nonnull
+    private static final ExecutorService BACKGROUND = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "hugo-output-deletion");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Nonnull
+    public static OutputSwapper.Builder outputSwapper() {
+        return new Builder();
+    }
+
+    @Nonnull
+    private final Log log;
+    @Nonnull
+    private final Path workDirectory;
+    @Nonnull
+    private final Optional<Path> stagingBase;
+    private final int threads;
+
+    private OutputSwapper(@Nonnull Builder builder) {
+        log = builder.log.orElseThrow(() -> new NullPointerException("No log provided."));
+        workDirectory = builder.workDirectory.orElseThrow(() -> new NullPointerException("No workDirectory provided."));
+        stagingBase = builder.stagingBase;
+        threads = builder.threads > 0 ? builder.threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    // Returns an empty staging directory for the output and removes leftovers of earlier swaps of it.
+    @Nonnull
+    public Path prepare(@Nonnull Path output) throws UncheckedIOException {
+        final Path staging = stagingBase
+            .map(base -> base.resolve(keyOf(output)))
+            .orElseGet(() -> nextToOf(output, "staging"));
+        leftoversOf(output).forEach(this::deleteInBackground);
+        retire(staging, output);
+        retire(nextToOf(output, "staging"), output);
+        createDirectories(staging);
+        return staging;
+    }
+
+    // Moves the staging directory to the location of the output. Both renames are atomic, so readers see either the
+    // complete old or the complete new tree (or, between both renames, none at all); never a partial one.
+    @Nonnull
+    public Report swap(@Nonnull Path staging, @Nonnull Path output) throws UncheckedIOException {
+        final long start = nanoTime();
+        createDirectories(output.toAbsolutePath().getParent());
+
+        Path ready = staging;
+        int copied = 0;
+        if (!sameFileStore(staging, output.toAbsolutePath().getParent())) {
+            // For example a staging directory on tmpfs; it has to be brought to the file system of the output first.
+            ready = nextToOf(output, "staging");
+            retire(ready, output);
+            copied = copyTree(staging, ready);
+            retire(staging, output);
+        }
+
+        Path old = null;
+        if (Files.exists(output)) {
+            old = trashOf(output);
+            move(output, old);
+        }
+        try {
+            move(ready, output);
+        } catch (UncheckedIOException e) {
+            if (old != null) {
+                move(old, output);
+            }
+            throw e;
+        }
+        final CompletableFuture<Void> deletion = old != null ? deleteInBackground(old) : CompletableFuture.completedFuture(null);
+        return new Report(copied, deletion, Duration.ofNanos(nanoTime() - start));
+    }
+
+    // Removes the staging directory of a failed build; the output stays untouched.
+    public void discard(@Nonnull Path staging, @Nonnull Path output) throws UncheckedIOException {
+        retire(staging, output);
+    }
+
+    // Trees are renamed before they are deleted in the background, so their location can be reused right away.
+    private void retire(@Nonnull Path tree, @Nonnull Path output) throws UncheckedIOException {
+        if (Files.exists(tree)) {
+            final Path retired = tree.resolveSibling(retiredNameOf(output));
+            move(tree, retired);
+            deleteInBackground(retired);
+        }
+    }
+
+    @Nonnull
+    private Path trashOf(@Nonnull Path output) throws UncheckedIOException {
+        final Path trash = workDirectory.resolve("trash");
+        createDirectories(trash);
+        // The replaced tree has to be renamed atomically, so it needs to stay on the file system of the output.
+        if (sameFileStore(trash, output)) {
+            return trash.resolve(retiredNameOf(output));
+        }
+        return output.toAbsolutePath().resolveSibling(retiredNameOf(output));
+    }
+
+    @Nonnull
+    private List<Path> leftoversOf(@Nonnull Path output) throws UncheckedIOException {
+        final String prefix = ".~" + keyOf(output) + ".old-";
+        final List<Path> result = new ArrayList<>();
+        result.addAll(childrenOf(workDirectory.resolve("trash"), name -> name.startsWith(prefix)));
+        result.addAll(childrenOf(output.toAbsolutePath().getParent(), name -> name.startsWith(prefix)));
+        if (stagingBase.isPresent()) {
+            result.addAll(childrenOf(stagingBase.get(), name -> name.startsWith(prefix)));
+        }
+        return result;
+    }
+
+    @Nonnull
+    private static String retiredNameOf(@Nonnull Path output) {
+        return ".~" + keyOf(output) + ".old-" + System.nanoTime();
+    }
+
+    @Nonnull
+    private static List<Path> childrenOf(@Nullable Path directory, @Nonnull Predicate<String> nameMatches) throws UncheckedIOException {
+        if (directory == null || !Files.isDirectory(directory)) {
+            return Collections.emptyList();
+        }
+        try (final Stream<Path> children = Files.list(directory)) {
+            return children
+                .filter(child -> nameMatches.test(child.getFileName().toString()))
+                .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot list %s.", directory), e);
+        }
+    }
+
+    @Nonnull
+    private CompletableFuture<Void> deleteInBackground(@Nonnull Path tree) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                final long start = nanoTime();
+                final int deleted = deleteInParallel(tree);
+                log.debug(format("Deleted %d files of %s in %s.", deleted, tree, Duration.ofNanos(nanoTime() - start)));
+            } catch (RuntimeException e) {
+                log.warn(format("Cannot delete %s; it will be retried with the next build: %s", tree, e.getMessage()));
+                throw e;
+            }
+        }, BACKGROUND);
+    }
+
+    // Files are deleted in parallel; directories afterwards, deepest first.
+    int deleteInParallel(@Nonnull Path tree) throws UncheckedIOException {
+        if (!Files.exists(tree)) {
+            return 0;
+        }
+        final List<Path> files = new ArrayList<>();
+        final List<Path> directories = new ArrayList<>();
+        try (final Stream<Path> candidates = Files.walk(tree)) {
+            candidates.forEach(candidate -> (Files.isDirectory(candidate) ? directories : files).add(candidate));
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot collect files of %s.", tree), e);
+        }
+        final AtomicInteger deleted = new AtomicInteger();
+        run(() -> files.parallelStream().forEach(file -> {
+            try {
+                Files.deleteIfExists(file);
+                deleted.incrementAndGet();
+            } catch (IOException e) {
+                throw new UncheckedIOException(format("Cannot delete %s.", file), e);
+            }
+        }));
+        directories.sort(Comparator.comparingInt(Path::getNameCount).reversed());
+        for (final Path directory : directories) {
+            try {
+                Files.deleteIfExists(directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException(format("Cannot delete %s.", directory), e);
+            }
+        }
+        return deleted.get();
+    }
+
+    private int copyTree(@Nonnull Path from, @Nonnull Path to) throws UncheckedIOException {
+        final List<Path> files = new ArrayList<>();
+        try (final Stream<Path> candidates = Files.walk(from)) {
+            candidates.forEach(candidate -> {
+                if (Files.isDirectory(candidate)) {
+                    createDirectories(to.resolve(from.relativize(candidate).toString()));
+                } else {
+                    files.add(candidate);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot collect files of %s.", from), e);
+        }
+        run(() -> files.parallelStream().forEach(file -> {
+            final Path target = to.resolve(from.relativize(file).toString());
+            try {
+                Files.copy(file, target, COPY_ATTRIBUTES);
+            } catch (IOException e) {
+                throw new UncheckedIOException(format("Cannot copy %s to %s.", file, target), e);
+            }
+        }));
+        return files.size();
+    }
+
+    private static void move(@Nonnull Path what, @Nonnull Path to) throws UncheckedIOException {
+        try {
+            Files.move(what, to, ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            throw new UncheckedIOException(format("Cannot rename %s to %s atomically; both need to be located at the same file system.", what, to), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot rename %s to %s.", what, to), e);
+        }
+    }
+
+    private static boolean sameFileStore(@Nonnull Path a, @Nonnull Path b) throws UncheckedIOException {
+        try {
+            return Objects.equals(Files.getFileStore(existingOf(a)), Files.getFileStore(existingOf(b)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot determine file systems of %s and %s.", a, b), e);
+        }
+    }
+
+    @Nonnull
+    private static Path existingOf(@Nonnull Path path) {
+        Path candidate = path.toAbsolutePath();
+        while (!Files.exists(candidate) && candidate.getParent() != null) {
+            candidate = candidate.getParent();
+        }
+        return candidate;
+    }
+
+    @Nonnull
+    private static Path nextToOf(@Nonnull Path output, @Nonnull String purpose) {
+        return output.toAbsolutePath().resolveSibling(".~" + output.getFileName() + "." + purpose);
+    }
+
+    @Nonnull
+    private static String keyOf(@Nonnull Path output) {
+        return sha256Of(Collections.singletonList(output.toAbsolutePath().normalize().toString())).substring(0, 16);
+    }
+
+    private void run(@Nonnull Runnable action) {
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.submit(action).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Was interrupted.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Nonnull
+    public Log log() {
+        return log;
+    }
+
+    @Nonnull
+    public Path workDirectory() {
+        return workDirectory;
+    }
+
+    @Nonnull
+    public Optional<Path> stagingBase() {
+        return stagingBase;
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    public static final class Report {
+
+        private final int copied;
+        @Nonnull
+        private final CompletableFuture<Void> deletion;
+        @Nonnull
+        private final Duration duration;
+
+        private Report(int copied, @Nonnull CompletableFuture<Void> deletion, @Nonnull Duration duration) {
+            this.copied = copied;
+            this.deletion = deletion;
+            this.duration = duration;
+        }
+
+        // Files which had to be copied, because the staging directory is located at another file system.
+        public int copied() {
+            return copied;
+        }
+
+        // Completes once the replaced tree is deleted.
+        @Nonnull
+        public CompletableFuture<Void> deletion() {
+            return deletion;
+        }
+
+        @Nonnull
+        public Duration duration() {
+            return duration;
+        }
+
+        @Override
+        public String toString() {
+            return copied > 0
+                ? format("swapped in %s (%d files copied from the staging directory)", duration, copied)
+                : format("swapped in %s", duration);
+        }
+    }
+
+    public static final class Builder {
+
+        @Nonnull
+        private Optional<Log> log = Optional.empty();
+        @Nonnull
+        private Optional<Path> workDirectory = Optional.empty();
+        @Nonnull
+        private Optional<Path> stagingBase = Optional.empty();
+        private int threads;
+
+        @Nonnull
+        public Builder withLog(@Nonnull Log v) {
+            log = Optional.of(v);
+            return this;
+        }
+
+        // Holds replaced trees until they are deleted.
+        @Nonnull
+        public Builder withWorkDirectory(@Nonnull Path v) {
+            workDirectory = Optional.of(v.toAbsolutePath());
+            return this;
+        }
+
+        // Alternative location for staging directories (like a tmpfs) instead of next to the output.
+        @Nonnull
+        public Builder withStagingBase(@Nullable Path v) {
+            stagingBase = Optional.ofNullable(v).map(Path::toAbsolutePath);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withThreads(int v) {
+            threads = v;
+            return this;
+        }
+
+        @Nonnull
+        public OutputSwapper build() {
+            return new OutputSwapper(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,439 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableSet;
+import static org.echocat.maven.plugins.hugo.utils.FileSystems.deleteQuietly;
+import static org.echocat.maven.plugins.hugo.utils.FileSystems.rename;
+import static org.echocat.maven.plugins.hugo.utils.FileSystems.temporaryFileFor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import io.airlift.compress.zstd.ZstdOutputStream;
+import org.apache.maven.plugin.logging.Log;
+
+public final class Precompressor {
+
+    @Nonnull
+    public static final Set<String> DEFAULT_EXTENSIONS = unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+        "html", "htm", "css", "js", "mjs", "json", "xml", "svg", "txt", "map", "webmanifest", "ics", "csv", "wasm"
+    )));
+    public static final long DEFAULT_MIN_SIZE = 1024;
+    public static final double DEFAULT_MAX_RATIO = 0.9;
+
+    @Nonnull
+    public static Precompressor.Builder precompressor() {
+        return new Builder();
+    }
+
+    @Nonnull
+    private final Log log;
+    @Nonnull
+    private final List<Format> formats;
+    @Nonnull
+    private final Set<String> extensions;
+    private final long minSize;
+    private final double maxRatio;
+    private final int threads;
+
+    private Precompressor(@Nonnull Builder builder) {
+        log = builder.log.orElseThrow(() -> new NullPointerException("No log provided."));
+        formats = unmodifiableList(new ArrayList<>(builder.formats));
+        final Set<String> normalized = builder.extensions.stream()
+            .map(v -> v.trim().toLowerCase(Locale.ROOT))
+            .map(v -> v.startsWith(".") ? v.substring(1) : v)
+            .filter(v -> !v.isEmpty())
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+        extensions = unmodifiableSet(normalized);
+        minSize = builder.minSize;
+        maxRatio = builder.maxRatio;
+        threads = builder.threads > 0 ? builder.threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Nonnull
+    public Report precompress(@Nonnull Path directory) throws UncheckedIOException {
+        final long start = nanoTime();
+        final Counters counters = new Counters();
+        if (formats.isEmpty() || !Files.isDirectory(directory)) {
+            return counters.toReport(Duration.ZERO);
+        }
+        final List<Path> candidates = candidatesOf(directory);
+        run(() -> candidates.parallelStream()
+            .forEach(file -> formats.forEach(format -> precompress(file, format, counters))));
+        return counters.toReport(Duration.ofNanos(nanoTime() - start));
+    }
+
+    // The staging directory of a staged build starts empty. Up to date variants of the output it replaces are copied
+    // into it if their sources did not change, so they are not compressed again. Returns the number of copied variants.
+    public int carryOver(@Nonnull Path previous, @Nonnull Path directory) throws UncheckedIOException {
+        if (formats.isEmpty() || !Files.isDirectory(previous) || !Files.isDirectory(directory)) {
+            return 0;
+        }
+        final List<Path> candidates = candidatesOf(directory);
+        final AtomicInteger carried = new AtomicInteger();
+        run(() -> candidates.parallelStream()
+            .forEach(file -> formats.forEach(format -> {
+                if (carryOver(previous.resolve(directory.relativize(file).toString()), file, format)) {
+                    carried.incrementAndGet();
+                }
+            })));
+        return carried.get();
+    }
+
+    private boolean carryOver(@Nonnull Path previousFile, @Nonnull Path file, @Nonnull Format format) throws UncheckedIOException {
+        final Path previousVariant = variantOf(previousFile, format);
+        final Path target = variantOf(file, format);
+        try {
+            if (!Files.isRegularFile(previousVariant)
+                || !Files.isRegularFile(previousFile)
+                || !Files.getLastModifiedTime(previousVariant).equals(Files.getLastModifiedTime(previousFile))
+                || Files.size(previousVariant) > Files.size(file) * maxRatio
+                || Files.exists(target)
+                || !sameContent(previousFile, file)) {
+                return false;
+            }
+            final Path temp = temporaryFileFor(target);
+            try {
+                Files.copy(previousVariant, temp, REPLACE_EXISTING);
+                Files.setLastModifiedTime(temp, Files.getLastModifiedTime(file));
+                rename(temp, target);
+                return true;
+            } finally {
+                deleteQuietly(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot carry over %s to %s.", previousVariant, target), e);
+        }
+    }
+
+    private static boolean sameContent(@Nonnull Path a, @Nonnull Path b) throws IOException {
+        if (Files.size(a) != Files.size(b)) {
+            return false;
+        }
+        try (final InputStream aIs = Files.newInputStream(a); final InputStream bIs = Files.newInputStream(b)) {
+            final byte[] aBuffer = new byte[64 * 1024];
+            final byte[] bBuffer = new byte[aBuffer.length];
+            int read;
+            while ((read = aIs.read(aBuffer)) > 0) {
+                int offset = 0;
+                while (offset < read) {
+                    final int bRead = bIs.read(bBuffer, offset, read - offset);
+                    if (bRead <= 0) {
+                        return false;
+                    }
+                    offset += bRead;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (aBuffer[i] != bBuffer[i]) {
+                        return false;
+                    }
+                }
+            }
+            return bIs.read() < 0;
+        }
+    }
+
+    private void run(@Nonnull Runnable task) {
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Was interrupted.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Nonnull
+    private List<Path> candidatesOf(@Nonnull Path directory) throws UncheckedIOException {
+        try (final Stream<Path> candidates = Files.walk(directory)) {
+            return candidates
+                .filter(candidate -> extensions.contains(extensionOf(candidate)))
+                .filter(Files::isRegularFile)
+                .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot collect files of %s.", directory), e);
+        }
+    }
+
+    private void precompress(@Nonnull Path file, @Nonnull Format format, @Nonnull Counters counters) throws UncheckedIOException {
+        final Path target = variantOf(file, format);
+        try {
+            final long size = Files.size(file);
+            final FileTime lastModified = Files.getLastModifiedTime(file);
+            if (size < minSize) {
+                counters.tooSmall.incrementAndGet();
+                deleteQuietly(target);
+                return;
+            }
+            // Written variants get the modification time of their source; nothing to do if it still matches.
+            if (Files.isRegularFile(target) && Files.getLastModifiedTime(target).equals(lastModified)) {
+                counters.upToDate.incrementAndGet();
+                return;
+            }
+
+            final Path temp = temporaryFileFor(target);
+            try {
+                try (final OutputStream os = format.open(Files.newOutputStream(temp))) {
+                    Files.copy(file, os);
+                }
+                final long compressedSize = Files.size(temp);
+                if (compressedSize > size * maxRatio) {
+                    counters.notWorthIt.incrementAndGet();
+                    deleteQuietly(target);
+                    return;
+                }
+                Files.setLastModifiedTime(temp, lastModified);
+                rename(temp, target);
+                counters.written.incrementAndGet();
+                counters.bytes.addAndGet(size);
+                counters.compressedBytes.addAndGet(compressedSize);
+            } finally {
+                deleteQuietly(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot precompress %s to %s.", file, target), e);
+        }
+    }
+
+    @Nonnull
+    private static Path variantOf(@Nonnull Path file, @Nonnull Format format) {
+        return file.resolveSibling(file.getFileName() + format.extension());
+    }
+
+    @Nonnull
+    private static String extensionOf(@Nonnull Path file) {
+        final Path fileName = file.getFileName();
+        if (fileName == null) {
+            return "";
+        }
+        final String name = fileName.toString();
+        final int dot = name.lastIndexOf('.');
+        return dot >= 0 ? name.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+    }
+
+    @Nonnull
+    public Log log() {
+        return log;
+    }
+
+    @Nonnull
+    public List<Format> formats() {
+        return formats;
+    }
+
+    @Nonnull
+    public Set<String> extensions() {
+        return extensions;
+    }
+
+    public long minSize() {
+        return minSize;
+    }
+
+    public double maxRatio() {
+        return maxRatio;
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    public enum Format {
+        gzip(".gz") {
+            @Nonnull
+            @Override
+            OutputStream open(@Nonnull OutputStream target) throws IOException {
+                return new GZIPOutputStream(target, 64 * 1024) {{
+                    def.setLevel(Deflater.BEST_COMPRESSION);
+                }};
+            }
+        },
+        zstd(".zst") {
+            @Nonnull
+            @Override
+            OutputStream open(@Nonnull OutputStream target) throws IOException {
+                return new ZstdOutputStream(target);
+            }
+        };
+
+        @Nonnull
+        private final String extension;
+
+        Format(@Nonnull String extension) {
+            this.extension = extension;
+        }
+
+        @Nonnull
+        public String extension() {
+            return extension;
+        }
+
+        @Nonnull
+        abstract OutputStream open(@Nonnull OutputStream target) throws IOException;
+    }
+
+    private static final class Counters {
+
+        private final AtomicInteger written = new AtomicInteger();
+        private final AtomicInteger upToDate = new AtomicInteger();
+        private final AtomicInteger tooSmall = new AtomicInteger();
+        private final AtomicInteger notWorthIt = new AtomicInteger();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicLong compressedBytes = new AtomicLong();
+
+        @Nonnull
+        Report toReport(@Nonnull Duration duration) {
+            return new Report(written.get(), upToDate.get(), tooSmall.get(), notWorthIt.get(), bytes.get(), compressedBytes.get(), duration);
+        }
+    }
+
+    public static final class Report {
+
+        private final int written;
+        private final int upToDate;
+        private final int tooSmall;
+        private final int notWorthIt;
+        private final long bytes;
+        private final long compressedBytes;
+        @Nonnull
+        private final Duration duration;
+
+        private Report(int written, int upToDate, int tooSmall, int notWorthIt, long bytes, long compressedBytes, @Nonnull Duration duration) {
+            this.written = written;
+            this.upToDate = upToDate;
+            this.tooSmall = tooSmall;
+            this.notWorthIt = notWorthIt;
+            this.bytes = bytes;
+            this.compressedBytes = compressedBytes;
+            this.duration = duration;
+        }
+
+        public int written() {
+            return written;
+        }
+
+        public int upToDate() {
+            return upToDate;
+        }
+
+        public int tooSmall() {
+            return tooSmall;
+        }
+
+        public int notWorthIt() {
+            return notWorthIt;
+        }
+
+        public long bytes() {
+            return bytes;
+        }
+
+        public long compressedBytes() {
+            return compressedBytes;
+        }
+
+        @Nonnull
+        public Duration duration() {
+            return duration;
+        }
+
+        @Override
+        public String toString() {
+            return format("%d variants written (%d bytes compressed to %d), %d up to date, %d too small, %d not worth it in %s",
+                written, bytes, compressedBytes, upToDate, tooSmall, notWorthIt, duration);
+        }
+    }
+
+    public static final class Builder {
+
+        @Nonnull
+        private Optional<Log> log = Optional.empty();
+        @Nonnull
+        private List<Format> formats = new ArrayList<>();
+        @Nonnull
+        private Set<String> extensions = DEFAULT_EXTENSIONS;
+        private long minSize = DEFAULT_MIN_SIZE;
+        private double maxRatio = DEFAULT_MAX_RATIO;
+        private int threads;
+
+        @Nonnull
+        public Builder withLog(@Nonnull Log v) {
+            log = Optional.of(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withFormats(@Nullable Collection<Format> v) {
+            formats = v != null ? new ArrayList<>(new LinkedHashSet<>(v)) : new ArrayList<>();
+            return this;
+        }
+
+        @Nonnull
+        public Builder withExtensions(@Nullable Collection<String> v) {
+            extensions = v != null && !v.isEmpty() ? new LinkedHashSet<String>(v) : DEFAULT_EXTENSIONS;
+            return this;
+        }
+
+        @Nonnull
+        public Builder withMinSize(long v) {
+            minSize = Math.max(0, v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withMaxRatio(double v) {
+            if (v <= 0 || v > 1) {
+                throw new IllegalArgumentException(format("Illegal ratio: %s (expected something greater than 0 and up to 1)", v));
+            }
+            maxRatio = v;
+            return this;
+        }
+
+        @Nonnull
+        public Builder withThreads(int v) {
+            threads = Math.max(0, v);
+            return this;
+        }
+
+        @Nonnull
+        public Precompressor build() {
+            return new Precompressor(this);
+        }
+
+    }
+
+}
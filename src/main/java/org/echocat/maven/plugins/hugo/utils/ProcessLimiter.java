@@ -0,0 +1,289 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.echocat.maven.plugins.hugo.model.Platform.hugoCacheDirectory;
+import static org.echocat.maven.plugins.hugo.utils.FileSystems.createDirectories;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.apache.maven.plugin.logging.Log;
+
+public final class ProcessLimiter {
+
+    private static final Duration REPORT_WAIT_ABOVE = Duration.ofMillis(100);
+
+    // Shared by all executions of this plugin inside the same JVM (reactor builds, mvnd).
+    @Nonnull
+    static final JvmLimit JVM_LIMIT = new JvmLimit();
+
+    // Slot files locked by this JVM. Another thread must not even open them: closing any channel of a file releases
+    // all locks this process holds on it (see FileLock).
+    @Nonnull
+    private static final Set<Path> heldSlots = ConcurrentHashMap.newKeySet();
+
+    @Nonnull
+    public static ProcessLimiter.Builder processLimiter() {
+        return new Builder();
+    }
+
+    @Nonnull
+    public static ProcessLimiter unlimited() {
+        return processLimiter().build();
+    }
+
+    @Nonnull
+    private final Optional<Log> log;
+    private final int limit;
+    @Nonnull
+    private final Scope scope;
+    @Nonnull
+    private final Path lockDirectory;
+    @Nonnull
+    private final Duration pollInterval;
+    @Nullable
+    private final Semaphore semaphore;
+
+    private ProcessLimiter(@Nonnull Builder builder) {
+        log = builder.log;
+        limit = builder.limit;
+        scope = builder.scope;
+        lockDirectory = builder.lockDirectory.orElseGet(() -> hugoCacheDirectory().resolve("process-slots"));
+        pollInterval = builder.pollInterval;
+        semaphore = limit > 0 ? builder.jvmLimit.semaphoreFor(limit, log) : null;
+    }
+
+    @Nonnull
+    public Permit acquire() throws UncheckedIOException {
+        if (semaphore == null) {
+            return new Permit(null, null, null);
+        }
+        final long start = nanoTime();
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Was interrupted.", e);
+        }
+        try {
+            final Permit result = scope == Scope.machine ? acquireSlot() : new Permit(semaphore, null, null);
+            reportWait(Duration.ofNanos(nanoTime() - start), semaphore);
+            return result;
+        } catch (RuntimeException | Error e) {
+            semaphore.release();
+            throw e;
+        }
+    }
+
+    @Nonnull
+    private Permit acquireSlot() throws UncheckedIOException {
+        createDirectories(lockDirectory);
+        while (true) {
+            for (int i = 0; i < limit; i++) {
+                final Path slot = lockDirectory.resolve("slot-" + i + ".lock").toAbsolutePath().normalize();
+                if (!heldSlots.add(slot)) {
+                    continue;
+                }
+                final Optional<FileLock> lock;
+                try {
+                    lock = tryLock(slot);
+                } catch (RuntimeException | Error e) {
+                    heldSlots.remove(slot);
+                    throw e;
+                }
+                if (lock.isPresent()) {
+                    return new Permit(semaphore, lock.get(), slot);
+                }
+                heldSlots.remove(slot);
+            }
+            try {
+                // Some jitter so that waiting processes do not poll in lockstep.
+                Thread.sleep(pollInterval.toMillis() + ThreadLocalRandom.current().nextLong(pollInterval.toMillis() / 2 + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Was interrupted.", e);
+            }
+        }
+    }
+
+    @Nonnull
+    private static Optional<FileLock> tryLock(@Nonnull Path file) throws UncheckedIOException {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file, CREATE, WRITE);
+            final FileLock result = channel.tryLock();
+            if (result != null) {
+                return Optional.of(result);
+            }
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new UncheckedIOException(format("Cannot lock %s.", file), e);
+        }
+        closeQuietly(channel);
+        return Optional.empty();
+    }
+
+    private static void closeQuietly(@Nullable FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void reportWait(@Nonnull Duration waited, @Nonnull Semaphore semaphore) {
+        if (!log.isPresent()) {
+            return;
+        }
+        final String message = format("Waited %s for a free hugo process slot (limit: %d per %s, %d waiting).",
+            waited, limit, scope, semaphore.getQueueLength());
+        if (waited.compareTo(REPORT_WAIT_ABOVE) > 0) {
+            log.get().info(message);
+        } else {
+            log.get().debug(message);
+        }
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    @Nonnull
+    public Scope scope() {
+        return scope;
+    }
+
+    public static final class Permit implements AutoCloseable {
+
+        @Nullable
+        private Semaphore semaphore;
+        @Nullable
+        private FileLock lock;
+        @Nullable
+        private Path slot;
+
+        private Permit(@Nullable Semaphore semaphore, @Nullable FileLock lock, @Nullable Path slot) {
+            this.semaphore = semaphore;
+            this.lock = lock;
+            this.slot = slot;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (lock != null) {
+                try {
+                    lock.release();
+                } catch (IOException ignored) {
+                } finally {
+                    closeQuietly(lock.channel());
+                    lock = null;
+                }
+            }
+            if (slot != null) {
+                heldSlots.remove(slot);
+                slot = null;
+            }
+            if (semaphore != null) {
+                semaphore.release();
+                semaphore = null;
+            }
+        }
+    }
+
+    // The first limit inside a JVM wins; other executions configuring another one cannot add permits of their own.
+    static final class JvmLimit {
+
+        @Nullable
+        private Semaphore semaphore;
+        private int limit;
+
+        @Nonnull
+        synchronized Semaphore semaphoreFor(int requested, @Nonnull Optional<Log> log) {
+            if (semaphore == null) {
+                semaphore = new Semaphore(requested, true);
+                limit = requested;
+            } else if (limit != requested) {
+                log.ifPresent(v -> v.warn(format("Hugo processes of this JVM are already limited to %d by another execution; ignoring processLimit %d.", limit, requested)));
+            }
+            return semaphore;
+        }
+    }
+
+    public enum Scope {
+        jvm,
+        machine
+    }
+
+    public static final class Builder {
+
+        @Nonnull
+        private Optional<Log> log = Optional.empty();
+        private int limit;
+        @Nonnull
+        private Scope scope = Scope.jvm;
+        @Nonnull
+        private Optional<Path> lockDirectory = Optional.empty();
+        @Nonnull
+        private Duration pollInterval = Duration.ofMillis(200);
+        @Nonnull
+        private JvmLimit jvmLimit = JVM_LIMIT;
+
+        @Nonnull
+        public Builder withLog(@Nullable Log v) {
+            log = Optional.ofNullable(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withLimit(int v) {
+            limit = Math.max(0, v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withScope(@Nullable Scope v) {
+            scope = v != null ? v : Scope.jvm;
+            return this;
+        }
+
+        @Nonnull
+        public Builder withLockDirectory(@Nullable Path v) {
+            lockDirectory = Optional.ofNullable(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withPollInterval(@Nullable Duration v) {
+            pollInterval = v != null ? v : Duration.ofMillis(200);
+            return this;
+        }
+
+        @Nonnull
+        Builder withJvmLimit(@Nonnull JvmLimit v) {
+            jvmLimit = v;
+            return this;
+        }
+
+        @Nonnull
+        public ProcessLimiter build() {
+            return new ProcessLimiter(this);
+        }
+
+    }
+
+}
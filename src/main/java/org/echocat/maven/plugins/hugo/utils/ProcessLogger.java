@@ -3,6 +3,7 @@ package org.echocat.maven.plugins.hugo.utils;
 import static org.echocat.maven.plugins.hugo.utils.InputStreamLogger.inputStreamLogger;
 
 import java.util.Optional;
+import java.util.function.Consumer;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -40,6 +41,7 @@ public final class ProcessLogger {
                 .withLog(log)
                 .withLevel(level)
                 .withStderrOf(process)
+                .withListener(builder.stderrListener.orElse(null))
                 .build()
             );
     }
@@ -65,6 +67,8 @@ public final class ProcessLogger {
         private Optional<Level> stdoutLevel = Optional.empty();
         @Nonnull
         private Optional<Level> stderrLevel = Optional.empty();
+        @Nonnull
+        private Optional<Consumer<String>> stderrListener = Optional.empty();
 
         @Nonnull
         public Builder withName(@Nonnull String v) {
@@ -96,6 +100,12 @@ public final class ProcessLogger {
             return this;
         }
 
+        @Nonnull
+        public Builder withStderrListener(@Nullable Consumer<String> v) {
+            stderrListener = Optional.ofNullable(v);
+            return this;
+        }
+
         @Nonnull
         public ProcessLogger build() {
             return new ProcessLogger(this);
@@ -0,0 +1,176 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.lang.String.format;
+import static java.util.Collections.unmodifiableList;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+
+public final class RenderSegments {
+
+    @Nonnull
+    public static RenderSegments renderSegmentsFor(@Nonnull Path contentDirectory, int shards) throws UncheckedIOException {
+        return renderSegmentsFor(sectionWeightsOf(contentDirectory), shards);
+    }
+
+    @Nonnull
+    static RenderSegments renderSegmentsFor(@Nonnull Map<String, Long> sectionWeights, int shards) {
+        final int count = Math.max(1, Math.min(shards, sectionWeights.size()));
+        final List<List<String>> sections = new ArrayList<>(count);
+        final long[] weights = new long[count];
+        for (int i = 0; i < count; i++) {
+            sections.add(new ArrayList<>());
+        }
+
+        // Heaviest sections first, each into the currently lightest shard.
+        sectionWeights.entrySet().stream()
+            .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+            .forEach(section -> {
+                int lightest = 0;
+                for (int i = 1; i < count; i++) {
+                    if (weights[i] < weights[lightest]) {
+                        lightest = i;
+                    }
+                }
+                sections.get(lightest).add(section.getKey());
+                weights[lightest] += section.getValue();
+            });
+
+        final List<Segment> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final List<String> includes = sections.get(i).stream().sorted().collect(Collectors.toList());
+            if (i == 0) {
+                // The first shard renders everything which is not rendered by another one
+                // (home, taxonomies, root pages, ...).
+                final List<String> excludes = sections.subList(1, count).stream()
+                    .flatMap(List::stream)
+                    .sorted()
+                    .collect(Collectors.toList());
+                result.add(new Segment("shard1", new ArrayList<>(), excludes));
+            } else {
+                result.add(new Segment("shard" + (i + 1), includes, new ArrayList<>()));
+            }
+        }
+        return new RenderSegments(result);
+    }
+
+    @Nonnull
+    static Map<String, Long> sectionWeightsOf(@Nonnull Path contentDirectory) throws UncheckedIOException {
+        if (!Files.isDirectory(contentDirectory)) {
+            return new TreeMap<>();
+        }
+        final List<Path> sections;
+        try (final Stream<Path> candidates = Files.list(contentDirectory)) {
+            sections = candidates
+                .filter(Files::isDirectory)
+                .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot list sections of %s.", contentDirectory), e);
+        }
+        return sections.parallelStream()
+            .collect(Collectors.toMap(
+                section -> section.getFileName().toString(),
+                RenderSegments::filesIn,
+                Long::sum,
+                TreeMap::new
+            ));
+    }
+
+    private static long filesIn(@Nonnull Path directory) throws UncheckedIOException {
+        try (final Stream<Path> candidates = Files.walk(directory)) {
+            return candidates.filter(Files::isRegularFile).count();
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot count files of %s.", directory), e);
+        }
+    }
+
+    @Nonnull
+    private final List<Segment> segments;
+
+    private RenderSegments(@Nonnull List<Segment> segments) {
+        this.segments = unmodifiableList(segments);
+    }
+
+    @Nonnull
+    public List<Segment> segments() {
+        return segments;
+    }
+
+    @Nonnull
+    public List<String> names() {
+        return segments.stream()
+            .map(Segment::name)
+            .collect(Collectors.toList());
+    }
+
+    @Nonnull
+    public String toToml() {
+        final StringBuilder result = new StringBuilder();
+        for (final Segment segment : segments) {
+            result.append("[segments.").append(segment.name()).append("]\n");
+            if (!segment.includes().isEmpty()) {
+                result.append("[[segments.").append(segment.name()).append(".includes]]\n")
+                    .append("path = \"").append(pathPatternOf(segment.includes())).append("\"\n");
+            }
+            if (!segment.excludes().isEmpty()) {
+                result.append("[[segments.").append(segment.name()).append(".excludes]]\n")
+                    .append("path = \"").append(pathPatternOf(segment.excludes())).append("\"\n");
+            }
+        }
+        return result.toString();
+    }
+
+    @Nonnull
+    private static String pathPatternOf(@Nonnull List<String> sections) {
+        return sections.stream()
+            .flatMap(section -> Stream.of("/" + section, "/" + section + "/**"))
+            .map(v -> v.replace("\\", "\\\\").replace("\"", "\\\""))
+            .collect(Collectors.joining(",", "{", "}"));
+    }
+
+    public static final class Segment {
+
+        @Nonnull
+        private final String name;
+        @Nonnull
+        private final List<String> includes;
+        @Nonnull
+        private final List<String> excludes;
+
+        private Segment(@Nonnull String name, @Nonnull List<String> includes, @Nonnull List<String> excludes) {
+            this.name = name;
+            this.includes = unmodifiableList(includes);
+            this.excludes = unmodifiableList(excludes);
+        }
+
+        @Nonnull
+        public String name() {
+            return name;
+        }
+
+        @Nonnull
+        public List<String> includes() {
+            return includes;
+        }
+
+        @Nonnull
+        public List<String> excludes() {
+            return excludes;
+        }
+
+        @Override
+        public String toString() {
+            return name + "{includes=" + includes + ", excludes=" + excludes + "}";
+        }
+    }
+
+}
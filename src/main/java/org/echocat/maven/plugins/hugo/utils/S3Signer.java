@@ -0,0 +1,217 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+// AWS Signature Version 4 for requests against S3 compatible endpoints.
+public final class S3Signer {
+
+    @Nonnull
+    public static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    @Nonnull
+    public static final String EMPTY_PAYLOAD = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+    @Nonnull
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    @Nonnull
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    @Nonnull
+    public static S3Signer.Builder s3Signer() {
+        return new Builder();
+    }
+
+    @Nonnull
+    public static Credentials credentialsOf(@Nonnull String accessKey, @Nonnull String secretKey, @Nullable String sessionToken) {
+        return new Credentials(accessKey, secretKey, sessionToken);
+    }
+
+    @Nonnull
+    private final Credentials credentials;
+    @Nonnull
+    private final String region;
+
+    private S3Signer(@Nonnull Builder builder) {
+        credentials = builder.credentials.orElseThrow(() -> new NullPointerException("No credentials provided."));
+        region = builder.region;
+    }
+
+    // Adds the x-amz-* and Authorization headers to the given (lower case) headers which already need to contain host.
+    public void sign(
+        @Nonnull String method,
+        @Nonnull String encodedPath,
+        @Nonnull Map<String, String> query,
+        @Nonnull Map<String, String> headers,
+        @Nonnull String payloadHash,
+        @Nonnull Instant at
+    ) {
+        final String timestamp = TIMESTAMP.format(at);
+        final String scope = DATE.format(at) + "/" + region + "/s3/aws4_request";
+        headers.put("x-amz-date", timestamp);
+        headers.put("x-amz-content-sha256", payloadHash);
+        credentials.sessionToken().ifPresent(v -> headers.put("x-amz-security-token", v));
+
+        final Map<String, String> signed = new TreeMap<>();
+        headers.forEach((name, value) -> signed.put(name.toLowerCase(Locale.ROOT), value.trim().replaceAll("\\s+", " ")));
+        final String signedHeaders = String.join(";", signed.keySet());
+        final String canonicalRequest = method + "\n"
+            + encodedPath + "\n"
+            + canonicalQueryOf(query) + "\n"
+            + signed.entrySet().stream().map(e -> e.getKey() + ":" + e.getValue() + "\n").collect(Collectors.joining()) + "\n"
+            + signedHeaders + "\n"
+            + payloadHash;
+        final String stringToSign = "AWS4-HMAC-SHA256\n"
+            + timestamp + "\n"
+            + scope + "\n"
+            + hexOf(sha256(canonicalRequest.getBytes(UTF_8)));
+
+        byte[] key = hmac(("AWS4" + credentials.secretKey()).getBytes(UTF_8), DATE.format(at));
+        key = hmac(key, region);
+        key = hmac(key, "s3");
+        key = hmac(key, "aws4_request");
+        final String signature = hexOf(hmac(key, stringToSign));
+
+        headers.put("authorization", format("AWS4-HMAC-SHA256 Credential=%s/%s,SignedHeaders=%s,Signature=%s",
+            credentials.accessKey(), scope, signedHeaders, signature));
+    }
+
+    @Nonnull
+    static String canonicalQueryOf(@Nonnull Map<String, String> query) {
+        final Map<String, String> encoded = new TreeMap<>();
+        query.forEach((name, value) -> encoded.put(encode(name, true), encode(value, true)));
+        return encoded.entrySet().stream()
+            .map(e -> e.getKey() + "=" + e.getValue())
+            .collect(Collectors.joining("&"));
+    }
+
+    // RFC 3986 encoding as required by S3; slashes are kept in paths (encodeSlash=false).
+    @Nonnull
+    public static String encode(@Nonnull String plain, boolean encodeSlash) {
+        final StringBuilder result = new StringBuilder(plain.length() * 2);
+        for (final byte b : plain.getBytes(UTF_8)) {
+            final char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_' || c == '.' || c == '~') {
+                result.append(c);
+            } else if (c == '/' && !encodeSlash) {
+                result.append(c);
+            } else {
+                result.append('%').append(Character.toUpperCase(HEX[(b >> 4) & 0xf])).append(Character.toUpperCase(HEX[b & 0xf]));
+            }
+        }
+        return result.toString();
+    }
+
+    @Nonnull
+    public static byte[] sha256(@Nonnull byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Nonnull
+    private static byte[] hmac(@Nonnull byte[] key, @Nonnull String data) {
+        try {
+            final Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(UTF_8));
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Nonnull
+    public static String hexOf(@Nonnull byte[] bytes) {
+        final char[] result = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            result[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            result[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(result);
+    }
+
+    @Nonnull
+    public String region() {
+        return region;
+    }
+
+    public static final class Credentials {
+
+        @Nonnull
+        private final String accessKey;
+        @Nonnull
+        private final String secretKey;
+        @Nonnull
+        private final Optional<String> sessionToken;
+
+        private Credentials(@Nonnull String accessKey, @Nonnull String secretKey, @Nullable String sessionToken) {
+            this.accessKey = accessKey;
+            this.secretKey = secretKey;
+            this.sessionToken = Optional.ofNullable(sessionToken).filter(v -> !v.isEmpty());
+        }
+
+        @Nonnull
+        public String accessKey() {
+            return accessKey;
+        }
+
+        @Nonnull
+        String secretKey() {
+            return secretKey;
+        }
+
+        @Nonnull
+        public Optional<String> sessionToken() {
+            return sessionToken;
+        }
+
+        @Override
+        public String toString() {
+            return accessKey + "/***";
+        }
+    }
+
+    public static final class Builder {
+
+        @Nonnull
+        private Optional<Credentials> credentials = Optional.empty();
+        @Nonnull
+        private String region = "us-east-1";
+
+        @Nonnull
+        public Builder withCredentials(@Nonnull Credentials v) {
+            credentials = Optional.of(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withRegion(@Nullable String v) {
+            region = v != null && !v.trim().isEmpty() ? v.trim() : "us-east-1";
+            return this;
+        }
+
+        @Nonnull
+        public S3Signer build() {
+            return new S3Signer(this);
+        }
+
+    }
+
+}
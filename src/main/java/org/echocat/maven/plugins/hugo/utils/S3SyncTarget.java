@@ -0,0 +1,615 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.echocat.maven.plugins.hugo.model.Manifest.manifestFromJson;
+import static org.echocat.maven.plugins.hugo.utils.S3Signer.EMPTY_PAYLOAD;
+import static org.echocat.maven.plugins.hugo.utils.S3Signer.UNSIGNED_PAYLOAD;
+import static org.echocat.maven.plugins.hugo.utils.S3Signer.canonicalQueryOf;
+import static org.echocat.maven.plugins.hugo.utils.S3Signer.encode;
+import static org.echocat.maven.plugins.hugo.utils.S3Signer.hexOf;
+import static org.echocat.maven.plugins.hugo.utils.S3Signer.sha256;
+import static org.echocat.maven.plugins.hugo.utils.SyncTarget.remoteObjectOf;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.maven.plugin.logging.Log;
+import org.echocat.maven.plugins.hugo.model.Manifest;
+import org.echocat.maven.plugins.hugo.model.Manifest.Entry;
+import org.echocat.maven.plugins.hugo.utils.Urls.Timeouts;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+// Talks plain REST with S3 and compatible stores (like MinIO); no SDK required.
+public final class S3SyncTarget implements SyncTarget {
+
+    public static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    public static final long DEFAULT_PART_SIZE = 16L * 1024 * 1024;
+    private static final int MAX_PARTS = 10000;
+    private static final int ATTEMPTS = 3;
+
+    @Nonnull
+    public static S3SyncTarget.Builder s3SyncTarget() {
+        return new Builder();
+    }
+
+    @Nonnull
+    private final Log log;
+    @Nonnull
+    private final S3Signer signer;
+    @Nonnull
+    private final URI endpoint;
+    @Nonnull
+    private final String bucket;
+    @Nonnull
+    private final String prefix;
+    private final boolean pathStyle;
+    private final long multipartThreshold;
+    private final long partSize;
+    @Nonnull
+    private final Timeouts timeouts;
+
+    private S3SyncTarget(@Nonnull Builder builder) {
+        log = builder.log.orElseThrow(() -> new NullPointerException("No log provided."));
+        signer = builder.signer.orElseThrow(() -> new NullPointerException("No signer provided."));
+        bucket = builder.bucket.orElseThrow(() -> new NullPointerException("No bucket provided."));
+        endpoint = builder.endpoint.orElseGet(() -> URI.create("https://s3." + signer.region() + ".amazonaws.com"));
+        prefix = builder.prefix;
+        pathStyle = builder.pathStyle;
+        partSize = builder.partSize;
+        multipartThreshold = Math.max(builder.multipartThreshold, partSize);
+        timeouts = builder.timeouts;
+    }
+
+    @Nonnull
+    @Override
+    public Map<String, RemoteObject> list() throws UncheckedIOException {
+        final Map<String, RemoteObject> result = new TreeMap<>();
+        Optional<String> continuationToken = Optional.empty();
+        do {
+            final Map<String, String> query = new TreeMap<>();
+            query.put("list-type", "2");
+            if (!prefix.isEmpty()) {
+                query.put("prefix", prefix);
+            }
+            continuationToken.ifPresent(v -> query.put("continuation-token", v));
+            final Response response = execute("GET", bucketPath(), query, new TreeMap<>(), null);
+            ensureSuccess(response, "list " + this);
+
+            final Element root = response.xml().getDocumentElement();
+            final NodeList contents = root.getElementsByTagName("Contents");
+            for (int i = 0; i < contents.getLength(); i++) {
+                final Element content = (Element) contents.item(i);
+                final String key = textOf(content, "Key").orElse("");
+                if (key.startsWith(prefix) && !key.endsWith("/")) {
+                    final String relative = key.substring(prefix.length());
+                    result.put(relative, remoteObjectOf(
+                        relative,
+                        textOf(content, "Size").map(Long::parseLong).orElse(-1L),
+                        textOf(content, "ETag").map(S3SyncTarget::unquote).orElse(null)
+                    ));
+                }
+            }
+            continuationToken = textOf(root, "IsTruncated")
+                .filter("true"::equalsIgnoreCase)
+                .flatMap(ignored -> textOf(root, "NextContinuationToken"));
+        } while (continuationToken.isPresent());
+        return result;
+    }
+
+    @Override
+    public boolean matches(@Nonnull Path file, @Nonnull Entry entry, @Nonnull RemoteObject remote) throws UncheckedIOException {
+        return remote.size() == entry.size()
+            && remote.etag().filter(etag -> etag.equals(etagOf(file, entry.size()))).isPresent();
+    }
+
+    @Override
+    public void upload(@Nonnull Path file, @Nonnull Entry entry, @Nonnull Optional<String> cacheControl) throws UncheckedIOException {
+        final Map<String, String> headers = new TreeMap<>();
+        headers.put("content-type", entry.contentType());
+        cacheControl.ifPresent(v -> headers.put("cache-control", v));
+        if (entry.size() > multipartThreshold) {
+            uploadMultipart(file, entry, headers);
+            return;
+        }
+        final Response response = execute("PUT", objectPath(entry.path()), new TreeMap<>(), headers,
+            fileBody(file, 0, entry.size(), entry.sha256()));
+        ensureSuccess(response, "upload " + entry.path());
+    }
+
+    private void uploadMultipart(@Nonnull Path file, @Nonnull Entry entry, @Nonnull Map<String, String> headers) throws UncheckedIOException {
+        if (partsOf(entry.size()) > MAX_PARTS) {
+            throw new IllegalStateException(format("%s would need more than %d parts; increase the part size.", entry.path(), MAX_PARTS));
+        }
+        final String path = objectPath(entry.path());
+        final Map<String, String> initiate = new TreeMap<>();
+        initiate.put("uploads", "");
+        final Response initiated = execute("POST", path, initiate, headers, bytesBody(new byte[0]));
+        ensureSuccess(initiated, "initiate upload of " + entry.path());
+        final String uploadId = textOf(initiated.xml().getDocumentElement(), "UploadId")
+            .orElseThrow(() -> new IllegalStateException(format("No UploadId received for %s.", entry.path())));
+
+        try {
+            final StringBuilder complete = new StringBuilder("<CompleteMultipartUpload>");
+            final int parts = partsOf(entry.size());
+            for (int part = 1; part <= parts; part++) {
+                final long offset = (part - 1) * partSize;
+                final Map<String, String> query = new TreeMap<>();
+                query.put("partNumber", Integer.toString(part));
+                query.put("uploadId", uploadId);
+                final Response uploaded = execute("PUT", path, query, new TreeMap<>(),
+                    fileBody(file, offset, Math.min(partSize, entry.size() - offset), UNSIGNED_PAYLOAD));
+                ensureSuccess(uploaded, format("upload part %d of %s", part, entry.path()));
+                complete.append("<Part><PartNumber>").append(part).append("</PartNumber><ETag>")
+                    .append(uploaded.etag().orElseThrow(() -> new IllegalStateException(format("No ETag received for part of %s.", entry.path()))))
+                    .append("</ETag></Part>");
+            }
+            complete.append("</CompleteMultipartUpload>");
+
+            final Map<String, String> query = new TreeMap<>();
+            query.put("uploadId", uploadId);
+            final Response completed = execute("POST", path, query, new TreeMap<>(), bytesBody(complete.toString().getBytes(UTF_8)));
+            // S3 reports some failures of completions inside of a successful response.
+            if (completed.status() / 100 == 2 && completed.text().contains("<Error>")) {
+                throw new UncheckedIOException(new IOException(format("Cannot complete upload of %s: %s", entry.path(), completed.text())));
+            }
+            ensureSuccess(completed, "complete upload of " + entry.path());
+        } catch (RuntimeException e) {
+            abort(path, uploadId);
+            throw e;
+        }
+    }
+
+    private void abort(@Nonnull String path, @Nonnull String uploadId) {
+        final Map<String, String> query = new TreeMap<>();
+        query.put("uploadId", uploadId);
+        try {
+            execute("DELETE", path, query, new TreeMap<>(), null);
+        } catch (RuntimeException e) {
+            log.warn(format("Cannot abort upload %s of %s: %s", uploadId, path, e.getMessage()));
+        }
+    }
+
+    @Override
+    public void delete(@Nonnull String key) throws UncheckedIOException {
+        final Response response = execute("DELETE", objectPath(key), new TreeMap<>(), new TreeMap<>(), null);
+        if (response.status() != 404) {
+            ensureSuccess(response, "delete " + key);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Optional<Manifest> readManifest(@Nonnull String key) throws UncheckedIOException {
+        final Response response = execute("GET", objectPath(key), new TreeMap<>(), new TreeMap<>(), null);
+        if (response.status() == 404) {
+            return Optional.empty();
+        }
+        ensureSuccess(response, "read " + key);
+        try {
+            return Optional.of(manifestFromJson(response.text()));
+        } catch (IllegalArgumentException e) {
+            log.warn(format("Cannot read manifest %s of %s; the listing of the target is compared instead: %s", key, this, e.getMessage()));
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void writeManifest(@Nonnull String key, @Nonnull Manifest manifest) throws UncheckedIOException {
+        final Map<String, String> headers = new TreeMap<>();
+        headers.put("content-type", "application/json");
+        headers.put("cache-control", "no-cache");
+        final Response response = execute("PUT", objectPath(key), new TreeMap<>(), headers, bytesBody(manifest.toJson().getBytes(UTF_8)));
+        ensureSuccess(response, "write " + key);
+    }
+
+    // ETag S3 reports for an object uploaded by us: MD5 of the content or, for multipart uploads, MD5 of all part MD5s plus the number of parts.
+    @Nonnull
+    String etagOf(@Nonnull Path file, long size) throws UncheckedIOException {
+        final MessageDigest current = md5();
+        final MessageDigest parts = md5();
+        final boolean multipart = size > multipartThreshold;
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            if (!multipart) {
+                while (channel.read(buffer) > 0) {
+                    buffer.flip();
+                    current.update(buffer);
+                    buffer.clear();
+                }
+                return hexOf(current.digest());
+            }
+            long inPart = 0;
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    final int length = (int) Math.min(buffer.remaining(), partSize - inPart);
+                    current.update(buffer.array(), buffer.position(), length);
+                    buffer.position(buffer.position() + length);
+                    inPart += length;
+                    if (inPart == partSize) {
+                        parts.update(current.digest());
+                        inPart = 0;
+                    }
+                }
+                buffer.clear();
+            }
+            if (inPart > 0) {
+                parts.update(current.digest());
+            }
+            return hexOf(parts.digest()) + "-" + partsOf(size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot hash %s.", file), e);
+        }
+    }
+
+    private int partsOf(long size) {
+        return (int) Math.max(1, (size + partSize - 1) / partSize);
+    }
+
+    @Nonnull
+    private Response execute(
+        @Nonnull String method,
+        @Nonnull String path,
+        @Nonnull Map<String, String> query,
+        @Nonnull Map<String, String> headers,
+        @Nullable Body body
+    ) throws UncheckedIOException {
+        final URL url = Urls.parse(endpoint.getScheme() + "://" + host() + path + (query.isEmpty() ? "" : "?" + canonicalQueryOf(query)));
+        for (int attempt = 1; ; attempt++) {
+            try {
+                final Response response = executeOnce(method, url, path, query, headers, body);
+                log.debug(format("%s %s: %d", method, url, response.status()));
+                if ((response.status() < 500 && response.status() != 429) || attempt >= ATTEMPTS) {
+                    return response;
+                }
+            } catch (IOException e) {
+                if (attempt >= ATTEMPTS) {
+                    throw new UncheckedIOException(format("Cannot %s %s.", method, url), e);
+                }
+                log.debug(format("%s %s failed (attempt %d of %d): %s", method, url, attempt, ATTEMPTS, e.getMessage()));
+            }
+            try {
+                Thread.sleep(200L << attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new InterruptedIOException(format("Interrupted while %s %s.", method, url)));
+            }
+        }
+    }
+
+    @Nonnull
+    private Response executeOnce(
+        @Nonnull String method,
+        @Nonnull URL url,
+        @Nonnull String path,
+        @Nonnull Map<String, String> query,
+        @Nonnull Map<String, String> headers,
+        @Nullable Body body
+    ) throws IOException {
+        final Map<String, String> signed = new LinkedHashMap<>(headers);
+        signed.put("host", host());
+        signer.sign(method, path, query, signed, body != null ? body.sha256() : EMPTY_PAYLOAD, Instant.now());
+
+        final HttpURLConnection connection = (HttpURLConnection) Urls.openConnection(url, timeouts);
+        connection.setRequestMethod(method);
+        signed.forEach((name, value) -> {
+            if (!"host".equals(name)) {
+                connection.setRequestProperty(name, value);
+            }
+        });
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length());
+            try (final OutputStream os = connection.getOutputStream()) {
+                body.writeTo(os);
+            }
+        }
+        final int status = connection.getResponseCode();
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try (final InputStream is = status >= 400 ? connection.getErrorStream() : connection.getInputStream()) {
+            if (is != null) {
+                final byte[] buffer = new byte[8192];
+                int read;
+                while ((read = is.read(buffer)) > 0) {
+                    content.write(buffer, 0, read);
+                }
+            }
+        }
+        return new Response(status, content.toByteArray(), connection.getHeaderField("ETag"));
+    }
+
+    private static void ensureSuccess(@Nonnull Response response, @Nonnull String what) throws UncheckedIOException {
+        if (response.status() / 100 != 2) {
+            throw new UncheckedIOException(new IOException(format("Cannot %s: %d %s", what, response.status(), response.text().trim())));
+        }
+    }
+
+    @Nonnull
+    private String host() {
+        final String host = endpoint.getPort() >= 0 ? endpoint.getHost() + ":" + endpoint.getPort() : endpoint.getHost();
+        return pathStyle ? host : bucket + "." + host;
+    }
+
+    @Nonnull
+    private String bucketPath() {
+        return pathStyle ? "/" + encode(bucket, true) : "/";
+    }
+
+    @Nonnull
+    private String objectPath(@Nonnull String key) {
+        return (pathStyle ? "/" + encode(bucket, true) + "/" : "/") + encode(prefix + key, false);
+    }
+
+    @Nonnull
+    private static Optional<String> textOf(@Nonnull Element parent, @Nonnull String name) {
+        final NodeList candidates = parent.getElementsByTagName(name);
+        return candidates.getLength() > 0
+            ? Optional.ofNullable(candidates.item(0).getTextContent())
+            : Optional.empty();
+    }
+
+    @Nonnull
+    private static String unquote(@Nonnull String etag) {
+        return etag.replace("\"", "").replace("&quot;", "");
+    }
+
+    @Nonnull
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Nonnull
+    private static Body bytesBody(@Nonnull byte[] content) {
+        final String hash = hexOf(sha256(content));
+        return new Body() {
+            @Override
+            public long length() {
+                return content.length;
+            }
+
+            @Nonnull
+            @Override
+            public String sha256() {
+                return hash;
+            }
+
+            @Override
+            public void writeTo(@Nonnull OutputStream os) throws IOException {
+                os.write(content);
+            }
+        };
+    }
+
+    @Nonnull
+    private static Body fileBody(@Nonnull Path file, long offset, long length, @Nonnull String sha256) {
+        return new Body() {
+            @Override
+            public long length() {
+                return length;
+            }
+
+            @Nonnull
+            @Override
+            public String sha256() {
+                return sha256;
+            }
+
+            @Override
+            public void writeTo(@Nonnull OutputStream os) throws IOException {
+                try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    channel.position(offset);
+                    final InputStream is = Channels.newInputStream(channel);
+                    final byte[] buffer = new byte[64 * 1024];
+                    long remaining = length;
+                    int read;
+                    while (remaining > 0 && (read = is.read(buffer, 0, (int) Math.min(buffer.length, remaining))) > 0) {
+                        os.write(buffer, 0, read);
+                        remaining -= read;
+                    }
+                    if (remaining > 0) {
+                        throw new IOException(format("%s was truncated while uploading it.", file));
+                    }
+                }
+            }
+        };
+    }
+
+    @Nonnull
+    public String bucket() {
+        return bucket;
+    }
+
+    @Nonnull
+    public String prefix() {
+        return prefix;
+    }
+
+    public long partSize() {
+        return partSize;
+    }
+
+    public long multipartThreshold() {
+        return multipartThreshold;
+    }
+
+    @Override
+    public String toString() {
+        return "s3://" + bucket + "/" + prefix + " at " + endpoint;
+    }
+
+    private interface Body {
+
+        long length();
+
+        @Nonnull
+        String sha256();
+
+        void writeTo(@Nonnull OutputStream os) throws IOException;
+
+    }
+
+    private static final class Response {
+
+        private final int status;
+        @Nonnull
+        private final byte[] content;
+        @Nonnull
+        private final Optional<String> etag;
+
+        private Response(int status, @Nonnull byte[] content, @Nullable String etag) {
+            this.status = status;
+            this.content = content;
+            this.etag = Optional.ofNullable(etag);
+        }
+
+        private int status() {
+            return status;
+        }
+
+        @Nonnull
+        private String text() {
+            return new String(content, UTF_8);
+        }
+
+        @Nonnull
+        private Optional<String> etag() {
+            return etag;
+        }
+
+        @Nonnull
+        private Document xml() throws UncheckedIOException {
+            try {
+                final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+                factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+                return factory.newDocumentBuilder().parse(new ByteArrayInputStream(content));
+            } catch (ParserConfigurationException | SAXException | IOException e) {
+                throw new UncheckedIOException(new IOException(format("Cannot parse response: %s", e.getMessage()), e));
+            }
+        }
+    }
+
+    public static final class Builder {
+
+        @Nonnull
+        private Optional<Log> log = Optional.empty();
+        @Nonnull
+        private Optional<S3Signer> signer = Optional.empty();
+        @Nonnull
+        private Optional<URI> endpoint = Optional.empty();
+        @Nonnull
+        private Optional<String> bucket = Optional.empty();
+        @Nonnull
+        private String prefix = "";
+        private boolean pathStyle;
+        private long multipartThreshold = DEFAULT_PART_SIZE;
+        private long partSize = DEFAULT_PART_SIZE;
+        @Nonnull
+        private Timeouts timeouts = Timeouts.defaultTimeouts();
+
+        @Nonnull
+        public Builder withLog(@Nonnull Log v) {
+            log = Optional.of(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withSigner(@Nonnull S3Signer v) {
+            signer = Optional.of(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withEndpoint(@Nullable URI v) throws IllegalArgumentException {
+            if (v != null && (v.getHost() == null || !("http".equals(v.getScheme()) || "https".equals(v.getScheme())))) {
+                throw new IllegalArgumentException(format("%s is not a http(s) URL.", v));
+            }
+            endpoint = Optional.ofNullable(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withBucket(@Nonnull String v) {
+            bucket = Optional.of(v);
+            return this;
+        }
+
+        // Keys of all objects start with the prefix, which always ends with a / if not empty.
+        @Nonnull
+        public Builder withPrefix(@Nullable String v) {
+            String normalized = v != null ? v.trim() : "";
+            while (normalized.startsWith("/")) {
+                normalized = normalized.substring(1);
+            }
+            prefix = normalized.isEmpty() || normalized.endsWith("/") ? normalized : normalized + "/";
+            return this;
+        }
+
+        @Nonnull
+        public Builder withPathStyle(boolean v) {
+            pathStyle = v;
+            return this;
+        }
+
+        @Nonnull
+        public Builder withMultipartThreshold(long v) {
+            multipartThreshold = v;
+            return this;
+        }
+
+        @Nonnull
+        public Builder withPartSize(long v) throws IllegalArgumentException {
+            if (v < MIN_PART_SIZE) {
+                throw new IllegalArgumentException(format("Parts need to have at least %d bytes.", MIN_PART_SIZE));
+            }
+            partSize = v;
+            return this;
+        }
+
+        @Nonnull
+        public Builder withTimeouts(@Nonnull Timeouts v) {
+            timeouts = v;
+            return this;
+        }
+
+        @Nonnull
+        public S3SyncTarget build() {
+            return new S3SyncTarget(this);
+        }
+
+    }
+
+}
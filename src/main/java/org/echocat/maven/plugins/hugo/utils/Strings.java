@@ -1,9 +1,14 @@
 package org.echocat.maven.plugins.hugo.utils;
 
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
 
 public interface Strings {
 
+    Pattern BYTES_PATTERN = Pattern.compile("^(\\d+)\\s*([kKmMgGtTpPeE]?(?:i?[bB])?)$");
+
     @Nonnull
     static String trimTailingWhitespaces(@Nonnull String str) {
         for (int i = str.length() - 1; i >= 0; --i) {
@@ -16,5 +21,32 @@ public interface Strings {
         return str;
     }
 
+    @Nonnull
+    static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        final String units = "KMGTPE";
+        double value = bytes;
+        int unit = -1;
+        while (value >= 1024 && unit < units.length() - 1) {
+            value /= 1024;
+            unit++;
+        }
+        return String.format(Locale.US, "%.1f %siB", value, units.charAt(unit));
+    }
+
+    static long parseBytes(@Nonnull String plain) throws IllegalArgumentException {
+        final Matcher matcher = BYTES_PATTERN.matcher(plain.trim());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException(String.format("'%s' is not a valid size; expected something like 512MB or 2G.", plain));
+        }
+        final long value = Long.parseLong(matcher.group(1));
+        final String unit = matcher.group(2).toUpperCase(Locale.US);
+        if (unit.isEmpty() || unit.equals("B")) {
+            return value;
+        }
+        return value << (10 * ("KMGTPE".indexOf(unit.charAt(0)) + 1));
+    }
 
 }
@@ -0,0 +1,71 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.echocat.maven.plugins.hugo.model.Manifest;
+import org.echocat.maven.plugins.hugo.model.Manifest.Entry;
+
+// Destination of the sync goal. All keys are relative to the root (or prefix) of the target and separated by /.
+public interface SyncTarget {
+
+    // All objects currently present, by key.
+    @Nonnull
+    Map<String, RemoteObject> list() throws UncheckedIOException;
+
+    // true if the present object has the same content as the local file described by the entry.
+    boolean matches(@Nonnull Path file, @Nonnull Entry entry, @Nonnull RemoteObject remote) throws UncheckedIOException;
+
+    void upload(@Nonnull Path file, @Nonnull Entry entry, @Nonnull Optional<String> cacheControl) throws UncheckedIOException;
+
+    void delete(@Nonnull String key) throws UncheckedIOException;
+
+    @Nonnull
+    Optional<Manifest> readManifest(@Nonnull String key) throws UncheckedIOException;
+
+    void writeManifest(@Nonnull String key, @Nonnull Manifest manifest) throws UncheckedIOException;
+
+    @Nonnull
+    static RemoteObject remoteObjectOf(@Nonnull String key, long size, @Nullable String etag) {
+        return new RemoteObject(key, size, etag);
+    }
+
+    final class RemoteObject {
+
+        @Nonnull
+        private final String key;
+        private final long size;
+        @Nonnull
+        private final Optional<String> etag;
+
+        private RemoteObject(@Nonnull String key, long size, @Nullable String etag) {
+            this.key = key;
+            this.size = size;
+            this.etag = Optional.ofNullable(etag);
+        }
+
+        @Nonnull
+        public String key() {
+            return key;
+        }
+
+        public long size() {
+            return size;
+        }
+
+        @Nonnull
+        public Optional<String> etag() {
+            return etag;
+        }
+
+        @Override
+        public String toString() {
+            return key + "{size=" + size + etag.map(v -> ", etag=" + v).orElse("") + "}";
+        }
+    }
+
+}
@@ -0,0 +1,355 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.util.Collections.unmodifiableList;
+import static org.echocat.maven.plugins.hugo.model.Manifest.manifestOf;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.util.SelectorUtils;
+import org.echocat.maven.plugins.hugo.model.Manifest;
+import org.echocat.maven.plugins.hugo.model.Manifest.Diff;
+import org.echocat.maven.plugins.hugo.model.Manifest.Entry;
+import org.echocat.maven.plugins.hugo.utils.SyncTarget.RemoteObject;
+
+public final class Synchronizer {
+
+    @Nonnull
+    public static final String DEFAULT_MANIFEST_KEY = ".hugo-manifest.json";
+    public static final int DEFAULT_CONCURRENCY = 8;
+
+    @Nonnull
+    public static Synchronizer.Builder synchronizer() {
+        return new Builder();
+    }
+
+    @Nonnull
+    private final Log log;
+    @Nonnull
+    private final SyncTarget target;
+    private final int concurrency;
+    private final boolean delete;
+    private final boolean dryRun;
+    @Nonnull
+    private final Map<String, String> cacheControls;
+    @Nonnull
+    private final Optional<String> manifestKey;
+
+    private Synchronizer(@Nonnull Builder builder) {
+        log = builder.log.orElseThrow(() -> new NullPointerException("No log provided."));
+        target = builder.target.orElseThrow(() -> new NullPointerException("No target provided."));
+        concurrency = builder.concurrency > 0 ? builder.concurrency : DEFAULT_CONCURRENCY;
+        delete = builder.delete;
+        dryRun = builder.dryRun;
+        cacheControls = builder.cacheControls;
+        manifestKey = builder.manifestKey;
+    }
+
+    // Brings the target to the state of the local manifest of the directory. Only new and changed files are uploaded;
+    // assets before pages, so no page refers to a missing asset while the sync is running. The remote manifest is
+    // written last, so an interrupted sync is simply compared against the previous state again.
+    @Nonnull
+    public Report sync(@Nonnull Path directory, @Nonnull Manifest local) throws UncheckedIOException {
+        final long start = nanoTime();
+        final ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            final Optional<Manifest> remote = manifestKey.flatMap(target::readManifest);
+            final List<Entry> uploads;
+            final List<String> removals;
+            if (remote.isPresent()) {
+                final Diff diff = local.diffSince(remote.get());
+                uploads = new ArrayList<>();
+                diff.added().forEach(path -> local.get(path).ifPresent(uploads::add));
+                diff.changed().forEach(path -> local.get(path).ifPresent(uploads::add));
+                removals = new ArrayList<>(diff.removed());
+            } else {
+                final Map<String, RemoteObject> listing = new LinkedHashMap<>(target.list());
+                manifestKey.ifPresent(listing::remove);
+                uploads = runAll(executor, local.entries(), entry -> {
+                    final RemoteObject candidate = listing.get(entry.path());
+                    return candidate == null || !target.matches(directory.resolve(entry.path()), entry, candidate) ? entry : null;
+                });
+                uploads.sort(Comparator.comparing(Entry::path));
+                removals = listing.keySet().stream()
+                    .filter(key -> !local.get(key).isPresent())
+                    .collect(Collectors.toList());
+            }
+            final String basis = remote.isPresent() ? "remote manifest" : "listing";
+            log.debug(format("Comparing %s against the %s of %s: %d to upload, %d removed.", directory, basis, target, uploads.size(), removals.size()));
+
+            if (dryRun) {
+                uploads.forEach(entry -> log.info(format("Would upload %s (%d bytes).", entry.path(), entry.size())));
+                removals.forEach(key -> log.info(format(delete ? "Would delete %s." : "Would keep stale %s.", key)));
+                return new Report(basis, uploads, local.size() - uploads.size(), delete ? removals : new ArrayList<>(), delete ? 0 : removals.size(), true, Duration.ofNanos(nanoTime() - start));
+            }
+
+            final List<Entry> assets = uploads.stream().filter(entry -> !isPage(entry)).collect(Collectors.toList());
+            final List<Entry> pages = uploads.stream().filter(Synchronizer::isPage).collect(Collectors.toList());
+            runAll(executor, assets, entry -> upload(directory, entry));
+            runAll(executor, pages, entry -> upload(directory, entry));
+            if (delete) {
+                runAll(executor, removals, key -> {
+                    log.debug(format("Deleting %s from %s.", key, target));
+                    target.delete(key);
+                    return key;
+                });
+            }
+            final Optional<Manifest> written = manifestAfterSync(local, remote, delete ? new ArrayList<>() : removals);
+            manifestKey.ifPresent(key -> written.ifPresent(manifest -> target.writeManifest(key, manifest)));
+            return new Report(basis, uploads, local.size() - uploads.size(), delete ? removals : new ArrayList<>(), delete ? 0 : removals.size(), false, Duration.ofNanos(nanoTime() - start));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Files kept at the target stay part of the remote manifest, so later syncs still see them as stale (and delete
+    // them once deletion is enabled). Without entries of a previous manifest for them, the manifest is not written at
+    // all and the next sync compares against the listing again.
+    @Nonnull
+    static Optional<Manifest> manifestAfterSync(@Nonnull Manifest local, @Nonnull Optional<Manifest> remote, @Nonnull Collection<String> retained) {
+        if (retained.isEmpty()) {
+            return Optional.of(local);
+        }
+        if (!remote.isPresent()) {
+            return Optional.empty();
+        }
+        final List<Entry> entries = new ArrayList<>(local.entries());
+        for (final String key : retained) {
+            final Optional<Entry> entry = remote.get().get(key);
+            if (!entry.isPresent()) {
+                return Optional.empty();
+            }
+            entries.add(entry.get());
+        }
+        return Optional.of(manifestOf(entries));
+    }
+
+    @Nonnull
+    private Entry upload(@Nonnull Path directory, @Nonnull Entry entry) {
+        final Optional<String> cacheControl = cacheControlOf(entry.path());
+        log.debug(format("Uploading %s to %s%s.", entry.path(), target, cacheControl.map(v -> " with Cache-Control: " + v).orElse("")));
+        target.upload(directory.resolve(entry.path()), entry, cacheControl);
+        return entry;
+    }
+
+    // First matching rule wins.
+    @Nonnull
+    Optional<String> cacheControlOf(@Nonnull String path) {
+        for (final Map.Entry<String, String> rule : cacheControls.entrySet()) {
+            if (SelectorUtils.matchPath(rule.getKey(), path, "/", true)) {
+                return Optional.of(rule.getValue());
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static boolean isPage(@Nonnull Entry entry) {
+        return entry.contentType().startsWith("text/html");
+    }
+
+    // Runs the action for all items with the given executor and returns all non null results. The first failure cancels everything left.
+    @Nonnull
+    private static <T, R> List<R> runAll(@Nonnull ExecutorService executor, @Nonnull Collection<T> items, @Nonnull Function<T, R> action) throws UncheckedIOException {
+        final CompletionService<R> completion = new ExecutorCompletionService<>(executor);
+        final List<Future<R>> futures = new ArrayList<>(items.size());
+        items.forEach(item -> futures.add(completion.submit(() -> action.apply(item))));
+        final List<R> result = new ArrayList<>(items.size());
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                final R value = completion.take().get();
+                if (value != null) {
+                    result.add(value);
+                }
+            }
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while synchronizing.", e);
+        }
+        return result;
+    }
+
+    @Nonnull
+    public SyncTarget target() {
+        return target;
+    }
+
+    public int concurrency() {
+        return concurrency;
+    }
+
+    public static final class Report {
+
+        @Nonnull
+        private final String basis;
+        @Nonnull
+        private final List<Entry> uploaded;
+        private final int unchanged;
+        @Nonnull
+        private final List<String> deleted;
+        private final int stale;
+        private final boolean dryRun;
+        @Nonnull
+        private final Duration duration;
+
+        private Report(@Nonnull String basis, @Nonnull List<Entry> uploaded, int unchanged, @Nonnull List<String> deleted, int stale, boolean dryRun, @Nonnull Duration duration) {
+            this.basis = basis;
+            this.uploaded = unmodifiableList(uploaded);
+            this.unchanged = unchanged;
+            this.deleted = unmodifiableList(deleted);
+            this.stale = stale;
+            this.dryRun = dryRun;
+            this.duration = duration;
+        }
+
+        // Either the remote manifest or the listing of the target.
+        @Nonnull
+        public String basis() {
+            return basis;
+        }
+
+        @Nonnull
+        public List<Entry> uploaded() {
+            return uploaded;
+        }
+
+        public long uploadedBytes() {
+            return uploaded.stream().mapToLong(Entry::size).sum();
+        }
+
+        public int unchanged() {
+            return unchanged;
+        }
+
+        @Nonnull
+        public List<String> deleted() {
+            return deleted;
+        }
+
+        // Removed locally but kept at the target, because deletion is disabled.
+        public int stale() {
+            return stale;
+        }
+
+        public boolean dryRun() {
+            return dryRun;
+        }
+
+        @Nonnull
+        public Duration duration() {
+            return duration;
+        }
+
+        @Override
+        public String toString() {
+            return format("%s%d uploaded (%d bytes), %d unchanged, %d deleted, %d stale (compared against %s) in %s",
+                dryRun ? "dry run: " : "", uploaded.size(), uploadedBytes(), unchanged, deleted.size(), stale, basis, duration);
+        }
+    }
+
+    public static final class Builder {
+
+        @Nonnull
+        private Optional<Log> log = Optional.empty();
+        @Nonnull
+        private Optional<SyncTarget> target = Optional.empty();
+        private int concurrency = DEFAULT_CONCURRENCY;
+        private boolean delete;
+        private boolean dryRun;
+        @Nonnull
+        private final Map<String, String> cacheControls = new LinkedHashMap<>();
+        @Nonnull
+        private Optional<String> manifestKey = Optional.of(DEFAULT_MANIFEST_KEY);
+
+        @Nonnull
+        public Builder withLog(@Nonnull Log v) {
+            log = Optional.of(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withTarget(@Nonnull SyncTarget v) {
+            target = Optional.of(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withConcurrency(int v) {
+            concurrency = v;
+            return this;
+        }
+
+        @Nonnull
+        public Builder withDelete(boolean v) {
+            delete = v;
+            return this;
+        }
+
+        @Nonnull
+        public Builder withDryRun(boolean v) {
+            dryRun = v;
+            return this;
+        }
+
+        // Rules like "**/*.html=no-cache"; the pattern is matched against the path relative to the output.
+        @Nonnull
+        public Builder withCacheControls(@Nullable Collection<String> v) throws IllegalArgumentException {
+            cacheControls.clear();
+            if (v != null) {
+                for (final String rule : v) {
+                    final int separator = rule != null ? rule.indexOf('=') : -1;
+                    if (separator <= 0 || rule.substring(separator + 1).trim().isEmpty()) {
+                        throw new IllegalArgumentException(format("Illegal rule '%s' (expected <pattern>=<cache control>)", rule));
+                    }
+                    cacheControls.put(rule.substring(0, separator).trim(), rule.substring(separator + 1).trim());
+                }
+            }
+            return this;
+        }
+
+        // Key of the manifest stored at the target; null or empty always compares against the listing of the target instead.
+        @Nonnull
+        public Builder withManifestKey(@Nullable String v) {
+            manifestKey = Optional.ofNullable(v).map(String::trim).filter(k -> !k.isEmpty());
+            return this;
+        }
+
+        @Nonnull
+        public Synchronizer build() {
+            return new Synchronizer(this);
+        }
+
+    }
+
+}
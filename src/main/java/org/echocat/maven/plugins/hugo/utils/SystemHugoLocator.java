@@ -0,0 +1,385 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.lang.String.format;
+import static java.lang.System.getenv;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.unmodifiableList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.echocat.maven.plugins.hugo.model.Platform.hugoCacheDirectory;
+import static org.echocat.maven.plugins.hugo.utils.FileSystems.writeAtomically;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.github.zafarkhaja.semver.Version;
+import org.apache.maven.plugin.logging.Log;
+import org.echocat.maven.plugins.hugo.model.Platform;
+
+public final class SystemHugoLocator {
+
+    @Nonnull
+    private static final Pattern versionPattern = Pattern.compile("\\bv(\\d+\\.\\d+\\.\\d+)(\\S*)");
+
+    @Nonnull
+    public static SystemHugoLocator.Builder systemHugoLocator() {
+        return new Builder();
+    }
+
+    @Nonnull
+    private final Log log;
+    @Nonnull
+    private final Platform platform;
+    @Nonnull
+    private final List<Path> locations;
+    private final boolean includePath;
+    @Nonnull
+    private final Path probeCacheFile;
+    @Nonnull
+    private final Duration probeTimeout;
+
+    @Nullable
+    private Properties probes;
+    private boolean probesChanged;
+
+    private SystemHugoLocator(@Nonnull Builder builder) {
+        log = builder.log.orElseThrow(() -> new NullPointerException("No log provided."));
+        platform = builder.platform.orElseThrow(() -> new NullPointerException("No platform provided."));
+        locations = unmodifiableList(new ArrayList<>(builder.locations));
+        includePath = builder.includePath;
+        probeCacheFile = builder.probeCacheFile.orElseGet(SystemHugoLocator::defaultProbeCacheFile);
+        probeTimeout = builder.probeTimeout;
+    }
+
+    @Nonnull
+    public Optional<Installation> find(@Nonnull Version version) throws UncheckedIOException {
+        return installations().stream()
+            .filter(candidate -> candidate.version().isEquivalentTo(version))
+            .filter(candidate -> candidate.extended() || !platform().extendedSupported(version))
+            .findFirst();
+    }
+
+    @Nonnull
+    public List<Version> versions() throws UncheckedIOException {
+        final List<Version> result = new ArrayList<>();
+        for (final Installation candidate : installations()) {
+            if ((candidate.extended() || !platform().extendedSupported(candidate.version())) && !result.contains(candidate.version())) {
+                result.add(candidate.version());
+            }
+        }
+        return unmodifiableList(result);
+    }
+
+    @Nonnull
+    public synchronized List<Installation> installations() throws UncheckedIOException {
+        final List<Installation> result = new ArrayList<>();
+        for (final Path candidate : candidates()) {
+            probe(candidate).ifPresent(result::add);
+        }
+        if (probesChanged) {
+            writeProbes();
+        }
+        return unmodifiableList(result);
+    }
+
+    @Nonnull
+    Set<Path> candidates() {
+        final Set<Path> result = new LinkedHashSet<>();
+        for (final Path location : locations()) {
+            addCandidate(Files.isDirectory(location) ? location.resolve(platform().hugoExecutableFileName()) : location, result);
+        }
+        if (includePath()) {
+            final String path = getenv("PATH");
+            if (path != null) {
+                for (final String element : path.split(Pattern.quote(File.pathSeparator))) {
+                    if (element.trim().isEmpty()) {
+                        continue;
+                    }
+                    try {
+                        addCandidate(Paths.get(element.trim()).resolve(platform().hugoExecutableFileName()), result);
+                    } catch (InvalidPathException ignored) {
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void addCandidate(@Nonnull Path candidate, @Nonnull Set<Path> to) {
+        if (!Files.isRegularFile(candidate) || !Files.isExecutable(candidate)) {
+            return;
+        }
+        try {
+            to.add(candidate.toRealPath());
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Nonnull
+    Optional<Installation> probe(@Nonnull Path executable) throws UncheckedIOException {
+        final long size;
+        final long lastModified;
+        try {
+            size = Files.size(executable);
+            lastModified = Files.getLastModifiedTime(executable).toMillis();
+        } catch (IOException e) {
+            log().debug(format("Cannot inspect %s; ignoring it.", executable), e);
+            return Optional.empty();
+        }
+
+        final String key = executable.toString();
+        final String fingerprint = size + ";" + lastModified + ";";
+        final String cached = probes().getProperty(key);
+        if (cached != null && cached.startsWith(fingerprint)) {
+            return parseProbe(executable, cached.substring(fingerprint.length()));
+        }
+
+        final Optional<String> output = runVersionOf(executable);
+        final String probe = output
+            .flatMap(SystemHugoLocator::parseVersionOutput)
+            .orElse("");
+        probes().setProperty(key, fingerprint + probe);
+        probesChanged = true;
+
+        final Optional<Installation> result = parseProbe(executable, probe);
+        if (result.isPresent()) {
+            log().debug(format("Found system installed hugo %s.", result.get()));
+        } else {
+            log().debug(format("%s does not look like a usable hugo; ignoring it.", executable));
+        }
+        return result;
+    }
+
+    @Nonnull
+    static Optional<String> parseVersionOutput(@Nonnull String output) {
+        final Matcher matcher = versionPattern.matcher(output);
+        if (!matcher.find()) {
+            return Optional.empty();
+        }
+        final boolean extended = matcher.group(2).contains("extended");
+        return Optional.of(matcher.group(1) + (extended ? ";extended" : ""));
+    }
+
+    @Nonnull
+    private static Optional<Installation> parseProbe(@Nonnull Path executable, @Nonnull String probe) {
+        if (probe.isEmpty()) {
+            return Optional.empty();
+        }
+        final String[] parts = probe.split(";");
+        return Version.tryParse(parts[0])
+            .map(version -> new Installation(executable, version, parts.length > 1 && "extended".equals(parts[1])));
+    }
+
+    @Nonnull
+    private Optional<String> runVersionOf(@Nonnull Path executable) {
+        try {
+            final Process process = new ProcessBuilder(executable.toString(), "version")
+                .redirectErrorStream(true)
+                .start();
+            process.getOutputStream().close();
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            final Thread reader = new Thread(() -> {
+                try (final InputStream is = process.getInputStream()) {
+                    final byte[] buffer = new byte[4096];
+                    int read;
+                    while ((read = is.read(buffer)) != -1) {
+                        synchronized (output) {
+                            output.write(buffer, 0, read);
+                        }
+                    }
+                } catch (IOException ignored) {
+                }
+            }, "hugo-version-probe");
+            reader.setDaemon(true);
+            reader.start();
+            if (!process.waitFor(probeTimeout.toMillis(), MILLISECONDS)) {
+                process.destroyForcibly();
+                log().debug(format("Probing %s took longer than %s; ignoring it.", executable, probeTimeout));
+                return Optional.empty();
+            }
+            reader.join(probeTimeout.toMillis());
+            if (process.exitValue() != 0) {
+                return Optional.empty();
+            }
+            synchronized (output) {
+                return Optional.of(new String(output.toByteArray(), UTF_8));
+            }
+        } catch (IOException e) {
+            log().debug(format("Cannot probe %s; ignoring it.", executable), e);
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Was interrupted.", e);
+        }
+    }
+
+    @Nonnull
+    private Properties probes() throws UncheckedIOException {
+        if (probes == null) {
+            final Properties result = new Properties();
+            try (final InputStream is = Files.newInputStream(probeCacheFile)) {
+                result.load(is);
+            } catch (FileNotFoundException | NoSuchFileException ignored) {
+            } catch (IOException e) {
+                throw new UncheckedIOException(format("Cannot read probes of system installed hugo from '%s'.", probeCacheFile), e);
+            }
+            probes = result;
+        }
+        return probes;
+    }
+
+    private void writeProbes() {
+        try {
+            writeAtomically(probeCacheFile, temporary -> {
+                try (final OutputStream os = Files.newOutputStream(temporary)) {
+                    probes().store(os, null);
+                }
+            });
+            probesChanged = false;
+        } catch (UncheckedIOException e) {
+            log().warn(format("Cannot store probes of system installed hugo to '%s'; this will be ignored for now.", probeCacheFile), e);
+        }
+    }
+
+    @Nonnull
+    private static Path defaultProbeCacheFile() {
+        return hugoCacheDirectory()
+            .resolve("system_probes");
+    }
+
+    @Nonnull
+    public Log log() {
+        return log;
+    }
+
+    @Nonnull
+    public Platform platform() {
+        return platform;
+    }
+
+    @Nonnull
+    public List<Path> locations() {
+        return locations;
+    }
+
+    public boolean includePath() {
+        return includePath;
+    }
+
+    @Nonnull
+    public Path probeCacheFile() {
+        return probeCacheFile;
+    }
+
+    public static final class Installation {
+
+        @Nonnull
+        private final Path executable;
+        @Nonnull
+        private final Version version;
+        private final boolean extended;
+
+        private Installation(@Nonnull Path executable, @Nonnull Version version, boolean extended) {
+            this.executable = executable;
+            this.version = version;
+            this.extended = extended;
+        }
+
+        @Nonnull
+        public Path executable() {
+            return executable;
+        }
+
+        @Nonnull
+        public Version version() {
+            return version;
+        }
+
+        public boolean extended() {
+            return extended;
+        }
+
+        @Override
+        public String toString() {
+            return version + (extended ? "/extended" : "") + " (" + executable + ")";
+        }
+    }
+
+    public static final class Builder {
+
+        @Nonnull
+        private Optional<Log> log = Optional.empty();
+        @Nonnull
+        private Optional<Platform> platform = Optional.empty();
+        @Nonnull
+        private final List<Path> locations = new ArrayList<>();
+        private boolean includePath = true;
+        @Nonnull
+        private Optional<Path> probeCacheFile = Optional.empty();
+        @Nonnull
+        private Duration probeTimeout = Duration.ofSeconds(10);
+
+        @Nonnull
+        public Builder withLog(@Nonnull Log v) {
+            log = Optional.of(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withPlatform(@Nonnull Platform v) {
+            platform = Optional.of(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withLocations(@Nonnull List<Path> v) {
+            locations.addAll(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withIncludePath(boolean v) {
+            includePath = v;
+            return this;
+        }
+
+        @Nonnull
+        public Builder withProbeCacheFile(@Nullable Path v) {
+            probeCacheFile = Optional.ofNullable(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withProbeTimeout(@Nonnull Duration v) {
+            probeTimeout = v;
+            return this;
+        }
+
+        @Nonnull
+        public SystemHugoLocator build() {
+            return new SystemHugoLocator(this);
+        }
+
+    }
+
+}
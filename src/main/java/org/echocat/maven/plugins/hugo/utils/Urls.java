@@ -4,9 +4,17 @@ import static java.lang.String.format;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import java.io.*;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLConnection;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import org.apache.commons.io.IOUtils;
 import org.json.JSONException;
@@ -23,11 +31,24 @@ public interface Urls {
         }
     }
 
+    @Nonnull
+    static URLConnection openConnection(@Nonnull URL url, @Nonnull Timeouts timeouts) throws IOException {
+        final URLConnection connection = url.openConnection();
+        connection.setConnectTimeout((int) Math.min(Integer.MAX_VALUE, timeouts.connect().toMillis()));
+        connection.setReadTimeout((int) Math.min(Integer.MAX_VALUE, timeouts.read().toMillis()));
+        return connection;
+    }
+
     @Nonnull
     static InputStream startDownloadOf(@Nonnull URL url) throws UncheckedIOException {
+        return startDownloadOf(url, Timeouts.defaultTimeouts());
+    }
+
+    @Nonnull
+    static InputStream startDownloadOf(@Nonnull URL url, @Nonnull Timeouts timeouts) throws UncheckedIOException {
         try {
             boolean success = false;
-            final InputStream urlIs = url.openStream();
+            final InputStream urlIs = openConnection(url, timeouts).getInputStream();
             try {
                 final InputStream resultIs = new BufferedInputStream(urlIs);
                 success = true;
@@ -55,6 +76,49 @@ public interface Urls {
         }
     }
 
+    @Nonnull
+    static Response readUrlConditionally(@Nonnull URL url, @Nullable String etag, @Nullable String lastModified) throws UncheckedIOException {
+        return readUrlConditionally(url, etag, lastModified, Timeouts.defaultTimeouts());
+    }
+
+    @Nonnull
+    static Response readUrlConditionally(
+        @Nonnull URL url,
+        @Nullable String etag,
+        @Nullable String lastModified,
+        @Nonnull Timeouts timeouts
+    ) throws UncheckedIOException {
+        try {
+            final URLConnection connection = openConnection(url, timeouts);
+            if (etag != null) {
+                connection.setRequestProperty("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                connection.setRequestProperty("If-Modified-Since", lastModified);
+            }
+            if (connection instanceof HttpURLConnection
+                && ((HttpURLConnection) connection).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                final Response result = new Response(null, etag, lastModified, connection.getHeaderFields());
+                ((HttpURLConnection) connection).disconnect();
+                return result;
+            }
+            try (final InputStream is = connection.getInputStream();
+                 final Reader r = new InputStreamReader(is, UTF_8);
+                 final Reader br = new BufferedReader(r);
+                 final CharArrayWriter buf = new CharArrayWriter()) {
+                IOUtils.copy(br, buf);
+                return new Response(
+                    buf.toString(),
+                    connection.getHeaderField("ETag"),
+                    connection.getHeaderField("Last-Modified"),
+                    connection.getHeaderFields()
+                );
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot read content of '%s'", url), e);
+        }
+    }
+
     @Nonnull
     static JSONObject readUrlFullyToJsonObject(@Nonnull URL url) throws JSONException {
         try {
@@ -64,4 +128,103 @@ public interface Urls {
         }
     }
 
+    final class Timeouts {
+
+        @Nonnull
+        private static final Timeouts defaultTimeouts = new Timeouts(Duration.ofSeconds(5), Duration.ofSeconds(30));
+
+        @Nonnull
+        public static Timeouts defaultTimeouts() {
+            return defaultTimeouts;
+        }
+
+        @Nonnull
+        public static Timeouts timeouts(@Nullable Duration connect, @Nullable Duration read) {
+            return new Timeouts(
+                Optional.ofNullable(connect).orElse(defaultTimeouts.connect()),
+                Optional.ofNullable(read).orElse(defaultTimeouts.read())
+            );
+        }
+
+        @Nonnull
+        private final Duration connect;
+        @Nonnull
+        private final Duration read;
+
+        private Timeouts(@Nonnull Duration connect, @Nonnull Duration read) {
+            this.connect = connect;
+            this.read = read;
+        }
+
+        @Nonnull
+        public Duration connect() {
+            return connect;
+        }
+
+        @Nonnull
+        public Duration read() {
+            return read;
+        }
+
+        @Override
+        public String toString() {
+            return "connect: " + connect + ", read: " + read;
+        }
+    }
+
+    final class Response {
+
+        @Nonnull
+        private final Optional<String> body;
+        @Nonnull
+        private final Optional<String> etag;
+        @Nonnull
+        private final Optional<String> lastModified;
+        @Nonnull
+        private final Map<String, List<String>> headers;
+
+        private Response(
+            @Nullable String body,
+            @Nullable String etag,
+            @Nullable String lastModified,
+            @Nonnull Map<String, List<String>> headers
+        ) {
+            this.body = Optional.ofNullable(body);
+            this.etag = Optional.ofNullable(etag);
+            this.lastModified = Optional.ofNullable(lastModified);
+            this.headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (final Map.Entry<String, List<String>> entry : headers.entrySet()) {
+                if (entry.getKey() != null) {
+                    this.headers.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        public boolean notModified() {
+            return !body.isPresent();
+        }
+
+        @Nonnull
+        public Optional<String> body() {
+            return body;
+        }
+
+        @Nonnull
+        public Optional<String> etag() {
+            return etag;
+        }
+
+        @Nonnull
+        public Optional<String> lastModified() {
+            return lastModified;
+        }
+
+        @Nonnull
+        public Optional<String> header(@Nonnull String name) {
+            return Optional.ofNullable(headers.get(name))
+                .filter(values -> !values.isEmpty())
+                .map(values -> String.join(", ", values));
+        }
+    }
+
 }
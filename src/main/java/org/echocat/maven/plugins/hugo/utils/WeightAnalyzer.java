@@ -0,0 +1,538 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.unmodifiableList;
+import static org.echocat.maven.plugins.hugo.model.OutputWeights.outputWeightsFromJson;
+import static org.echocat.maven.plugins.hugo.model.OutputWeights.outputWeightsOf;
+import static org.echocat.maven.plugins.hugo.model.OutputWeights.weightOf;
+import static org.echocat.maven.plugins.hugo.utils.FileSystems.writeAtomically;
+import static org.echocat.maven.plugins.hugo.utils.Strings.formatBytes;
+import static org.echocat.maven.plugins.hugo.utils.Strings.parseBytes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+
+import org.apache.maven.plugin.logging.Log;
+import org.echocat.maven.plugins.hugo.model.OutputWeights;
+import org.echocat.maven.plugins.hugo.model.OutputWeights.Weight;
+
+// Aggregates the bytes of an output and checks them against budgets. The weight of a page is its HTML plus all local
+// assets it references directly (stylesheets, scripts, images, media, icons and preloads); assets referenced by
+// stylesheets or scripts themselves are not followed. Precompressed variants (see Precompressor) are not counted.
+public final class WeightAnalyzer {
+
+    public static final int DEFAULT_ENTRIES = 10;
+
+    private static final List<String> VARIANT_EXTENSIONS = Arrays.asList(".gz", ".zst", ".br");
+    private static final Pattern TAG_PATTERN = Pattern.compile("<([a-zA-Z][a-zA-Z0-9-]*)(\\s[^>]*)?>");
+    private static final Pattern ATTRIBUTE_PATTERN = Pattern.compile("([a-zA-Z_:][-a-zA-Z0-9_:.]*)\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)'|([^\\s\"'>]+))");
+    private static final Pattern SCHEME_PATTERN = Pattern.compile("^[a-zA-Z][a-zA-Z0-9+.-]*:.*");
+    private static final Set<String> LINKED_RELATIONS = new HashSet<>(Arrays.asList("stylesheet", "preload", "modulepreload", "icon"));
+    private static final Set<String> DOCUMENT_TAGS = new HashSet<>(Arrays.asList("iframe", "frame"));
+
+    @Nonnull
+    public static WeightAnalyzer.Builder weightAnalyzer() {
+        return new Builder();
+    }
+
+    @Nonnull
+    private final Log log;
+    private final int threads;
+    private final int entries;
+    @Nonnull
+    private final Optional<Long> totalBudget;
+    @Nonnull
+    private final Optional<Long> pageBudget;
+    @Nonnull
+    private final Map<String, Long> sectionBudgets;
+    @Nonnull
+    private final Map<String, Long> typeBudgets;
+
+    private WeightAnalyzer(@Nonnull Builder builder) {
+        log = builder.log.orElseThrow(() -> new NullPointerException("No log provided."));
+        threads = builder.threads > 0 ? builder.threads : Runtime.getRuntime().availableProcessors();
+        entries = builder.entries;
+        totalBudget = builder.totalBudget;
+        pageBudget = builder.pageBudget;
+        sectionBudgets = new TreeMap<>(builder.sectionBudgets);
+        typeBudgets = new TreeMap<>(builder.typeBudgets);
+    }
+
+    // Weighs the output and compares it against the weights of the previous build stored in the weights file, which
+    // is replaced afterwards.
+    @Nonnull
+    public Report analyze(@Nonnull Path output, @Nonnull Path weightsFile) throws UncheckedIOException {
+        final long start = nanoTime();
+        final Optional<OutputWeights> previous = read(weightsFile);
+        final Map<String, Long> sizes = sizesOf(output);
+        final List<Weight> pages = pagesOf(output, sizes);
+        final OutputWeights weights = weightsOf(sizes, pages);
+        final List<String> violations = violationsOf(weights, pages);
+        write(weightsFile, weights.toJson());
+        return new Report(weights, previous, violations, Duration.ofNanos(nanoTime() - start));
+    }
+
+    @Nonnull
+    private Map<String, Long> sizesOf(@Nonnull Path output) throws UncheckedIOException {
+        final List<Path> files = filesOf(output);
+        final Map<String, Long> result = new ConcurrentHashMap<>();
+        run(() -> files.parallelStream().forEach(file ->
+            result.put(output.relativize(file).toString().replace('\\', '/'), sizeOf(file))
+        ));
+        result.keySet().removeIf(path -> VARIANT_EXTENSIONS.stream()
+            .anyMatch(extension -> path.endsWith(extension) && result.containsKey(path.substring(0, path.length() - extension.length()))));
+        return result;
+    }
+
+    // Sorted by weight, heaviest first.
+    @Nonnull
+    private List<Weight> pagesOf(@Nonnull Path output, @Nonnull Map<String, Long> sizes) throws UncheckedIOException {
+        final List<String> pages = sizes.keySet().stream()
+            .filter(path -> typeOf(path).equals("html") || typeOf(path).equals("htm"))
+            .collect(Collectors.toList());
+        final List<Weight> result = new ArrayList<>(pages.size());
+        run(() -> result.addAll(pages.parallelStream()
+            .map(page -> weightOf(page, sizes.get(page) + referencesOf(contentOf(output.resolve(page))).stream()
+                .map(reference -> resolve(page, reference, sizes))
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .filter(asset -> !asset.equals(page))
+                .distinct()
+                .mapToLong(sizes::get)
+                .sum()))
+            .collect(Collectors.toList())));
+        result.sort(Comparator.comparingLong(Weight::bytes).reversed().thenComparing(Weight::path));
+        return result;
+    }
+
+    @Nonnull
+    private OutputWeights weightsOf(@Nonnull Map<String, Long> sizes, @Nonnull List<Weight> pages) {
+        final Map<String, Long> sections = new TreeMap<>();
+        final Map<String, Long> types = new TreeMap<>();
+        sizes.forEach((path, size) -> {
+            sections.merge(sectionOf(path), size, Long::sum);
+            types.merge(typeOf(path), size, Long::sum);
+        });
+        return outputWeightsOf(
+            sizes.size(),
+            sizes.values().stream().mapToLong(Long::longValue).sum(),
+            sections,
+            types,
+            sizes.entrySet().stream()
+                .map(entry -> weightOf(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingLong(Weight::bytes).reversed().thenComparing(Weight::path))
+                .limit(entries)
+                .collect(Collectors.toList()),
+            pages.subList(0, Math.min(entries, pages.size()))
+        );
+    }
+
+    @Nonnull
+    private List<String> violationsOf(@Nonnull OutputWeights weights, @Nonnull List<Weight> pages) {
+        final List<String> result = new ArrayList<>();
+        totalBudget
+            .filter(budget -> weights.total() > budget)
+            .ifPresent(budget -> result.add(format("Total weight %s exceeds the budget of %s.", formatBytes(weights.total()), formatBytes(budget))));
+        sectionBudgets.forEach((section, budget) -> {
+            final long bytes = weights.sections().getOrDefault(section, 0L);
+            if (bytes > budget) {
+                result.add(format("Section %s weighs %s which exceeds its budget of %s.", section, formatBytes(bytes), formatBytes(budget)));
+            }
+        });
+        typeBudgets.forEach((type, budget) -> {
+            final long bytes = weights.types().getOrDefault(type, 0L);
+            if (bytes > budget) {
+                result.add(format("Files of type %s weigh %s which exceeds their budget of %s.", type, formatBytes(bytes), formatBytes(budget)));
+            }
+        });
+        pageBudget.ifPresent(budget -> pages.stream()
+            .filter(page -> page.bytes() > budget)
+            .forEach(page -> result.add(format("Page %s weighs %s (HTML and referenced assets) which exceeds the budget of %s.", page.path(), formatBytes(page.bytes()), formatBytes(budget)))));
+        return result;
+    }
+
+    // Raw values of all attributes which make a browser load an asset while rendering the page.
+    @Nonnull
+    static List<String> referencesOf(@Nonnull String html) {
+        final List<String> result = new ArrayList<>();
+        final Matcher tag = TAG_PATTERN.matcher(html);
+        while (tag.find()) {
+            final String name = tag.group(1).toLowerCase(Locale.ROOT);
+            if (tag.group(2) == null || DOCUMENT_TAGS.contains(name)) {
+                continue;
+            }
+            final Map<String, String> attributes = new LinkedHashMap<>();
+            final Matcher attribute = ATTRIBUTE_PATTERN.matcher(tag.group(2));
+            while (attribute.find()) {
+                final String value = attribute.group(2) != null ? attribute.group(2) : attribute.group(3) != null ? attribute.group(3) : attribute.group(4);
+                attributes.putIfAbsent(attribute.group(1).toLowerCase(Locale.ROOT), value);
+            }
+            if (name.equals("link")) {
+                final boolean loaded = Arrays.stream(attributes.getOrDefault("rel", "").toLowerCase(Locale.ROOT).split("\\s+"))
+                    .anyMatch(LINKED_RELATIONS::contains);
+                if (loaded && attributes.containsKey("href")) {
+                    result.add(attributes.get("href"));
+                }
+                continue;
+            }
+            Optional.ofNullable(attributes.get("src")).ifPresent(result::add);
+            Optional.ofNullable(attributes.get("poster")).ifPresent(result::add);
+            // Browsers pick only one candidate of a srcset; the first one is usually the default.
+            Optional.ofNullable(attributes.get("srcset"))
+                .map(srcset -> srcset.trim().split("\\s*,\\s*")[0].split("\\s+")[0])
+                .filter(candidate -> !candidate.isEmpty())
+                .ifPresent(result::add);
+        }
+        return result;
+    }
+
+    // Path of the referenced file inside the output, if it is a local one. If a site is served below a path (see
+    // baseURL of hugo) absolute references contain it; so leading directories are dropped until a file matches.
+    @Nonnull
+    static Optional<String> resolve(@Nonnull String page, @Nonnull String reference, @Nonnull Map<String, Long> sizes) {
+        String plain = reference.trim();
+        for (final char separator : new char[]{'#', '?'}) {
+            final int index = plain.indexOf(separator);
+            if (index >= 0) {
+                plain = plain.substring(0, index);
+            }
+        }
+        if (plain.isEmpty() || plain.startsWith("//") || SCHEME_PATTERN.matcher(plain).matches()) {
+            return Optional.empty();
+        }
+        try {
+            plain = URLDecoder.decode(plain.replace("+", "%2B"), "UTF-8");
+        } catch (IllegalArgumentException | UnsupportedEncodingException ignored) {
+            // Keep it as it is.
+        }
+
+        final LinkedList<String> segments = new LinkedList<>();
+        final boolean absolute = plain.startsWith("/");
+        if (!absolute) {
+            segments.addAll(Arrays.asList(page.split("/")));
+            segments.removeLast();
+        }
+        for (final String segment : plain.split("/")) {
+            if (segment.equals("..")) {
+                if (segments.isEmpty()) {
+                    return Optional.empty();
+                }
+                segments.removeLast();
+            } else if (!segment.isEmpty() && !segment.equals(".")) {
+                segments.add(segment);
+            }
+        }
+        while (!segments.isEmpty()) {
+            final String candidate = String.join("/", segments);
+            if (sizes.containsKey(candidate)) {
+                return Optional.of(candidate);
+            }
+            if (!absolute) {
+                break;
+            }
+            segments.removeFirst();
+        }
+        return Optional.empty();
+    }
+
+    @Nonnull
+    private static String sectionOf(@Nonnull String path) {
+        final int slash = path.indexOf('/');
+        return slash > 0 ? path.substring(0, slash) : "/";
+    }
+
+    @Nonnull
+    private static String typeOf(@Nonnull String path) {
+        final String name = path.substring(path.lastIndexOf('/') + 1);
+        final int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+    }
+
+    @Nonnull
+    private Optional<OutputWeights> read(@Nonnull Path weightsFile) {
+        try {
+            return Optional.of(outputWeightsFromJson(new String(Files.readAllBytes(weightsFile), UTF_8)));
+        } catch (NoSuchFileException ignored) {
+            return Optional.empty();
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn(format("Cannot read previous weights %s; they are not compared: %s", weightsFile, e.getMessage()));
+            return Optional.empty();
+        }
+    }
+
+    @Nonnull
+    private static String contentOf(@Nonnull Path file) throws UncheckedIOException {
+        try {
+            return new String(Files.readAllBytes(file), UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot read %s.", file), e);
+        }
+    }
+
+    private static void write(@Nonnull Path file, @Nonnull String content) throws UncheckedIOException {
+        writeAtomically(file, content.getBytes(UTF_8));
+    }
+
+    @Nonnull
+    private static List<Path> filesOf(@Nonnull Path directory) throws UncheckedIOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (final Stream<Path> candidates = Files.walk(directory)) {
+            return candidates
+                .filter(Files::isRegularFile)
+                .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot collect files of %s.", directory), e);
+        }
+    }
+
+    private static long sizeOf(@Nonnull Path file) throws UncheckedIOException {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(format("Cannot determine size of %s.", file), e);
+        }
+    }
+
+    private void run(@Nonnull Runnable action) {
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.submit(action).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Was interrupted.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Nonnull
+    public Log log() {
+        return log;
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    public int entries() {
+        return entries;
+    }
+
+    public boolean hasBudgets() {
+        return totalBudget.isPresent() || pageBudget.isPresent() || !sectionBudgets.isEmpty() || !typeBudgets.isEmpty();
+    }
+
+    public static final class Report {
+
+        @Nonnull
+        private final OutputWeights weights;
+        @Nonnull
+        private final Optional<OutputWeights> previous;
+        @Nonnull
+        private final List<String> violations;
+        @Nonnull
+        private final Duration duration;
+
+        private Report(@Nonnull OutputWeights weights, @Nonnull Optional<OutputWeights> previous, @Nonnull List<String> violations, @Nonnull Duration duration) {
+            this.weights = weights;
+            this.previous = previous;
+            this.violations = unmodifiableList(violations);
+            this.duration = duration;
+        }
+
+        @Nonnull
+        public OutputWeights weights() {
+            return weights;
+        }
+
+        @Nonnull
+        public Optional<OutputWeights> previous() {
+            return previous;
+        }
+
+        // Exceeded budgets; empty if all are kept.
+        @Nonnull
+        public List<String> violations() {
+            return violations;
+        }
+
+        @Nonnull
+        public Duration duration() {
+            return duration;
+        }
+
+        // Sections and types (heaviest first) with their change since the previous build, the largest files and the heaviest pages.
+        @Nonnull
+        public List<String> details() {
+            final List<String> result = new ArrayList<>();
+            weights.sections().entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(entry -> result.add(format("section %s: %s%s", entry.getKey(), formatBytes(entry.getValue()),
+                    changeOf(entry.getValue(), previous.map(v -> v.sections().getOrDefault(entry.getKey(), 0L))))));
+            weights.types().entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(entry -> result.add(format("type %s: %s%s", entry.getKey().isEmpty() ? "(none)" : entry.getKey(), formatBytes(entry.getValue()),
+                    changeOf(entry.getValue(), previous.map(v -> v.types().getOrDefault(entry.getKey(), 0L))))));
+            weights.largestFiles().forEach(file -> result.add(format("file %s: %s", file.path(), formatBytes(file.bytes()))));
+            weights.heaviestPages().forEach(page -> result.add(format("page %s: %s", page.path(), formatBytes(page.bytes()))));
+            return unmodifiableList(result);
+        }
+
+        @Nonnull
+        private static String changeOf(long bytes, @Nonnull Optional<Long> before) {
+            return before
+                .map(v -> " (" + deltaOf(bytes, v) + ")")
+                .orElse("");
+        }
+
+        @Nonnull
+        private static String deltaOf(long bytes, long before) {
+            return bytes == before ? "unchanged" : (bytes > before ? "+" : "-") + formatBytes(Math.abs(bytes - before));
+        }
+
+        @Override
+        public String toString() {
+            return format("%d files with %s%s, heaviest page %s, %d budgets exceeded, analyzed in %s",
+                weights.files(), formatBytes(weights.total()),
+                previous.map(v -> format(" (%s since the previous build)", deltaOf(weights.total(), v.total()))).orElse(""),
+                weights.heaviestPages().stream().findFirst().map(page -> page.path() + " with " + formatBytes(page.bytes())).orElse("none"),
+                violations.size(), duration);
+        }
+    }
+
+    public static final class Builder {
+
+        @Nonnull
+        private Optional<Log> log = Optional.empty();
+        private int threads;
+        private int entries = DEFAULT_ENTRIES;
+        @Nonnull
+        private Optional<Long> totalBudget = Optional.empty();
+        @Nonnull
+        private Optional<Long> pageBudget = Optional.empty();
+        @Nonnull
+        private final Map<String, Long> sectionBudgets = new TreeMap<>();
+        @Nonnull
+        private final Map<String, Long> typeBudgets = new TreeMap<>();
+
+        @Nonnull
+        public Builder withLog(@Nonnull Log v) {
+            log = Optional.of(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withThreads(int v) {
+            threads = v;
+            return this;
+        }
+
+        // How many of the largest files and heaviest pages are reported.
+        @Nonnull
+        public Builder withEntries(int v) {
+            entries = Math.max(0, v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withTotalBudget(long v) {
+            totalBudget = Optional.of(v);
+            return this;
+        }
+
+        // Applies to each page: its HTML plus the referenced assets.
+        @Nonnull
+        public Builder withPageBudget(long v) {
+            pageBudget = Optional.of(v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withSectionBudget(@Nonnull String section, long v) {
+            sectionBudgets.put(section, v);
+            return this;
+        }
+
+        @Nonnull
+        public Builder withTypeBudget(@Nonnull String type, long v) {
+            typeBudgets.put(type.toLowerCase(Locale.ROOT), v);
+            return this;
+        }
+
+        // Properties with the keys total, page, section.<section> and type.<extension>; each value is a size like 512KiB.
+        @Nonnull
+        public Builder withBudgetFile(@Nonnull Path file) throws IllegalArgumentException, UncheckedIOException {
+            final Properties properties = new Properties();
+            try (final InputStream is = Files.newInputStream(file)) {
+                properties.load(is);
+            } catch (IOException e) {
+                throw new UncheckedIOException(format("Cannot read %s.", file), e);
+            }
+            for (final String key : new TreeSet<>(properties.stringPropertyNames())) {
+                final long budget;
+                try {
+                    budget = parseBytes(properties.getProperty(key));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(format("%s of %s: %s", key, file, e.getMessage()), e);
+                }
+                if (key.equals("total")) {
+                    withTotalBudget(budget);
+                } else if (key.equals("page")) {
+                    withPageBudget(budget);
+                } else if (key.startsWith("section.") && key.length() > "section.".length()) {
+                    withSectionBudget(key.substring("section.".length()), budget);
+                } else if (key.startsWith("type.") && key.length() > "type.".length()) {
+                    withTypeBudget(key.substring("type.".length()), budget);
+                } else {
+                    throw new IllegalArgumentException(format("Unknown budget %s in %s (expected total, page, section.<section> or type.<extension>).", key, file));
+                }
+            }
+            return this;
+        }
+
+        @Nonnull
+        public WeightAnalyzer build() {
+            return new WeightAnalyzer(this);
+        }
+
+    }
+
+}
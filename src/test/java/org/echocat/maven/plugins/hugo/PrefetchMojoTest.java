@@ -0,0 +1,127 @@
+package org.echocat.maven.plugins.hugo;
+
+import static java.util.Arrays.asList;
+import static org.echocat.maven.plugins.hugo.model.Platform.linux_amd64;
+import static org.echocat.maven.plugins.hugo.model.Platform.linux_arm64;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+
+import com.github.zafarkhaja.semver.Version;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.echocat.maven.plugins.hugo.model.Platform;
+import org.echocat.maven.plugins.hugo.model.VersionRequirement;
+import org.echocat.maven.plugins.hugo.utils.FailureException;
+import org.junit.jupiter.api.Test;
+
+class PrefetchMojoTest {
+
+    @Test
+    void execute_skipsInstalledAndSummarizesDownloads() throws Exception {
+        final GivenPrefetchMojo instance = new GivenPrefetchMojo(asList("0.145.0", "0.144.0"), asList(linux_amd64, linux_arm64));
+        instance.installed.add("0.145.0@linux_amd64");
+
+        instance.execute();
+
+        // Installations run in parallel, so their order is not defined.
+        assertEquals(new HashSet<>(asList("0.145.0@linux_arm64", "0.144.0@linux_amd64", "0.144.0@linux_arm64")), new HashSet<>(instance.installations));
+        assertEquals(3, instance.installations.size());
+        assertTrue(instance.log.infos.contains("hugo 0.145.0 for linux_amd64 is already installed."), instance.log.infos.toString());
+        assertTrue(instance.log.infos.stream().anyMatch(line -> line.startsWith("Prefetched 3 of 4 hugo binaries (1 already installed): 3.0 KiB downloaded in ")), instance.log.infos.toString());
+    }
+
+    @Test
+    void execute_failsWithAllFailedEntriesAfterTryingEachOfThem() {
+        final GivenPrefetchMojo instance = new GivenPrefetchMojo(asList("0.145.0", "0.144.0"), asList(linux_amd64, linux_arm64));
+        instance.failing.add("0.145.0@linux_arm64");
+        instance.failing.add("0.144.0@linux_amd64");
+
+        final MojoFailureException actual = assertThrows(MojoFailureException.class, instance::execute);
+
+        assertEquals("Prefetch failed for: 0.145.0@linux_arm64, 0.144.0@linux_amd64", actual.getMessage());
+        assertEquals(4, instance.installations.size());
+        assertFalse(instance.log.infos.stream().anyMatch(line -> line.startsWith("Prefetched ")), instance.log.infos.toString());
+    }
+
+    @Test
+    void entries_resolvesRangesForEachPlatform() {
+        final GivenPrefetchMojo instance = new GivenPrefetchMojo(asList("0.128.x"), asList(linux_amd64, linux_arm64));
+        instance.rangeResolutions.put(linux_amd64, Version.of(0, 128, 2));
+        instance.rangeResolutions.put(linux_arm64, Version.of(0, 128, 1));
+
+        final List<String> actual = instance.entries().stream()
+            .map(Object::toString)
+            .collect(Collectors.toList());
+
+        assertEquals(asList("0.128.2@linux_amd64", "0.128.1@linux_arm64"), actual);
+    }
+
+    private static final class GivenPrefetchMojo extends PrefetchMojo {
+
+        private final List<String> versions;
+        private final List<Platform> platforms;
+        private final Set<String> installed = new HashSet<>();
+        private final Set<String> failing = new HashSet<>();
+        private final List<String> installations = new CopyOnWriteArrayList<>();
+        private final Map<Platform, Version> rangeResolutions = new EnumMap<>(Platform.class);
+        private final RecordingLog log = new RecordingLog();
+
+        private GivenPrefetchMojo(@Nonnull List<String> versions, @Nonnull List<Platform> platforms) {
+            this.versions = versions;
+            this.platforms = platforms;
+            setLog(log);
+        }
+
+        @Nonnull
+        @Override
+        protected List<String> versions() {
+            return versions;
+        }
+
+        @Nonnull
+        @Override
+        protected List<Platform> platforms() {
+            return platforms;
+        }
+
+        @Nonnull
+        @Override
+        protected Version resolveVersionRange(@Nonnull VersionRequirement requirement, @Nonnull Platform platform) {
+            return rangeResolutions.get(platform);
+        }
+
+        @Override
+        protected boolean installed(@Nonnull Entry entry) {
+            return installed.contains(entry.toString());
+        }
+
+        @Override
+        protected long install(@Nonnull Entry entry) throws FailureException {
+            installations.add(entry.toString());
+            if (failing.contains(entry.toString())) {
+                throw new FailureException("expected");
+            }
+            return 1024;
+        }
+    }
+
+    private static final class RecordingLog extends SystemStreamLog {
+
+        private final List<String> infos = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void info(CharSequence content) {
+            infos.add(content.toString());
+            super.info(content);
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+package org.echocat.maven.plugins.hugo.model;
+
+import static java.util.Collections.singletonMap;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.echocat.maven.plugins.hugo.model.PackagingTest.givenArchive;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.echocat.maven.plugins.hugo.utils.FileSystems;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares streaming extraction with random access extraction of the hugo binary from a zip archive of about the size
+ * of a real hugo release (the binary is the last entry like in the official archives).
+ * <p>
+ * Run {@link #main(String[])} with the test classpath after <code>mvn test-compile</code>; it is no test and is never
+ * executed by surefire.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PackagingBenchmark {
+
+    @Param({"16", "64"})
+    public int binarySizeInMegabytes;
+
+    private Path directory;
+    private Path archive;
+    private Map<String, Path> files;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("hugo-packaging-benchmark");
+
+        final Random random = new Random(666);
+        final Map<String, byte[]> entries = new LinkedHashMap<>();
+        final byte[] readme = new byte[64 * 1024];
+        random.nextBytes(readme);
+        entries.put("README.md", readme);
+        for (int i = 0; i < 32; i++) {
+            final byte[] completion = new byte[256 * 1024];
+            random.nextBytes(completion);
+            entries.put("completions/" + i, completion);
+        }
+        final byte[] binary = new byte[binarySizeInMegabytes * 1024 * 1024];
+        random.nextBytes(binary);
+        entries.put("hugo", binary);
+
+        archive = givenArchive(Packaging.zip, directory.resolve("hugo.zip"), entries);
+        files = singletonMap("hugo", directory.resolve("hugo"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        FileSystems.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public Set<String> streaming() {
+        return Packaging.zip.extractStreaming(archive, files);
+    }
+
+    @Benchmark
+    public Set<String> randomAccess() {
+        return Packaging.zip.extract(archive, files);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(PackagingBenchmark.class.getSimpleName())
+            .build()
+        ).run();
+    }
+
+}
@@ -0,0 +1,100 @@
+package org.echocat.maven.plugins.hugo.model;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.newOutputStream;
+import static java.nio.file.Files.readAllBytes;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.echocat.maven.plugins.hugo.utils.FailureException;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class PackagingTest {
+
+    @ParameterizedTest
+    @EnumSource(Packaging.class)
+    void extract_multipleEntriesInOnePass(Packaging packaging, @TempDir Path tmpDir) throws Exception {
+        final Path archive = givenArchive(packaging, tmpDir.resolve("hugo" + packaging.extension()), givenEntries());
+
+        final Map<String, Path> files = new LinkedHashMap<>();
+        files.put("hugo", tmpDir.resolve("hugo"));
+        files.put("LICENSE", tmpDir.resolve("LICENSE"));
+        files.put("missing", tmpDir.resolve("missing"));
+        final Set<String> actual = packaging.extract(archive, files);
+
+        assertEquals(new HashSet<>(Arrays.asList("hugo", "LICENSE")), actual);
+        assertEquals("binary", new String(readAllBytes(tmpDir.resolve("hugo")), UTF_8));
+        assertEquals("license", new String(readAllBytes(tmpDir.resolve("LICENSE")), UTF_8));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Packaging.class)
+    void extract_singleEntry(Packaging packaging, @TempDir Path tmpDir) throws Exception {
+        final Path archive = givenArchive(packaging, tmpDir.resolve("hugo" + packaging.extension()), givenEntries());
+
+        packaging.extract("HUGO", archive, tmpDir.resolve("extracted"));
+
+        assertEquals("binary", new String(readAllBytes(tmpDir.resolve("extracted")), UTF_8));
+        assertThrows(FailureException.class, () -> packaging.extract("other", archive, tmpDir.resolve("other")));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Packaging.class)
+    void extractStreaming_sameAsExtract(Packaging packaging, @TempDir Path tmpDir) throws Exception {
+        final Path archive = givenArchive(packaging, tmpDir.resolve("hugo" + packaging.extension()), givenEntries());
+
+        final Map<String, Path> files = new LinkedHashMap<>();
+        files.put("hugo", tmpDir.resolve("hugo"));
+        assertEquals(files.keySet(), packaging.extractStreaming(archive, files));
+        assertEquals("binary", new String(readAllBytes(tmpDir.resolve("hugo")), UTF_8));
+    }
+
+    private static Map<String, byte[]> givenEntries() {
+        final Map<String, byte[]> result = new LinkedHashMap<>();
+        result.put("LICENSE", "license".getBytes(UTF_8));
+        result.put("README.md", "readme".getBytes(UTF_8));
+        result.put("completions/hugo.bash", "completion".getBytes(UTF_8));
+        result.put("hugo", "binary".getBytes(UTF_8));
+        return result;
+    }
+
+    static Path givenArchive(Packaging packaging, Path file, Map<String, byte[]> entries) throws IOException {
+        try (final OutputStream os = newOutputStream(file);
+             final ArchiveOutputStream<? extends ArchiveEntry> archive = packaging == Packaging.zip
+                 ? new ZipArchiveOutputStream(os)
+                 : new TarArchiveOutputStream(new GZIPOutputStream(os))
+        ) {
+            for (final Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                if (archive instanceof ZipArchiveOutputStream) {
+                    ((ZipArchiveOutputStream) archive).putArchiveEntry(new ZipArchiveEntry(entry.getKey()));
+                } else {
+                    final TarArchiveEntry tarEntry = new TarArchiveEntry(entry.getKey());
+                    tarEntry.setSize(entry.getValue().length);
+                    ((TarArchiveOutputStream) archive).putArchiveEntry(tarEntry);
+                }
+                archive.write(entry.getValue());
+                archive.closeArchiveEntry();
+            }
+            archive.finish();
+        }
+        return file;
+    }
+
+}
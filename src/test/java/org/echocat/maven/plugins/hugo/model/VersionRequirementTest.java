@@ -0,0 +1,72 @@
+package org.echocat.maven.plugins.hugo.model;
+
+import static java.util.Arrays.asList;
+import static org.echocat.maven.plugins.hugo.model.VersionRequirement.versionRequirementOf;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Optional;
+
+import com.github.zafarkhaja.semver.Version;
+import org.echocat.maven.plugins.hugo.model.VersionRequirement.Type;
+import org.echocat.maven.plugins.hugo.utils.FailureException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+public class VersionRequirementTest {
+
+    @ParameterizedTest
+    @CsvSource(value = {
+        "latest,latest",
+        "LATEST,latest",
+        "'',latest",
+        "0.128.0,exact",
+        "0.128.x,range",
+        "0.128,range",
+        "~0.128,range",
+        ">=0.120.0 & <0.130.0,range",
+        "'[0.120,0.130)',range",
+        "'[0.128.1]',range",
+    })
+    void type(String plain, Type expected) {
+        assertEquals(expected, versionRequirementOf(plain).type());
+    }
+
+    @ParameterizedTest
+    @CsvSource(value = {
+        "0.128.x,0.128.5,true",
+        "0.128.x,0.129.0,false",
+        "'[0.120,0.130)',0.120.0,true",
+        "'[0.120,0.130)',0.129.9,true",
+        "'[0.120,0.130)',0.130.0,false",
+        "'(0.120,0.130]',0.120.0,false",
+        "'(0.120,0.130]',0.130.0,true",
+        "'[0.120,)',1.0.0,true",
+        "'(,0.120)',0.119.0,true",
+        "'(,0.120)',0.120.0,false",
+        "'[0.128.1]',0.128.1,true",
+        "'[0.128.1]',0.128.2,false",
+    })
+    void test(String plain, String candidate, boolean expected) {
+        assertEquals(expected, versionRequirementOf(plain).test(Version.parse(candidate)));
+    }
+
+    @Test
+    void highestMatching() {
+        final Optional<Version> actual = versionRequirementOf("[0.120,0.130)").highestMatching(asList(
+            Version.of(0, 119, 0),
+            Version.of(0, 128, 1),
+            Version.of(0, 129, 2),
+            Version.of(0, 130, 0)
+        ));
+        assertEquals(Optional.of(Version.of(0, 129, 2)), actual);
+    }
+
+    @Test
+    void invalid() {
+        assertThrows(FailureException.class, () -> versionRequirementOf("foo"));
+        assertThrows(FailureException.class, () -> versionRequirementOf("[0.120,0.130"));
+        assertThrows(FailureException.class, () -> versionRequirementOf("(0.120)"));
+    }
+
+}
@@ -0,0 +1,101 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.*;
+import static java.util.Arrays.asList;
+import static org.echocat.maven.plugins.hugo.utils.ArchivePacker.archivePacker;
+import static org.echocat.maven.plugins.hugo.utils.TestFiles.givenFile;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.utils.IOUtils;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.echocat.maven.plugins.hugo.utils.ArchivePacker.Report;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ArchivePackerTest {
+
+    @Test
+    void pack_writesEntriesInOrderAndStoresCompressedFormats(@TempDir Path tmpDir) throws Exception {
+        final Path site = givenSite(tmpDir.resolve("site"));
+        final Path target = tmpDir.resolve("site.zip");
+
+        final Report actual = packer().pack(site, target);
+
+        assertEquals(5, actual.stored() + actual.deflated());
+        try (final ZipFile zip = ZipFile.builder().setPath(target).get()) {
+            final List<String> names = new ArrayList<>();
+            for (final ZipArchiveEntry entry : Collections.list(zip.getEntries())) {
+                names.add(entry.getName());
+            }
+            assertEquals(asList("css/", "css/site.css", "images/", "images/logo.png", "index.html", "large.html", "random.bin"), names);
+            assertEquals(ZipEntry.DEFLATED, zip.getEntry("index.html").getMethod());
+            assertEquals(ZipEntry.DEFLATED, zip.getEntry("large.html").getMethod());
+            assertEquals(ZipEntry.STORED, zip.getEntry("images/logo.png").getMethod());
+            // Random content cannot be compressed; it is stored instead.
+            assertEquals(ZipEntry.STORED, zip.getEntry("random.bin").getMethod());
+            for (final String name : asList("css/site.css", "images/logo.png", "index.html", "large.html", "random.bin")) {
+                try (final InputStream is = zip.getInputStream(zip.getEntry(name))) {
+                    assertArrayEquals(readAllBytes(site.resolve(name)), IOUtils.toByteArray(is), name);
+                }
+            }
+        }
+        try (final Stream<Path> leftovers = list(tmpDir)) {
+            assertEquals(asList("site", "site.zip"), leftovers.map(v -> v.getFileName().toString()).sorted().collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void pack_isReproducible(@TempDir Path tmpDir) throws Exception {
+        final Path site = givenSite(tmpDir.resolve("site"));
+        final Path first = tmpDir.resolve("first.zip");
+        final Path second = tmpDir.resolve("second.zip");
+
+        packer().pack(site, first);
+        setLastModifiedTime(site.resolve("index.html"), FileTime.from(Instant.parse("2020-01-01T00:00:00Z")));
+        archivePacker()
+            .withLog(new SystemStreamLog())
+            .withThreads(1)
+            .build()
+            .pack(site, second);
+
+        assertArrayEquals(readAllBytes(first), readAllBytes(second));
+    }
+
+    private static ArchivePacker packer() {
+        return archivePacker()
+            .withLog(new SystemStreamLog())
+            .withThreads(4)
+            .build();
+    }
+
+    private static Path givenSite(Path base) throws Exception {
+        givenFile(base, "index.html", "<html><body>home home home home home</body></html>".getBytes(UTF_8));
+        givenFile(base, "css/site.css", "body { margin: 0; } body { margin: 0; }".getBytes(UTF_8));
+        givenFile(base, "images/logo.png", "not really a png, not really a png".getBytes(UTF_8));
+        final StringBuilder large = new StringBuilder();
+        while (large.length() < 5 * 1024 * 1024) {
+            large.append("<p>Some paragraph of a large page.</p>\n");
+        }
+        givenFile(base, "large.html", large.toString().getBytes(UTF_8));
+        final byte[] random = new byte[64 * 1024];
+        new Random(42).nextBytes(random);
+        givenFile(base, "random.bin", random);
+        return base;
+    }
+
+}
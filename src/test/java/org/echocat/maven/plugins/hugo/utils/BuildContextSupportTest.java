@@ -0,0 +1,127 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.*;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.echocat.maven.plugins.hugo.model.InputSet.inputSetOf;
+import static org.echocat.maven.plugins.hugo.utils.BuildContextSupport.buildContextSupport;
+import static org.echocat.maven.plugins.hugo.utils.BuildContextSupport.problemsOf;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.echocat.maven.plugins.hugo.model.InputSet;
+import org.echocat.maven.plugins.hugo.utils.BuildContextSupport.Problem;
+import org.echocat.maven.plugins.hugo.utils.BuildContextSupport.Snapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonatype.plexus.build.incremental.BuildContext;
+import org.sonatype.plexus.build.incremental.DefaultBuildContext;
+
+class BuildContextSupportTest {
+
+    @Test
+    void active_notForDefaultBuildContext() {
+        assertFalse(support(null).active());
+        assertFalse(support(new DefaultBuildContext()).active());
+        assertTrue(support(mock(BuildContext.class)).active());
+    }
+
+    @Test
+    void unchanged_usesDeltaOfInputs(@TempDir Path tmpDir) throws Exception {
+        final Path output = createDirectories(tmpDir.resolve("public"));
+        final InputSet inputs = inputSetOf(asList(tmpDir.resolve("content"), tmpDir.resolve("layouts")));
+        final BuildContext buildContext = mock(BuildContext.class);
+        when(buildContext.isIncremental()).thenReturn(true);
+
+        assertTrue(support(buildContext).unchanged(inputs, output));
+
+        when(buildContext.hasDelta(tmpDir.resolve("layouts").toFile())).thenReturn(true);
+        assertFalse(support(buildContext).unchanged(inputs, output));
+
+        when(buildContext.hasDelta(any(File.class))).thenReturn(false);
+        assertFalse(support(buildContext).unchanged(inputs, tmpDir.resolve("missing")));
+
+        when(buildContext.isIncremental()).thenReturn(false);
+        assertFalse(support(buildContext).unchanged(inputs, output));
+    }
+
+    @Test
+    void refreshChangesSince_refreshesOnlyChangedFiles(@TempDir Path tmpDir) throws Exception {
+        final Path output = createDirectories(tmpDir.resolve("public"));
+        write(output.resolve("unchanged.html"), asList("a"), UTF_8);
+        write(output.resolve("changed.html"), asList("a"), UTF_8);
+        write(output.resolve("deleted.html"), asList("a"), UTF_8);
+        setLastModifiedTime(output.resolve("changed.html"), FileTime.fromMillis(1000));
+        final BuildContext buildContext = mock(BuildContext.class);
+        final BuildContextSupport instance = support(buildContext);
+
+        final Snapshot before = instance.snapshotOf(output);
+        write(output.resolve("changed.html"), asList("b"), UTF_8);
+        write(output.resolve("new.html"), asList("a"), UTF_8);
+        delete(output.resolve("deleted.html"));
+        instance.refreshChangesSince(before);
+
+        verify(buildContext).refresh(output.resolve("changed.html").toFile());
+        verify(buildContext).refresh(output.resolve("new.html").toFile());
+        verify(buildContext).refresh(output.resolve("deleted.html").toFile());
+        verify(buildContext, never()).refresh(output.resolve("unchanged.html").toFile());
+    }
+
+    @Test
+    void reportProblems_marksFilesMentionedByHugo(@TempDir Path tmpDir) throws Exception {
+        final Path post = createDirectories(tmpDir.resolve("content")).resolve("post.md");
+        write(post, asList("---", "title: [", "---"), UTF_8);
+        final Path config = tmpDir.resolve("hugo.toml");
+        final BuildContext buildContext = mock(BuildContext.class);
+
+        support(buildContext).reportProblems("key", tmpDir, config, new Hugo.ExecutionFailedException(1, asList(
+            "Start building sites …",
+            "Error: error building site: process: readAndProcessContent: \"" + post + ":2:8\": failed to unmarshal YAML"
+        )));
+        verify(buildContext).addMessage(post.toFile(), 2, 8, "failed to unmarshal YAML", BuildContext.SEVERITY_ERROR, null);
+        verify(buildContext).setValue("hugo-maven-plugin.problems.key", singletonList(post.toFile()));
+
+        support(buildContext).reportProblems("key", tmpDir, config, new FailureException("broken"));
+        verify(buildContext).addMessage(eq(config.toFile()), eq(0), eq(0), eq("broken"), eq(BuildContext.SEVERITY_ERROR), any(FailureException.class));
+
+        when(buildContext.getValue("hugo-maven-plugin.problems.key")).thenReturn(singletonList(post.toFile()));
+        support(buildContext).clearProblems("key", config);
+        verify(buildContext).removeMessages(post.toFile());
+        verify(buildContext).removeMessages(config.toFile());
+        verify(buildContext).setValue(eq("hugo-maven-plugin.problems.key"), isNull());
+    }
+
+    @Test
+    void problemsOf_relativeAndUnknownFiles(@TempDir Path tmpDir) throws Exception {
+        createDirectories(tmpDir.resolve("layouts"));
+        write(tmpDir.resolve("layouts").resolve("single.html"), asList("{{ .Foo }}"), UTF_8);
+
+        final List<Problem> actual = problemsOf(asList(
+            "ERROR render of \"page\" failed: \"layouts/single.html:1:4\": can't evaluate field Foo",
+            "ERROR render of \"page\" failed: \"layouts/single.html:1:4\": can't evaluate field Foo",
+            "ERROR \"layouts/missing.html:1:1\": something"
+        ), tmpDir);
+
+        assertEquals(1, actual.size());
+        assertEquals(tmpDir.resolve("layouts/single.html"), actual.get(0).file());
+        assertEquals("can't evaluate field Foo", actual.get(0).message());
+    }
+
+    private static BuildContextSupport support(BuildContext buildContext) {
+        return buildContextSupport()
+            .withLog(new SystemStreamLog())
+            .withBuildContext(buildContext)
+            .build();
+    }
+
+}
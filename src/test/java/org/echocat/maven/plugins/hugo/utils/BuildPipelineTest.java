@@ -0,0 +1,99 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.util.Arrays.asList;
+import static org.echocat.maven.plugins.hugo.utils.BuildPipeline.buildPipeline;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.Test;
+
+class BuildPipelineTest {
+
+    @Test
+    void run_rendersNextWhilePostProcessing() {
+        final CountDownLatch secondRendered = new CountDownLatch(1);
+        final List<String> overlapping = new CopyOnWriteArrayList<>();
+
+        final BuildPipeline.Report actual = givenInstance(1, 2).run(asList("a", "b"), Function.identity(),
+            item -> {
+                if (item.equals("b")) {
+                    secondRendered.countDown();
+                }
+            },
+            item -> {
+                if (item.equals("a") && await(secondRendered)) {
+                    overlapping.add(item);
+                }
+            });
+
+        assertEquals(asList("a"), overlapping);
+        assertEquals(2, actual.entries().size());
+        assertEquals(2, actual.timeline(20).size());
+        assertTrue(actual.timeline(20).get(0).startsWith("a |"), actual.timeline(20).get(0));
+    }
+
+    @Test
+    void run_limitsItemsInFlight() {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        givenInstance(3, 2).run(asList("a", "b", "c", "d", "e"), Function.identity(),
+            item -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                sleep(20);
+            },
+            item -> {
+                sleep(20);
+                inFlight.decrementAndGet();
+            });
+
+        assertEquals(2, maxInFlight.get());
+    }
+
+    @Test
+    void run_propagatesFailureOfPostProcessing() {
+        final FailureException expected = new FailureException("expected");
+        final List<String> rendered = new CopyOnWriteArrayList<>();
+
+        final FailureException actual = assertThrows(FailureException.class, () -> givenInstance(1, 1).run(asList("a", "b"), Function.identity(),
+            rendered::add,
+            item -> {
+                throw expected;
+            }));
+
+        assertSame(expected, actual);
+        assertEquals(asList("a"), rendered);
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static BuildPipeline givenInstance(int renderConcurrency, int depth) {
+        return buildPipeline()
+            .withLog(new SystemStreamLog())
+            .withRenderConcurrency(renderConcurrency)
+            .withDepth(depth)
+            .build();
+    }
+
+}
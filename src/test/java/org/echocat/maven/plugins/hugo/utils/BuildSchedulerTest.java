@@ -0,0 +1,88 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.util.Arrays.asList;
+import static org.echocat.maven.plugins.hugo.utils.BuildScheduler.buildScheduler;
+import static org.echocat.maven.plugins.hugo.utils.BuildScheduler.task;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.echocat.maven.plugins.hugo.utils.BuildScheduler.Task;
+import org.junit.jupiter.api.Test;
+
+class BuildSchedulerTest {
+
+    @Test
+    void run_concurrentlyKeepsOrder() throws Exception {
+        final CountDownLatch allStarted = new CountDownLatch(3);
+        final List<Task<String>> tasks = asList(
+            task("a", () -> awaitOthers(allStarted, "a")),
+            task("b", () -> awaitOthers(allStarted, "b")),
+            task("c", () -> awaitOthers(allStarted, "c"))
+        );
+
+        final List<String> actual = givenInstance(3).run(tasks);
+
+        assertEquals(asList("a", "b", "c"), actual);
+    }
+
+    @Test
+    void run_respectsConcurrency() {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final Task<Integer> task = task("t", () -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(50);
+            running.decrementAndGet();
+            return 1;
+        });
+
+        givenInstance(2).run(asList(task, task, task, task, task));
+
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    void run_propagatesFailure() {
+        final FailureException expected = new FailureException("expected");
+
+        final FailureException actual = assertThrows(FailureException.class, () -> givenInstance(2).run(asList(
+            task("ok", () -> "ok"),
+            task("failing", () -> {
+                throw expected;
+            })
+        )));
+
+        assertSame(expected, actual);
+    }
+
+    private static BuildScheduler givenInstance(int concurrency) {
+        return buildScheduler()
+            .withLog(new SystemStreamLog())
+            .withConcurrency(concurrency)
+            .build();
+    }
+
+    private static String awaitOthers(CountDownLatch allStarted, String result) {
+        allStarted.countDown();
+        try {
+            assertTrue(allStarted.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+        return result;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
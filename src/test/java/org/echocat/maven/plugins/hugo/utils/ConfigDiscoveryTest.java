@@ -0,0 +1,104 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.nio.file.Files.*;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.echocat.maven.plugins.hugo.utils.ConfigDiscovery.configDiscovery;
+import static org.echocat.maven.plugins.hugo.utils.ConfigDiscovery.maxDepthOf;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ConfigDiscoveryTest {
+
+    @Test
+    void discover_topLevelOnlyWithoutPathPatterns(@TempDir Path tmpDir) throws Exception {
+        final Path base = givenConfigs(tmpDir);
+
+        assertEquals(asList("a.toml", "b.yaml", "products"), discover(base, emptyList(), emptyList(), null));
+        assertEquals(singletonList("a.toml"), discover(base, singletonList("*.toml"), emptyList(), null));
+    }
+
+    @Test
+    void discover_recursiveWithDoubleStar(@TempDir Path tmpDir) throws Exception {
+        final Path base = givenConfigs(tmpDir);
+
+        assertEquals(
+            asList("a.toml", "products/eu/shop.toml", "products/us/shop.toml"),
+            discover(base, singletonList("**/*.toml"), emptyList(), null)
+        );
+        assertEquals(
+            asList("a.toml", "products/us/shop.toml"),
+            discover(base, singletonList("**/*.toml"), singletonList("products/eu/**"), null)
+        );
+        assertEquals(
+            singletonList("products/eu/shop.toml"),
+            discover(base, singletonList("products/eu/*.toml"), emptyList(), null)
+        );
+    }
+
+    @Test
+    void discover_usesCacheUntilDirectoryChanges(@TempDir Path tmpDir) throws Exception {
+        final Path base = givenConfigs(tmpDir.resolve("base"));
+        final Path cache = tmpDir.resolve("cache");
+        givenOldModificationTimes(base);
+
+        assertEquals(3, discover(base, singletonList("**/*.toml"), emptyList(), cache).size());
+        assertEquals(1, list(cache).count());
+
+        createFile(base.resolve("products/eu/other.toml"));
+        setLastModifiedTime(base.resolve("products/eu"), FileTime.from(Instant.now().minusSeconds(60)));
+
+        assertEquals(4, discover(base, singletonList("**/*.toml"), emptyList(), cache).size());
+    }
+
+    @Test
+    void maxDepthOf_patterns() {
+        assertEquals(1, maxDepthOf(emptyList()));
+        assertEquals(1, maxDepthOf(singletonList("*.toml")));
+        assertEquals(3, maxDepthOf(asList("*.toml", "a/b/*.toml")));
+        assertEquals(Integer.MAX_VALUE, maxDepthOf(singletonList("a/**/*.toml")));
+    }
+
+    private static List<String> discover(Path base, List<String> includes, List<String> excludes, Path cache) {
+        return configDiscovery()
+            .withLog(new SystemStreamLog())
+            .withBase(base)
+            .withIncludes(includes)
+            .withExcludes(excludes)
+            .withCacheDirectory(cache)
+            .build()
+            .discover().stream()
+            .map(path -> base.relativize(path).toString().replace('\\', '/'))
+            .collect(Collectors.toList());
+    }
+
+    private static Path givenConfigs(Path base) throws Exception {
+        createDirectories(base.resolve("products/eu"));
+        createDirectories(base.resolve("products/us"));
+        createFile(base.resolve("a.toml"));
+        createFile(base.resolve("b.yaml"));
+        createFile(base.resolve("products/eu/shop.toml"));
+        createFile(base.resolve("products/us/shop.toml"));
+        return base;
+    }
+
+    private static void givenOldModificationTimes(Path base) throws Exception {
+        try (final Stream<Path> paths = walk(base)) {
+            for (final Path path : paths.collect(Collectors.toList())) {
+                setLastModifiedTime(path, FileTime.from(Instant.now().minusSeconds(3600)));
+            }
+        }
+    }
+
+}
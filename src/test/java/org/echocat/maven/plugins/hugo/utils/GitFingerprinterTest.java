@@ -0,0 +1,124 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.createSymbolicLink;
+import static java.nio.file.Files.write;
+import static java.util.Arrays.asList;
+import static org.echocat.maven.plugins.hugo.model.InputSet.inputSetOf;
+import static org.echocat.maven.plugins.hugo.utils.FileSystemFingerprinter.fileSystemFingerprinter;
+import static org.echocat.maven.plugins.hugo.utils.GitFingerprinter.changedPathsOf;
+import static org.echocat.maven.plugins.hugo.utils.GitFingerprinter.gitFingerprinter;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.echocat.maven.plugins.hugo.model.InputSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GitFingerprinterTest {
+
+    @Test
+    void changedPathsOf_porcelain() {
+        assertEquals(
+            asList("content/a.md", "content/new.md", "content/old.md", "static/b c.css", "resources/"),
+            changedPathsOf(" M content/a.md\0R  content/new.md\0content/old.md\0?? static/b c.css\0!! resources/\0")
+        );
+    }
+
+    @Test
+    void fingerprint_detectsChangesOfInputsOnly(@TempDir Path tmpDir) throws Exception {
+        assumeTrue(git(tmpDir, "init", "-q"), "git is not available");
+        createDirectories(tmpDir.resolve("content"));
+        write(tmpDir.resolve("content").resolve("a.md"), asList("a"), UTF_8);
+        write(tmpDir.resolve("unrelated.txt"), asList("a"), UTF_8);
+        assertTrue(git(tmpDir, "add", "."));
+        assertTrue(git(tmpDir, "-c", "user.name=test", "-c", "user.email=test@example.org", "commit", "-q", "-m", "initial"));
+
+        final InputSet inputs = inputSetOf(asList(tmpDir.resolve("content"), tmpDir.resolve("static")));
+        final GitFingerprinter instance = gitFingerprinter()
+            .withLog(new SystemStreamLog())
+            .withWorkingDirectory(tmpDir)
+            .build();
+
+        final String initial = instance.fingerprint(inputs);
+        assertEquals(initial, instance.fingerprint(inputs));
+
+        write(tmpDir.resolve("unrelated.txt"), asList("changed"), UTF_8);
+        assertEquals(initial, instance.fingerprint(inputs));
+
+        write(tmpDir.resolve("content").resolve("a.md"), asList("changed"), UTF_8);
+        final String modified = instance.fingerprint(inputs);
+        assertNotEquals(initial, modified);
+
+        createDirectories(tmpDir.resolve("static"));
+        write(tmpDir.resolve("static").resolve("b.css"), asList("b"), UTF_8);
+        assertNotEquals(modified, instance.fingerprint(inputs));
+    }
+
+    @Test
+    void fingerprint_comparesRealPaths(@TempDir Path tmpDir) throws Exception {
+        final Path repository = tmpDir.resolve("repository");
+        createDirectories(repository.resolve("content"));
+        assumeTrue(git(repository, "init", "-q"), "git is not available");
+        write(repository.resolve("content").resolve("a.md"), asList("a"), UTF_8);
+        assertTrue(git(repository, "add", "."));
+        assertTrue(git(repository, "-c", "user.name=test", "-c", "user.email=test@example.org", "commit", "-q", "-m", "initial"));
+        final Path link = tmpDir.resolve("link");
+        try {
+            createSymbolicLink(link, repository);
+        } catch (UnsupportedOperationException | IOException e) {
+            assumeTrue(false, "symbolic links are not available");
+        }
+
+        final String expected = gitFingerprinter()
+            .withLog(new SystemStreamLog())
+            .withWorkingDirectory(repository)
+            .build()
+            .fingerprint(inputSetOf(asList(repository.resolve("content"))));
+        final String actual = gitFingerprinter()
+            .withLog(new SystemStreamLog())
+            .withWorkingDirectory(link)
+            .build()
+            .fingerprint(inputSetOf(asList(link.resolve("content"))));
+
+        assertEquals(expected, actual);
+        assertNotEquals(fileSystemFingerprinter().fingerprint(inputSetOf(asList(link.resolve("content")))), actual);
+    }
+
+    @Test
+    void fingerprint_fallsBackOutsideOfRepository(@TempDir Path tmpDir) throws Exception {
+        createDirectories(tmpDir.resolve("content"));
+        write(tmpDir.resolve("content").resolve("a.md"), asList("a"), UTF_8);
+        final InputSet inputs = inputSetOf(asList(tmpDir.resolve("content")));
+
+        final String actual = gitFingerprinter()
+            .withLog(new SystemStreamLog())
+            .withWorkingDirectory(tmpDir)
+            .withExecutable("git-which-does-not-exist")
+            .build()
+            .fingerprint(inputs);
+
+        assertEquals(fileSystemFingerprinter().fingerprint(inputs), actual);
+    }
+
+    private static boolean git(Path directory, String... arguments) {
+        final String[] command = new String[arguments.length + 1];
+        command[0] = "git";
+        System.arraycopy(arguments, 0, command, 1, arguments.length);
+        try {
+            return new ProcessBuilder(command)
+                .directory(directory.toFile())
+                .inheritIO()
+                .start()
+                .waitFor() == 0;
+        } catch (Exception ignored) {
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.nio.file.Files.*;
+import static java.time.Duration.ofDays;
+import static org.echocat.maven.plugins.hugo.utils.HugoCache.hugoCache;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.echocat.maven.plugins.hugo.utils.HugoCache.Eviction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HugoCacheTest {
+
+    @Test
+    void evict_byAge(@TempDir Path tmpDir) throws Exception {
+        final Path old = givenBinary(tmpDir, "linux_amd64-0.100.0", 10, 40);
+        final Path recent = givenBinary(tmpDir, "linux_amd64-0.145.0", 10, 1);
+
+        final HugoCache instance = hugoCache()
+            .withLog(new SystemStreamLog())
+            .withDirectory(tmpDir)
+            .withMaxAge(ofDays(30))
+            .build();
+
+        final Eviction actual = instance.evict();
+
+        assertEquals(1, actual.evicted().size());
+        assertEquals(10, actual.freed());
+        assertFalse(exists(old));
+        assertTrue(exists(recent));
+    }
+
+    @Test
+    void evict_leastRecentlyUsedUntilSizeFits(@TempDir Path tmpDir) throws Exception {
+        final Path oldest = givenBinary(tmpDir, "linux_amd64-0.100.0", 100, 3);
+        final Path older = givenBinary(tmpDir, "linux_amd64-0.110.0", 100, 2);
+        final Path newest = givenBinary(tmpDir, "linux_amd64-0.120.0", 100, 1);
+
+        final HugoCache instance = hugoCache()
+            .withLog(new SystemStreamLog())
+            .withDirectory(tmpDir)
+            .withMaxSize(150L)
+            .build();
+
+        final Eviction actual = instance.evict();
+
+        assertEquals(2, actual.evicted().size());
+        assertEquals(100, actual.remaining());
+        assertFalse(exists(oldest));
+        assertFalse(exists(older));
+        assertTrue(exists(newest));
+    }
+
+    @Test
+    void evict_keepsBinariesInUse(@TempDir Path tmpDir) throws Exception {
+        final Path oldest = givenBinary(tmpDir, "linux_amd64-0.100.0", 100, 3);
+        final Path newest = givenBinary(tmpDir, "linux_amd64-0.120.0", 100, 1);
+
+        final HugoCache instance = hugoCache()
+            .withLog(new SystemStreamLog())
+            .withDirectory(tmpDir)
+            .withMaxSize(0L)
+            .build();
+
+        instance.evict(oldest.resolve("hugo"));
+
+        assertTrue(exists(oldest));
+        assertFalse(exists(newest));
+    }
+
+    @Test
+    void evict_nothingWithoutLimits(@TempDir Path tmpDir) throws Exception {
+        final Path oldest = givenBinary(tmpDir, "linux_amd64-0.100.0", 100, 400);
+        final Path newest = givenBinary(tmpDir, "linux_amd64-0.120.0", 100, 1);
+
+        final HugoCache instance = hugoCache()
+            .withLog(new SystemStreamLog())
+            .withDirectory(tmpDir)
+            .build();
+
+        assertEquals(0, instance.evict().evicted().size());
+        assertTrue(exists(oldest));
+
+        final Eviction actual = instance.evictAll(newest.resolve("hugo"));
+
+        assertEquals(1, actual.evicted().size());
+        assertFalse(exists(oldest));
+        assertTrue(exists(newest));
+    }
+
+    @Test
+    void evictIfDue_onlyOncePerInterval(@TempDir Path tmpDir) throws Exception {
+        givenBinary(tmpDir, "linux_amd64-0.100.0", 10, 40);
+
+        final HugoCache instance = hugoCache()
+            .withLog(new SystemStreamLog())
+            .withDirectory(tmpDir)
+            .withMaxAge(ofDays(30))
+            .build();
+
+        final Optional<Eviction> first = instance.evictIfDue();
+        assertTrue(first.isPresent());
+        assertEquals(1, first.get().evicted().size());
+
+        givenBinary(tmpDir, "linux_amd64-0.110.0", 10, 40);
+        assertFalse(instance.evictIfDue().isPresent());
+    }
+
+    @Test
+    void markUsed_updatesLastUsed(@TempDir Path tmpDir) throws Exception {
+        final Path directory = givenBinary(tmpDir, "linux_amd64-0.100.0", 10, 40);
+
+        final HugoCache instance = hugoCache()
+            .withLog(new SystemStreamLog())
+            .withDirectory(tmpDir)
+            .withMaxAge(ofDays(30))
+            .build();
+
+        instance.markUsed(directory.resolve("hugo"));
+
+        assertEquals(0, instance.evict().evicted().size());
+        assertTrue(exists(directory));
+    }
+
+    private static Path givenBinary(Path base, String name, int size, int lastUsedDaysAgo) throws Exception {
+        final Path directory = createDirectories(base.resolve(name));
+        write(directory.resolve("hugo"), new byte[size]);
+        final Path marker = write(directory.resolve(".last-used"), new byte[0]);
+        setLastModifiedTime(marker, FileTime.from(Instant.now().minus(lastUsedDaysAgo, ChronoUnit.DAYS)));
+        return directory;
+    }
+
+}
@@ -0,0 +1,100 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.write;
+import static java.util.Arrays.asList;
+import static org.echocat.maven.plugins.hugo.model.Config.configOf;
+import static org.echocat.maven.plugins.hugo.utils.HugoConfigReader.hugoConfigReader;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.echocat.maven.plugins.hugo.model.Config;
+import org.echocat.maven.plugins.hugo.utils.HugoConfigReader.Result;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HugoConfigReaderTest {
+
+    @Test
+    void read_tomlFile(@TempDir Path tmpDir) throws Exception {
+        final Path file = tmpDir.resolve("hugo.toml");
+        write(file, asList(
+            "contentDir = \"docs\"",
+            "theme = [\"a\", \"b\"]",
+            "[[module.mounts]]",
+            "source = \"src/static\"",
+            "target = \"static\""
+        ), UTF_8);
+
+        final Result actual = read(configOf(file), null);
+
+        assertEquals(Optional.of("docs"), actual.getString("contentDir"));
+        assertEquals(asList("a", "b"), actual.getStrings("theme"));
+        assertEquals(1, actual.getMaps("module", "mounts").size());
+        assertEquals("src/static", actual.getMaps("module", "mounts").get(0).get("source"));
+        assertEquals(asList(file), actual.files());
+    }
+
+    @Test
+    void read_configDirectoryWithEnvironmentOverlay(@TempDir Path tmpDir) throws Exception {
+        final Path directory = tmpDir.resolve("config");
+        createDirectories(directory.resolve("_default"));
+        createDirectories(directory.resolve("production"));
+        createDirectories(directory.resolve("staging"));
+        write(directory.resolve("_default").resolve("hugo.yaml"), asList(
+            "contentDir: content",
+            "params:",
+            "  a: 1",
+            "  b: 2"
+        ), UTF_8);
+        write(directory.resolve("_default").resolve("params.toml"), asList("c = 3"), UTF_8);
+        write(directory.resolve("production").resolve("hugo.json"), asList("{\"params\": {\"b\": 20}}"), UTF_8);
+        write(directory.resolve("staging").resolve("hugo.toml"), asList("contentDir = \"draft\""), UTF_8);
+
+        final Result production = read(configOf(directory), null);
+        assertEquals(Optional.of("content"), production.getString("contentDir"));
+        assertEquals(Optional.of("1"), production.getString("params", "a"));
+        assertEquals(Optional.of("20"), production.getString("params", "b"));
+        assertEquals(Optional.of("3"), production.getString("params", "c"));
+        assertEquals(3, production.files().size());
+
+        final Result staging = read(configOf(directory), "staging");
+        assertEquals(Optional.of("draft"), staging.getString("contentDir"));
+        assertEquals(Optional.of("2"), staging.getString("params", "b"));
+    }
+
+    @Test
+    void read_languageSpecificFiles(@TempDir Path tmpDir) throws Exception {
+        final Path directory = tmpDir.resolve("config");
+        createDirectories(directory.resolve("_default"));
+        write(directory.resolve("_default").resolve("languages.toml"), asList(
+            "[en]",
+            "contentDir = \"content/en\""
+        ), UTF_8);
+        write(directory.resolve("_default").resolve("menus.de.yaml"), asList("main: []"), UTF_8);
+
+        final Result actual = read(configOf(directory), null);
+
+        assertEquals(Optional.of("content/en"), actual.getString("languages", "en", "contentDir"));
+        assertTrue(actual.get("languages", "de", "menus", "main").isPresent());
+    }
+
+    @Test
+    void read_failsOnBrokenFile(@TempDir Path tmpDir) throws Exception {
+        final Path file = tmpDir.resolve("hugo.toml");
+        write(file, asList("contentDir = "), UTF_8);
+
+        assertThrows(FailureException.class, () -> read(configOf(file), null));
+    }
+
+    private static Result read(Config config, String environment) {
+        return hugoConfigReader()
+            .withEnvironment(environment)
+            .build()
+            .read(config);
+    }
+
+}
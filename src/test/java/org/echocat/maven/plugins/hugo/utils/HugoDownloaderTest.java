@@ -0,0 +1,61 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.readAllBytes;
+import static org.echocat.maven.plugins.hugo.model.Platform.linux_amd64;
+import static org.echocat.maven.plugins.hugo.utils.FileSystems.ensureExecutable;
+import static org.echocat.maven.plugins.hugo.utils.HugoDownloader.hugoDownloader;
+import static org.echocat.maven.plugins.hugo.utils.HugoDownloader.sha256Of;
+import static org.echocat.maven.plugins.hugo.utils.TestFiles.givenFile;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HugoDownloaderTest {
+
+    @Test
+    void installed_recordsChecksumOfBinariesInstalledWithoutOne(@TempDir Path tmpDir) throws Exception {
+        final HugoDownloader instance = givenInstance();
+        final Path executable = givenFile(tmpDir, "hugo", "binary");
+        ensureExecutable(executable);
+
+        assertTrue(instance.installed(executable));
+        assertEquals(sha256Of(executable), new String(readAllBytes(instance.checksumFileOf(executable)), UTF_8));
+
+        givenFile(tmpDir, "hugo", "bin");
+        assertFalse(instance.installed(executable));
+    }
+
+    @Test
+    void installed_rejectsModifiedBinary(@TempDir Path tmpDir) throws Exception {
+        final HugoDownloader instance = givenInstance();
+        final Path executable = givenFile(tmpDir, "hugo", "binary");
+        ensureExecutable(executable);
+        instance.recordChecksum(executable, sha256Of(executable));
+
+        givenFile(tmpDir, "hugo", "bin");
+
+        assertFalse(instance.installed(executable));
+    }
+
+    @Test
+    void installed_rejectsMissingBinary(@TempDir Path tmpDir) {
+        final HugoDownloader instance = givenInstance();
+        final Path executable = tmpDir.resolve("hugo");
+        instance.recordChecksum(executable, "0000");
+
+        assertFalse(instance.installed(executable));
+    }
+
+    private static HugoDownloader givenInstance() {
+        return hugoDownloader()
+            .withLog(new SystemStreamLog())
+            .withPlatform(linux_amd64)
+            .build();
+    }
+
+}
@@ -0,0 +1,100 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.write;
+import static java.util.Arrays.asList;
+import static org.echocat.maven.plugins.hugo.model.Config.configOf;
+import static org.echocat.maven.plugins.hugo.utils.FileSystemFingerprinter.fileSystemFingerprinter;
+import static org.echocat.maven.plugins.hugo.utils.HugoInputs.hugoInputs;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.echocat.maven.plugins.hugo.model.InputSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HugoInputsTest {
+
+    @Test
+    void inputSetFor_defaults(@TempDir Path tmpDir) throws Exception {
+        write(tmpDir.resolve("hugo.toml"), asList("title = \"foo\""), UTF_8);
+
+        assertEquals(asList(
+            "_vendor",
+            "archetypes",
+            "assets",
+            "content",
+            "data",
+            "go.mod",
+            "go.sum",
+            "hugo.toml",
+            "i18n",
+            "layouts",
+            "package.json",
+            "static"
+        ), relativeRootsOf(tmpDir, "hugo.toml"));
+    }
+
+    @Test
+    void inputSetFor_mountsReplaceDefaultsAndThemesAreIncluded(@TempDir Path tmpDir) throws Exception {
+        write(tmpDir.resolve("hugo.toml"), asList(
+            "contentDir = \"docs\"",
+            "theme = \"fancy\"",
+            "[[module.mounts]]",
+            "source = \"web/static\"",
+            "target = \"static\"",
+            "[languages.de]",
+            "contentDir = \"docs-de\""
+        ), UTF_8);
+
+        final List<String> actual = relativeRootsOf(tmpDir, "hugo.toml");
+
+        assertTrue(actual.contains("docs"));
+        assertTrue(actual.contains("docs-de"));
+        assertTrue(actual.contains("web/static"));
+        assertTrue(actual.contains("themes/fancy"));
+        assertFalse(actual.contains("static"));
+        assertFalse(actual.contains("content"));
+    }
+
+    @Test
+    void fingerprint_changesWithInputs(@TempDir Path tmpDir) throws Exception {
+        write(tmpDir.resolve("hugo.toml"), asList("title = \"foo\""), UTF_8);
+        createDirectories(tmpDir.resolve("content"));
+        write(tmpDir.resolve("content").resolve("a.md"), asList("a"), UTF_8);
+        write(tmpDir.resolve("unrelated.txt"), asList("a"), UTF_8);
+
+        final InputSet inputs = hugoInputs()
+            .withWorkingDirectory(tmpDir)
+            .build()
+            .inputSetFor(configOf(tmpDir.resolve("hugo.toml")));
+
+        final String initial = fileSystemFingerprinter().fingerprint(inputs);
+        assertEquals(initial, fileSystemFingerprinter().fingerprint(inputs));
+
+        write(tmpDir.resolve("unrelated.txt"), asList("changed"), UTF_8);
+        assertEquals(initial, fileSystemFingerprinter().fingerprint(inputs));
+
+        write(tmpDir.resolve("content").resolve("b.md"), asList("b"), UTF_8);
+        assertNotEquals(initial, fileSystemFingerprinter().fingerprint(inputs));
+    }
+
+    private static List<String> relativeRootsOf(Path workingDirectory, String config) {
+        final Path base = workingDirectory.toAbsolutePath().normalize();
+        return hugoInputs()
+            .withWorkingDirectory(workingDirectory)
+            .build()
+            .inputSetFor(configOf(workingDirectory.resolve(config)))
+            .roots()
+            .stream()
+            .map(base::relativize)
+            .map(Path::toString)
+            .map(v -> v.replace('\\', '/'))
+            .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,132 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.time.Duration.ZERO;
+import static java.time.Duration.ofHours;
+import static java.util.Arrays.asList;
+import static org.echocat.maven.plugins.hugo.utils.HugoReleaseIndex.hugoReleaseIndex;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.zafarkhaja.semver.Version;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HugoReleaseIndexTest {
+
+    private static final String ETAG = "\"page1\"";
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/releases", exchange -> {
+            requests.incrementAndGet();
+            final String query = exchange.getRequestURI().getQuery();
+            if (query == null || !query.contains("page=2")) {
+                if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    exchange.sendResponseHeaders(304, -1);
+                    exchange.close();
+                    return;
+                }
+                exchange.getResponseHeaders().add("ETag", ETAG);
+                exchange.getResponseHeaders().add("Link", "<" + url() + "?page=2>; rel=\"next\", <" + url() + "?page=2>; rel=\"last\"");
+                respond(exchange, "[{\"tag_name\":\"v0.130.0\"},{\"tag_name\":\"v0.129.0-rc1\",\"prerelease\":true},{\"tag_name\":\"v0.129.0\"}]");
+            } else {
+                respond(exchange, "[{\"tag_name\":\"v0.128.1\"},{\"tag_name\":\"v0.128.0\"}]");
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void versions_readsAllPagesAndStoresThem(@TempDir Path tmpDir) throws Exception {
+        final HugoReleaseIndex instance = hugoReleaseIndex()
+            .withLog(new SystemStreamLog())
+            .withUrl(url())
+            .withFile(tmpDir.resolve("releases"))
+            .build();
+
+        assertEquals(asList(
+            Version.of(0, 130, 0),
+            Version.of(0, 129, 0),
+            Version.of(0, 128, 1),
+            Version.of(0, 128, 0)
+        ), instance.versions());
+        assertEquals(2, requests.get());
+
+        assertEquals(instance.versions(), instance.readCached().orElse(null));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void versions_notModifiedIsNotReadAgain(@TempDir Path tmpDir) throws Exception {
+        hugoReleaseIndex()
+            .withLog(new SystemStreamLog())
+            .withUrl(url())
+            .withFile(tmpDir.resolve("releases"))
+            .build()
+            .versions();
+
+        final HugoReleaseIndex instance = hugoReleaseIndex()
+            .withLog(new SystemStreamLog())
+            .withUrl(url())
+            .withFile(tmpDir.resolve("releases"))
+            .withCacheDuration(ZERO)
+            .build();
+
+        assertEquals(4, instance.versions().size());
+        assertEquals(3, requests.get());
+    }
+
+    @Test
+    void versions_fallsBackToOutdatedIndex(@TempDir Path tmpDir) throws Exception {
+        hugoReleaseIndex()
+            .withLog(new SystemStreamLog())
+            .withUrl(url())
+            .withFile(tmpDir.resolve("releases"))
+            .withCacheDuration(ofHours(1))
+            .build()
+            .versions();
+
+        final HugoReleaseIndex instance = hugoReleaseIndex()
+            .withLog(new SystemStreamLog())
+            .withUrl(new URL("http://127.0.0.1:1/does/not/exist"))
+            .withFile(tmpDir.resolve("releases"))
+            .withCacheDuration(ZERO)
+            .build();
+
+        assertEquals(4, instance.versions().size());
+    }
+
+    private URL url() {
+        return Urls.parse("http://127.0.0.1:" + server.getAddress().getPort() + "/releases");
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        final byte[] bytes = body.getBytes(UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (final OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+}
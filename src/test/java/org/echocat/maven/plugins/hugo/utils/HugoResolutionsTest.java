@@ -0,0 +1,134 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.time.Duration.ZERO;
+import static java.time.Duration.ofMinutes;
+import static java.time.Duration.ofNanos;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.echocat.maven.plugins.hugo.model.Platform.linux_amd64;
+import static org.echocat.maven.plugins.hugo.utils.Hugo.Download.onDemand;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.zafarkhaja.semver.Version;
+import org.echocat.maven.plugins.hugo.utils.HugoResolutions.Key;
+import org.echocat.maven.plugins.hugo.utils.HugoResolutions.Resolution;
+import org.echocat.maven.plugins.hugo.utils.HugoVersionRetriever.Fallback;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class HugoResolutionsTest {
+
+    private static final Key KEY = new Key("latest", onDemand, linux_amd64, Paths.get("hugo_cache"), null, null, false, emptyList());
+    private static final Resolution RESOLUTION = new Resolution(Version.of(0, 145, 0), Paths.get("hugo"));
+
+    @AfterEach
+    void clear() {
+        HugoResolutions.clear();
+    }
+
+    @Test
+    void resolve_concurrentCallsShareOneResolution() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Resolution>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> HugoResolutions.resolve(KEY, ofMinutes(1), () -> {
+                    calls.incrementAndGet();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    return RESOLUTION;
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            for (final Future<Resolution> future : futures) {
+                assertSame(RESOLUTION, future.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void resolve_expiredIsResolvedAgain() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+
+        HugoResolutions.resolve(KEY, ofNanos(1), () -> {
+            calls.incrementAndGet();
+            return RESOLUTION;
+        });
+        Thread.sleep(5);
+        HugoResolutions.resolve(KEY, ofNanos(1), () -> {
+            calls.incrementAndGet();
+            return RESOLUTION;
+        });
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void resolve_failuresAreNotCached() {
+        assertThrows(FailureException.class, () -> HugoResolutions.resolve(KEY, ofMinutes(1), () -> {
+            throw new FailureException("expected");
+        }));
+
+        assertSame(RESOLUTION, HugoResolutions.resolve(KEY, ofMinutes(1), () -> RESOLUTION));
+    }
+
+    @Test
+    void resolve_keysDifferInEveryInput() {
+        final List<Key> keys = asList(
+            KEY,
+            new Key("latest", onDemand, linux_amd64, Paths.get("hugo_cache"), "https://example.org/releases.json", null, false, emptyList()),
+            new Key("latest", onDemand, linux_amd64, Paths.get("hugo_cache"), null, Fallback.never, false, emptyList()),
+            new Key("latest", onDemand, linux_amd64, Paths.get("hugo_cache"), null, null, true, emptyList()),
+            new Key("latest", onDemand, linux_amd64, Paths.get("hugo_cache"), null, null, true, singletonList(Paths.get("bin")))
+        );
+        final AtomicInteger calls = new AtomicInteger();
+
+        for (final Key key : keys) {
+            HugoResolutions.resolve(key, ofMinutes(1), () -> {
+                calls.incrementAndGet();
+                return RESOLUTION;
+            });
+        }
+
+        assertEquals(keys.size(), calls.get());
+        assertEquals(KEY, new Key("latest", onDemand, linux_amd64, Paths.get("hugo_cache").toAbsolutePath(), " ", Fallback.any, false, emptyList()));
+    }
+
+    @Test
+    void resolve_disabledWithoutTimeToLive() {
+        final AtomicInteger calls = new AtomicInteger();
+
+        HugoResolutions.resolve(KEY, ZERO, () -> {
+            calls.incrementAndGet();
+            return RESOLUTION;
+        });
+        HugoResolutions.resolve(KEY, ZERO, () -> {
+            calls.incrementAndGet();
+            return RESOLUTION;
+        });
+
+        assertEquals(2, calls.get());
+    }
+
+}
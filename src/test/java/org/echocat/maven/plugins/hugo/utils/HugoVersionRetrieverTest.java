@@ -0,0 +1,222 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.*;
+import static java.time.Duration.ofDays;
+import static java.time.Duration.ofHours;
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofNanos;
+import static java.time.Duration.ofSeconds;
+import static java.util.Collections.singletonList;
+import static org.echocat.maven.plugins.hugo.utils.HugoCache.hugoCache;
+import static org.echocat.maven.plugins.hugo.utils.HugoVersionRetriever.hugoVersionRetriever;
+import static org.echocat.maven.plugins.hugo.utils.Urls.Timeouts.timeouts;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.zafarkhaja.semver.Version;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.echocat.maven.plugins.hugo.model.Platform;
+import org.echocat.maven.plugins.hugo.utils.HugoVersionRetriever.Fallback;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HugoVersionRetrieverTest {
+
+    private static final String ETAG = "\"abc\"";
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger notModifiedResponses = new AtomicInteger();
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/latest", exchange -> {
+            requests.incrementAndGet();
+            if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModifiedResponses.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            final byte[] body = "{\"tag_name\":\"v0.145.0\"}".getBytes(UTF_8);
+            exchange.getResponseHeaders().add("ETag", ETAG);
+            exchange.sendResponseHeaders(200, body.length);
+            try (final OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void latest_storesEtag(@TempDir Path tmpDir) throws Exception {
+        final HugoVersionRetriever instance = hugoVersionRetriever()
+            .withLog(new SystemStreamLog())
+            .withLatestCacheFile(tmpDir.resolve("latest.cache"))
+            .build();
+
+        assertEquals(Version.of(0, 145, 0), instance.latest(latestUrl()));
+
+        assertEquals(singletonList("0.145.0"), readAllLines(instance.latestCacheFile()));
+        final Optional<HugoVersionRetriever.Cached> cached = instance.readLatestCachedEntry();
+        assertTrue(cached.isPresent());
+        assertEquals(Optional.of(ETAG), cached.get().etag());
+    }
+
+    @Test
+    void latest_notModifiedExtendsCache(@TempDir Path tmpDir) throws Exception {
+        final HugoVersionRetriever instance = hugoVersionRetriever()
+            .withLog(new SystemStreamLog())
+            .withLatestCacheFile(tmpDir.resolve("latest.cache"))
+            .withLatestCacheDuration(ofSeconds(10))
+            .build();
+
+        instance.writeLatestCached(Version.of(1, 2, 3), ETAG, null);
+        givenCacheAge(instance, ofHours(1).getSeconds());
+        assertFalse(instance.readLatestCached().isPresent());
+
+        assertEquals(Version.of(1, 2, 3), instance.latest(latestUrl()));
+        assertEquals(1, notModifiedResponses.get());
+        assertTrue(instance.readLatestCached().isPresent());
+    }
+
+    @Test
+    void latest_staleWhileRevalidate(@TempDir Path tmpDir) throws Exception {
+        final HugoVersionRetriever instance = hugoVersionRetriever()
+            .withLog(new SystemStreamLog())
+            .withLatestCacheFile(tmpDir.resolve("latest.cache"))
+            .withLatestCacheDuration(ofSeconds(10))
+            .withLatestStaleDuration(ofHours(1))
+            .build();
+
+        instance.writeLatestCached(Version.of(1, 2, 3));
+        givenCacheAge(instance, 60);
+
+        assertEquals(Version.of(1, 2, 3), instance.latest(latestUrl()));
+
+        for (int i = 0; i < 100 && !instance.readLatestCached().isPresent(); i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(1, requests.get());
+        assertEquals(Optional.of(Version.of(0, 145, 0)), instance.readLatestCached());
+    }
+
+    @Test
+    void latest_tooStaleIsRetrievedSynchronously(@TempDir Path tmpDir) throws Exception {
+        final HugoVersionRetriever instance = hugoVersionRetriever()
+            .withLog(new SystemStreamLog())
+            .withLatestCacheFile(tmpDir.resolve("latest.cache"))
+            .withLatestCacheDuration(ofSeconds(10))
+            .withLatestStaleDuration(ofSeconds(10))
+            .build();
+
+        instance.writeLatestCached(Version.of(1, 2, 3));
+        givenCacheAge(instance, 60);
+
+        assertEquals(Version.of(0, 145, 0), instance.latest(latestUrl()));
+    }
+
+    @Test
+    void latest_fallsBackToNewestInstalled(@TempDir Path tmpDir) throws Exception {
+        final Platform platform = Platform.linux_amd64;
+        givenInstalled(tmpDir.resolve("bin"), platform, "0.100.0");
+        givenInstalled(tmpDir.resolve("bin"), platform, "0.120.0");
+        final HugoVersionRetriever instance = hugoVersionRetriever()
+            .withLog(new SystemStreamLog())
+            .withLatestCacheFile(tmpDir.resolve("latest.cache"))
+            .withPlatform(platform)
+            .withCache(hugoCache().withLog(new SystemStreamLog()).withDirectory(tmpDir.resolve("bin")).build())
+            .build();
+        instance.writeLatestCached(Version.of(0, 110, 0));
+        givenCacheAge(instance, ofHours(2).getSeconds());
+
+        assertEquals(Version.of(0, 120, 0), instance.latest(unreachableUrl()));
+    }
+
+    @Test
+    void latest_fallsBackToLastKnown(@TempDir Path tmpDir) throws Exception {
+        final HugoVersionRetriever instance = hugoVersionRetriever()
+            .withLog(new SystemStreamLog())
+            .withLatestCacheFile(tmpDir.resolve("latest.cache"))
+            .withFallback(Fallback.lastKnown)
+            .build();
+        instance.writeLatestCached(Version.of(0, 110, 0));
+        givenCacheAge(instance, ofDays(30).getSeconds());
+
+        assertEquals(Version.of(0, 110, 0), instance.latest(unreachableUrl()));
+    }
+
+    @Test
+    void latest_failsWithoutFallback(@TempDir Path tmpDir) throws Exception {
+        final HugoVersionRetriever instance = hugoVersionRetriever()
+            .withLog(new SystemStreamLog())
+            .withLatestCacheFile(tmpDir.resolve("latest.cache"))
+            .withFallback(Fallback.never)
+            .build();
+        instance.writeLatestCached(Version.of(0, 110, 0));
+        givenCacheAge(instance, ofDays(30).getSeconds());
+
+        assertThrows(UncheckedIOException.class, () -> instance.latest(unreachableUrl()));
+    }
+
+    @Test
+    void latest_readTimeoutFallsBackQuickly(@TempDir Path tmpDir) throws Exception {
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException ignored) {
+            }
+            exchange.close();
+        });
+        final HugoVersionRetriever instance = hugoVersionRetriever()
+            .withLog(new SystemStreamLog())
+            .withLatestCacheFile(tmpDir.resolve("latest.cache"))
+            .withTimeouts(timeouts(ofMillis(500), ofMillis(200)))
+            .build();
+        instance.writeLatestCached(Version.of(0, 110, 0));
+        givenCacheAge(instance, ofHours(2).getSeconds());
+
+        final long start = System.nanoTime();
+        assertEquals(Version.of(0, 110, 0), instance.latest(new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/slow")));
+        assertTrue(ofNanos(System.nanoTime() - start).compareTo(ofSeconds(1)) < 0);
+    }
+
+    private URL latestUrl() throws Exception {
+        return new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/latest");
+    }
+
+    private static URL unreachableUrl() throws Exception {
+        return new URL("http://127.0.0.1:1/latest");
+    }
+
+    private static void givenInstalled(Path directory, Platform platform, String version) throws Exception {
+        final Path executable = directory.resolve(platform + "-" + version).resolve(platform.hugoExecutableFileName());
+        createDirectories(executable.getParent());
+        write(executable, "#!/bin/sh\n".getBytes(UTF_8));
+        executable.toFile().setExecutable(true);
+    }
+
+    private static void givenCacheAge(HugoVersionRetriever instance, long seconds) throws Exception {
+        setLastModifiedTime(instance.latestCacheFile(), FileTime.from(Instant.now().minusSeconds(seconds)));
+    }
+
+}
@@ -0,0 +1,58 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.echocat.maven.plugins.hugo.model.Platform.platform;
+import static org.echocat.maven.plugins.hugo.model.Versions.version0x145x0;
+import static org.echocat.maven.plugins.hugo.utils.HugoDownloader.hugoDownloader;
+import static org.echocat.maven.plugins.hugo.utils.LanguageGroups.languageGroupsOf;
+import static org.echocat.maven.plugins.hugo.utils.TestFiles.givenFile;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.echocat.maven.plugins.hugo.utils.LanguageGroups.Group;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LanguageGroupsExternalTest {
+
+    @Test
+    void toToml_disablesLanguagesOfOtherGroups(@TempDir Path tmpDir) throws Exception {
+        final Path executable = tmpDir.resolve("bin").resolve("hugo" + platform().executableExtension().orElse(""));
+        hugoDownloader()
+            .withPlatform(platform())
+            .withLog(new SystemStreamLog())
+            .build()
+            .download(version0x145x0, executable);
+        final Path site = tmpDir.resolve("site");
+        final Path config = givenFile(site, "hugo.toml", ""
+            + "baseURL = \"https://example.org/\"\n"
+            + "defaultContentLanguage = \"en\"\n"
+            + "disableKinds = [\"taxonomy\", \"term\", \"RSS\"]\n"
+            + "[languages.en]\n"
+            + "[languages.de]\n"
+            + "[languages.fr]\n");
+        givenFile(site, "layouts/index.html", "{{ .Language.Lang }}");
+
+        final Group group = languageGroupsOf("en", new LinkedHashSet<>(asList("en", "de", "fr")), emptyList()).groups().get(1);
+        final Path overlay = givenFile(tmpDir, "overlay.toml", group.toToml());
+        final Path output = tmpDir.resolve("output");
+        Hugo.hugo()
+            .withLog(new SystemStreamLog())
+            .withPlatform(platform())
+            .withVersion(version0x145x0)
+            .withExecutable(executable)
+            .build()
+            .execute(asList("--config", config + "," + overlay, "--destination", output.toString()), site);
+
+        assertTrue(Files.isRegularFile(output.resolve("de").resolve("index.html")));
+        assertTrue(Files.isRegularFile(output.resolve("en").resolve("index.html")) || Files.isRegularFile(output.resolve("index.html")));
+        assertFalse(Files.exists(output.resolve("fr")));
+    }
+
+}
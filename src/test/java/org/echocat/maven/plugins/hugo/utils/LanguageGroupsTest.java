@@ -0,0 +1,59 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.echocat.maven.plugins.hugo.utils.LanguageGroups.languageGroupsOf;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.echocat.maven.plugins.hugo.utils.LanguageGroups.Group;
+import org.junit.jupiter.api.Test;
+
+class LanguageGroupsTest {
+
+    @Test
+    void languageGroupsOf_onePerLanguage() {
+        final List<Group> actual = languageGroupsOf("en", new LinkedHashSet<>(asList("de", "en", "fr")), emptyList()).groups();
+
+        assertEquals(asList("en (primary)", "de", "fr"), namesOf(actual));
+        assertEquals(asList("de", "fr"), actual.get(0).disabledLanguages());
+        assertEquals(emptyList(), actual.get(0).outputPrefixes());
+        assertEquals(singletonList("fr"), actual.get(1).disabledLanguages());
+        assertEquals(singletonList("de/"), actual.get(1).outputPrefixes());
+    }
+
+    @Test
+    void languageGroupsOf_configuredGroups() {
+        final List<Group> actual = languageGroupsOf("en", new LinkedHashSet<>(asList("de", "en", "fr", "it", "nl")), asList("DE, nl", "fr,en")).groups();
+
+        assertEquals(asList("fr+en (primary)", "de+nl", "it"), namesOf(actual));
+        assertEquals(asList("de", "it", "nl"), actual.get(0).disabledLanguages());
+        assertEquals(asList("fr", "it"), actual.get(1).disabledLanguages());
+        assertEquals(asList("de/", "nl/"), actual.get(1).outputPrefixes());
+    }
+
+    @Test
+    void toToml_disablesOtherAndAlreadyDisabledLanguages() {
+        final List<Group> actual = languageGroupsOf("en", new LinkedHashSet<>(asList("de", "en", "fr")), new LinkedHashSet<>(singletonList("it")), emptyList()).groups();
+
+        assertEquals("disableLanguages = [\"de\", \"fr\", \"it\"]\n", actual.get(0).toToml());
+        assertEquals("disableLanguages = [\"fr\", \"it\"]\n", actual.get(1).toToml());
+    }
+
+    @Test
+    void languageGroupsOf_failsOnUnknownOrDuplicateLanguages() {
+        assertThrows(FailureException.class, () -> languageGroupsOf("en", new LinkedHashSet<>(asList("de", "en")), singletonList("fr")));
+        assertThrows(FailureException.class, () -> languageGroupsOf("en", new LinkedHashSet<>(asList("de", "en")), asList("de", "de,en")));
+    }
+
+    private static List<String> namesOf(List<Group> groups) {
+        return groups.stream()
+            .map(Group::toString)
+            .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,92 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.*;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.echocat.maven.plugins.hugo.utils.ManifestGenerator.manifestGenerator;
+import static org.echocat.maven.plugins.hugo.utils.TestFiles.givenFile;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.echocat.maven.plugins.hugo.model.Manifest.Entry;
+import org.echocat.maven.plugins.hugo.utils.ManifestGenerator.Result;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ManifestGeneratorTest {
+
+    @Test
+    void update_writesManifestAndDiff(@TempDir Path tmpDir) throws Exception {
+        final Path output = tmpDir.resolve("output");
+        givenFile(output, "index.html", "home");
+        givenFile(output, "css/site.css", "body{}");
+        final Path manifest = tmpDir.resolve("manifest/manifest.json");
+        final Path diff = tmpDir.resolve("manifest/diff.json");
+
+        final Result actual = generator().update(output, manifest, diff);
+
+        assertEquals(2, actual.manifest().size());
+        assertEquals(2, actual.hashed());
+        assertEquals(asList("css/site.css", "index.html"), actual.diff().added());
+        final Entry index = actual.manifest().get("index.html").orElseThrow(AssertionError::new);
+        assertEquals(4, index.size());
+        assertEquals("4ea140588150773ce3aace786aeef7f4049ce100fa649c94fbbddb960f1da942", index.sha256());
+        assertEquals("text/html; charset=utf-8", index.contentType());
+        assertEquals(actual.manifest(), generator().read(manifest));
+        assertTrue(new String(readAllBytes(diff), UTF_8).contains("\"css/site.css\""));
+    }
+
+    @Test
+    void update_reusesHashesAndDiffsAgainstPreviousManifest(@TempDir Path tmpDir) throws Exception {
+        final Path output = tmpDir.resolve("output");
+        givenFile(output, "index.html", "home");
+        givenFile(output, "css/site.css", "body{}");
+        givenFile(output, "old.html", "old");
+        final Path manifest = tmpDir.resolve("manifest.json");
+        final Path diff = tmpDir.resolve("diff.json");
+        generator().update(output, manifest, diff);
+
+        givenFile(output, "index.html", "HOME");
+        setLastModifiedTime(output.resolve("index.html"), FileTime.fromMillis(getLastModifiedTime(output.resolve("index.html")).toMillis() + 2000));
+        delete(output.resolve("old.html"));
+        givenFile(output, "new.html", "new");
+        final Result actual = generator().update(output, manifest, diff);
+
+        assertEquals(1, actual.reused());
+        assertEquals(2, actual.hashed());
+        assertEquals(singletonList("new.html"), actual.diff().added());
+        assertEquals(singletonList("index.html"), actual.diff().changed());
+        assertEquals(singletonList("old.html"), actual.diff().removed());
+
+        final Result unchanged = generator().update(output, manifest, diff);
+        assertEquals(3, unchanged.reused());
+        assertTrue(unchanged.diff().empty());
+        assertEquals(emptyList(), unchanged.diff().changed());
+    }
+
+    @Test
+    void sha256Of_isTheSameForMappedFiles(@TempDir Path tmpDir) throws Exception {
+        final Path file = givenFile(tmpDir, "large.bin", "0123456789abcdef");
+
+        final String streamed = generator().sha256Of(file, size(file));
+        final String mapped = manifestGenerator()
+            .withLog(new SystemStreamLog())
+            .withMappedAbove(0)
+            .build()
+            .sha256Of(file, size(file));
+
+        assertEquals(streamed, mapped);
+    }
+
+    private static ManifestGenerator generator() {
+        return manifestGenerator()
+            .withLog(new SystemStreamLog())
+            .build();
+    }
+
+}
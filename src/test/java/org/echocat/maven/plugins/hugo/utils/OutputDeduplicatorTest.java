@@ -0,0 +1,105 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.*;
+import static java.util.Arrays.asList;
+import static org.echocat.maven.plugins.hugo.utils.OutputDeduplicator.outputDeduplicator;
+import static org.echocat.maven.plugins.hugo.utils.OutputPublisher.outputPublisher;
+import static org.echocat.maven.plugins.hugo.utils.TestFiles.givenFile;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.nio.file.Path;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.echocat.maven.plugins.hugo.utils.OutputDeduplicator.Report;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OutputDeduplicatorTest {
+
+    @Test
+    void deduplicate_linksIdenticalFilesOfAllOutputs(@TempDir Path tmpDir) throws Exception {
+        assumeTrue(getFileStore(tmpDir).supportsFileAttributeView("unix"));
+        final Path en = tmpDir.resolve("en");
+        final Path de = tmpDir.resolve("de");
+        givenFile(en, "index.html", "Hello");
+        givenFile(de, "index.html", "Hallo");
+        givenFile(en, "js/site.js", "alert(1)");
+        givenFile(de, "js/site.js", "alert(1)");
+        givenFile(en, "images/logo.svg", "<svg/>");
+        givenFile(de, "images/logo.svg", "<svg/>");
+        givenFile(de, "images/copy.svg", "<svg/>");
+        givenFile(de, "tiny.txt", "a");
+        givenFile(en, "tiny.txt", "a");
+
+        final Report actual = deduplicator().deduplicate(asList(en, de));
+
+        assertEquals(7, actual.files());
+        assertEquals(3, actual.linked());
+        assertEquals(8 + 6 + 6, actual.savedBytes());
+        assertTrue(isSameFile(en.resolve("js/site.js"), de.resolve("js/site.js")));
+        assertTrue(isSameFile(de.resolve("images/copy.svg"), en.resolve("images/logo.svg")));
+        assertFalse(isSameFile(en.resolve("index.html"), de.resolve("index.html")));
+        assertFalse(isSameFile(en.resolve("tiny.txt"), de.resolve("tiny.txt")));
+        assertEquals("alert(1)", new String(readAllBytes(de.resolve("js/site.js")), UTF_8));
+
+        final Report again = deduplicator().deduplicate(asList(en, de));
+        assertEquals(0, again.linked());
+        assertEquals(3, again.alreadyLinked());
+    }
+
+    @Test
+    void unshare_removesLinkedFilesOnly(@TempDir Path tmpDir) throws Exception {
+        assumeTrue(getFileStore(tmpDir).supportsFileAttributeView("unix"));
+        final Path en = tmpDir.resolve("en");
+        final Path de = tmpDir.resolve("de");
+        givenFile(en, "index.html", "Hello");
+        givenFile(de, "index.html", "Hallo");
+        givenFile(en, "js/site.js", "alert(1)");
+        givenFile(de, "js/site.js", "alert(1)");
+        deduplicator().deduplicate(asList(en, de));
+
+        assertEquals(1, deduplicator().unshare(de, asList(en, de)));
+
+        assertFalse(exists(de.resolve("js/site.js")));
+        assertTrue(exists(de.resolve("index.html")));
+        assertEquals("alert(1)", new String(readAllBytes(en.resolve("js/site.js")), UTF_8));
+        assertEquals(0, deduplicator().unshare(en, asList(en, de)));
+    }
+
+    @Test
+    void unshare_keepsFilesLinkedOutsideOfTheOutputs(@TempDir Path tmpDir) throws Exception {
+        assumeTrue(getFileStore(tmpDir).supportsFileAttributeView("unix"));
+        final Path en = tmpDir.resolve("en");
+        final Path de = tmpDir.resolve("de");
+        givenFile(en, "index.html", "Hello");
+        givenFile(de, "index.html", "Hallo");
+        givenFile(de, "index.html.gz", "Hallo (compressed)");
+        givenFile(en, "js/site.js", "alert(1)");
+        givenFile(de, "js/site.js", "alert(1)");
+        deduplicator().deduplicate(asList(en, de));
+        // Like outputMode=link does with target/classes.
+        final Path classes = tmpDir.resolve("classes");
+        final OutputPublisher publisher = outputPublisher().withLog(new SystemStreamLog()).build();
+        publisher.link(en, classes.resolve("en"));
+        publisher.link(de, classes.resolve("de"));
+
+        assertEquals(1, deduplicator().unshare(de, asList(en, de)));
+
+        assertFalse(exists(de.resolve("js/site.js")));
+        assertTrue(exists(de.resolve("index.html")));
+        assertTrue(exists(de.resolve("index.html.gz")));
+        assertEquals("alert(1)", new String(readAllBytes(en.resolve("js/site.js")), UTF_8));
+        assertEquals(0, deduplicator().unshare(en, asList(en, de)));
+        assertTrue(exists(en.resolve("js/site.js")));
+    }
+
+    private static OutputDeduplicator deduplicator() {
+        return outputDeduplicator()
+            .withLog(new SystemStreamLog())
+            .withMinSize(2)
+            .build();
+    }
+
+}
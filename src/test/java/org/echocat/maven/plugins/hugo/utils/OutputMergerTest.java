@@ -0,0 +1,105 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.*;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.echocat.maven.plugins.hugo.utils.OutputMerger.outputMerger;
+import static org.echocat.maven.plugins.hugo.utils.OutputMerger.sourceOf;
+import static org.echocat.maven.plugins.hugo.utils.TestFiles.givenFile;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.echocat.maven.plugins.hugo.utils.OutputMerger.OnConflict;
+import org.echocat.maven.plugins.hugo.utils.OutputMerger.Report;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OutputMergerTest {
+
+    @Test
+    void merge_deduplicatesIdenticalFiles(@TempDir Path tmpDir) throws Exception {
+        final Path a = tmpDir.resolve("a");
+        givenFile(a, "index.html", "home");
+        givenFile(a, "css/site.css", "body{}");
+        final Path b = tmpDir.resolve("b");
+        givenFile(b, "docs/index.html", "docs");
+        givenFile(b, "css/site.css", "body{}");
+        final Path target = tmpDir.resolve("target");
+
+        final Report actual = merge(OnConflict.fail, a, b, target);
+
+        assertEquals(3, actual.files());
+        assertEquals(1, actual.duplicates());
+        assertEquals(6, actual.duplicateBytes());
+        assertTrue(actual.conflicts().isEmpty());
+        assertEquals("home", contentOf(target.resolve("index.html")));
+        assertEquals("docs", contentOf(target.resolve("docs/index.html")));
+        assertEquals("body{}", contentOf(target.resolve("css/site.css")));
+    }
+
+    @Test
+    void merge_failsOnConflicts(@TempDir Path tmpDir) throws Exception {
+        final Path a = tmpDir.resolve("a");
+        givenFile(a, "sitemap.xml", "a");
+        final Path b = tmpDir.resolve("b");
+        givenFile(b, "sitemap.xml", "b");
+        final Path target = tmpDir.resolve("target");
+
+        final FailureException actual = assertThrows(FailureException.class, () -> merge(OnConflict.fail, a, b, target));
+        assertTrue(actual.getMessage().contains("sitemap.xml"), actual.getMessage());
+        assertFalse(exists(target.resolve("sitemap.xml")));
+    }
+
+    @Test
+    void merge_firstWinsOnConflictsIfOnlyWarned(@TempDir Path tmpDir) throws Exception {
+        final Path a = tmpDir.resolve("a");
+        givenFile(a, "sitemap.xml", "a");
+        final Path b = tmpDir.resolve("b");
+        givenFile(b, "sitemap.xml", "b");
+        final Path target = tmpDir.resolve("target");
+
+        final Report actual = merge(OnConflict.warn, a, b, target);
+
+        assertEquals(singletonList("sitemap.xml"), actual.conflicts());
+        assertEquals("a", contentOf(target.resolve("sitemap.xml")));
+    }
+
+    @Test
+    void mergeSources_onlyTakesFilesWithPrefixes(@TempDir Path tmpDir) throws Exception {
+        final Path a = tmpDir.resolve("a");
+        givenFile(a, "index.html", "en");
+        givenFile(a, "sitemap.xml", "en");
+        final Path b = tmpDir.resolve("b");
+        givenFile(b, "index.html", "en without alternates");
+        givenFile(b, "sitemap.xml", "de");
+        givenFile(b, "de/index.html", "de");
+        final Path target = tmpDir.resolve("target");
+
+        final Report actual = outputMerger()
+            .withLog(new SystemStreamLog())
+            .build()
+            .mergeSources(asList(sourceOf(a), sourceOf(b, singletonList("de/"))), target);
+
+        assertEquals(3, actual.files());
+        assertTrue(actual.conflicts().isEmpty());
+        assertEquals("en", contentOf(target.resolve("index.html")));
+        assertEquals("en", contentOf(target.resolve("sitemap.xml")));
+        assertEquals("de", contentOf(target.resolve("de/index.html")));
+    }
+
+    private static Report merge(OnConflict onConflict, Path a, Path b, Path target) {
+        return outputMerger()
+            .withLog(new SystemStreamLog())
+            .withOnConflict(onConflict)
+            .build()
+            .merge(asList(a, b), target);
+    }
+
+    private static String contentOf(Path file) throws Exception {
+        return new String(readAllBytes(file), UTF_8);
+    }
+
+}
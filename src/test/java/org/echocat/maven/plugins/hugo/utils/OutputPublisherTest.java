@@ -0,0 +1,84 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.*;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.echocat.maven.plugins.hugo.utils.OutputPublisher.outputPublisher;
+import static org.echocat.maven.plugins.hugo.utils.TestFiles.givenFile;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.echocat.maven.plugins.hugo.utils.OutputPublisher.Report;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OutputPublisherTest {
+
+    @Test
+    void link_placesSelectedFilesAsLinks(@TempDir Path tmpDir) throws Exception {
+        final Path output = tmpDir.resolve("output");
+        givenFile(output, "index.html", "home");
+        givenFile(output, "css/site.css", "body{}");
+        givenFile(output, "drafts/index.html", "draft");
+        final Path target = tmpDir.resolve("classes/public");
+
+        final Report actual = outputPublisher()
+            .withLog(new SystemStreamLog())
+            .withExcludes(singletonList("drafts/**"))
+            .build()
+            .link(output, target);
+
+        assertEquals(2, actual.linked() + actual.copied());
+        assertEquals("home", contentOf(target.resolve("index.html")));
+        assertEquals("body{}", contentOf(target.resolve("css/site.css")));
+        assertFalse(exists(target.resolve("drafts/index.html")));
+        if (actual.copied() == 0) {
+            assertTrue(isSameFile(output.resolve("index.html"), target.resolve("index.html")));
+        }
+    }
+
+    @Test
+    void link_replacesExistingFiles(@TempDir Path tmpDir) throws Exception {
+        final Path output = tmpDir.resolve("output");
+        givenFile(output, "index.html", "new");
+        final Path target = tmpDir.resolve("classes");
+        givenFile(target, "index.html", "old");
+
+        outputPublisher()
+            .withLog(new SystemStreamLog())
+            .build()
+            .link(output, target);
+
+        assertEquals("new", contentOf(target.resolve("index.html")));
+    }
+
+    @Test
+    void prune_removesFilesWhichAreNotSelected(@TempDir Path tmpDir) throws Exception {
+        final Path output = tmpDir.resolve("output");
+        givenFile(output, "index.html", "home");
+        givenFile(output, "css/site.css", "body{}");
+        givenFile(output, "css/site.css.map", "{}");
+        givenFile(output, "robots.txt", "");
+
+        final Report actual = outputPublisher()
+            .withLog(new SystemStreamLog())
+            .withIncludes(asList("**/*.html", "**/*.css*"))
+            .withExcludes(singletonList("**/*.map"))
+            .build()
+            .prune(output);
+
+        assertEquals(2, actual.removed());
+        assertTrue(exists(output.resolve("index.html")));
+        assertTrue(exists(output.resolve("css/site.css")));
+        assertFalse(exists(output.resolve("css/site.css.map")));
+        assertFalse(exists(output.resolve("robots.txt")));
+    }
+
+    private static String contentOf(Path file) throws Exception {
+        return new String(readAllBytes(file), UTF_8);
+    }
+
+}
@@ -0,0 +1,89 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.*;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.echocat.maven.plugins.hugo.utils.OutputSwapper.outputSwapper;
+import static org.echocat.maven.plugins.hugo.utils.TestFiles.givenFile;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.echocat.maven.plugins.hugo.utils.OutputSwapper.Report;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OutputSwapperTest {
+
+    @Test
+    void swap_replacesOutputAndDeletesOldTreeInBackground(@TempDir Path tmpDir) throws Exception {
+        final OutputSwapper swapper = swapper(tmpDir);
+        final Path output = tmpDir.resolve("site/public");
+        givenFile(output, "index.html", "old");
+        givenFile(output, "removed.html", "removed");
+
+        final Path staging = swapper.prepare(output);
+        assertTrue(isDirectory(staging));
+        assertEquals(0, countOf(staging));
+        givenFile(staging, "index.html", "new");
+        assertEquals("old", new String(readAllBytes(output.resolve("index.html")), UTF_8));
+
+        final Report report = swapper.swap(staging, output);
+        report.deletion().get(10, SECONDS);
+
+        assertEquals(0, report.copied());
+        assertEquals("new", new String(readAllBytes(output.resolve("index.html")), UTF_8));
+        assertFalse(exists(output.resolve("removed.html")));
+        assertFalse(exists(staging));
+        assertEquals(0, countOf(tmpDir.resolve("state/trash")));
+        try (final Stream<Path> siblings = list(output.getParent())) {
+            assertEquals(1, siblings.count());
+        }
+    }
+
+    @Test
+    void discard_keepsOutputUntouched(@TempDir Path tmpDir) throws Exception {
+        final OutputSwapper swapper = swapper(tmpDir);
+        final Path output = tmpDir.resolve("public");
+        givenFile(output, "index.html", "old");
+
+        final Path staging = swapper.prepare(output);
+        givenFile(staging, "index.html", "half");
+        swapper.discard(staging, output);
+
+        assertFalse(exists(staging));
+        assertEquals("old", new String(readAllBytes(output.resolve("index.html")), UTF_8));
+        // Directly reusable, even if the discarded tree is still being deleted.
+        assertEquals(0, countOf(swapper.prepare(output)));
+    }
+
+    @Test
+    void deleteInParallel_removesWholeTree(@TempDir Path tmpDir) throws Exception {
+        final Path tree = tmpDir.resolve("tree");
+        for (int i = 0; i < 50; i++) {
+            givenFile(tree, "section" + (i % 5) + "/page" + i + "/index.html", "page " + i);
+        }
+
+        assertEquals(50, swapper(tmpDir).deleteInParallel(tree));
+        assertFalse(exists(tree));
+    }
+
+    private static OutputSwapper swapper(Path tmpDir) {
+        return outputSwapper()
+            .withLog(new SystemStreamLog())
+            .withWorkDirectory(tmpDir.resolve("state"))
+            .build();
+    }
+
+    private static long countOf(Path directory) throws Exception {
+        if (!exists(directory)) {
+            return 0;
+        }
+        try (final Stream<Path> children = list(directory)) {
+            return children.count();
+        }
+    }
+
+}
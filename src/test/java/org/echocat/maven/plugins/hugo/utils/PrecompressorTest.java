@@ -0,0 +1,104 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.*;
+import static java.util.Arrays.asList;
+import static org.echocat.maven.plugins.hugo.utils.TestFiles.givenFile;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import io.airlift.compress.zstd.ZstdInputStream;
+import org.apache.commons.compress.utils.IOUtils;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.echocat.maven.plugins.hugo.utils.Precompressor.Format;
+import org.echocat.maven.plugins.hugo.utils.Precompressor.Report;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PrecompressorTest {
+
+    @Test
+    void precompress_writesVariantsOfTextFiles(@TempDir Path tmpDir) throws Exception {
+        final byte[] page = givenPage();
+        givenFile(tmpDir, "index.html", page);
+        givenFile(tmpDir, "small.css", "body{}".getBytes(UTF_8));
+        givenFile(tmpDir, "logo.png", page);
+        final byte[] random = new byte[16 * 1024];
+        new Random(42).nextBytes(random);
+        givenFile(tmpDir, "random.js", random);
+
+        final Report actual = precompress(tmpDir);
+
+        assertEquals(2, actual.written());
+        assertEquals(2, actual.tooSmall());
+        assertEquals(2, actual.notWorthIt());
+        try (final InputStream is = new GZIPInputStream(newInputStream(tmpDir.resolve("index.html.gz")))) {
+            assertArrayEquals(page, IOUtils.toByteArray(is));
+        }
+        try (final InputStream is = new ZstdInputStream(newInputStream(tmpDir.resolve("index.html.zst")))) {
+            assertArrayEquals(page, IOUtils.toByteArray(is));
+        }
+        assertEquals(getLastModifiedTime(tmpDir.resolve("index.html")), getLastModifiedTime(tmpDir.resolve("index.html.gz")));
+        assertFalse(exists(tmpDir.resolve("small.css.gz")));
+        assertFalse(exists(tmpDir.resolve("logo.png.gz")));
+        assertFalse(exists(tmpDir.resolve("random.js.gz")));
+    }
+
+    @Test
+    void precompress_skipsVariantsWhichAreUpToDate(@TempDir Path tmpDir) throws Exception {
+        givenFile(tmpDir, "index.html", givenPage());
+        precompress(tmpDir);
+
+        final Report actual = precompress(tmpDir);
+
+        assertEquals(0, actual.written());
+        assertEquals(2, actual.upToDate());
+    }
+
+    @Test
+    void carryOver_copiesVariantsOfUnchangedFiles(@TempDir Path tmpDir) throws Exception {
+        final byte[] page = givenPage();
+        final Path previous = tmpDir.resolve("previous");
+        givenFile(previous, "index.html", page);
+        givenFile(previous, "blog/index.html", page);
+        precompress(previous);
+        final Path staging = tmpDir.resolve("staging");
+        givenFile(staging, "index.html", page);
+        givenFile(staging, "blog/index.html", (new String(page, UTF_8) + "changed").getBytes(UTF_8));
+
+        final int actual = precompressor(asList(Format.gzip, Format.zstd)).carryOver(previous, staging);
+
+        assertEquals(2, actual);
+        assertArrayEquals(readAllBytes(previous.resolve("index.html.gz")), readAllBytes(staging.resolve("index.html.gz")));
+        assertFalse(exists(staging.resolve("blog/index.html.gz")));
+        final Report report = precompress(staging);
+        assertEquals(2, report.upToDate());
+        assertEquals(2, report.written());
+    }
+
+    private static Report precompress(Path directory) {
+        return precompressor(asList(Format.gzip, Format.zstd))
+            .precompress(directory);
+    }
+
+    private static Precompressor precompressor(List<Format> formats) {
+        return Precompressor.precompressor()
+            .withLog(new SystemStreamLog())
+            .withFormats(formats)
+            .build();
+    }
+
+    private static byte[] givenPage() {
+        final StringBuilder result = new StringBuilder();
+        while (result.length() < 64 * 1024) {
+            result.append("<p>Some paragraph of a page.</p>\n");
+        }
+        return result.toString().getBytes(UTF_8);
+    }
+
+}
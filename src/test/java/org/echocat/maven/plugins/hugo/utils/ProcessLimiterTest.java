@@ -0,0 +1,168 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.nio.file.Files.exists;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.echocat.maven.plugins.hugo.utils.ProcessLimiter.processLimiter;
+import static org.echocat.maven.plugins.hugo.utils.ProcessLimiter.unlimited;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.echocat.maven.plugins.hugo.utils.ProcessLimiter.JvmLimit;
+import org.echocat.maven.plugins.hugo.utils.ProcessLimiter.Permit;
+import org.echocat.maven.plugins.hugo.utils.ProcessLimiter.Scope;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProcessLimiterTest {
+
+    @Test
+    void acquire_unlimitedNeverBlocks() {
+        final Permit first = unlimited().acquire();
+        final Permit second = unlimited().acquire();
+        first.close();
+        second.close();
+        assertEquals(0, unlimited().limit());
+    }
+
+    @Test
+    void acquire_limitsConcurrencyInsideJvm() throws Exception {
+        final ProcessLimiter instance = processLimiter()
+            .withLog(new SystemStreamLog())
+            .withLimit(3)
+            .withJvmLimit(new JvmLimit())
+            .build();
+
+        assertEquals(3, maximumConcurrencyOf(instance, 8));
+    }
+
+    @Test
+    void acquire_sharesFirstLimitInsideJvm() throws Exception {
+        final JvmLimit jvmLimit = new JvmLimit();
+        final ProcessLimiter first = processLimiter()
+            .withLimit(1)
+            .withJvmLimit(jvmLimit)
+            .build();
+        final ProcessLimiter second = processLimiter()
+            .withLog(new SystemStreamLog())
+            .withLimit(4)
+            .withJvmLimit(jvmLimit)
+            .build();
+
+        assertEquals(1, maximumConcurrencyOf(first, second, 6));
+    }
+
+    @Test
+    void acquire_keepsSlotsLockedWhileOtherThreadsProbe(@TempDir Path tmpDir) throws Exception {
+        final ProcessLimiter instance = processLimiter()
+            .withLimit(2)
+            .withScope(Scope.machine)
+            .withLockDirectory(tmpDir)
+            .withJvmLimit(new JvmLimit())
+            .build();
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final Permit permit = instance.acquire();
+        try {
+            executor.submit(() -> {
+                instance.acquire().close();
+                return null;
+            }).get(10, SECONDS);
+
+            assertFalse(lockableByOtherProcess(tmpDir.resolve("slot-0.lock")));
+        } finally {
+            permit.close();
+            executor.shutdownNow();
+        }
+        assertTrue(lockableByOtherProcess(tmpDir.resolve("slot-0.lock")));
+    }
+
+    @Test
+    void acquire_limitsConcurrencyUsingLockFiles(@TempDir Path tmpDir) throws Exception {
+        final ProcessLimiter instance = processLimiter()
+            .withLog(new SystemStreamLog())
+            .withLimit(2)
+            .withScope(Scope.machine)
+            .withLockDirectory(tmpDir)
+            .withPollInterval(Duration.ofMillis(10))
+            .withJvmLimit(new JvmLimit())
+            .build();
+
+        assertEquals(2, maximumConcurrencyOf(instance, 6));
+        assertTrue(exists(tmpDir.resolve("slot-0.lock")));
+        assertTrue(exists(tmpDir.resolve("slot-1.lock")));
+        assertFalse(exists(tmpDir.resolve("slot-2.lock")));
+    }
+
+    private static boolean lockableByOtherProcess(Path file) throws Exception {
+        final Process process = new ProcessBuilder(
+            Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+            "-cp", System.getProperty("java.class.path"),
+            LockProbe.class.getName(),
+            file.toString()
+        ).inheritIO().start();
+        assertTrue(process.waitFor(30, SECONDS));
+        return process.exitValue() == 0;
+    }
+
+    private static int maximumConcurrencyOf(ProcessLimiter instance, int threads) throws Exception {
+        return maximumConcurrencyOf(instance, instance, threads);
+    }
+
+    // Alternates between both instances.
+    private static int maximumConcurrencyOf(ProcessLimiter even, ProcessLimiter odd, int threads) throws Exception {
+        final AtomicInteger current = new AtomicInteger();
+        final AtomicInteger maximum = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                final ProcessLimiter instance = i % 2 == 0 ? even : odd;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    final Permit permit = instance.acquire();
+                    try {
+                        maximum.accumulateAndGet(current.incrementAndGet(), Math::max);
+                        Thread.sleep(50);
+                        current.decrementAndGet();
+                    } finally {
+                        permit.close();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (final Future<?> future : futures) {
+                future.get(10, SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return maximum.get();
+    }
+
+    // Exits with 0 if it could lock the given file.
+    static final class LockProbe {
+
+        public static void main(String[] args) throws Exception {
+            try (final FileChannel channel = FileChannel.open(Paths.get(args[0]), CREATE, WRITE)) {
+                System.exit(channel.tryLock() != null ? 0 : 1);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.write;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.echocat.maven.plugins.hugo.utils.RenderSegments.renderSegmentsFor;
+import static org.echocat.maven.plugins.hugo.utils.RenderSegments.sectionWeightsOf;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.echocat.maven.plugins.hugo.utils.RenderSegments.Segment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.tomlj.Toml;
+import org.tomlj.TomlParseResult;
+
+class RenderSegmentsTest {
+
+    @Test
+    void renderSegmentsFor_balancesSectionsAndFirstShardTakesTheRest() {
+        final Map<String, Long> weights = new LinkedHashMap<>();
+        weights.put("blog", 10L);
+        weights.put("docs", 100L);
+        weights.put("news", 50L);
+        weights.put("about", 5L);
+
+        final List<Segment> actual = renderSegmentsFor(weights, 3).segments();
+
+        assertEquals(asList("shard1", "shard2", "shard3"), renderSegmentsFor(weights, 3).names());
+        assertEquals(emptyList(), actual.get(0).includes());
+        assertEquals(asList("about", "blog", "news"), actual.get(0).excludes());
+        assertEquals(singletonList("news"), actual.get(1).includes());
+        assertEquals(asList("about", "blog"), actual.get(2).includes());
+    }
+
+    @Test
+    void renderSegmentsFor_neverMoreShardsThanSections() {
+        final Map<String, Long> weights = new LinkedHashMap<>();
+        weights.put("docs", 100L);
+
+        assertEquals(singletonList("shard1"), renderSegmentsFor(weights, 4).names());
+        assertEquals(singletonList("shard1"), renderSegmentsFor(new LinkedHashMap<>(), 4).names());
+    }
+
+    @Test
+    void toToml_isValidHugoSegmentsConfig(@TempDir Path tmpDir) throws Exception {
+        createDirectories(tmpDir.resolve("docs").resolve("a"));
+        createDirectories(tmpDir.resolve("blog"));
+        write(tmpDir.resolve("docs").resolve("a").resolve("x.md"), asList("x"), UTF_8);
+        write(tmpDir.resolve("docs").resolve("y.md"), asList("y"), UTF_8);
+        write(tmpDir.resolve("blog").resolve("z.md"), asList("z"), UTF_8);
+        write(tmpDir.resolve("_index.md"), asList("home"), UTF_8);
+
+        assertEquals(2L, sectionWeightsOf(tmpDir).get("docs"));
+        assertEquals(1L, sectionWeightsOf(tmpDir).get("blog"));
+
+        final TomlParseResult actual = Toml.parse(renderSegmentsFor(tmpDir, 2).toToml());
+
+        assertFalse(actual.hasErrors(), actual.errors().toString());
+        assertEquals("{/blog,/blog/**}", actual.getArray("segments.shard1.excludes").getTable(0).getString("path"));
+        assertEquals("{/blog,/blog/**}", actual.getArray("segments.shard2.includes").getTable(0).getString("path"));
+    }
+
+}
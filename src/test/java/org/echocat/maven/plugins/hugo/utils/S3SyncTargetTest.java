@@ -0,0 +1,283 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.*;
+import static java.util.Collections.singletonList;
+import static org.echocat.maven.plugins.hugo.model.Manifest.emptyManifest;
+import static org.echocat.maven.plugins.hugo.utils.ManifestGenerator.manifestGenerator;
+import static org.echocat.maven.plugins.hugo.utils.S3Signer.credentialsOf;
+import static org.echocat.maven.plugins.hugo.utils.S3Signer.hexOf;
+import static org.echocat.maven.plugins.hugo.utils.S3Signer.s3Signer;
+import static org.echocat.maven.plugins.hugo.utils.S3SyncTarget.MIN_PART_SIZE;
+import static org.echocat.maven.plugins.hugo.utils.S3SyncTarget.s3SyncTarget;
+import static org.echocat.maven.plugins.hugo.utils.Synchronizer.DEFAULT_MANIFEST_KEY;
+import static org.echocat.maven.plugins.hugo.utils.Synchronizer.synchronizer;
+import static org.echocat.maven.plugins.hugo.utils.TestFiles.givenFile;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.echocat.maven.plugins.hugo.model.Manifest;
+import org.echocat.maven.plugins.hugo.model.Manifest.Entry;
+import org.echocat.maven.plugins.hugo.utils.Synchronizer.Report;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class S3SyncTargetTest {
+
+    private FakeS3 s3;
+
+    @BeforeEach
+    void startS3() throws IOException {
+        s3 = new FakeS3();
+    }
+
+    @AfterEach
+    void stopS3() {
+        s3.server.stop(0);
+    }
+
+    @Test
+    void sync_uploadsChangesWithMultipartAndDeletesRemoved(@TempDir Path tmpDir) throws Exception {
+        final Path output = tmpDir.resolve("output");
+        givenFile(output, "index.html", "home".getBytes(UTF_8));
+        givenFile(output, "old.html", "old".getBytes(UTF_8));
+        givenFile(output, "video/big.mp4", new byte[(int) (MIN_PART_SIZE * 2 + 1024)]);
+
+        final Report first = sync(output, true);
+        assertEquals(3, first.uploaded().size());
+        assertEquals("home", new String(s3.objects.get("site/index.html"), UTF_8));
+        assertEquals("no-cache", s3.cacheControls.get("site/index.html"));
+        assertEquals(MIN_PART_SIZE * 2 + 1024, s3.objects.get("site/video/big.mp4").length);
+        assertTrue(s3.etags.get("site/video/big.mp4").endsWith("-3"));
+        assertTrue(s3.objects.containsKey("site/" + DEFAULT_MANIFEST_KEY));
+
+        givenFile(output, "index.html", "HOME".getBytes(UTF_8));
+        delete(output.resolve("old.html"));
+        final Report second = sync(output, true);
+        assertEquals("remote manifest", second.basis());
+        assertEquals(singletonList("index.html"), second.uploaded().stream().map(Entry::path).collect(Collectors.toList()));
+        assertEquals(singletonList("old.html"), second.deleted());
+        assertEquals("HOME", new String(s3.objects.get("site/index.html"), UTF_8));
+        assertFalse(s3.objects.containsKey("site/old.html"));
+    }
+
+    @Test
+    void sync_comparesETagsOfListingWithoutManifest(@TempDir Path tmpDir) throws Exception {
+        final Path output = tmpDir.resolve("output");
+        givenFile(output, "index.html", "home".getBytes(UTF_8));
+        givenFile(output, "css/site.css", "body{}".getBytes(UTF_8));
+        givenFile(output, "js/site.js", "alert(1)".getBytes(UTF_8));
+        givenFile(output, "video/big.mp4", new byte[(int) (MIN_PART_SIZE + 1)]);
+        sync(output, false);
+        s3.objects.remove("site/" + DEFAULT_MANIFEST_KEY);
+        s3.objects.put("site/stale.html", "stale".getBytes(UTF_8));
+        s3.objects.put("other/index.html", "other".getBytes(UTF_8));
+        givenFile(output, "css/site.css", "body{ }".getBytes(UTF_8));
+
+        final Report actual = sync(output, false);
+
+        assertEquals("listing", actual.basis());
+        assertEquals(singletonList("css/site.css"), actual.uploaded().stream().map(Entry::path).collect(Collectors.toList()));
+        assertEquals(3, actual.unchanged());
+        assertEquals(1, actual.stale());
+        assertTrue(s3.objects.containsKey("site/stale.html"));
+    }
+
+    @Test
+    void etagOf_isPlainMd5IfThresholdIsLargerThanPartSize(@TempDir Path tmpDir) throws Exception {
+        final byte[] content = new byte[(int) (MIN_PART_SIZE + 1024)];
+        content[0] = 1;
+        final Path file = givenFile(tmpDir, "big.bin", content);
+        final S3SyncTarget instance = target(MIN_PART_SIZE, MIN_PART_SIZE * 4);
+
+        final String actual = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> instance.etagOf(file, content.length));
+
+        assertEquals(hexOf(MessageDigest.getInstance("MD5").digest(content)), actual);
+    }
+
+    private Report sync(Path output, boolean delete) {
+        final Manifest manifest = manifestGenerator()
+            .withLog(new SystemStreamLog())
+            .build()
+            .generate(output, emptyManifest())
+            .manifest();
+        return synchronizer()
+            .withLog(new SystemStreamLog())
+            .withTarget(target(MIN_PART_SIZE, MIN_PART_SIZE))
+            .withConcurrency(4)
+            .withDelete(delete)
+            .withCacheControls(singletonList("**/*.html=no-cache"))
+            .build()
+            .sync(output, manifest);
+    }
+
+    private S3SyncTarget target(long partSize, long multipartThreshold) {
+        return s3SyncTarget()
+            .withLog(new SystemStreamLog())
+            .withSigner(s3Signer().withCredentials(credentialsOf("access", "secret", null)).build())
+            .withEndpoint(URI.create("http://127.0.0.1:" + s3.server.getAddress().getPort()))
+            .withBucket("bucket")
+            .withPrefix("/site")
+            .withPathStyle(true)
+            .withPartSize(partSize)
+            .withMultipartThreshold(multipartThreshold)
+            .build();
+    }
+
+    // Just enough of the S3 REST API (path style) for the synchronizer; lists with small pages to cover continuations.
+    private static final class FakeS3 {
+
+        private final HttpServer server;
+        private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+        private final Map<String, String> etags = new ConcurrentHashMap<>();
+        private final Map<String, String> cacheControls = new ConcurrentHashMap<>();
+        private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+
+        private FakeS3() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/", exchange -> {
+                try {
+                    handle(exchange);
+                } catch (Exception e) {
+                    respond(exchange, 500, e.toString().getBytes(UTF_8), null);
+                }
+            });
+            server.start();
+        }
+
+        private void handle(HttpExchange exchange) throws Exception {
+            final String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if (authorization == null || !authorization.startsWith("AWS4-HMAC-SHA256 Credential=access/")) {
+                respond(exchange, 403, "<Error><Code>AccessDenied</Code></Error>".getBytes(UTF_8), null);
+                return;
+            }
+            final Map<String, String> query = queryOf(exchange.getRequestURI().getRawQuery());
+            final String path = exchange.getRequestURI().getPath();
+            final String method = exchange.getRequestMethod();
+            final byte[] body = readFully(exchange.getRequestBody());
+            if (path.equals("/bucket") && method.equals("GET")) {
+                list(exchange, query);
+                return;
+            }
+            final String key = path.substring("/bucket/".length());
+            if (method.equals("POST") && query.containsKey("uploads")) {
+                uploads.put(key + "#1", new TreeMap<>());
+                cacheControls.put(key, String.valueOf(exchange.getRequestHeaders().getFirst("Cache-Control")));
+                respond(exchange, 200, ("<InitiateMultipartUploadResult><UploadId>" + key + "#1</UploadId></InitiateMultipartUploadResult>").getBytes(UTF_8), null);
+            } else if (method.equals("PUT") && query.containsKey("uploadId")) {
+                uploads.get(query.get("uploadId")).put(Integer.parseInt(query.get("partNumber")), body);
+                respond(exchange, 200, new byte[0], "\"" + hexOf(md5(body)) + "\"");
+            } else if (method.equals("POST") && query.containsKey("uploadId")) {
+                final Map<Integer, byte[]> parts = uploads.remove(query.get("uploadId"));
+                final ByteArrayOutputStream content = new ByteArrayOutputStream();
+                final ByteArrayOutputStream md5s = new ByteArrayOutputStream();
+                for (final byte[] part : parts.values()) {
+                    content.write(part);
+                    md5s.write(md5(part));
+                }
+                objects.put(key, content.toByteArray());
+                etags.put(key, hexOf(md5(md5s.toByteArray())) + "-" + parts.size());
+                respond(exchange, 200, "<CompleteMultipartUploadResult/>".getBytes(UTF_8), null);
+            } else if (method.equals("PUT")) {
+                objects.put(key, body);
+                etags.put(key, hexOf(md5(body)));
+                cacheControls.put(key, String.valueOf(exchange.getRequestHeaders().getFirst("Cache-Control")));
+                respond(exchange, 200, new byte[0], "\"" + etags.get(key) + "\"");
+            } else if (method.equals("GET")) {
+                final byte[] content = objects.get(key);
+                respond(exchange, content != null ? 200 : 404, content != null ? content : "<Error><Code>NoSuchKey</Code></Error>".getBytes(UTF_8), null);
+            } else if (method.equals("DELETE")) {
+                objects.remove(key);
+                etags.remove(key);
+                respond(exchange, 204, null, null);
+            } else {
+                respond(exchange, 405, new byte[0], null);
+            }
+        }
+
+        private void list(HttpExchange exchange, Map<String, String> query) throws IOException {
+            final String prefix = query.getOrDefault("prefix", "");
+            final List<String> keys = new TreeMap<>(objects).keySet().stream()
+                .filter(key -> key.startsWith(prefix))
+                .collect(Collectors.toList());
+            final int start = Integer.parseInt(query.getOrDefault("continuation-token", "0"));
+            final int end = Math.min(keys.size(), start + 2);
+            final StringBuilder result = new StringBuilder("<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">");
+            for (final String key : keys.subList(start, end)) {
+                result.append("<Contents><Key>").append(key).append("</Key><Size>").append(objects.get(key).length)
+                    .append("</Size><ETag>&quot;").append(etags.computeIfAbsent(key, k -> hexOf(md5(objects.get(k))))).append("&quot;</ETag></Contents>");
+            }
+            result.append("<IsTruncated>").append(end < keys.size()).append("</IsTruncated>");
+            if (end < keys.size()) {
+                result.append("<NextContinuationToken>").append(end).append("</NextContinuationToken>");
+            }
+            respond(exchange, 200, result.append("</ListBucketResult>").toString().getBytes(UTF_8), null);
+        }
+
+        private static void respond(HttpExchange exchange, int status, byte[] body, String etag) throws IOException {
+            if (etag != null) {
+                exchange.getResponseHeaders().add("ETag", etag);
+            }
+            exchange.sendResponseHeaders(status, body == null || body.length == 0 ? -1 : body.length);
+            try (final OutputStream os = exchange.getResponseBody()) {
+                if (body != null && body.length > 0) {
+                    os.write(body);
+                }
+            }
+        }
+
+        private static Map<String, String> queryOf(String raw) throws IOException {
+            final Map<String, String> result = new HashMap<>();
+            if (raw != null) {
+                for (final String pair : raw.split("&")) {
+                    final int separator = pair.indexOf('=');
+                    result.put(
+                        URLDecoder.decode(separator >= 0 ? pair.substring(0, separator) : pair, "UTF-8"),
+                        separator >= 0 ? URLDecoder.decode(pair.substring(separator + 1), "UTF-8") : ""
+                    );
+                }
+            }
+            return result;
+        }
+
+        private static byte[] readFully(InputStream is) throws IOException {
+            final ByteArrayOutputStream result = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = is.read(buffer)) > 0) {
+                result.write(buffer, 0, read);
+            }
+            return result.toByteArray();
+        }
+
+        private static byte[] md5(byte[] content) {
+            try {
+                return MessageDigest.getInstance("MD5").digest(content);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.*;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.echocat.maven.plugins.hugo.model.Manifest.emptyManifest;
+import static org.echocat.maven.plugins.hugo.utils.FileSystemSyncTarget.fileSystemSyncTarget;
+import static org.echocat.maven.plugins.hugo.utils.ManifestGenerator.manifestGenerator;
+import static org.echocat.maven.plugins.hugo.utils.Synchronizer.DEFAULT_MANIFEST_KEY;
+import static org.echocat.maven.plugins.hugo.utils.Synchronizer.synchronizer;
+import static org.echocat.maven.plugins.hugo.utils.TestFiles.givenFile;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.echocat.maven.plugins.hugo.model.Manifest;
+import org.echocat.maven.plugins.hugo.model.Manifest.Entry;
+import org.echocat.maven.plugins.hugo.utils.Synchronizer.Report;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SynchronizerTest {
+
+    @Test
+    void sync_copiesOnlyChangedFilesAndDeletesRemoved(@TempDir Path tmpDir) throws Exception {
+        final Path output = tmpDir.resolve("output");
+        final Path target = tmpDir.resolve("target");
+        givenFile(output, "index.html", "home");
+        givenFile(output, "css/site.css", "body{}");
+        givenFile(output, "old/index.html", "old");
+
+        final Report first = sync(output, target, true);
+        assertEquals(3, first.uploaded().size());
+        assertEquals("home", new String(readAllBytes(target.resolve("index.html")), UTF_8));
+        assertTrue(exists(target.resolve(DEFAULT_MANIFEST_KEY)));
+
+        givenFile(output, "index.html", "HOME");
+        delete(output.resolve("old/index.html"));
+        final Report second = sync(output, target, true);
+        assertEquals("remote manifest", second.basis());
+        assertEquals(singletonList("index.html"), second.uploaded().stream().map(Entry::path).collect(Collectors.toList()));
+        assertEquals(1, second.unchanged());
+        assertEquals(singletonList("old/index.html"), second.deleted());
+        assertEquals("HOME", new String(readAllBytes(target.resolve("index.html")), UTF_8));
+        assertFalse(exists(target.resolve("old")));
+
+        assertEquals(0, sync(output, target, true).uploaded().size());
+    }
+
+    @Test
+    void sync_comparesContentOfTargetWithoutManifest(@TempDir Path tmpDir) throws Exception {
+        final Path output = tmpDir.resolve("output");
+        final Path target = tmpDir.resolve("target");
+        givenFile(output, "index.html", "home");
+        givenFile(output, "css/site.css", "body{}");
+        givenFile(target, "index.html", "home");
+        givenFile(target, "css/site.css", "body{ }");
+        givenFile(target, "stale.html", "stale");
+
+        final Report actual = synchronizer()
+            .withLog(new SystemStreamLog())
+            .withTarget(fileSystemSyncTarget().withLog(new SystemStreamLog()).withRoot(target).build())
+            .withManifestKey(null)
+            .build()
+            .sync(output, manifestOf(output));
+
+        assertEquals("listing", actual.basis());
+        assertEquals(singletonList("css/site.css"), actual.uploaded().stream().map(Entry::path).collect(Collectors.toList()));
+        assertEquals(1, actual.unchanged());
+        assertEquals(1, actual.stale());
+        assertTrue(exists(target.resolve("stale.html")));
+        assertFalse(exists(target.resolve(DEFAULT_MANIFEST_KEY)));
+    }
+
+    @Test
+    void sync_keepsStaleFilesInManifestUntilDeletionIsEnabled(@TempDir Path tmpDir) throws Exception {
+        final Path output = tmpDir.resolve("output");
+        final Path target = tmpDir.resolve("target");
+        givenFile(output, "index.html", "home");
+        givenFile(output, "old/index.html", "old");
+        sync(output, target, false);
+
+        delete(output.resolve("old/index.html"));
+        final Report withoutDelete = sync(output, target, false);
+        assertEquals(1, withoutDelete.stale());
+        assertTrue(exists(target.resolve("old/index.html")));
+
+        final Report again = sync(output, target, false);
+        assertEquals("remote manifest", again.basis());
+        assertEquals(1, again.stale());
+
+        final Report withDelete = sync(output, target, true);
+        assertEquals(singletonList("old/index.html"), withDelete.deleted());
+        assertFalse(exists(target.resolve("old")));
+        assertEquals(0, sync(output, target, true).deleted().size());
+    }
+
+    @Test
+    void cacheControlOf_usesFirstMatchingRule() {
+        final Synchronizer instance = synchronizer()
+            .withLog(new SystemStreamLog())
+            .withTarget(fileSystemSyncTarget().withLog(new SystemStreamLog()).withRoot(Paths.get("target")).build())
+            .withCacheControls(asList("**/*.html=no-cache", "css/**=public, max-age=31536000, immutable"))
+            .build();
+
+        assertEquals(Optional.of("no-cache"), instance.cacheControlOf("docs/index.html"));
+        assertEquals(Optional.of("no-cache"), instance.cacheControlOf("index.html"));
+        assertEquals(Optional.of("public, max-age=31536000, immutable"), instance.cacheControlOf("css/site.css"));
+        assertEquals(Optional.empty(), instance.cacheControlOf("images/logo.png"));
+        assertThrows(IllegalArgumentException.class, () -> synchronizer().withCacheControls(singletonList("**/*.html")));
+    }
+
+    private static Report sync(Path output, Path target, boolean delete) {
+        return synchronizer()
+            .withLog(new SystemStreamLog())
+            .withTarget(fileSystemSyncTarget().withLog(new SystemStreamLog()).withRoot(target).build())
+            .withDelete(delete)
+            .build()
+            .sync(output, manifestOf(output));
+    }
+
+    private static Manifest manifestOf(Path output) {
+        return manifestGenerator()
+            .withLog(new SystemStreamLog())
+            .build()
+            .generate(output, emptyManifest())
+            .manifest();
+    }
+
+}
@@ -0,0 +1,90 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.*;
+import static java.util.Collections.singletonList;
+import static org.echocat.maven.plugins.hugo.model.Platform.linux_amd64;
+import static org.echocat.maven.plugins.hugo.model.Platform.linux_arm64;
+import static org.echocat.maven.plugins.hugo.utils.SystemHugoLocator.parseVersionOutput;
+import static org.echocat.maven.plugins.hugo.utils.SystemHugoLocator.systemHugoLocator;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+import com.github.zafarkhaja.semver.Version;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.echocat.maven.plugins.hugo.model.Platform;
+import org.echocat.maven.plugins.hugo.utils.SystemHugoLocator.Installation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SystemHugoLocatorTest {
+
+    @BeforeEach
+    void assumeUnix() {
+        assumeFalse(System.getProperty("os.name", "").toLowerCase().startsWith("windows"));
+    }
+
+    @Test
+    void parseVersionOutput_variants() {
+        assertEquals(Optional.of("0.145.0;extended"), parseVersionOutput("hugo v0.145.0-666444f0a52132f9fec9f71cf25b441cc6a4f355+extended linux/amd64 BuildDate=2025-02-26T15:41:25Z"));
+        assertEquals(Optional.of("0.139.0;extended"), parseVersionOutput("hugo v0.139.0+extended+withdeploy linux/amd64 BuildDate=unknown"));
+        assertEquals(Optional.of("0.80.0;extended"), parseVersionOutput("Hugo Static Site Generator v0.80.0-A7D4E5D4/extended linux/amd64 BuildDate: 2020-12-31T13:37:57Z"));
+        assertEquals(Optional.of("0.131.0"), parseVersionOutput("hugo v0.131.0 linux/arm64 BuildDate=unknown VendorInfo=debian"));
+        assertEquals(Optional.empty(), parseVersionOutput("something else"));
+    }
+
+    @Test
+    void find_matchingVersionAndProbesOnlyOnce(@TempDir Path tmpDir) throws Exception {
+        final Path counter = tmpDir.resolve("counter");
+        final Path executable = givenHugo(tmpDir.resolve("bin"), "hugo v0.145.0-abc+extended linux/amd64 BuildDate=unknown", counter);
+
+        assertEquals(Optional.of(executable.toRealPath()), givenInstance(tmpDir, linux_amd64).find(Version.of(0, 145, 0)).map(Installation::executable));
+        assertEquals(Optional.empty(), givenInstance(tmpDir, linux_amd64).find(Version.of(0, 144, 0)));
+        assertEquals(singletonList(Version.of(0, 145, 0)), givenInstance(tmpDir, linux_amd64).versions());
+
+        assertEquals(1, readAllLines(counter).size());
+    }
+
+    @Test
+    void find_requiresExtendedWhereProvided(@TempDir Path tmpDir) throws Exception {
+        givenHugo(tmpDir.resolve("bin"), "hugo v0.145.0 linux/amd64 BuildDate=unknown", tmpDir.resolve("counter"));
+
+        assertEquals(Optional.empty(), givenInstance(tmpDir, linux_amd64).find(Version.of(0, 145, 0)));
+        assertTrue(givenInstance(tmpDir, linux_arm64).find(Version.of(0, 145, 0)).isPresent());
+    }
+
+    @Test
+    void find_reprobesChangedExecutable(@TempDir Path tmpDir) throws Exception {
+        final Path counter = tmpDir.resolve("counter");
+        givenHugo(tmpDir.resolve("bin"), "hugo v0.145.0+extended linux/amd64", counter);
+        assertTrue(givenInstance(tmpDir, linux_amd64).find(Version.of(0, 145, 0)).isPresent());
+
+        givenHugo(tmpDir.resolve("bin"), "hugo v0.146.10+extended linux/amd64", counter);
+        assertTrue(givenInstance(tmpDir, linux_amd64).find(Version.of(0, 146, 10)).isPresent());
+
+        assertEquals(2, readAllLines(counter).size());
+    }
+
+    private static SystemHugoLocator givenInstance(Path tmpDir, Platform platform) {
+        return systemHugoLocator()
+            .withLog(new SystemStreamLog())
+            .withPlatform(platform)
+            .withLocations(singletonList(tmpDir.resolve("bin")))
+            .withIncludePath(false)
+            .withProbeCacheFile(tmpDir.resolve("probes"))
+            .build();
+    }
+
+    private static Path givenHugo(Path directory, String versionOutput, Path counter) throws Exception {
+        createDirectories(directory);
+        final Path result = directory.resolve("hugo");
+        write(result, ("#!/bin/sh\necho probed >> '" + counter + "'\necho '" + versionOutput + "'\n").getBytes(UTF_8));
+        assertTrue(result.toFile().setExecutable(true));
+        return result;
+    }
+
+}
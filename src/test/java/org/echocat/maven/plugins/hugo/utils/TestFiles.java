@@ -0,0 +1,26 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.write;
+
+import java.nio.file.Path;
+
+final class TestFiles {
+
+    // Creates (or replaces) the file name inside base, including its parent directories, and returns it.
+    static Path givenFile(Path base, String name, String content) throws Exception {
+        return givenFile(base, name, content.getBytes(UTF_8));
+    }
+
+    static Path givenFile(Path base, String name, byte[] content) throws Exception {
+        final Path file = base.resolve(name);
+        createDirectories(file.getParent());
+        write(file, content);
+        return file;
+    }
+
+    private TestFiles() {
+    }
+
+}
@@ -0,0 +1,115 @@
+package org.echocat.maven.plugins.hugo.utils;
+
+import static java.nio.file.Files.*;
+import static java.util.Arrays.asList;
+import static org.echocat.maven.plugins.hugo.model.OutputWeights.weightOf;
+import static org.echocat.maven.plugins.hugo.utils.TestFiles.givenFile;
+import static org.echocat.maven.plugins.hugo.utils.WeightAnalyzer.weightAnalyzer;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.echocat.maven.plugins.hugo.utils.WeightAnalyzer.Report;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WeightAnalyzerTest {
+
+    private static final String HOME = "<html><link rel=\"stylesheet\" href=\"/css/main.css?v=1\"><link rel=canonical href=/><img src='img/logo.png'><script src=\"https://cdn.example.org/x.js\"></script></html>";
+    private static final String POST = "<html><link rel=\"stylesheet\" href=\"../../css/main.css\"><img srcset=\"../../img/logo.png 1x, ../../img/large.png 2x\"><img src=\"../../img/logo.png\"></html>";
+    private static final String CSS = "body{color:red}";
+
+    @Test
+    void analyze_aggregatesOutputAndWeighsPages(@TempDir Path tmpDir) throws Exception {
+        final Path output = givenOutput(tmpDir);
+
+        final Report actual = weightAnalyzer()
+            .withLog(new SystemStreamLog())
+            .build()
+            .analyze(output, tmpDir.resolve("state/weights.json"));
+
+        final long total = HOME.length() + POST.length() + CSS.length() + 100 + 1000;
+        assertEquals(5, actual.weights().files());
+        assertEquals(total, actual.weights().total());
+        assertEquals((long) HOME.length(), actual.weights().sections().get("/"));
+        assertEquals((long) POST.length(), actual.weights().sections().get("blog"));
+        assertEquals(HOME.length() + POST.length(), (long) actual.weights().types().get("html"));
+        assertEquals(weightOf("img/large.png", 1000), actual.weights().largestFiles().get(0));
+        assertEquals(asList(
+            weightOf("index.html", HOME.length() + CSS.length() + 100),
+            weightOf("blog/post/index.html", POST.length() + CSS.length() + 100)
+        ), actual.weights().heaviestPages());
+        assertFalse(actual.previous().isPresent());
+        assertTrue(actual.violations().isEmpty());
+        assertTrue(exists(tmpDir.resolve("state/weights.json")));
+    }
+
+    @Test
+    void analyze_comparesWithPreviousBuildAndChecksBudgets(@TempDir Path tmpDir) throws Exception {
+        final Path output = givenOutput(tmpDir);
+        final Path budgets = givenFile(tmpDir, "budgets.properties", "page=200B\ntype.png=1KiB\nsection.blog=1MiB\n");
+        final WeightAnalyzer instance = weightAnalyzer()
+            .withLog(new SystemStreamLog())
+            .withBudgetFile(budgets)
+            .withTotalBudget(10 * 1024)
+            .build();
+        instance.analyze(output, tmpDir.resolve("state/weights.json"));
+        givenFile(output, "img/logo.png", repeat('b', 200));
+
+        final Report actual = instance.analyze(output, tmpDir.resolve("state/weights.json"));
+
+        assertTrue(actual.previous().isPresent());
+        assertEquals(actual.weights().total() - 100, actual.previous().get().total());
+        assertTrue(actual.details().contains("type png: 1.2 KiB (+100 B)"), actual.details().toString());
+        assertEquals(asList(
+            "Files of type png weigh 1.2 KiB which exceeds their budget of 1.0 KiB.",
+            "Page index.html weighs " + Strings.formatBytes(HOME.length() + CSS.length() + 200) + " (HTML and referenced assets) which exceeds the budget of 200 B.",
+            "Page blog/post/index.html weighs " + Strings.formatBytes(POST.length() + CSS.length() + 200) + " (HTML and referenced assets) which exceeds the budget of 200 B."
+        ), actual.violations());
+    }
+
+    @Test
+    void withBudgetFile_rejectsUnknownBudgets(@TempDir Path tmpDir) throws Exception {
+        final Path budgets = givenFile(tmpDir, "budgets.properties", "pages=1MiB\n");
+
+        assertThrows(IllegalArgumentException.class, () -> weightAnalyzer().withBudgetFile(budgets));
+    }
+
+    @Test
+    void resolve_findsLocalFiles() {
+        final Map<String, Long> sizes = new HashMap<>();
+        sizes.put("css/main.css", 1L);
+        sizes.put("blog/a b.png", 1L);
+
+        assertEquals(Optional.of("css/main.css"), WeightAnalyzer.resolve("blog/index.html", "../css/main.css#x", sizes));
+        assertEquals(Optional.of("css/main.css"), WeightAnalyzer.resolve("blog/index.html", "/docs/css/main.css", sizes));
+        assertEquals(Optional.of("blog/a b.png"), WeightAnalyzer.resolve("blog/index.html", "a%20b.png", sizes));
+        assertEquals(Optional.empty(), WeightAnalyzer.resolve("blog/index.html", "../../../css/main.css", sizes));
+        assertEquals(Optional.empty(), WeightAnalyzer.resolve("blog/index.html", "//cdn.example.org/css/main.css", sizes));
+        assertEquals(Optional.empty(), WeightAnalyzer.resolve("blog/index.html", "data:image/png;base64,AAAA", sizes));
+    }
+
+    private static Path givenOutput(Path tmpDir) throws Exception {
+        final Path output = tmpDir.resolve("output");
+        givenFile(output, "index.html", HOME);
+        givenFile(output, "blog/post/index.html", POST);
+        givenFile(output, "css/main.css", CSS);
+        givenFile(output, "css/main.css.gz", "compressed");
+        givenFile(output, "img/logo.png", repeat('a', 100));
+        givenFile(output, "img/large.png", repeat('a', 1000));
+        return output;
+    }
+
+    private static String repeat(char c, int times) {
+        final StringBuilder result = new StringBuilder(times);
+        for (int i = 0; i < times; i++) {
+            result.append(c);
+        }
+        return result.toString();
+    }
+
+}